@@ -23,6 +23,7 @@ import aQute.bnd.osgi.Constants;
 import aQute.bnd.service.Plugin;
 import aQute.service.reporter.Reporter;
 import org.eclipse.transformer.AppOption;
+import org.eclipse.transformer.ProgressReporter;
 import org.eclipse.transformer.TransformOptions;
 import org.eclipse.transformer.Transformer;
 import org.eclipse.transformer.action.ActionContext;
@@ -66,6 +67,8 @@ public class BaseTransformerPlugin implements Plugin {
 		TransformOptions options = new TransformerPluginOptions(analyzer, parameters, getOptionDefaults(),
 			getRuleLoader());
 		Transformer transformer = new Transformer(getLogger(), options);
+		// Long transforms log their progress periodically.
+		transformer.setProgressListener(new ProgressReporter(getLogger()));
 		// For use as the resolve base
 		URI base = analyzer.getBaseURI();
 		if (base != null) {
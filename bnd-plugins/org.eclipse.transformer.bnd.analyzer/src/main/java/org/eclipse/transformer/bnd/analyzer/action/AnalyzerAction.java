@@ -32,6 +32,7 @@ import org.eclipse.transformer.action.ActionType;
 import org.eclipse.transformer.action.ByteData;
 import org.eclipse.transformer.action.Changes;
 import org.eclipse.transformer.action.ElementAction;
+import org.eclipse.transformer.action.ProgressListener;
 import org.eclipse.transformer.action.impl.ByteDataImpl;
 import org.eclipse.transformer.action.impl.ContainerActionImpl;
 
@@ -61,6 +62,7 @@ public class AnalyzerAction extends ContainerActionImpl {
 		Jar jar = analyzer.getJar();
 		String manifestName = jar.getManifestName();
 		String bundleSymbolicName = analyzer.getBsn();
+		ProgressListener progress = getContext().progress();
 		startRecording(bundleSymbolicName);
 		try {
 			setResourceNames(bundleSymbolicName, bundleSymbolicName);
@@ -71,70 +73,77 @@ public class AnalyzerAction extends ContainerActionImpl {
 				inputPaths.add(manifestName); // process manifest first
 			}
 			inputPaths.addAll(resources.keySet());
+			progress.transformStarted(bundleSymbolicName, inputPaths.size(), ProgressListener.UNKNOWN);
 			for (String inputPath : inputPaths) {
-				Action action = selectAction(inputPath);
-				if (action == null) {
-					recordUnaccepted(inputPath);
-					continue;
-				} else if (!selectResource(inputPath)) {
-					recordUnselected(inputPath);
-					continue;
-				} else if (!action.isElementAction()) {
-					analyzer.warning(
-						"Strange non-element action %s for %s: Ignoring", action.getClass()
-						.getName(), inputPath);
-					recordUnaccepted(inputPath);
-					continue;
-				}
-
+				getActiveChanges().startEntry(inputPath, -1L);
 				try {
-					Resource resource = jar.getResource(inputPath);
-					if (inputPath.equals(manifestName)) {
-						if (resource == null) {
-							Manifest manifest = jar.getManifest();
-							if (manifest == null) {
-								continue; // no calculated manifest
+					Action action = selectAction(inputPath);
+					if (action == null) {
+						recordUnaccepted(inputPath);
+						continue;
+					} else if (!selectResource(inputPath)) {
+						recordUnselected(inputPath);
+						continue;
+					} else if (!action.isElementAction()) {
+						analyzer.warning(
+							"Strange non-element action %s for %s: Ignoring", action.getClass()
+							.getName(), inputPath);
+						recordUnaccepted(inputPath);
+						continue;
+					}
+
+					try {
+						Resource resource = jar.getResource(inputPath);
+						if (inputPath.equals(manifestName)) {
+							if (resource == null) {
+								Manifest manifest = jar.getManifest();
+								if (manifest == null) {
+									continue; // no calculated manifest
+								}
+								resource = new ManifestResource(manifest);
 							}
-							resource = new ManifestResource(manifest);
 						}
-					}
-					ByteBuffer bb = resource.buffer();
-					ByteData inputData;
-					if (bb != null) {
-						Charset charset = resourceCharset(inputPath);
-						inputData = new ByteDataImpl(inputPath, bb, charset);
-					} else {
-						inputData = collect(inputPath, resource.openInputStream(),
-							Math.toIntExact(resource.size()));
-					}
-					ByteData outputData = ((ElementAction)action).apply(inputData);
-					recordAction(action, inputPath);
-					Changes changes = action.getLastActiveChanges();
-					if (changes.isChanged()) {
-						String outputPath = outputData.name();
-						getLogger().debug("[ {}.apply ]: Active transform [ {} ] [ {} ]", action.getClass()
-							.getSimpleName(), inputPath, outputPath);
-						if (changes.isRenamed()) {
-							if (!isOverwrite() && (jar.getResource(outputPath) != null)) {
-								recordDuplicate(action, inputPath);
-								analyzer.error(
-									"Transform for %s overwrites existing resource %s. Use 'overwrite' option to allow overwriting.",
-									inputPath, outputPath);
-								continue;
+						ByteBuffer bb = resource.buffer();
+						ByteData inputData;
+						if (bb != null) {
+							Charset charset = resourceCharset(inputPath);
+							inputData = new ByteDataImpl(inputPath, bb, charset);
+						} else {
+							inputData = collect(inputPath, resource.openInputStream(),
+								Math.toIntExact(resource.size()));
+						}
+						ByteData outputData = ((ElementAction)action).apply(inputData);
+						recordAction(action, inputPath);
+						Changes changes = action.getLastActiveChanges();
+						if (changes.isChanged()) {
+							String outputPath = outputData.name();
+							getLogger().debug("[ {}.apply ]: Active transform [ {} ] [ {} ]", action.getClass()
+								.getSimpleName(), inputPath, outputPath);
+							if (changes.isRenamed()) {
+								if (!isOverwrite() && (jar.getResource(outputPath) != null)) {
+									recordDuplicate(action, inputPath);
+									analyzer.error(
+										"Transform for %s overwrites existing resource %s. Use 'overwrite' option to allow overwriting.",
+										inputPath, outputPath);
+									continue;
+								}
+								jar.remove(inputPath);
 							}
-							jar.remove(inputPath);
+							Resource outputResource = changes.isContentChanged()
+								? new EmbeddedResource(outputData.buffer(), resource.lastModified())
+								: resource;
+							jar.putResource(outputPath, outputResource);
 						}
-						Resource outputResource = changes.isContentChanged()
-							? new EmbeddedResource(outputData.buffer(), resource.lastModified())
-							: resource;
-						jar.putResource(outputPath, outputResource);
+					} catch (Exception e) {
+						analyzer.exception(e, "Failure while transforming %s", inputPath);
+						recordError(action, inputPath, e);
 					}
-				} catch (Exception e) {
-					analyzer.exception(e, "Failure while transforming %s", inputPath);
-					recordError(action, inputPath, e);
+				} finally {
+					getActiveChanges().endEntry(inputPath, -1L);
 				}
 			}
 		} finally {
+			progress.transformFinished(bundleSymbolicName);
 			stopRecording(bundleSymbolicName);
 		}
 	}
@@ -11,7 +11,10 @@
 
 package org.eclipse.transformer.maven;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.Set;
 
 import aQute.bnd.osgi.Jar;
@@ -22,11 +25,13 @@ import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.eclipse.transformer.AppOption;
+import org.eclipse.transformer.ProgressReporter;
 import org.eclipse.transformer.TransformOptions;
 import org.eclipse.transformer.Transformer;
 import org.eclipse.transformer.maven.action.TransformerJarAction;
 import org.eclipse.transformer.maven.action.TransformerJarChanges;
 import org.eclipse.transformer.maven.configuration.TransformerRules;
+import org.eclipse.transformer.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonatype.plexus.build.incremental.BuildContext;
@@ -73,6 +78,23 @@ public abstract class AbstractTransformerMojo extends AbstractMojo {
 	@Parameter(property = "transform.skip", defaultValue = "false")
 	private boolean					skip;
 
+	/**
+	 * The file to which the metrics of the transform are written.
+	 * <p>
+	 * Metrics are not collected when no file is specified.
+	 */
+	@Parameter(property = "transformer.metricsFile")
+	private File					metricsFile;
+
+	/**
+	 * The format of the metrics file: "prometheus" or "json".
+	 * <p>
+	 * By default, "json" for files with the ".json" extension, and
+	 * "prometheus" otherwise.
+	 */
+	@Parameter(property = "transformer.metricsFormat")
+	private String					metricsFormat;
+
 	@Inject
 	private BuildContext			buildContext;
 
@@ -96,6 +118,12 @@ public abstract class AbstractTransformerMojo extends AbstractMojo {
 		TransformOptions options = new TransformerMojoOptions(getRules());
 
 		Transformer transformer = new Transformer(getLogger(), options);
+		MetricsRegistry metrics = (getMetricsFile() == null) ? null : new MetricsRegistry();
+		if (metrics != null) {
+			transformer.setMetrics(metrics);
+		}
+		// Long transforms log their progress periodically.
+		transformer.setProgressListener(new ProgressReporter(getLogger()));
 		// For use as the resolve base
 		URI base = getProject().getBasedir()
 			.toURI();
@@ -121,10 +149,29 @@ public abstract class AbstractTransformerMojo extends AbstractMojo {
 		TransformerJarChanges lastActiveChanges = action.getLastActiveChanges();
 		lastActiveChanges.log(getLogger(), lastActiveChanges.getInputResourceName(),
 			lastActiveChanges.getOutputResourceName());
+		if (metrics != null) {
+			writeMetrics(metrics);
+		}
 
 		return lastActiveChanges;
 	}
 
+	private void writeMetrics(MetricsRegistry metrics) throws MojoExecutionException {
+		File file = getMetricsFile();
+		MetricsRegistry.Format format = (metricsFormat == null) ? MetricsRegistry.Format.of(file)
+			: MetricsRegistry.Format.of(metricsFormat);
+		if (format == null) {
+			throw new MojoExecutionException("Metrics format " + metricsFormat + " is not one of "
+				+ Arrays.toString(MetricsRegistry.Format.values()));
+		}
+		try {
+			metrics.write(file, format);
+		} catch (IOException e) {
+			throw new MojoExecutionException("Exception writing metrics " + file, e);
+		}
+		getLogger().info("Metrics {} {}", file, format);
+	}
+
 	public boolean isSkip() {
 		return skip;
 	}
@@ -155,6 +202,13 @@ public abstract class AbstractTransformerMojo extends AbstractMojo {
 		return mojoExecution;
 	}
 
+	/**
+	 * @return the metricsFile
+	 */
+	public File getMetricsFile() {
+		return metricsFile;
+	}
+
 	/**
 	 * @return the packagingTypes
 	 */
@@ -31,10 +31,13 @@ import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.MavenProjectHelper;
 import org.eclipse.transformer.AppOption;
+import org.eclipse.transformer.ProgressReporter;
 import org.eclipse.transformer.TransformOptions;
 import org.eclipse.transformer.Transformer;
 import org.eclipse.transformer.Transformer.ResultCode;
 import org.eclipse.transformer.jakarta.JakartaTransform;
+import org.eclipse.transformer.metrics.Metrics;
+import org.eclipse.transformer.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -90,6 +93,23 @@ public class TransformerRunMojo extends AbstractMojo {
 	@Parameter(defaultValue = "${project.build.directory}", required = true)
 	private File				outputDirectory;
 
+	/**
+	 * The file to which the metrics of the transforms of all artifacts are
+	 * written. Metrics are not collected when no file is specified.
+	 */
+	@Parameter(property = "transformer-plugin.metricsFile")
+	private File				metricsFile;
+
+	/**
+	 * The format of the metrics file: "prometheus" or "json". By default,
+	 * "json" for files with the ".json" extension, and "prometheus" otherwise.
+	 */
+	@Parameter(property = "transformer-plugin.metricsFormat")
+	private String				metricsFormat;
+
+	/** The metrics shared by the transforms of all artifacts. */
+	private Metrics				metrics;
+
 	@Inject
 	private MavenProjectHelper	projectHelper;
 
@@ -104,6 +124,7 @@ public class TransformerRunMojo extends AbstractMojo {
 	@Override
 	public void execute() throws MojoFailureException, MojoExecutionException {
 		final Artifact[] sourceArtifacts = getSourceArtifacts();
+		metrics = (metricsFile == null) ? null : new MetricsRegistry();
 		for (final Artifact sourceArtifact : sourceArtifacts) {
 			transform(sourceArtifact);
 		}
@@ -147,6 +168,8 @@ public class TransformerRunMojo extends AbstractMojo {
 					case RULES_DIRECT -> emptyAsNull(rulesDirectUri);
 					case RULES_MASTER_TEXT -> emptyAsNull(rulesXmlsUri);
 					case RULES_PER_CLASS_CONSTANT -> emptyAsNull(rulesPerClassConstantUri);
+					case METRICS_FILE -> (metricsFile == null) ? null : metricsFile.getAbsolutePath();
+					case METRICS_FORMAT -> emptyAsNull(metricsFormat);
 					default -> null;
 				};
 			}
@@ -183,6 +206,13 @@ public class TransformerRunMojo extends AbstractMojo {
 		};
 
 		Transformer transformer = new Transformer(logger, options);
+		// The metrics are written after each artifact, and include the
+		// metrics of the earlier artifacts.
+		if (metrics != null) {
+			transformer.setMetrics(metrics);
+		}
+		// Long transforms log their progress periodically.
+		transformer.setProgressListener(new ProgressReporter(logger));
 
 		ResultCode rc;
 		try {
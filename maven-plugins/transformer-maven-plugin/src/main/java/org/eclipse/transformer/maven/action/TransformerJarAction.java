@@ -31,6 +31,7 @@ import org.eclipse.transformer.action.ActionType;
 import org.eclipse.transformer.action.ByteData;
 import org.eclipse.transformer.action.Changes;
 import org.eclipse.transformer.action.ElementAction;
+import org.eclipse.transformer.action.ProgressListener;
 import org.eclipse.transformer.action.impl.ByteDataImpl;
 import org.eclipse.transformer.action.impl.ContainerActionImpl;
 
@@ -74,6 +75,7 @@ public class TransformerJarAction extends ContainerActionImpl {
 
 	public void apply(Jar jar, String inputName, String outputName) {
 		String manifestName = jar.getManifestName();
+		ProgressListener progress = getContext().progress();
 		startRecording(inputName);
 		try {
 			setResourceNames(inputName, outputName);
@@ -84,70 +86,77 @@ public class TransformerJarAction extends ContainerActionImpl {
 				inputPaths.add(manifestName); // process manifest first
 			}
 			inputPaths.addAll(resources.keySet());
+			progress.transformStarted(inputName, inputPaths.size(), ProgressListener.UNKNOWN);
 			for (String inputPath : inputPaths) {
-				Action action = selectAction(inputPath);
-				if (action == null) {
-					recordUnaccepted(inputPath);
-					continue;
-				} else if (!selectResource(inputPath)) {
-					recordUnselected(inputPath);
-					continue;
-				} else if (!action.isElementAction()) {
-					getLogger().warn("Strange non-element action [ {} ] for [ {} ]: Ignoring", action.getClass()
-						.getName(), inputPath);
-					recordUnaccepted(inputPath);
-					continue;
-				}
-
+				getActiveChanges().startEntry(inputPath, -1L);
 				try {
-					Resource resource = jar.getResource(inputPath);
-					if (inputPath.equals(manifestName)) {
-						if (resource == null) {
-							Manifest manifest = jar.getManifest();
-							if (manifest == null) {
-								continue; // no calculated manifest
+					Action action = selectAction(inputPath);
+					if (action == null) {
+						recordUnaccepted(inputPath);
+						continue;
+					} else if (!selectResource(inputPath)) {
+						recordUnselected(inputPath);
+						continue;
+					} else if (!action.isElementAction()) {
+						getLogger().warn("Strange non-element action [ {} ] for [ {} ]: Ignoring", action.getClass()
+							.getName(), inputPath);
+						recordUnaccepted(inputPath);
+						continue;
+					}
+
+					try {
+						Resource resource = jar.getResource(inputPath);
+						if (inputPath.equals(manifestName)) {
+							if (resource == null) {
+								Manifest manifest = jar.getManifest();
+								if (manifest == null) {
+									continue; // no calculated manifest
+								}
+								resource = new ManifestResource(manifest);
 							}
-							resource = new ManifestResource(manifest);
 						}
-					}
-					ByteBuffer bb = resource.buffer();
-					ByteData inputData;
-					if (bb != null) {
-						Charset charset = resourceCharset(inputPath);
-						inputData = new ByteDataImpl(inputPath, bb, charset);
-					} else {
-						inputData = collect(inputPath, resource.openInputStream(), Math.toIntExact(resource.size()));
-					}
-					ByteData outputData = ((ElementAction)action).apply(inputData);
-					recordAction(action, inputPath);
-					Changes changes = action.getLastActiveChanges();
-					if (changes.isChanged()) {
-						String outputPath = outputData.name();
-						getLogger().debug("[ {}.apply ]: Active transform [ {} ] [ {} ]", action.getClass()
-							.getSimpleName(), inputPath, outputPath);
-						if (changes.isRenamed()) {
-							if (!isOverwrite() && (jar.getResource(outputPath) != null)) {
-								recordDuplicate(action, inputPath);
-								getLogger().error(
-									"Transform for {} overwrites existing resource {}. Use 'overwrite' option to allow overwriting.",
-									inputPath, outputPath);
-								continue;
+						ByteBuffer bb = resource.buffer();
+						ByteData inputData;
+						if (bb != null) {
+							Charset charset = resourceCharset(inputPath);
+							inputData = new ByteDataImpl(inputPath, bb, charset);
+						} else {
+							inputData = collect(inputPath, resource.openInputStream(), Math.toIntExact(resource.size()));
+						}
+						ByteData outputData = ((ElementAction)action).apply(inputData);
+						recordAction(action, inputPath);
+						Changes changes = action.getLastActiveChanges();
+						if (changes.isChanged()) {
+							String outputPath = outputData.name();
+							getLogger().debug("[ {}.apply ]: Active transform [ {} ] [ {} ]", action.getClass()
+								.getSimpleName(), inputPath, outputPath);
+							if (changes.isRenamed()) {
+								if (!isOverwrite() && (jar.getResource(outputPath) != null)) {
+									recordDuplicate(action, inputPath);
+									getLogger().error(
+										"Transform for {} overwrites existing resource {}. Use 'overwrite' option to allow overwriting.",
+										inputPath, outputPath);
+									continue;
+								}
+								jar.remove(inputPath);
+								getActiveChanges().addRemoved(inputPath);
 							}
-							jar.remove(inputPath);
-							getActiveChanges().addRemoved(inputPath);
+							Resource outputResource = changes.isContentChanged()
+								? new EmbeddedResource(outputData.buffer(), resource.lastModified())
+								: resource;
+							jar.putResource(outputPath, outputResource);
+							getActiveChanges().addChanged(outputPath);
 						}
-						Resource outputResource = changes.isContentChanged()
-							? new EmbeddedResource(outputData.buffer(), resource.lastModified())
-							: resource;
-						jar.putResource(outputPath, outputResource);
-						getActiveChanges().addChanged(outputPath);
+					} catch (Exception e) {
+						getLogger().error("Failure while transforming {}", inputPath, e);
+						recordError(action, inputPath, e);
 					}
-				} catch (Exception e) {
-					getLogger().error("Failure while transforming {}", inputPath, e);
-					recordError(action, inputPath, e);
+				} finally {
+					getActiveChanges().endEntry(inputPath, -1L);
 				}
 			}
 		} finally {
+			progress.transformFinished(inputName);
 			stopRecording(inputName);
 		}
 	}
@@ -25,6 +25,7 @@ public class TransformerRules {
 	private List<String>	texts;
 	private List<String>	perClassConstants;
 	private List<String>	immediates;
+	private String			snapshot;
 	private boolean			invert;
 	private boolean			overwrite;
 	private boolean			widen;
@@ -97,6 +98,14 @@ public class TransformerRules {
 		this.immediates = immediates;
 	}
 
+	public String getSnapshot() {
+		return snapshot;
+	}
+
+	public void setSnapshot(String snapshot) {
+		this.snapshot = snapshot;
+	}
+
 	public boolean isInvert() {
 		return invert;
 	}
@@ -152,9 +161,9 @@ public class TransformerRules {
 	@Override
 	public String toString() {
 		return String.format(
-			"selections=%s, renames=%s, versions=%s, bundles=%s, directs=%s, texts=%s, perClassConstants=%s, immediates=%s, invert=%s, overwrite=%s, widen=%s, jakartaDefaults=%s, stripSignatures=%s",
+			"selections=%s, renames=%s, versions=%s, bundles=%s, directs=%s, texts=%s, perClassConstants=%s, immediates=%s, snapshot=%s, invert=%s, overwrite=%s, widen=%s, jakartaDefaults=%s, stripSignatures=%s",
 			getSelections(), getRenames(), getVersions(), getBundles(), getDirects(), getTexts(),
-			getPerClassConstants(), getImmediates(), isInvert(), isOverwrite(), isWiden(), isJakartaDefaults(), isStripSignatures());
+			getPerClassConstants(), getImmediates(), getSnapshot(), isInvert(), isOverwrite(), isWiden(), isJakartaDefaults(), isStripSignatures());
 	}
 
 }
@@ -0,0 +1,231 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.cli;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.eclipse.transformer.TransformException;
+
+/**
+ * Appender which writes log records on a writer thread: Records are placed
+ * in a bounded ring buffer by the logging threads, and are taken from the
+ * buffer and written in batches by the writer thread.
+ * <p>
+ * When the buffer is full, logging threads either wait for space in the buffer
+ * or drop their records, according to the policy of the appender. Dropped
+ * records are counted.
+ * <p>
+ * Records which are appended after the appender is closed are written
+ * synchronously. Appending a record and closing the appender are exclusive, so
+ * that no record is placed in the buffer after the writer thread stopped.
+ * <p>
+ * Records are written by the writer thread: A delegate logger which shows the
+ * thread name or the time of a record, such as the slf4j-simple logger, shows
+ * the writer thread and the time the record was written.
+ */
+class AsyncLogAppender implements AutoCloseable {
+	/**
+	 * Policies when the buffer is full.
+	 */
+	enum Policy {
+		/** Wait for space in the buffer. No record is lost. */
+		BLOCK,
+		/** Drop the record. The logging thread never waits. */
+		DROP;
+
+		static Policy of(String policyName) {
+			try {
+				return valueOf(policyName.toUpperCase(Locale.ROOT));
+			} catch (IllegalArgumentException e) {
+				throw new TransformException(
+					"Log buffer policy [ " + policyName + " ] must be one of [ block ] or [ drop ]", e);
+			}
+		}
+	}
+
+	/** Default capacity of the buffer, in records. */
+	static final int						DEFAULT_CAPACITY	= 8 * 1024;
+	/** Largest count of records which are written in one batch. */
+	static final int						BATCH_SIZE			= 512;
+
+	private static final Runnable			STOP				= () -> {};
+
+	private final BlockingQueue<Runnable>	buffer;
+	private final Policy					policy;
+	private final LongAdder					dropped;
+	private final Thread					writer;
+	private final Lock						appendLock;
+	private final Lock						closeLock;
+	private boolean							closed;	// guarded by closeLock
+
+	AsyncLogAppender(String name, int capacity, Policy policy) {
+		if (capacity < 1) {
+			throw new TransformException("Log buffer capacity [ " + capacity + " ] must be at least 1");
+		}
+		this.buffer = new ArrayBlockingQueue<>(capacity);
+		this.policy = policy;
+		this.dropped = new LongAdder();
+		ReadWriteLock gate = new ReentrantReadWriteLock();
+		this.appendLock = gate.readLock();
+		this.closeLock = gate.writeLock();
+		this.writer = new Thread(this::writeBatches, name + " log writer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	Policy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Answer the count of records which were dropped because the buffer was
+	 * full.
+	 *
+	 * @return The count of dropped records.
+	 */
+	long getDropped() {
+		return dropped.sum();
+	}
+
+	/**
+	 * Append a record. The record is run on the writer thread, after all
+	 * previously appended records.
+	 *
+	 * @param record The record which is to be written.
+	 */
+	void append(Runnable record) {
+		appendLock.lock();
+		try {
+			if (!closed) {
+				switch (policy) {
+					case DROP :
+						if (!buffer.offer(record)) {
+							dropped.increment();
+						}
+						return;
+					case BLOCK :
+					default :
+						try {
+							buffer.put(record);
+							return;
+						} catch (InterruptedException e) {
+							Thread.currentThread()
+								.interrupt();
+						}
+						break;
+				}
+			}
+		} finally {
+			appendLock.unlock();
+		}
+		record.run();
+	}
+
+	/**
+	 * Wait until all previously appended records are written.
+	 */
+	void flush() {
+		CountDownLatch written = new CountDownLatch(1);
+		try {
+			appendLock.lock();
+			try {
+				if (closed) {
+					return;
+				}
+				buffer.put(written::countDown);
+			} finally {
+				appendLock.unlock();
+			}
+			// The stop record is placed after the flush record: The flush
+			// record is run even when the appender is closed meanwhile.
+			written.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread()
+				.interrupt();
+		}
+	}
+
+	/**
+	 * Write all appended records and stop the writer thread.
+	 */
+	@Override
+	public void close() {
+		// Wait for the records which are being appended.
+		closeLock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		} finally {
+			closeLock.unlock();
+		}
+		try {
+			buffer.put(STOP);
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread()
+				.interrupt();
+			// Write the records which the writer thread did not write.
+			List<Runnable> remaining = new ArrayList<>();
+			buffer.drainTo(remaining);
+			writeBatch(remaining);
+		}
+	}
+
+	private void writeBatches() {
+		List<Runnable> batch = new ArrayList<>(BATCH_SIZE);
+		while (true) {
+			try {
+				batch.add(buffer.take());
+			} catch (InterruptedException e) {
+				return;
+			}
+			buffer.drainTo(batch, BATCH_SIZE - 1);
+			if (writeBatch(batch)) {
+				return;
+			}
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Write a batch of records.
+	 *
+	 * @param batch The records which are to be written.
+	 * @return True if the batch contained the stop record.
+	 */
+	private static boolean writeBatch(List<Runnable> batch) {
+		boolean stop = false;
+		for (Runnable record : batch) {
+			if (record == STOP) {
+				stop = true;
+				continue;
+			}
+			try {
+				record.run();
+			} catch (RuntimeException e) {
+				// A failed write must not stop the writing of later records.
+			}
+		}
+		return stop;
+	}
+}
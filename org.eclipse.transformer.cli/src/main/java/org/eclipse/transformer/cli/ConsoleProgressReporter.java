@@ -0,0 +1,54 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.cli;
+
+import java.io.PrintStream;
+
+import org.eclipse.transformer.ProgressReporter;
+import org.slf4j.Logger;
+
+/**
+ * Progress reporter which renders progress as a live line of a console: Each
+ * report overwrites the previous report, and the line is ended when all
+ * transforms are finished.
+ */
+class ConsoleProgressReporter extends ProgressReporter {
+	/** Interval between updates of the progress line, in milliseconds. */
+	static final long			CONSOLE_INTERVAL	= 250L;
+
+	private final PrintStream	console;
+	private int					lastLength;
+
+	ConsoleProgressReporter(Logger logger, PrintStream console) {
+		super(logger, CONSOLE_INTERVAL);
+		this.console = console;
+	}
+
+	@Override
+	protected synchronized void report(String progress, boolean finished) {
+		StringBuilder line = new StringBuilder(progress.length() + 1 + lastLength);
+		line.append('\r')
+			.append(progress);
+		// Blank the remainder of a longer previous line.
+		for (int length = progress.length(); length < lastLength; length++) {
+			line.append(' ');
+		}
+		lastLength = progress.length();
+		if (finished) {
+			console.println(line);
+			lastLength = 0;
+		} else {
+			console.print(line);
+		}
+		console.flush();
+	}
+}
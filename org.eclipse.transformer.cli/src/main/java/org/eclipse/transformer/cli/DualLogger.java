@@ -12,6 +12,7 @@
 package org.eclipse.transformer.cli;
 
 import static java.util.Objects.requireNonNull;
+import static org.eclipse.transformer.Transformer.consoleMarker;
 
 import java.util.Objects;
 import java.util.function.BiConsumer;
@@ -25,285 +26,449 @@ import org.slf4j.helpers.SubstituteLogger;
 /**
  * The Logger wraps a real delegate Logger and will also send output to system
  * out/err if the console marker is supplied.
+ * <p>
+ * Messages are rendered on the logging thread, and only when they are
+ * written: Either the level of the message is enabled, or the message has the
+ * console marker and is of level info or above. When an asynchronous appender
+ * is supplied, rendered messages are written to the delegate and to system
+ * out/err by the writer thread of the appender.
  */
-class DualLogger extends SubstituteLogger {
+class DualLogger extends SubstituteLogger implements AutoCloseable {
+	private enum Level {
+		TRACE,
+		DEBUG,
+		INFO,
+		WARN,
+		ERROR
+	}
 
+	private final Logger						delegate;
 	private final BiConsumer<String, Throwable>	systemOut;
 	private final BiConsumer<String, Throwable>	systemErr;
+	private final AsyncLogAppender				appender;
 
 	DualLogger(Logger delegate, BiConsumer<String, Throwable> systemOut, BiConsumer<String, Throwable> systemErr) {
+		this(delegate, systemOut, systemErr, null);
+	}
+
+	DualLogger(Logger delegate, BiConsumer<String, Throwable> systemOut, BiConsumer<String, Throwable> systemErr,
+		AsyncLogAppender appender) {
 		super(delegate.getName(), null, true);
 		setDelegate(delegate);
+		this.delegate = delegate;
 		this.systemOut = requireNonNull(systemOut);
 		this.systemErr = requireNonNull(systemErr);
+		this.appender = appender;
+	}
+
+	/**
+	 * Answer the asynchronous appender of this logger.
+	 *
+	 * @return The asynchronous appender. Null if messages are written
+	 *         synchronously.
+	 */
+	AsyncLogAppender getAppender() {
+		return appender;
+	}
+
+	/**
+	 * Write all messages which were logged. Messages which are logged later
+	 * are written synchronously. When the appender dropped messages, the count
+	 * of dropped messages is logged.
+	 */
+	@Override
+	public void close() {
+		if (appender == null) {
+			return;
+		}
+		appender.close();
+		long dropped = appender.getDropped();
+		if (dropped != 0L) {
+			warn(consoleMarker, "Log buffer was full: [ {} ] log messages were dropped", dropped);
+		}
 	}
 
 	private boolean isConsoleMarker(Marker marker) {
 		return Objects.nonNull(marker) && marker.contains("console");
 	}
 
+	private boolean isEnabled(Level level, Marker marker) {
+		switch (level) {
+			case TRACE :
+				return delegate.isTraceEnabled(marker);
+			case DEBUG :
+				return delegate.isDebugEnabled(marker);
+			case INFO :
+				return delegate.isInfoEnabled(marker);
+			case WARN :
+				return delegate.isWarnEnabled(marker);
+			case ERROR :
+			default :
+				return delegate.isErrorEnabled(marker);
+		}
+	}
+
+	/**
+	 * Tell if a message is written. Console messages of level info and above
+	 * are written to system out/err even when the level is not enabled for
+	 * the delegate.
+	 */
+	private boolean isLogged(Level level, Marker marker) {
+		return isEnabled(level, marker) || ((level.compareTo(Level.INFO) >= 0) && isConsoleMarker(marker));
+	}
+
+	private void log(Level level, Marker marker, String msg, Throwable t) {
+		if (isLogged(level, marker)) {
+			append(level, marker, msg, t);
+		}
+	}
+
+	private void append(Level level, Marker marker, FormattingTuple tp) {
+		append(level, marker, tp.getMessage(), tp.getThrowable());
+	}
+
+	private void append(Level level, Marker marker, String msg, Throwable t) {
+		if (appender == null) {
+			write(level, marker, msg, t);
+		} else {
+			appender.append(() -> write(level, marker, msg, t));
+		}
+	}
+
+	private void write(Level level, Marker marker, String msg, Throwable t) {
+		if (isConsoleMarker(marker)) {
+			BiConsumer<String, Throwable> console = (level.compareTo(Level.WARN) >= 0) ? systemErr : systemOut;
+			console.accept(msg, t);
+		}
+		switch (level) {
+			case TRACE :
+				delegate.trace(marker, msg, t);
+				break;
+			case DEBUG :
+				delegate.debug(marker, msg, t);
+				break;
+			case INFO :
+				delegate.info(marker, msg, t);
+				break;
+			case WARN :
+				delegate.warn(marker, msg, t);
+				break;
+			case ERROR :
+			default :
+				delegate.error(marker, msg, t);
+				break;
+		}
+	}
+
+	//
+
 	@Override
-	public void debug(Marker marker, String msg) {
-		if (isDebugEnabled(marker)) {
-			if (isConsoleMarker(marker)) {
-				systemOut.accept(msg, null);
-			}
-			super.debug(marker, msg);
+	public void trace(String msg) {
+		log(Level.TRACE, null, msg, null);
+	}
+
+	@Override
+	public void trace(String format, Object arg) {
+		if (isLogged(Level.TRACE, null)) {
+			append(Level.TRACE, null, MessageFormatter.format(format, arg));
 		}
 	}
 
 	@Override
-	public void debug(Marker marker, String format, Object arg) {
-		if (isDebugEnabled(marker)) {
-			if (isConsoleMarker(marker)) {
-				FormattingTuple tp = MessageFormatter.format(format, arg);
-				systemOut.accept(tp.getMessage(), tp.getThrowable());
-				super.debug(marker, tp.getMessage(), tp.getThrowable());
-			} else {
-				super.debug(marker, format, arg);
-			}
+	public void trace(String format, Object arg1, Object arg2) {
+		if (isLogged(Level.TRACE, null)) {
+			append(Level.TRACE, null, MessageFormatter.format(format, arg1, arg2));
 		}
 	}
 
 	@Override
-	public void debug(Marker marker, String format, Object arg1, Object arg2) {
-		if (isDebugEnabled(marker)) {
-			if (isConsoleMarker(marker)) {
-				FormattingTuple tp = MessageFormatter.format(format, arg1, arg2);
-				systemOut.accept(tp.getMessage(), tp.getThrowable());
-				super.debug(marker, tp.getMessage(), tp.getThrowable());
-			} else {
-				super.debug(marker, format, arg1, arg2);
-			}
+	public void trace(String format, Object... arguments) {
+		if (isLogged(Level.TRACE, null)) {
+			append(Level.TRACE, null, MessageFormatter.arrayFormat(format, arguments));
 		}
 	}
 
 	@Override
-	public void debug(Marker marker, String format, Object... arguments) {
-		if (isDebugEnabled(marker)) {
-			if (isConsoleMarker(marker)) {
-				FormattingTuple tp = MessageFormatter.arrayFormat(format, arguments);
-				systemOut.accept(tp.getMessage(), tp.getThrowable());
-				super.debug(marker, tp.getMessage(), tp.getThrowable());
-			} else {
-				super.debug(marker, format, arguments);
-			}
+	public void trace(String msg, Throwable t) {
+		log(Level.TRACE, null, msg, t);
+	}
+
+	@Override
+	public void trace(Marker marker, String msg) {
+		log(Level.TRACE, marker, msg, null);
+	}
+
+	@Override
+	public void trace(Marker marker, String format, Object arg) {
+		if (isLogged(Level.TRACE, marker)) {
+			append(Level.TRACE, marker, MessageFormatter.format(format, arg));
 		}
 	}
 
 	@Override
-	public void debug(Marker marker, String msg, Throwable t) {
-		if (isDebugEnabled(marker)) {
-			if (isConsoleMarker(marker)) {
-				systemOut.accept(msg, t);
-			}
-			super.debug(marker, msg, t);
+	public void trace(Marker marker, String format, Object arg1, Object arg2) {
+		if (isLogged(Level.TRACE, marker)) {
+			append(Level.TRACE, marker, MessageFormatter.format(format, arg1, arg2));
 		}
 	}
 
 	@Override
-	public void info(Marker marker, String msg) {
-		if (isConsoleMarker(marker)) {
-			systemOut.accept(msg, null);
+	public void trace(Marker marker, String format, Object... arguments) {
+		if (isLogged(Level.TRACE, marker)) {
+			append(Level.TRACE, marker, MessageFormatter.arrayFormat(format, arguments));
 		}
-		super.info(marker, msg);
 	}
 
 	@Override
-	public void info(Marker marker, String format, Object arg) {
-		if (isConsoleMarker(marker)) {
-			FormattingTuple tp = MessageFormatter.format(format, arg);
-			systemOut.accept(tp.getMessage(), tp.getThrowable());
-			super.info(marker, tp.getMessage(), tp.getThrowable());
-			return;
+	public void trace(Marker marker, String msg, Throwable t) {
+		log(Level.TRACE, marker, msg, t);
+	}
+
+	@Override
+	public void debug(String msg) {
+		log(Level.DEBUG, null, msg, null);
+	}
+
+	@Override
+	public void debug(String format, Object arg) {
+		if (isLogged(Level.DEBUG, null)) {
+			append(Level.DEBUG, null, MessageFormatter.format(format, arg));
 		}
-		super.info(marker, format, arg);
 	}
 
 	@Override
-	public void info(Marker marker, String format, Object arg1, Object arg2) {
-		if (isConsoleMarker(marker)) {
-			FormattingTuple tp = MessageFormatter.format(format, arg1, arg2);
-			systemOut.accept(tp.getMessage(), tp.getThrowable());
-			super.info(marker, tp.getMessage(), tp.getThrowable());
-			return;
+	public void debug(String format, Object arg1, Object arg2) {
+		if (isLogged(Level.DEBUG, null)) {
+			append(Level.DEBUG, null, MessageFormatter.format(format, arg1, arg2));
 		}
-		super.info(marker, format, arg1, arg2);
 	}
 
 	@Override
-	public void info(Marker marker, String format, Object... arguments) {
-		if (isConsoleMarker(marker)) {
-			FormattingTuple tp = MessageFormatter.arrayFormat(format, arguments);
-			systemOut.accept(tp.getMessage(), tp.getThrowable());
-			super.info(marker, tp.getMessage(), tp.getThrowable());
-			return;
+	public void debug(String format, Object... arguments) {
+		if (isLogged(Level.DEBUG, null)) {
+			append(Level.DEBUG, null, MessageFormatter.arrayFormat(format, arguments));
 		}
-		super.info(marker, format, arguments);
 	}
 
 	@Override
-	public void info(Marker marker, String msg, Throwable t) {
-		if (isConsoleMarker(marker)) {
-			systemOut.accept(msg, t);
+	public void debug(String msg, Throwable t) {
+		log(Level.DEBUG, null, msg, t);
+	}
+
+	@Override
+	public void debug(Marker marker, String msg) {
+		log(Level.DEBUG, marker, msg, null);
+	}
+
+	@Override
+	public void debug(Marker marker, String format, Object arg) {
+		if (isLogged(Level.DEBUG, marker)) {
+			append(Level.DEBUG, marker, MessageFormatter.format(format, arg));
 		}
-		super.info(marker, msg, t);
 	}
 
 	@Override
-	public void error(Marker marker, String msg) {
-		if (isConsoleMarker(marker)) {
-			systemErr.accept(msg, null);
+	public void debug(Marker marker, String format, Object arg1, Object arg2) {
+		if (isLogged(Level.DEBUG, marker)) {
+			append(Level.DEBUG, marker, MessageFormatter.format(format, arg1, arg2));
 		}
-		super.error(marker, msg);
 	}
 
 	@Override
-	public void error(Marker marker, String format, Object arg) {
-		if (isConsoleMarker(marker)) {
-			FormattingTuple tp = MessageFormatter.format(format, arg);
-			systemErr.accept(tp.getMessage(), tp.getThrowable());
-			super.error(marker, tp.getMessage(), tp.getThrowable());
-			return;
+	public void debug(Marker marker, String format, Object... arguments) {
+		if (isLogged(Level.DEBUG, marker)) {
+			append(Level.DEBUG, marker, MessageFormatter.arrayFormat(format, arguments));
 		}
-		super.error(marker, format, arg);
 	}
 
 	@Override
-	public void error(Marker marker, String format, Object arg1, Object arg2) {
-		if (isConsoleMarker(marker)) {
-			FormattingTuple tp = MessageFormatter.format(format, arg1, arg2);
-			systemErr.accept(tp.getMessage(), tp.getThrowable());
-			super.error(marker, tp.getMessage(), tp.getThrowable());
-			return;
+	public void debug(Marker marker, String msg, Throwable t) {
+		log(Level.DEBUG, marker, msg, t);
+	}
+
+	@Override
+	public void info(String msg) {
+		log(Level.INFO, null, msg, null);
+	}
+
+	@Override
+	public void info(String format, Object arg) {
+		if (isLogged(Level.INFO, null)) {
+			append(Level.INFO, null, MessageFormatter.format(format, arg));
 		}
-		super.error(marker, format, arg1, arg2);
 	}
 
 	@Override
-	public void error(Marker marker, String format, Object... arguments) {
-		if (isConsoleMarker(marker)) {
-			FormattingTuple tp = MessageFormatter.arrayFormat(format, arguments);
-			systemErr.accept(tp.getMessage(), tp.getThrowable());
-			super.error(marker, tp.getMessage(), tp.getThrowable());
-			return;
+	public void info(String format, Object arg1, Object arg2) {
+		if (isLogged(Level.INFO, null)) {
+			append(Level.INFO, null, MessageFormatter.format(format, arg1, arg2));
 		}
-		super.error(marker, format, arguments);
 	}
 
 	@Override
-	public void error(Marker marker, String msg, Throwable t) {
-		if (isConsoleMarker(marker)) {
-			systemErr.accept(msg, t);
+	public void info(String format, Object... arguments) {
+		if (isLogged(Level.INFO, null)) {
+			append(Level.INFO, null, MessageFormatter.arrayFormat(format, arguments));
 		}
-		super.error(marker, msg, t);
 	}
 
 	@Override
-	public void trace(Marker marker, String msg) {
-		if (isTraceEnabled(marker)) {
-			if (isConsoleMarker(marker)) {
-				systemOut.accept(msg, null);
-			}
-			super.trace(marker, msg);
+	public void info(String msg, Throwable t) {
+		log(Level.INFO, null, msg, t);
+	}
+
+	@Override
+	public void info(Marker marker, String msg) {
+		log(Level.INFO, marker, msg, null);
+	}
+
+	@Override
+	public void info(Marker marker, String format, Object arg) {
+		if (isLogged(Level.INFO, marker)) {
+			append(Level.INFO, marker, MessageFormatter.format(format, arg));
 		}
 	}
 
 	@Override
-	public void trace(Marker marker, String format, Object arg) {
-		if (isTraceEnabled(marker)) {
-			if (isConsoleMarker(marker)) {
-				FormattingTuple tp = MessageFormatter.format(format, arg);
-				systemOut.accept(tp.getMessage(), tp.getThrowable());
-				super.trace(marker, tp.getMessage(), tp.getThrowable());
-			} else {
-				super.trace(marker, format, arg);
-			}
+	public void info(Marker marker, String format, Object arg1, Object arg2) {
+		if (isLogged(Level.INFO, marker)) {
+			append(Level.INFO, marker, MessageFormatter.format(format, arg1, arg2));
 		}
 	}
 
 	@Override
-	public void trace(Marker marker, String format, Object arg1, Object arg2) {
-		if (isTraceEnabled(marker)) {
-			if (isConsoleMarker(marker)) {
-				FormattingTuple tp = MessageFormatter.format(format, arg1, arg2);
-				systemOut.accept(tp.getMessage(), tp.getThrowable());
-				super.trace(marker, tp.getMessage(), tp.getThrowable());
-			} else {
-				super.trace(marker, format, arg1, arg2);
-			}
+	public void info(Marker marker, String format, Object... arguments) {
+		if (isLogged(Level.INFO, marker)) {
+			append(Level.INFO, marker, MessageFormatter.arrayFormat(format, arguments));
 		}
 	}
 
 	@Override
-	public void trace(Marker marker, String format, Object... arguments) {
-		if (isTraceEnabled(marker)) {
-			if (isConsoleMarker(marker)) {
-				FormattingTuple tp = MessageFormatter.arrayFormat(format, arguments);
-				systemOut.accept(tp.getMessage(), tp.getThrowable());
-				super.trace(marker, tp.getMessage(), tp.getThrowable());
-			} else {
-				super.trace(marker, format, arguments);
-			}
+	public void info(Marker marker, String msg, Throwable t) {
+		log(Level.INFO, marker, msg, t);
+	}
+
+	@Override
+	public void warn(String msg) {
+		log(Level.WARN, null, msg, null);
+	}
+
+	@Override
+	public void warn(String format, Object arg) {
+		if (isLogged(Level.WARN, null)) {
+			append(Level.WARN, null, MessageFormatter.format(format, arg));
 		}
 	}
 
 	@Override
-	public void trace(Marker marker, String msg, Throwable t) {
-		if (isTraceEnabled(marker)) {
-			if (isConsoleMarker(marker)) {
-				systemOut.accept(msg, t);
-			}
-			super.trace(marker, msg, t);
+	public void warn(String format, Object arg1, Object arg2) {
+		if (isLogged(Level.WARN, null)) {
+			append(Level.WARN, null, MessageFormatter.format(format, arg1, arg2));
 		}
 	}
 
 	@Override
-	public void warn(Marker marker, String msg) {
-		if (isConsoleMarker(marker)) {
-			systemErr.accept(msg, null);
+	public void warn(String format, Object... arguments) {
+		if (isLogged(Level.WARN, null)) {
+			append(Level.WARN, null, MessageFormatter.arrayFormat(format, arguments));
 		}
-		super.warn(marker, msg);
+	}
+
+	@Override
+	public void warn(String msg, Throwable t) {
+		log(Level.WARN, null, msg, t);
+	}
+
+	@Override
+	public void warn(Marker marker, String msg) {
+		log(Level.WARN, marker, msg, null);
 	}
 
 	@Override
 	public void warn(Marker marker, String format, Object arg) {
-		if (isConsoleMarker(marker)) {
-			FormattingTuple tp = MessageFormatter.format(format, arg);
-			systemErr.accept(tp.getMessage(), tp.getThrowable());
-			super.warn(marker, tp.getMessage(), tp.getThrowable());
-			return;
+		if (isLogged(Level.WARN, marker)) {
+			append(Level.WARN, marker, MessageFormatter.format(format, arg));
 		}
-		super.warn(marker, format, arg);
 	}
 
 	@Override
 	public void warn(Marker marker, String format, Object arg1, Object arg2) {
-		if (isConsoleMarker(marker)) {
-			FormattingTuple tp = MessageFormatter.format(format, arg1, arg2);
-			systemErr.accept(tp.getMessage(), tp.getThrowable());
-			super.warn(marker, tp.getMessage(), tp.getThrowable());
-			return;
+		if (isLogged(Level.WARN, marker)) {
+			append(Level.WARN, marker, MessageFormatter.format(format, arg1, arg2));
 		}
-		super.warn(marker, format, arg1, arg2);
 	}
 
 	@Override
 	public void warn(Marker marker, String format, Object... arguments) {
-		if (isConsoleMarker(marker)) {
-			FormattingTuple tp = MessageFormatter.arrayFormat(format, arguments);
-			systemErr.accept(tp.getMessage(), tp.getThrowable());
-			super.warn(marker, tp.getMessage(), tp.getThrowable());
-			return;
+		if (isLogged(Level.WARN, marker)) {
+			append(Level.WARN, marker, MessageFormatter.arrayFormat(format, arguments));
 		}
-		super.warn(marker, format, arguments);
 	}
 
 	@Override
 	public void warn(Marker marker, String msg, Throwable t) {
-		if (isConsoleMarker(marker)) {
-			systemErr.accept(msg, t);
+		log(Level.WARN, marker, msg, t);
+	}
+
+	@Override
+	public void error(String msg) {
+		log(Level.ERROR, null, msg, null);
+	}
+
+	@Override
+	public void error(String format, Object arg) {
+		if (isLogged(Level.ERROR, null)) {
+			append(Level.ERROR, null, MessageFormatter.format(format, arg));
+		}
+	}
+
+	@Override
+	public void error(String format, Object arg1, Object arg2) {
+		if (isLogged(Level.ERROR, null)) {
+			append(Level.ERROR, null, MessageFormatter.format(format, arg1, arg2));
+		}
+	}
+
+	@Override
+	public void error(String format, Object... arguments) {
+		if (isLogged(Level.ERROR, null)) {
+			append(Level.ERROR, null, MessageFormatter.arrayFormat(format, arguments));
+		}
+	}
+
+	@Override
+	public void error(String msg, Throwable t) {
+		log(Level.ERROR, null, msg, t);
+	}
+
+	@Override
+	public void error(Marker marker, String msg) {
+		log(Level.ERROR, marker, msg, null);
+	}
+
+	@Override
+	public void error(Marker marker, String format, Object arg) {
+		if (isLogged(Level.ERROR, marker)) {
+			append(Level.ERROR, marker, MessageFormatter.format(format, arg));
+		}
+	}
+
+	@Override
+	public void error(Marker marker, String format, Object arg1, Object arg2) {
+		if (isLogged(Level.ERROR, marker)) {
+			append(Level.ERROR, marker, MessageFormatter.format(format, arg1, arg2));
 		}
-		super.warn(marker, msg, t);
+	}
+
+	@Override
+	public void error(Marker marker, String format, Object... arguments) {
+		if (isLogged(Level.ERROR, marker)) {
+			append(Level.ERROR, marker, MessageFormatter.arrayFormat(format, arguments));
+		}
+	}
+
+	@Override
+	public void error(Marker marker, String msg, Throwable t) {
+		log(Level.ERROR, marker, msg, t);
 	}
 }
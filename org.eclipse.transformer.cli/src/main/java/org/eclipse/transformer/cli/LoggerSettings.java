@@ -29,6 +29,9 @@ public class LoggerSettings {
 	public final String			logLevel;
 	public final String			logFileName;
 
+	public final String			asyncPolicy;
+	public final String			asyncBuffer;
+
 	public LoggerSettings(TransformOptions options) {
 		this.isQuiet = options.hasOption(AppOption.LOG_QUIET);
 		this.isDebug = options.hasOption(AppOption.LOG_DEBUG);
@@ -43,5 +46,8 @@ public class LoggerSettings {
 
 		this.logLevel = options.getOptionValue(AppOption.LOG_LEVEL);
 		this.logFileName = options.normalize(options.getOptionValue(AppOption.LOG_FILE));
+
+		this.asyncPolicy = options.getOptionValue(AppOption.LOG_ASYNC);
+		this.asyncBuffer = options.getOptionValue(AppOption.LOG_BUFFER);
 	}
 }
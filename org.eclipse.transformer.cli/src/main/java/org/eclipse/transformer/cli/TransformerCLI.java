@@ -18,6 +18,7 @@ import java.io.InputStream;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.net.URL;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -36,7 +37,14 @@ import org.apache.commons.cli.Option.Builder;
 import org.apache.commons.cli.OptionGroup;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
+import org.eclipse.transformer.Analysis;
 import org.eclipse.transformer.AppOption;
+import org.eclipse.transformer.BatchTransformer;
+import org.eclipse.transformer.BatchTransformer.Artifact;
+import org.eclipse.transformer.BatchTransformer.Result;
+import org.eclipse.transformer.Benchmark;
+import org.eclipse.transformer.DirectoryWatcher;
+import org.eclipse.transformer.RulesSnapshot;
 import org.eclipse.transformer.TransformException;
 import org.eclipse.transformer.TransformOptions;
 import org.eclipse.transformer.Transformer;
@@ -316,6 +324,10 @@ public class TransformerCLI implements TransformOptions {
 
 	private void usage(PrintStream helpStream) {
 		helpStream.println("Usage: " + getClass().getName() + " input [ output ] [ options ]");
+		helpStream.println("       " + getClass().getName() + " --" + AppOption.BATCH.getLongTag()
+			+ " ( batchFile | glob:pattern outputDirectory ) [ options ]");
+		helpStream.println("       " + getClass().getName() + " --" + AppOption.DAEMON.getLongTag()
+			+ " socketPath [ options ]");
 		helpStream.println();
 		helpStream
 			.println("Use option [ " + AppOption.HELP.getShortTag() + " ] or [ " + AppOption.HELP.getLongTag()
@@ -363,6 +375,24 @@ public class TransformerCLI implements TransformOptions {
 	}
 
 	public ResultCode run() {
+		try {
+			return basicRun();
+		} finally {
+			closeLogger();
+		}
+	}
+
+	/**
+	 * Write the log messages which are buffered by an asynchronous logger.
+	 * Messages which are logged later are written synchronously.
+	 */
+	private void closeLogger() {
+		if (getLogger() instanceof DualLogger dualLogger) {
+			dualLogger.close();
+		}
+	}
+
+	private ResultCode basicRun() {
 		displayHeader();
 
 		if (getParsedArgs() == null) {
@@ -382,6 +412,38 @@ public class TransformerCLI implements TransformOptions {
 			return logResult(ResultCode.SUCCESS_RC);
 		}
 
+		if (hasOption(AppOption.WATCH)
+			&& (hasOption(AppOption.DAEMON) || hasOption(AppOption.BATCH) || hasOption(AppOption.RULES_COMPILE))) {
+			getLogger().error(consoleMarker, "Option [ {} ] cannot be used with options [ {} ], [ {} ], or [ {} ]",
+				AppOption.WATCH.getLongTag(), AppOption.DAEMON.getLongTag(), AppOption.BATCH.getLongTag(),
+				AppOption.RULES_COMPILE.getLongTag());
+			return logResult(ResultCode.ARGS_ERROR_RC);
+		}
+		if (hasOption(AppOption.RULES_SNAPSHOT)) {
+			List<String> snapshotOptions = RulesSnapshot.SNAPSHOT_OPTIONS.stream()
+				.filter(this::hasOption)
+				.map(AppOption::getLongTag)
+				.toList();
+			if (!snapshotOptions.isEmpty()) {
+				getLogger().error(consoleMarker,
+					"Option [ {} ] cannot be used with options {}: The snapshot already contains the rules",
+					AppOption.RULES_SNAPSHOT.getLongTag(), snapshotOptions);
+				return logResult(ResultCode.ARGS_ERROR_RC);
+			}
+		}
+		if (hasOption(AppOption.ANALYZE)) {
+			return runAnalyze();
+		}
+		if (hasOption(AppOption.BENCHMARK)) {
+			return runBenchmark();
+		}
+		if (hasOption(AppOption.DAEMON)) {
+			return runDaemon();
+		}
+		if (hasOption(AppOption.BATCH)) {
+			return runBatch();
+		}
+
 		if (getParsedArgs().getArgs().length > 2) {
 			getLogger().error(consoleMarker, "Maximum number of arguments is 2");
 			return logResult(ResultCode.ARGS_ERROR_RC);
@@ -389,8 +451,14 @@ public class TransformerCLI implements TransformOptions {
 
 		try {
 			Transformer transformer = new Transformer(getLogger(), this);
+			if (hasOption(AppOption.PROGRESS) && (System.console() != null)) {
+				transformer.setProgressListener(new ConsoleProgressReporter(getLogger(), getSystemOut()));
+			}
 			ResultCode rc = transformer.run();
 			lastActiveChanges = transformer.getLastActiveChanges();
+			if (hasOption(AppOption.WATCH)) {
+				return runWatch(transformer, rc);
+			}
 			// Do *NOT* log this result: If 'run' completes successfully
 			// it will log the result itself.
 			return rc;
@@ -402,4 +470,213 @@ public class TransformerCLI implements TransformOptions {
 			return logResult(ResultCode.TRANSFORM_ERROR_RC);
 		}
 	}
+
+	private ResultCode runAnalyze() {
+		if (hasOption(AppOption.DAEMON) || hasOption(AppOption.BATCH) || hasOption(AppOption.WATCH)
+			|| hasOption(AppOption.RULES_COMPILE) || hasOption(AppOption.BENCHMARK)) {
+			getLogger().error(consoleMarker,
+				"Option [ {} ] cannot be used with options [ {} ], [ {} ], [ {} ], [ {} ], or [ {} ]",
+				AppOption.ANALYZE.getLongTag(), AppOption.DAEMON.getLongTag(), AppOption.BATCH.getLongTag(),
+				AppOption.WATCH.getLongTag(), AppOption.RULES_COMPILE.getLongTag(), AppOption.BENCHMARK.getLongTag());
+			return logResult(ResultCode.ARGS_ERROR_RC);
+		}
+		if (getParsedArgs().getArgs().length > 1) {
+			getLogger().error(consoleMarker, "Maximum number of arguments in analyze mode is 1");
+			return logResult(ResultCode.ARGS_ERROR_RC);
+		}
+
+		try {
+			Analysis analysis = new Analysis(getLogger(), this);
+			return logResult(analysis.run());
+		} catch (Throwable th) {
+			getLogger().error(consoleMarker, "Unexpected failure:", th);
+			return logResult(ResultCode.TRANSFORM_ERROR_RC);
+		}
+	}
+
+	private ResultCode runBenchmark() {
+		if (hasOption(AppOption.DAEMON) || hasOption(AppOption.BATCH) || hasOption(AppOption.WATCH)
+			|| hasOption(AppOption.RULES_COMPILE)) {
+			getLogger().error(consoleMarker, "Option [ {} ] cannot be used with options [ {} ], [ {} ], [ {} ], or [ {} ]",
+				AppOption.BENCHMARK.getLongTag(), AppOption.DAEMON.getLongTag(), AppOption.BATCH.getLongTag(),
+				AppOption.WATCH.getLongTag(), AppOption.RULES_COMPILE.getLongTag());
+			return logResult(ResultCode.ARGS_ERROR_RC);
+		}
+		if (getParsedArgs().getArgs().length > 1) {
+			getLogger().error(consoleMarker, "Maximum number of arguments in benchmark mode is 1");
+			return logResult(ResultCode.ARGS_ERROR_RC);
+		}
+
+		try {
+			Benchmark benchmark = new Benchmark(getLogger(), this);
+			return logResult(benchmark.run());
+		} catch (Throwable th) {
+			getLogger().error(consoleMarker, "Unexpected failure:", th);
+			return logResult(ResultCode.TRANSFORM_ERROR_RC);
+		}
+	}
+
+	private ResultCode runDaemon() {
+		if (hasOption(AppOption.RULES_COMPILE) || hasOption(AppOption.BATCH)) {
+			getLogger().error(consoleMarker, "Option [ {} ] cannot be used with options [ {} ] or [ {} ]",
+				AppOption.DAEMON.getLongTag(), AppOption.RULES_COMPILE.getLongTag(), AppOption.BATCH.getLongTag());
+			return logResult(ResultCode.ARGS_ERROR_RC);
+		}
+		if (getParsedArgs().getArgs().length > 0) {
+			getLogger().error(consoleMarker, "Arguments are not allowed in daemon mode");
+			return logResult(ResultCode.ARGS_ERROR_RC);
+		}
+
+		int workers = Runtime.getRuntime()
+			.availableProcessors();
+		String workersValue = getOptionValue(AppOption.DAEMON_WORKERS);
+		if (workersValue != null) {
+			try {
+				workers = Integer.parseInt(workersValue.trim());
+			} catch (NumberFormatException e) {
+				workers = 0;
+			}
+			if (workers < 1) {
+				getLogger().error(consoleMarker, "Daemon workers [ {} ] must be a number of at least 1", workersValue);
+				return logResult(ResultCode.ARGS_ERROR_RC);
+			}
+		}
+
+		TransformerDaemon daemon = new TransformerDaemon(getLogger(), this,
+			Paths.get(getOptionValue(AppOption.DAEMON)), workers);
+		try {
+			if (!daemon.start()) {
+				return logResult(ResultCode.RULES_ERROR_RC);
+			}
+		} catch (IOException e) {
+			getLogger().error(consoleMarker, "Daemon cannot be started [ {} ]", daemon.getSocketPath(), e);
+			return logResult(ResultCode.ARGS_ERROR_RC);
+		}
+		// Let the requests which are in progress complete before the JVM exits.
+		Thread shutdownHook = new Thread(() -> {
+			daemon.stop();
+			try {
+				daemon.awaitTermination();
+			} catch (InterruptedException e) {
+				Thread.currentThread()
+					.interrupt();
+			}
+		}, "TransformerDaemon shutdown");
+		Runtime.getRuntime()
+			.addShutdownHook(shutdownHook);
+		try {
+			daemon.serve();
+		} finally {
+			daemon.stop();
+			try {
+				Runtime.getRuntime()
+					.removeShutdownHook(shutdownHook);
+			} catch (IllegalStateException e) {
+				// Shutting down
+			}
+		}
+		return logResult(ResultCode.SUCCESS_RC);
+	}
+
+	/**
+	 * Watch the input directory after the initial transformation. Failures to
+	 * transform single files do not stop the watching.
+	 *
+	 * @param transformer The transformer which transformed the input
+	 *            directory.
+	 * @param rc The result of the initial transformation.
+	 * @return The result of watching.
+	 */
+	private ResultCode runWatch(Transformer transformer, ResultCode rc) {
+		if (transformer.acceptedAction == null) {
+			return rc; // The transformer logged the failure.
+		}
+
+		long quietPeriod = DirectoryWatcher.DEFAULT_QUIET_PERIOD;
+		String quietPeriodValue = getOptionValue(AppOption.WATCH_QUIET_PERIOD);
+		if (quietPeriodValue != null) {
+			try {
+				quietPeriod = Long.parseLong(quietPeriodValue.trim());
+			} catch (NumberFormatException e) {
+				quietPeriod = -1L;
+			}
+			if (quietPeriod < 0L) {
+				getLogger().error(consoleMarker, "Watch quiet period [ {} ] must be a number of at least 0",
+					quietPeriodValue);
+				return logResult(ResultCode.ARGS_ERROR_RC);
+			}
+		}
+
+		try (DirectoryWatcher watcher = new DirectoryWatcher(transformer, quietPeriod)) {
+			Thread shutdownHook = new Thread(watcher::close, "DirectoryWatcher shutdown");
+			Runtime.getRuntime()
+				.addShutdownHook(shutdownHook);
+			try {
+				watcher.watch();
+			} finally {
+				try {
+					Runtime.getRuntime()
+						.removeShutdownHook(shutdownHook);
+				} catch (IllegalStateException e) {
+					// Shutting down
+				}
+			}
+		} catch (TransformException e) {
+			getLogger().error(consoleMarker, e.getMessage());
+			return logResult(ResultCode.ARGS_ERROR_RC);
+		} catch (IOException e) {
+			getLogger().error(consoleMarker, "Failed to watch [ {} ]", transformer.inputPath, e);
+			return logResult(ResultCode.TRANSFORM_ERROR_RC);
+		}
+		return logResult(ResultCode.SUCCESS_RC);
+	}
+
+	private List<Result> batchResults;
+
+	/**
+	 * Answer the per-input results of the last batch run.
+	 *
+	 * @return The per-input results of the last batch run. Null if no batch
+	 *         was run.
+	 */
+	public List<Result> getBatchResults() {
+		return batchResults;
+	}
+
+	private ResultCode runBatch() {
+		if (hasOption(AppOption.RULES_COMPILE)) {
+			getLogger().error(consoleMarker, "Option [ {} ] cannot be used with option [ {} ]",
+				AppOption.BATCH.getLongTag(), AppOption.RULES_COMPILE.getLongTag());
+			return logResult(ResultCode.ARGS_ERROR_RC);
+		}
+		if (getParsedArgs().getArgs().length > 1) {
+			getLogger().error(consoleMarker, "Maximum number of arguments in batch mode is 1");
+			return logResult(ResultCode.ARGS_ERROR_RC);
+		}
+
+		String batch = getOptionValue(AppOption.BATCH);
+		List<Artifact> artifacts;
+		try {
+			// The only argument, if any, is the output directory.
+			artifacts = BatchTransformer.getArtifacts(batch, getInputFileName());
+		} catch (IOException | TransformException e) {
+			getLogger().error(consoleMarker, "Batch [ {} ] cannot be read: {}", batch, e.getMessage());
+			return logResult(ResultCode.ARGS_ERROR_RC);
+		}
+		if (artifacts.isEmpty()) {
+			getLogger().error(consoleMarker, "Batch [ {} ] has no inputs", batch);
+			return logResult(ResultCode.ARGS_ERROR_RC);
+		}
+
+		try {
+			BatchTransformer batchTransformer = new BatchTransformer(getLogger(), this);
+			ResultCode rc = batchTransformer.run(artifacts);
+			batchResults = batchTransformer.getResults();
+			lastActiveChanges = batchTransformer.getChanges();
+			return logResult(rc);
+		} catch (Throwable th) {
+			getLogger().error(consoleMarker, "Unexpected failure:", th);
+			return logResult(ResultCode.TRANSFORM_ERROR_RC);
+		}
+	}
 }
@@ -0,0 +1,581 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.cli;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+import static org.eclipse.transformer.Transformer.consoleMarker;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.net.StandardProtocolFamily;
+import java.net.URL;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import aQute.bnd.unmodifiable.Sets;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.ParseException;
+import org.eclipse.transformer.AppOption;
+import org.eclipse.transformer.TransformOptions;
+import org.eclipse.transformer.Transformer;
+import org.eclipse.transformer.Transformer.ResultCode;
+import org.eclipse.transformer.action.Changes;
+import org.eclipse.transformer.action.ContainerChanges;
+import org.eclipse.transformer.util.Json;
+import org.slf4j.Logger;
+
+/**
+ * Long lived transformer which accepts transform requests on a Unix domain
+ * socket.
+ * <p>
+ * The rules are loaded once, when the daemon is started, and are shared by all
+ * requests, including the caches of the signature rule, which stay warm for the
+ * life of the daemon. Requests are transformed concurrently, up to the number
+ * of workers of the daemon.
+ * <p>
+ * Requests and responses are single lines of JSON. A transform request has an
+ * input, an optional output, and optional options, which are given as command
+ * line arguments:
+ *
+ * <pre>
+ * {"input":"app.war","output":"app-jakarta.war","options":["-o"]}
+ * </pre>
+ *
+ * Only the {@link #REQUEST_OPTIONS}, which do not change the rules, may be given
+ * by a request. The response has the result code and a summary of the changes:
+ *
+ * <pre>
+ * {"input":"app.war","output":"app-jakarta.war","resultCode":0,"result":"Success","changes":{...}}
+ * </pre>
+ *
+ * A <code>{"command":"stop"}</code> request stops the daemon.
+ * <p>
+ * The socket is readable and writable by its owner only.
+ */
+public class TransformerDaemon implements Closeable {
+	/** Options which may be given by a transform request. */
+	public static final Set<AppOption>	REQUEST_OPTIONS	= Sets.of(AppOption.OVERWRITE,
+		AppOption.WIDEN_ARCHIVE_NESTING, AppOption.STRIP_SIGNATURES, AppOption.FILE_TYPE);
+
+	/** Permissions of the socket: Only the owner may connect. */
+	private static final Set<PosixFilePermission>	SOCKET_PERMISSIONS	= PosixFilePermissions.fromString("rw-------");
+
+	/** Permissions of the directory in which the socket is bound. */
+	private static final Set<PosixFilePermission>	BIND_DIRECTORY_PERMISSIONS	= PosixFilePermissions
+		.fromString("rwx------");
+
+	/** How long to wait for idle connections to close when stopping. */
+	private static final long			CLOSE_TIMEOUT_SECONDS	= 10L;
+
+	private final Logger				logger;
+	private final TransformerCLI		options;
+	private final Path					socketPath;
+	private final int					workers;
+
+	private Transformer					rulesTransformer;
+	private Semaphore					permits;
+	private ServerSocketChannel			server;
+	private boolean						bound;
+	private ExecutorService				connections;
+	private final Set<SocketChannel>	channels		= ConcurrentHashMap.newKeySet();
+	private final CountDownLatch		terminated		= new CountDownLatch(1);
+	private volatile boolean			stopped;
+	private int							activeRequests;	// guarded by this
+
+	public TransformerDaemon(Logger logger, TransformerCLI options, Path socketPath, int workers) {
+		this.logger = requireNonNull(logger);
+		this.options = requireNonNull(options);
+		this.socketPath = requireNonNull(socketPath);
+		if (workers < 1) {
+			throw new IllegalArgumentException("Workers [ " + workers + " ] must be at least 1");
+		}
+		this.workers = workers;
+	}
+
+	public Logger getLogger() {
+		return logger;
+	}
+
+	public Path getSocketPath() {
+		return socketPath;
+	}
+
+	/**
+	 * Load the rules and start listening for requests.
+	 *
+	 * @return True or false telling if the daemon was started. False if the
+	 *         rules could not be loaded.
+	 * @throws IOException Thrown if the socket cannot be bound.
+	 */
+	public boolean start() throws IOException {
+		Transformer useRulesTransformer = new Transformer(getLogger(), options);
+		if (!useRulesTransformer.loadRules()) {
+			return false;
+		}
+		// Create the shared rules now, instead of while handling the first
+		// request.
+		useRulesTransformer.getSelectionRule();
+		useRulesTransformer.getSignatureRule();
+		rulesTransformer = useRulesTransformer;
+
+		permits = new Semaphore(workers);
+		connections = Executors.newCachedThreadPool();
+
+		removeStaleSocket();
+		server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		bind();
+
+		getLogger().info(consoleMarker, "Daemon listening on [ {} ] with workers [ {} ]", socketPath, workers);
+		return true;
+	}
+
+	/**
+	 * Remove a socket file left by a daemon which was not stopped cleanly,
+	 * which would prevent the bind. Only a socket on which no daemon is
+	 * listening is removed.
+	 *
+	 * @throws IOException Thrown if the socket path is not a socket, or if a
+	 *             daemon is listening on it.
+	 */
+	private void removeStaleSocket() throws IOException {
+		BasicFileAttributes attributes;
+		try {
+			attributes = Files.readAttributes(socketPath, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+		} catch (NoSuchFileException e) {
+			return;
+		}
+		if (!attributes.isOther()) {
+			throw new IOException("Daemon socket [ " + socketPath + " ] exists and is not a socket");
+		}
+		try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+			throw new IOException("Daemon socket [ " + socketPath + " ] is in use");
+		} catch (ConnectException e) {
+			getLogger().debug(consoleMarker, "Daemon removing stale socket [ {} ]", socketPath);
+		}
+		Files.delete(socketPath);
+	}
+
+	/**
+	 * Bind the server socket. The socket is bound in a new directory which
+	 * only the owner may access. Its permissions are set, then it is moved to
+	 * the socket path. No other user can connect before the permissions are
+	 * set.
+	 *
+	 * @throws IOException Thrown if the socket cannot be bound.
+	 */
+	private void bind() throws IOException {
+		Path bindDirectory;
+		try {
+			bindDirectory = Files.createTempDirectory(socketPath.toAbsolutePath()
+				.getParent(), ".sock", PosixFilePermissions.asFileAttribute(BIND_DIRECTORY_PERMISSIONS));
+		} catch (UnsupportedOperationException e) {
+			getLogger().debug(consoleMarker, "Daemon socket permissions not supported [ {} ]", socketPath);
+			server.bind(UnixDomainSocketAddress.of(socketPath));
+			bound = true;
+			return;
+		}
+		Path bindPath = bindDirectory.resolve(socketPath.getFileName());
+		try {
+			server.bind(UnixDomainSocketAddress.of(bindPath));
+			Files.setPosixFilePermissions(bindPath, SOCKET_PERMISSIONS);
+			// The move fails if another daemon bound the socket path after
+			// the stale socket was removed.
+			Files.move(bindPath, socketPath);
+			bound = true;
+		} finally {
+			Files.deleteIfExists(bindPath);
+			Files.delete(bindDirectory);
+		}
+	}
+
+	/**
+	 * Accept connections until the daemon is stopped. Each connection is
+	 * handled on its own thread, and may send any number of requests.
+	 * <p>
+	 * After the daemon is stopped, wait for the requests which are in progress
+	 * to complete, then close the remaining connections.
+	 */
+	public void serve() {
+		try {
+			accept();
+			awaitRequests();
+		} catch (InterruptedException e) {
+			Thread.currentThread()
+				.interrupt();
+		} finally {
+			closeConnections();
+			terminated.countDown();
+		}
+		getLogger().info(consoleMarker, "Daemon stopped [ {} ]", socketPath);
+	}
+
+	private void accept() {
+		while (!stopped) {
+			SocketChannel channel;
+			try {
+				channel = server.accept();
+			} catch (AsynchronousCloseException e) {
+				break; // Stopped
+			} catch (IOException e) {
+				if (!stopped) {
+					getLogger().error(consoleMarker, "Daemon accept failure", e);
+				}
+				break;
+			}
+			channels.add(channel);
+			connections.execute(() -> handle(channel));
+		}
+	}
+
+	private void closeConnections() {
+		for (SocketChannel channel : channels) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				getLogger().debug(consoleMarker, "Daemon connection close failure", e);
+			}
+		}
+		connections.shutdown();
+		try {
+			if (!connections.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				getLogger().warn(consoleMarker, "Daemon connections did not close [ {} ]", socketPath);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread()
+				.interrupt();
+		}
+	}
+
+	/**
+	 * Wait until {@link #serve()} returns: The daemon is stopped and the
+	 * requests which were in progress are complete.
+	 *
+	 * @throws InterruptedException Thrown if the wait is interrupted.
+	 */
+	public void awaitTermination() throws InterruptedException {
+		terminated.await();
+	}
+
+	/**
+	 * Stop accepting connections and requests. Requests which are in progress
+	 * complete: {@link #serve()} waits for them before returning.
+	 */
+	public void stop() {
+		if (stopped) {
+			return;
+		}
+		stopped = true;
+		try {
+			if (server != null) {
+				server.close();
+			}
+			// Do not remove the socket of another daemon.
+			if (bound) {
+				Files.deleteIfExists(socketPath);
+			}
+		} catch (IOException e) {
+			getLogger().debug(consoleMarker, "Daemon close failure [ {} ]", socketPath, e);
+		}
+	}
+
+	@Override
+	public void close() {
+		stop();
+	}
+
+	private void handle(SocketChannel channel) {
+		try (channel;
+			BufferedReader reader = new BufferedReader(
+				new InputStreamReader(Channels.newInputStream(channel), UTF_8));
+			Writer writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), UTF_8))) {
+			for (String line; (line = reader.readLine()) != null;) {
+				if (line.isBlank()) {
+					continue;
+				}
+				if (!beginRequest()) {
+					Json.write(writer, error(ResultCode.TRANSFORM_ERROR_RC, "Daemon is stopped"));
+					writer.write('\n');
+					writer.flush();
+					break;
+				}
+				// The response is written before the request ends, so that
+				// stopping the daemon does not close the connection first.
+				try {
+					Json.write(writer, respond(line));
+					writer.write('\n');
+					writer.flush();
+				} finally {
+					endRequest();
+				}
+				if (stopped) {
+					break;
+				}
+			}
+		} catch (IOException e) {
+			if (!stopped) {
+				getLogger().debug(consoleMarker, "Daemon connection failure", e);
+			}
+		} finally {
+			channels.remove(channel);
+		}
+	}
+
+	private synchronized boolean beginRequest() {
+		if (stopped) {
+			return false;
+		}
+		activeRequests++;
+		return true;
+	}
+
+	private synchronized void endRequest() {
+		if (--activeRequests == 0) {
+			notifyAll();
+		}
+	}
+
+	private synchronized void awaitRequests() throws InterruptedException {
+		while (activeRequests > 0) {
+			wait();
+		}
+	}
+
+	/**
+	 * Handle one request.
+	 *
+	 * @param line The JSON text of the request.
+	 * @return The response, as a map which is to be written as JSON.
+	 */
+	protected Map<String, Object> respond(String line) {
+		Map<String, Object> request;
+		try {
+			request = Json.parseObject(line);
+		} catch (IllegalArgumentException e) {
+			return error(ResultCode.ARGS_ERROR_RC, "Malformed request: " + e.getMessage());
+		}
+
+		Object command = request.getOrDefault("command", "transform");
+		if ("stop".equals(command)) {
+			stop();
+			Map<String, Object> response = new LinkedHashMap<>();
+			response.put("command", "stop");
+			putResult(response, ResultCode.SUCCESS_RC);
+			return response;
+		}
+		if (!"transform".equals(command)) {
+			return error(ResultCode.ARGS_ERROR_RC, "Unknown command [ " + command + " ]");
+		}
+
+		if (!(request.get("input") instanceof String inputName)) {
+			return error(ResultCode.ARGS_ERROR_RC, "No input was specified");
+		}
+		Object output = request.get("output");
+		if ((output != null) && !(output instanceof String)) {
+			return error(ResultCode.ARGS_ERROR_RC, "Output is not a string");
+		}
+		String outputName = (String) output;
+
+		List<String> args = new ArrayList<>();
+		Object requestOptions = request.get("options");
+		if (requestOptions instanceof List<?> list) {
+			list.forEach(arg -> args.add(String.valueOf(arg)));
+		} else if (requestOptions != null) {
+			return error(ResultCode.ARGS_ERROR_RC, "Options are not an array");
+		}
+
+		CommandLine parsedArgs;
+		try {
+			parsedArgs = new DefaultParser().parse(options.getAppOptions(), args.toArray(new String[0]));
+		} catch (ParseException e) {
+			return error(ResultCode.ARGS_ERROR_RC, "Options cannot be parsed: " + e.getMessage());
+		}
+		if (parsedArgs.getArgs().length != 0) {
+			return error(ResultCode.ARGS_ERROR_RC,
+				"Options have arguments " + Arrays.toString(parsedArgs.getArgs()));
+		}
+		for (Option option : parsedArgs.getOptions()) {
+			if (REQUEST_OPTIONS.stream()
+				.noneMatch(requestOption -> requestOption.getShortTag()
+					.equals(option.getOpt()))) {
+				return error(ResultCode.ARGS_ERROR_RC,
+					"Option [ " + option.getLongOpt() + " ] cannot be given by a request");
+			}
+		}
+
+		ResultCode rc;
+		Changes changes;
+		try {
+			permits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread()
+				.interrupt();
+			return error(ResultCode.TRANSFORM_ERROR_RC, "Interrupted");
+		}
+		try {
+			Transformer transformer = new Transformer(getLogger(),
+				new RequestOptions(options, parsedArgs, inputName, outputName));
+			transformer.useRules(rulesTransformer);
+			rc = transformer.run();
+			changes = transformer.getLastActiveChanges();
+		} catch (Throwable th) {
+			getLogger().error(consoleMarker, "Unexpected failure [ {} ]:", inputName, th);
+			rc = ResultCode.TRANSFORM_ERROR_RC;
+			changes = null;
+		} finally {
+			permits.release();
+		}
+
+		Map<String, Object> response = new LinkedHashMap<>();
+		response.put("input", inputName);
+		response.put("output", outputName);
+		putResult(response, rc);
+		if (changes != null) {
+			response.put("changes", summarize(changes));
+		}
+		return response;
+	}
+
+	private static void putResult(Map<String, Object> response, ResultCode rc) {
+		response.put("resultCode", rc.ordinal());
+		response.put("result", rc.toString());
+	}
+
+	private static Map<String, Object> error(ResultCode rc, String message) {
+		Map<String, Object> response = new LinkedHashMap<>();
+		putResult(response, rc);
+		response.put("error", message);
+		return response;
+	}
+
+	/**
+	 * Summarize the changes of a transformation.
+	 *
+	 * @param changes The changes of a transformation.
+	 * @return The summary, as a map which is to be written as JSON.
+	 */
+	public static Map<String, Object> summarize(Changes changes) {
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("inputResource", changes.getInputResourceName());
+		summary.put("outputResource", changes.getOutputResourceName());
+		summary.put("changed", changes.isChanged());
+		summary.put("renamed", changes.isRenamed());
+		summary.put("contentChanged", changes.isContentChanged());
+		summary.put("elapsedMillis", changes.getElapsedMillis());
+		if (changes instanceof ContainerChanges containerChanges) {
+			summary.put("allResources", containerChanges.getAllResources());
+			summary.put("allSelected", containerChanges.getAllSelected());
+			summary.put("allAccepted", containerChanges.getAllAccepted());
+			summary.put("allUnchanged", containerChanges.getAllUnchanged());
+			summary.put("allChanged", containerChanges.getAllChanged());
+			summary.put("allRenamed", containerChanges.getAllRenamed());
+			summary.put("allContentChanged", containerChanges.getAllContentChanged());
+			summary.put("allFailed", containerChanges.getAllFailed());
+			summary.put("allDuplicated", containerChanges.getAllDuplicated());
+			summary.put("allDeduplicated", containerChanges.getAllDeduplicated());
+		}
+		return summary;
+	}
+
+	/**
+	 * Options of one request. The input, output, and request options are
+	 * those of the request. All other options are those of the daemon.
+	 */
+	private record RequestOptions(TransformOptions options, CommandLine parsedArgs, String inputName,
+		String outputName) implements TransformOptions {
+		@Override
+		public boolean hasOption(AppOption option) {
+			if (REQUEST_OPTIONS.contains(option) && parsedArgs.hasOption(option.getShortTag())) {
+				return true;
+			}
+			return options.hasOption(option);
+		}
+
+		@Override
+		public String getOptionValue(AppOption option) {
+			if (REQUEST_OPTIONS.contains(option) && parsedArgs.hasOption(option.getShortTag())) {
+				return parsedArgs.getOptionValue(option.getShortTag());
+			}
+			return options.getOptionValue(option);
+		}
+
+		@Override
+		public List<String> getOptionValues(AppOption option) {
+			if (REQUEST_OPTIONS.contains(option) && parsedArgs.hasOption(option.getShortTag())) {
+				String[] values = parsedArgs.getOptionValues(option.getShortTag());
+				return (values == null) ? null : new ArrayList<>(Arrays.asList(values));
+			}
+			return options.getOptionValues(option);
+		}
+
+		@Override
+		public String getDefaultValue(AppOption option) {
+			return options.getDefaultValue(option);
+		}
+
+		@Override
+		public Function<String, URL> getRuleLoader() {
+			return options.getRuleLoader();
+		}
+
+		@Override
+		public String getInputFileName() {
+			return inputName;
+		}
+
+		@Override
+		public String getOutputFileName() {
+			return outputName;
+		}
+
+		@Override
+		public String normalize(String value) {
+			return options.normalize(value);
+		}
+
+		@Override
+		public List<String> normalize(List<String> values) {
+			return options.normalize(values);
+		}
+	}
+}
@@ -131,10 +131,38 @@ public class TransformerLoggerFactory {
 		verboseOutput("Logging to [ {} ]", logFile);
 
 		Logger logger = LoggerFactory.getLogger(loggerName);
+		AsyncLogAppender appender = createAppender(loggerName);
 		if (toSysOut || toSysErr) { // if logging to console
-			return logger;
+			if (appender == null) {
+				return logger;
+			}
+			// The delegate writes to the console.
+			BiConsumer<String, Throwable> noConsole = (message, t) -> {};
+			return new DualLogger(logger, noConsole, noConsole, appender);
+		}
+		return new DualLogger(logger, consolePrint(cli.getSystemOut()), consolePrint(cli.getSystemErr()), appender);
+	}
+
+	private AsyncLogAppender createAppender(String loggerName) {
+		if (settings.asyncPolicy == null) {
+			if (settings.asyncBuffer != null) {
+				throw new TransformException("Log buffer [ " + settings.asyncBuffer + " ] requires asynchronous logging");
+			}
+			return null;
+		}
+		AsyncLogAppender.Policy policy = AsyncLogAppender.Policy.of(settings.asyncPolicy);
+		int capacity;
+		if (settings.asyncBuffer == null) {
+			capacity = AsyncLogAppender.DEFAULT_CAPACITY;
+		} else {
+			try {
+				capacity = Integer.parseInt(settings.asyncBuffer);
+			} catch (NumberFormatException e) {
+				throw new TransformException("Log buffer [ " + settings.asyncBuffer + " ] must be a number", e);
+			}
 		}
-		return new DualLogger(logger, consolePrint(cli.getSystemOut()), consolePrint(cli.getSystemErr()));
+		verboseOutput("Logging asynchronously: Buffer [ {} ] Policy [ {} ]", capacity, policy);
+		return new AsyncLogAppender(loggerName, capacity, policy);
 	}
 
 	private BiConsumer<String, Throwable> consolePrint(PrintStream stream) {
@@ -12,20 +12,45 @@
 package transformer.test;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
+import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.PrintStream;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import aQute.lib.io.IO;
+import org.assertj.core.api.InstanceOfAssertFactories;
 import org.assertj.core.api.SoftAssertions;
+import org.eclipse.transformer.BatchTransformer;
+import org.eclipse.transformer.DirectoryWatcher;
+import org.eclipse.transformer.ProgressReporter;
+import org.eclipse.transformer.TransformException;
 import org.eclipse.transformer.Transformer;
 import org.eclipse.transformer.Transformer.ResultCode;
 import org.eclipse.transformer.action.Changes;
@@ -37,6 +62,8 @@ import org.eclipse.transformer.action.impl.ManifestActionImpl;
 import org.eclipse.transformer.action.impl.ZipActionImpl;
 import org.eclipse.transformer.cli.JakartaTransformerCLI;
 import org.eclipse.transformer.cli.TransformerCLI;
+import org.eclipse.transformer.cli.TransformerDaemon;
+import org.eclipse.transformer.util.Json;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -112,6 +139,196 @@ class TestCommandLine {
 		verifyAction(DirectoryActionImpl.class.getName(), inputFileName, null, expectedOutputFileName, 3);
 	}
 
+	@Test
+	void testDirectoryParallelism() throws Exception {
+		String inputFileName = STATIC_CONTENT_DIR + "/command-line";
+		String serialOutputFileName = DYNAMIC_CONTENT_DIR + "/serial";
+		String parallelOutputFileName = DYNAMIC_CONTENT_DIR + "/parallel";
+
+		TransformerCLI cli = new JakartaTransformerCLI(System.out, System.err, inputFileName, serialOutputFileName,
+			"-o");
+		assertThat(cli.run()).isEqualTo(ResultCode.SUCCESS_RC);
+		ContainerChanges serialChanges = (ContainerChanges) cli.getLastActiveChanges();
+
+		cli = new JakartaTransformerCLI(System.out, System.err, inputFileName, parallelOutputFileName, "-o",
+			"--directoryParallelism", "4");
+		assertThat(cli.run()).isEqualTo(ResultCode.SUCCESS_RC);
+		ContainerChanges parallelChanges = (ContainerChanges) cli.getLastActiveChanges();
+
+		SoftAssertions softly = new SoftAssertions();
+		softly.assertThat(parallelChanges.getAllResources()).isEqualTo(serialChanges.getAllResources());
+		softly.assertThat(parallelChanges.getAllSelected()).isEqualTo(serialChanges.getAllSelected());
+		softly.assertThat(parallelChanges.getAllUnselected()).isEqualTo(serialChanges.getAllUnselected());
+		softly.assertThat(parallelChanges.getAllAccepted()).isEqualTo(serialChanges.getAllAccepted());
+		softly.assertThat(parallelChanges.getAllUnaccepted()).isEqualTo(serialChanges.getAllUnaccepted());
+		softly.assertThat(parallelChanges.getAllChanged()).isEqualTo(serialChanges.getAllChanged());
+		softly.assertThat(parallelChanges.getAllUnchanged()).isEqualTo(serialChanges.getAllUnchanged());
+		softly.assertThat(parallelChanges.getAllRenamed()).isEqualTo(serialChanges.getAllRenamed());
+		softly.assertThat(parallelChanges.getAllContentChanged()).isEqualTo(serialChanges.getAllContentChanged());
+		softly.assertThat(parallelChanges.getAllFailed()).isEqualTo(serialChanges.getAllFailed());
+		softly.assertThat(parallelChanges.getAllDuplicated()).isEqualTo(serialChanges.getAllDuplicated());
+		softly.assertThat(parallelChanges.getActionNames()).isEqualTo(serialChanges.getActionNames());
+		for (String actionName : serialChanges.getActionNames()) {
+			softly.assertThat(parallelChanges.getChanged(actionName)).as(actionName)
+				.isEqualTo(serialChanges.getChanged(actionName));
+			softly.assertThat(parallelChanges.getUnchanged(actionName)).as(actionName)
+				.isEqualTo(serialChanges.getUnchanged(actionName));
+		}
+
+		File serialOutput = new File(serialOutputFileName);
+		File parallelOutput = new File(parallelOutputFileName);
+		softly.assertThat(IO.listFiles(parallelOutput)).hasSameSizeAs(IO.listFiles(serialOutput));
+		for (File serialFile : IO.listFiles(serialOutput)) {
+			File parallelFile = new File(parallelOutput, serialFile.getName());
+			if (serialFile.getName()
+				.endsWith("ar")) {
+				// Archives are written with the current time; compare the
+				// entries.
+				softly.assertThat(entryCRCs(parallelFile))
+					.as(serialFile.getName())
+					.isEqualTo(entryCRCs(serialFile));
+			} else {
+				softly.assertThat(parallelFile)
+					.as(serialFile.getName())
+					.hasSameBinaryContentAs(serialFile);
+			}
+		}
+		softly.assertAll();
+	}
+
+	@Test
+	void testIncremental() throws Exception {
+		// The state of a previous test run must not be reused.
+		IO.delete(new File(DYNAMIC_CONTENT_DIR));
+		File inputDir = IO.copy(new File(STATIC_CONTENT_DIR + "/command-line"),
+			new File(DYNAMIC_CONTENT_DIR + "/input"));
+		String outputFileName = DYNAMIC_CONTENT_DIR + "/output";
+		File outputDir = new File(outputFileName);
+		File stateFile = new File(DYNAMIC_CONTENT_DIR + "/output.transformer-state");
+		int inputCount = IO.listFiles(inputDir)
+			.size();
+
+		TransformerCLI cli = new JakartaTransformerCLI(System.out, System.err, inputDir.getPath(), outputFileName,
+			"--incremental");
+		assertThat(cli.run()).isEqualTo(ResultCode.SUCCESS_RC);
+		// Includes the entries of archives.
+		int resourceCount = ((ContainerChanges) cli.getLastActiveChanges()).getAllResources();
+		assertThat(resourceCount).isGreaterThanOrEqualTo(inputCount);
+		assertThat(stateFile).isFile();
+		assertThat(Json.parseObject(IO.collect(stateFile))).extractingByKey("inputs", InstanceOfAssertFactories.MAP)
+			.hasSize(inputCount)
+			.containsKeys("A.java", "sac-1.3.jar");
+		assertThat(new File(outputDir, "A.java")).content()
+			.contains("import jakarta.servlet.A;");
+
+		// Nothing changed: Nothing is transformed.
+		cli = new JakartaTransformerCLI(System.out, System.err, inputDir.getPath(), outputFileName, "--incremental");
+		assertThat(cli.run()).isEqualTo(ResultCode.SUCCESS_RC);
+		assertThat(((ContainerChanges) cli.getLastActiveChanges()).getAllResources()).isZero();
+
+		// Touched but not changed: Nothing is transformed, and the new last
+		// modified time is recorded.
+		File inputA = new File(inputDir, "A.java");
+		assertThat(inputA.setLastModified(inputA.lastModified() - 10_000L)).isTrue();
+		cli = new JakartaTransformerCLI(System.out, System.err, inputDir.getPath(), outputFileName, "--incremental");
+		assertThat(cli.run()).isEqualTo(ResultCode.SUCCESS_RC);
+		assertThat(((ContainerChanges) cli.getLastActiveChanges()).getAllResources()).isZero();
+		assertThat(Json.parseObject(IO.collect(stateFile))).extractingByKey("inputs", InstanceOfAssertFactories.MAP)
+			.extractingByKey("A.java", InstanceOfAssertFactories.MAP)
+			.containsEntry("modified", Files.getLastModifiedTime(inputA.toPath())
+				.toMillis());
+
+		// One changed, one removed, and one added input.
+		IO.store(IO.collect(inputA)
+			.replace("public class A", "public class A extends javax.servlet.GenericServlet"), inputA);
+		IO.delete(new File(inputDir, "sac-1.3.jar"));
+		IO.copy(inputA, new File(inputDir, "B.java"));
+		cli = new JakartaTransformerCLI(System.out, System.err, inputDir.getPath(), outputFileName, "--incremental",
+			"--directoryParallelism", "2");
+		assertThat(cli.run()).isEqualTo(ResultCode.SUCCESS_RC);
+		assertThat(((ContainerChanges) cli.getLastActiveChanges()).getAllResources()).isEqualTo(2);
+		assertThat(new File(outputDir, "A.java")).content()
+			.contains("extends jakarta.servlet.GenericServlet");
+		assertThat(new File(outputDir, "B.java")).isFile();
+		assertThat(new File(outputDir, "sac-1.3.jar")).doesNotExist();
+		assertThat(Json.parseObject(IO.collect(stateFile))).extractingByKey("inputs", InstanceOfAssertFactories.MAP)
+			.hasSize(inputCount)
+			.containsKey("B.java")
+			.doesNotContainKey("sac-1.3.jar");
+
+		// Changed rules: Everything is transformed.
+		Object fingerprint = Json.parseObject(IO.collect(stateFile))
+			.get("rules");
+		cli = new JakartaTransformerCLI(System.out, System.err, inputDir.getPath(), outputFileName, "--incremental",
+			"-s");
+		assertThat(cli.run()).isEqualTo(ResultCode.SUCCESS_RC);
+		assertThat(((ContainerChanges) cli.getLastActiveChanges()).getAllResources())
+			.isGreaterThanOrEqualTo(inputCount);
+		assertThat(Json.parseObject(IO.collect(stateFile))).doesNotContainEntry("rules", fingerprint);
+	}
+
+	@Test
+	void testWatch() throws Exception {
+		IO.delete(new File(DYNAMIC_CONTENT_DIR));
+		File inputDir = IO.copy(new File(STATIC_CONTENT_DIR + "/command-line"),
+			new File(DYNAMIC_CONTENT_DIR + "/input"));
+		File outputDir = new File(DYNAMIC_CONTENT_DIR + "/output");
+
+		TransformerCLI cli = new JakartaTransformerCLI(System.out, System.err, inputDir.getPath(),
+			outputDir.getPath(), "--watch");
+		Transformer transformer = new Transformer(cli.getLogger(), cli);
+		assertThat(transformer.run()).isEqualTo(ResultCode.SUCCESS_RC);
+		assertThat(new File(outputDir, "sac-1.3.jar")).isFile();
+
+		BlockingQueue<Changes> updates = new LinkedBlockingQueue<>();
+		try (DirectoryWatcher watcher = new DirectoryWatcher(transformer, 50L)) {
+			watcher.setUpdateListener(updates::add);
+			Thread watching = new Thread(watcher::watch, "watcher");
+			watching.start();
+
+			File inputA = new File(inputDir, "A.java");
+			IO.store(IO.collect(inputA)
+				.replace("public class A", "public class A extends javax.servlet.GenericServlet"), inputA);
+			IO.delete(new File(inputDir, "sac-1.3.jar"));
+			File inputB = new File(inputDir, "sub/B.java");
+			IO.mkdirs(inputB.getParentFile());
+			IO.copy(inputA, inputB);
+
+			File outputA = new File(outputDir, "A.java");
+			File outputB = new File(outputDir, "sub/B.java");
+			File outputJar = new File(outputDir, "sac-1.3.jar");
+			long deadline = System.nanoTime() + 30_000_000_000L;
+			while (!(outputB.isFile() && !outputJar.exists() && IO.collect(outputA)
+				.contains("extends jakarta.servlet.GenericServlet"))) {
+				assertThat(System.nanoTime()).as("Timed out waiting for updates")
+					.isLessThan(deadline);
+				updates.poll(1L, TimeUnit.SECONDS);
+			}
+			assertThat(outputB).content()
+				.contains("import jakarta.servlet.A;");
+			assertThat(new File(DYNAMIC_CONTENT_DIR + "/output.transformer-staging")).doesNotExist();
+			assertThat(Json.parseObject(IO.collect(new File(DYNAMIC_CONTENT_DIR + "/output.transformer-state"))))
+				.extractingByKey("inputs", InstanceOfAssertFactories.MAP)
+				.containsKey("sub/B.java")
+				.doesNotContainKey("sac-1.3.jar");
+
+			watcher.close();
+			watching.join(10_000L);
+			assertThat(watching.isAlive()).isFalse();
+		}
+	}
+
+	private static Map<String, Long> entryCRCs(File archive) throws IOException {
+		Map<String, Long> crcs = new HashMap<>();
+		try (ZipFile zipFile = new ZipFile(archive)) {
+			for (Enumeration<? extends ZipEntry> entries = zipFile.entries(); entries.hasMoreElements();) {
+				ZipEntry entry = entries.nextElement();
+				crcs.put(entry.getName(), entry.getCrc());
+			}
+		}
+		return crcs;
+	}
+
 	@Test
 	void testInputFileNameOnlyAccepted() throws Exception {
 		File inputFile = new File(IO.copy(new File(STATIC_CONTENT_DIR + "/command-line"), new File(DYNAMIC_CONTENT_DIR)), "A.java");
@@ -185,6 +402,218 @@ class TestCommandLine {
 		verifyAction(ZipActionImpl.class.getName(), inputFileName, outputFileName, outputFileName, false);
 	}
 
+	@Test
+	void testPipeline() throws Exception {
+		for (String archiveName : List.of("sac-1.3.jar", "nested_stored_archive.war")) {
+			String inputFileName = STATIC_CONTENT_DIR + "/command-line/" + archiveName;
+			File serialOutput = new File(DYNAMIC_CONTENT_DIR + "/serial/" + archiveName);
+			File pipelinedOutput = new File(DYNAMIC_CONTENT_DIR + "/pipelined/" + archiveName);
+
+			TransformerCLI cli = new JakartaTransformerCLI(System.out, System.err, inputFileName,
+				serialOutput.getPath(), "-o");
+			assertThat(cli.run()).isEqualTo(ResultCode.SUCCESS_RC);
+			cli = new JakartaTransformerCLI(System.out, System.err, inputFileName, pipelinedOutput.getPath(), "-o",
+				"--pipeline", "--pipelineDepth", "2", "--pipelineMemory", "0");
+			assertThat(cli.run()).isEqualTo(ResultCode.SUCCESS_RC);
+
+			// Archives are written with the current time; compare the entries,
+			// in order.
+			List<String> serialEntries = new ArrayList<>();
+			List<String> pipelinedEntries = new ArrayList<>();
+			try (ZipFile serialFile = new ZipFile(serialOutput); ZipFile pipelinedFile = new ZipFile(pipelinedOutput)) {
+				serialFile.stream()
+					.forEach(entry -> serialEntries.add(entry.getName() + " " + entry.getMethod() + " " + entry.getCrc()));
+				pipelinedFile.stream()
+					.forEach(entry -> pipelinedEntries.add(entry.getName() + " " + entry.getMethod() + " " + entry.getCrc()));
+			}
+			assertThat(pipelinedEntries).as(archiveName)
+				.isNotEmpty()
+				.isEqualTo(serialEntries);
+		}
+	}
+
+	@Test
+	void testDelta() throws Exception {
+		String inputFileName = STATIC_CONTENT_DIR + "/command-line/sac-1.3.jar";
+		File previousOutput = new File(DYNAMIC_CONTENT_DIR + "/previous/sac-1.3.jar");
+		File output = new File(DYNAMIC_CONTENT_DIR + "/sac-1.3.jar");
+
+		TransformerCLI cli = new JakartaTransformerCLI(System.out, System.err, inputFileName,
+			previousOutput.getPath(), "-o");
+		assertThat(cli.run()).isEqualTo(ResultCode.SUCCESS_RC);
+
+		// No entries changed: All entries are copied from the previous output.
+		cli = new JakartaTransformerCLI(System.out, System.err, inputFileName, output.getPath(), "--delta",
+			inputFileName, previousOutput.getPath());
+		assertThat(cli.run()).isEqualTo(ResultCode.SUCCESS_RC);
+
+		List<String> previousEntries = new ArrayList<>();
+		List<String> entries = new ArrayList<>();
+		try (ZipFile previousFile = new ZipFile(previousOutput); ZipFile outputFile = new ZipFile(output)) {
+			previousFile.stream()
+				.forEach(entry -> previousEntries.add(entry.getName() + " " + entry.getTime() + " " + entry.getCrc()));
+			outputFile.stream()
+				.forEach(entry -> entries.add(entry.getName() + " " + entry.getTime() + " " + entry.getCrc()));
+		}
+		assertThat(entries).isNotEmpty()
+			.isEqualTo(previousEntries);
+	}
+
+	@Test
+	void testTimingReport() throws Exception {
+		String inputFileName = STATIC_CONTENT_DIR + "/command-line/sac-1.3.jar";
+		String outputFileName = DYNAMIC_CONTENT_DIR + "/sac-1.3.jar";
+		File report = new File(DYNAMIC_CONTENT_DIR + "/timing/report.json");
+
+		TransformerCLI cli = new JakartaTransformerCLI(System.out, System.err, inputFileName, outputFileName,
+			"-o", "--timingReport", report.getPath(), "--timingTop", "5");
+		assertThat(cli.run()).isEqualTo(ResultCode.SUCCESS_RC);
+
+		Map<String, Object> root = Json.parseObject(Files.readString(report.toPath()));
+		assertThat(root.get("name")).isEqualTo(inputFileName);
+		assertThat((Long) root.get("inputBytes")).isEqualTo(new File(inputFileName).length());
+		assertThat((Long) root.get("elapsedNanos")).isPositive();
+		assertThat(((Map<?, ?>) root.get("byType")).containsKey("CLASS")).isTrue();
+		assertThat((List<?>) root.get("slowestEntries")).isNotEmpty();
+	}
+
+	@Test
+	void testMetricsFile() throws Exception {
+		String inputFileName = STATIC_CONTENT_DIR + "/command-line/sac-1.3.jar";
+		String outputFileName = DYNAMIC_CONTENT_DIR + "/sac-1.3.jar";
+		File metrics = new File(DYNAMIC_CONTENT_DIR + "/metrics/transformer.prom");
+
+		TransformerCLI cli = new JakartaTransformerCLI(System.out, System.err, inputFileName, outputFileName,
+			"-o", "--metricsFile", metrics.getPath());
+		assertThat(cli.run()).isEqualTo(ResultCode.SUCCESS_RC);
+
+		assertThat(Files.readAllLines(metrics.toPath())).contains("# TYPE transformer_entries_total counter",
+			"# TYPE transformer_entry_duration_seconds histogram", "# TYPE transformer_signature_cache_total counter")
+			.anyMatch(line -> line.startsWith("transformer_entries_total{type=\"CLASS\",outcome=\"changed\"} "));
+
+		File json = new File(DYNAMIC_CONTENT_DIR + "/metrics/transformer.txt");
+		cli = new JakartaTransformerCLI(System.out, System.err, inputFileName, outputFileName, "-o",
+			"--metricsFile", json.getPath(), "--metricsFormat", "json");
+		assertThat(cli.run()).isEqualTo(ResultCode.SUCCESS_RC);
+		assertThat((List<?>) Json.parseObject(Files.readString(json.toPath()))
+			.get("metrics")).isNotEmpty();
+	}
+
+	@Test
+	void testProgress() throws Exception {
+		String inputFileName = STATIC_CONTENT_DIR + "/command-line/signed-jar-with-javax.jar";
+		String outputFileName = DYNAMIC_CONTENT_DIR + "/signed-jar-with-javax.jar";
+
+		TransformerCLI cli = new JakartaTransformerCLI(System.out, System.err, inputFileName, outputFileName,
+			"-o", "--progress");
+		Transformer transformer = new Transformer(cli.getLogger(), cli);
+		assertThat(transformer.getProgressListener()).isInstanceOf(ProgressReporter.class);
+		assertThat(cli.run()).isEqualTo(ResultCode.SUCCESS_RC);
+	}
+
+	@Test
+	void testRulesProfile() throws Exception {
+		String inputFileName = STATIC_CONTENT_DIR + "/command-line/signed-jar-with-javax.jar";
+		String outputFileName = DYNAMIC_CONTENT_DIR + "/signed-jar-with-javax.jar";
+		File profile = new File(DYNAMIC_CONTENT_DIR + "/profile/rules.json");
+
+		TransformerCLI cli = new JakartaTransformerCLI(System.out, System.err, inputFileName, outputFileName,
+			"-o", "--rulesProfile", profile.getPath());
+		assertThat(cli.run()).isEqualTo(ResultCode.SUCCESS_RC);
+
+		Map<String, Object> json = Json.parseObject(Files.readString(profile.toPath()));
+		List<?> rules = (List<?>) json.get("rules");
+		assertThat(rules).isNotEmpty();
+		Map<?, ?> mostMatched = (Map<?, ?>) rules.get(0);
+		assertThat(mostMatched.get("type")).isEqualTo("RENAME");
+		assertThat((Long) mostMatched.get("matches")).isPositive();
+		assertThat((List<?>) json.get("unused")).isNotEmpty();
+	}
+
+	@Test
+	void testBenchmark() throws Exception {
+		String inputFileName = STATIC_CONTENT_DIR + "/command-line/signed-jar-with-javax.jar";
+		File benchmarkOutput = new File(DYNAMIC_CONTENT_DIR + "/benchmark");
+		File report = new File(DYNAMIC_CONTENT_DIR + "/benchmark.json");
+
+		TransformerCLI cli = new JakartaTransformerCLI(System.out, System.err, inputFileName, "--benchmark", "3",
+			"--benchmarkWarmup", "1", "--benchmarkOutput", benchmarkOutput.getPath(), "--benchmarkReport",
+			report.getPath());
+		assertThat(cli.run()).isEqualTo(ResultCode.SUCCESS_RC);
+
+		Map<String, Object> json = Json.parseObject(Files.readString(report.toPath()));
+		assertThat(json.get("iterations")).isEqualTo(3L);
+		assertThat(json.get("warmup")).isEqualTo(1L);
+		assertThat((Long) json.get("entries")).isPositive();
+		assertThat((Long) json.get("inputBytes")).isEqualTo(new File(inputFileName).length());
+		Map<?, ?> wall = (Map<?, ?>) json.get("wall");
+		assertThat((Double) wall.get("minMillis")).isPositive()
+			.isLessThanOrEqualTo((Double) wall.get("medianMillis"));
+		assertThat((Double) wall.get("medianMillis")).isLessThanOrEqualTo((Double) wall.get("p95Millis"));
+		assertThat((List<?>) json.get("measurements")).hasSize(3);
+		// The output of each iteration is discarded.
+		assertThat(benchmarkOutput.list()).isEmpty();
+
+		cli = new JakartaTransformerCLI(System.out, System.err, inputFileName, "--benchmark", "0");
+		assertThat(cli.run()).isEqualTo(ResultCode.ARGS_ERROR_RC);
+	}
+
+	@Test
+	void testAnalyze() throws Exception {
+		String inputFileName = STATIC_CONTENT_DIR + "/command-line/signed-jar-with-javax.jar";
+		File report = new File(DYNAMIC_CONTENT_DIR + "/analysis.json");
+
+		TransformerCLI cli = new JakartaTransformerCLI(System.out, System.err, inputFileName, "--analyze",
+			"--analyzeReport", report.getPath());
+		assertThat(cli.run()).isEqualTo(ResultCode.SUCCESS_RC);
+
+		Map<String, Object> json = Json.parseObject(Files.readString(report.toPath()));
+		assertThat(json.get("entries")).isEqualTo(113L);
+		assertThat(json.get("archives")).isEqualTo(1L);
+		assertThat(json.get("inputBytes")).isEqualTo(new File(inputFileName).length());
+		Map<?, ?> outcomes = (Map<?, ?>) json.get("outcomes");
+		assertThat((Long) outcomes.get("Class Action")).isPositive();
+		assertThat((Long) json.get("transformedBytes")).isPositive();
+		assertThat((Long) json.get("peakMemoryBytes")).isPositive();
+		assertThat((List<?>) json.get("largestEntries")).hasSize(10);
+		assertThat((List<?>) json.get("passThroughArchives")).isEmpty();
+
+		// Signature files are stripped.
+		cli = new JakartaTransformerCLI(System.out, System.err, inputFileName, "--analyze", "--analyzeReport",
+			report.getPath(), "--stripSignatures");
+		assertThat(cli.run()).isEqualTo(ResultCode.SUCCESS_RC);
+		json = Json.parseObject(Files.readString(report.toPath()));
+		assertThat((Long) ((Map<?, ?>) json.get("outcomes")).get("stripped")).isPositive();
+
+		cli = new JakartaTransformerCLI(System.out, System.err, inputFileName, "--analyze", "--benchmark", "1");
+		assertThat(cli.run()).isEqualTo(ResultCode.ARGS_ERROR_RC);
+	}
+
+	@Test
+	void testRulesSnapshotOptions() throws Exception {
+		String inputFileName = STATIC_CONTENT_DIR + "/command-line/signed-jar-with-javax.jar";
+		String outputFileName = DYNAMIC_CONTENT_DIR + "/snapshot/signed-jar-with-jakarta.jar";
+		File snapshot = new File(DYNAMIC_CONTENT_DIR + "/snapshot/rules.snapshot");
+
+		TransformerCLI cli = new JakartaTransformerCLI(System.out, System.err, "--compileRules",
+			snapshot.getPath());
+		assertThat(cli.run()).isEqualTo(ResultCode.SUCCESS_RC);
+		assertThat(snapshot).isFile();
+
+		cli = new JakartaTransformerCLI(System.out, System.err, inputFileName, outputFileName, "-o",
+			"--rulesSnapshot", snapshot.getPath());
+		assertThat(cli.run()).isEqualTo(ResultCode.SUCCESS_RC);
+
+		// Rules options have no effect with a snapshot, and are rejected.
+		cli = new JakartaTransformerCLI(System.out, System.err, inputFileName, outputFileName, "-o",
+			"--rulesSnapshot", snapshot.getPath(), "--invert");
+		assertThat(cli.run()).isEqualTo(ResultCode.ARGS_ERROR_RC);
+
+		cli = new JakartaTransformerCLI(System.out, System.err, inputFileName, outputFileName, "-o",
+			"--rulesSnapshot", snapshot.getPath(), "-tr", "renames.properties");
+		assertThat(cli.run()).isEqualTo(ResultCode.ARGS_ERROR_RC);
+	}
+
 	// Test zip with entry names encoded with a charset other than UTF-8.
 	@Test
 	void zip_non_UTF_8_encoding() throws Exception {
@@ -341,6 +770,345 @@ class TestCommandLine {
 
 	}
 
+	@Test
+	void testLogAsync() throws Exception {
+		ByteArrayOutputStream sysOut = new ByteArrayOutputStream();
+		ByteArrayOutputStream sysErr = new ByteArrayOutputStream();
+		String logFileName = DYNAMIC_CONTENT_DIR + '/' + "log-async.txt";
+		try (PrintStream out = new PrintStream(sysOut); PrintStream err = new PrintStream(sysErr)) {
+			TransformerCLI cli = new TransformerCLI(out, err, "--logName", name, "--logFile", logFileName,
+				"--logAsync", "block", "--logBuffer", "4");
+			Logger logger = cli.getLogger();
+			Marker consoleMarker = MarkerFactory.getMarker("console");
+			for (int lineNo = 0; lineNo < 100; lineNo++) {
+				logger.info(consoleMarker, "Test async line [ {} ]", lineNo);
+			}
+			logger.error(consoleMarker, "Test async error", new Exception("Test async exception"));
+			logger.debug(consoleMarker, "Test async disabled {}", new Object() {
+				@Override
+				public String toString() {
+					throw new AssertionError("A disabled message was rendered");
+				}
+			});
+			assertThat(logger).isInstanceOf(AutoCloseable.class);
+			((AutoCloseable) logger).close();
+			out.flush();
+			err.flush();
+		}
+
+		List<String> lines = sysOut.toString()
+			.lines()
+			.filter(line -> line.startsWith("Test async"))
+			.toList();
+		assertThat(lines).hasSize(100);
+		for (int lineNo = 0; lineNo < 100; lineNo++) {
+			assertThat(lines.get(lineNo)).isEqualTo("Test async line [ " + lineNo + " ]");
+		}
+		assertThat(sysErr.toString()).contains("Test async error", "Test async exception")
+			.doesNotContain("dropped");
+	}
+
+	@Test
+	void testLogAsyncDrop() throws Exception {
+		ByteArrayOutputStream sysOut = new ByteArrayOutputStream();
+		ByteArrayOutputStream sysErr = new ByteArrayOutputStream();
+		String logFileName = DYNAMIC_CONTENT_DIR + '/' + "log-async-drop.txt";
+		try (PrintStream out = new PrintStream(sysOut); PrintStream err = new PrintStream(sysErr)) {
+			TransformerCLI cli = new TransformerCLI(out, err, "--logName", name, "--logFile", logFileName,
+				"--logAsync", "drop", "--logBuffer", "1");
+			Logger logger = cli.getLogger();
+			Marker consoleMarker = MarkerFactory.getMarker("console");
+			for (int lineNo = 0; lineNo < 1000; lineNo++) {
+				logger.info(consoleMarker, "Test drop line [ {} ]", lineNo);
+			}
+			((AutoCloseable) logger).close();
+			out.flush();
+			err.flush();
+		}
+
+		long written = sysOut.toString()
+			.lines()
+			.filter(line -> line.startsWith("Test drop line"))
+			.count();
+		assertThat(written).isBetween(1L, 1000L);
+		if (written < 1000L) {
+			assertThat(sysErr.toString()).contains("[ " + (1000L - written) + " ] log messages were dropped");
+		}
+	}
+
+	@Test
+	void testLogAsyncClose() throws Exception {
+		ByteArrayOutputStream sysOut = new ByteArrayOutputStream();
+		String logFileName = DYNAMIC_CONTENT_DIR + '/' + "log-async-close.txt";
+		int threadCount = 4;
+		int lineCount = 500;
+		try (PrintStream out = new PrintStream(sysOut)) {
+			TransformerCLI cli = new TransformerCLI(out, System.err, "--logName", name, "--logFile", logFileName,
+				"--logAsync", "block", "--logBuffer", "2");
+			Logger logger = cli.getLogger();
+			Marker consoleMarker = MarkerFactory.getMarker("console");
+			CountDownLatch started = new CountDownLatch(threadCount);
+			List<Thread> threads = new ArrayList<>();
+			for (int threadNo = 0; threadNo < threadCount; threadNo++) {
+				Thread thread = new Thread(() -> {
+					started.countDown();
+					for (int lineNo = 0; lineNo < lineCount; lineNo++) {
+						logger.info(consoleMarker, "Test close line [ {} ]", lineNo);
+					}
+				});
+				threads.add(thread);
+				thread.start();
+			}
+			// Close while the threads are logging: Records which are logged
+			// after the close are written synchronously.
+			started.await();
+			((AutoCloseable) logger).close();
+			for (Thread thread : threads) {
+				thread.join(10_000L);
+				assertThat(thread.isAlive()).isFalse();
+			}
+			out.flush();
+		}
+
+		long written = sysOut.toString()
+			.lines()
+			.filter(line -> line.startsWith("Test close line"))
+			.count();
+		assertThat(written).isEqualTo((long) threadCount * lineCount);
+	}
+
+	@Test
+	void testLogAsyncInvalidPolicy() throws Exception {
+		assertThatExceptionOfType(TransformException.class)
+			.isThrownBy(() -> new TransformerCLI(System.out, System.err, "--logName", name, "--logAsync", "sometimes"))
+			.withMessageContaining("sometimes");
+	}
+
+	@Test
+	void testBatchFile() throws Exception {
+		File batchFile = new File(DYNAMIC_CONTENT_DIR, "batch.txt");
+		IO.store("# Batch of archives\n" //
+			+ STATIC_CONTENT_DIR + "/command-line/sac-1.3.jar = " + DYNAMIC_CONTENT_DIR + "/sac-1.3.jar\n" //
+			+ "\n" //
+			+ STATIC_CONTENT_DIR + "/command-line/signed-jar-with-javax.jar=" + DYNAMIC_CONTENT_DIR
+			+ "/signed-jar-with-javax.jar\n" //
+			+ STATIC_CONTENT_DIR + "/command-line/nested_stored_archive.war=" + DYNAMIC_CONTENT_DIR
+			+ "/nested_stored_archive.war\n" //
+			+ STATIC_CONTENT_DIR + "/command-line/missing.jar=" + DYNAMIC_CONTENT_DIR + "/missing.jar\n",
+			batchFile);
+
+		TransformerCLI cli = new JakartaTransformerCLI(System.out, System.err, "--batch", batchFile.getPath(),
+			"--parallelism", "2", "-o");
+		ResultCode rc = cli.run();
+		assertThat(rc).isEqualTo(ResultCode.TRANSFORM_ERROR_RC);
+
+		assertThat(cli.getBatchResults()).hasSize(4)
+			.extracting(BatchTransformer.Result::resultCode)
+			.containsExactly(ResultCode.SUCCESS_RC, ResultCode.SUCCESS_RC, ResultCode.SUCCESS_RC,
+				ResultCode.TRANSFORM_ERROR_RC);
+		assertThat(new File(DYNAMIC_CONTENT_DIR, "sac-1.3.jar")).isFile();
+		assertThat(new File(DYNAMIC_CONTENT_DIR, "signed-jar-with-javax.jar")).isFile();
+		assertThat(new File(DYNAMIC_CONTENT_DIR, "nested_stored_archive.war")).isFile();
+
+		ContainerChanges aggregate = (ContainerChanges) cli.getLastActiveChanges();
+		int allResources = 0;
+		int allChanged = 0;
+		for (BatchTransformer.Result result : cli.getBatchResults()
+			.subList(0, 3)) {
+			ContainerChanges changes = (ContainerChanges) result.changes();
+			allResources += changes.getAllResources();
+			allChanged += changes.getAllChanged();
+		}
+		assertThat(aggregate.getAllResources()).isEqualTo(allResources);
+		assertThat(aggregate.getAllChanged()).isEqualTo(allChanged)
+			.isPositive();
+	}
+
+	@Test
+	void testBatchGlob() throws Exception {
+		String outputDirName = DYNAMIC_CONTENT_DIR + "/output";
+		TransformerCLI cli = new JakartaTransformerCLI(System.out, System.err, "--batch",
+			"glob:" + STATIC_CONTENT_DIR + "/command-line/*.jar", outputDirName, "-p", "4", "-o");
+		ResultCode rc = cli.run();
+		assertThat(rc).isEqualTo(ResultCode.SUCCESS_RC);
+
+		assertThat(cli.getBatchResults()).extracting(result -> result.artifact()
+			.outputName())
+			.containsExactly(outputDirName + "/sac-1.3.jar", outputDirName + "/signed-jar-with-javax.jar");
+		assertThat(new File(outputDirName, "sac-1.3.jar")).isFile();
+		assertThat(new File(outputDirName, "signed-jar-with-javax.jar")).isFile();
+
+		// A pattern requires an output directory.
+		cli = new JakartaTransformerCLI(System.out, System.err, "--batch",
+			"glob:" + STATIC_CONTENT_DIR + "/command-line/*.jar", "-o");
+		assertThat(cli.run()).isEqualTo(ResultCode.ARGS_ERROR_RC);
+	}
+
+	@Test
+	void testDaemon() throws Exception {
+		// Unix domain socket paths are limited to about 100 characters.
+		Path socketDir = Files.createTempDirectory("transformer");
+		Path socketPath = socketDir.resolve("daemon.sock");
+		TransformerCLI cli = new JakartaTransformerCLI(System.out, System.err, "--daemon", socketPath.toString());
+		TransformerDaemon daemon = new TransformerDaemon(cli.getLogger(), cli, socketPath, 2);
+		try {
+			assertThat(daemon.start()).isTrue();
+			// Only the owner may connect to the socket.
+			assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(socketPath)))
+				.isEqualTo("rw-------");
+			Thread server = new Thread(daemon::serve, "daemon");
+			server.start();
+
+			try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath));
+				BufferedReader reader = new BufferedReader(
+					new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+				Writer writer = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8)) {
+				String outputFileName = DYNAMIC_CONTENT_DIR + "/signed-jar-with-javax.jar";
+				Map<String, Object> response = request(reader, writer, Map.of("input",
+					STATIC_CONTENT_DIR + "/command-line/signed-jar-with-javax.jar", "output", outputFileName,
+					"options", List.of("-o", "-s")));
+				assertThat(response).containsEntry("resultCode", 0L)
+					.containsEntry("output", outputFileName);
+				assertThat(response.get("changes")).asInstanceOf(InstanceOfAssertFactories.MAP)
+					.containsEntry("contentChanged", true)
+					.containsKey("allResources");
+				assertThat(new File(outputFileName)).isFile();
+
+				// Rules options cannot be given by a request.
+				response = request(reader, writer, Map.of("input", STATIC_CONTENT_DIR + "/command-line/A.java",
+					"options", List.of("--invert")));
+				assertThat(response).containsEntry("resultCode", (long) ResultCode.ARGS_ERROR_RC.ordinal())
+					.containsKey("error");
+
+				response = request(reader, writer, Map.of("command", "stop"));
+				assertThat(response).containsEntry("resultCode", 0L);
+			}
+			server.join(10_000L);
+			assertThat(server.isAlive()).isFalse();
+			assertThat(socketPath).doesNotExist();
+		} finally {
+			daemon.close();
+			IO.delete(socketDir);
+		}
+	}
+
+	@Test
+	void testDaemonSocketPath() throws Exception {
+		Path socketDir = Files.createTempDirectory("transformer");
+		Path socketPath = socketDir.resolve("daemon.sock");
+		TransformerCLI cli = new JakartaTransformerCLI(System.out, System.err, "--daemon", socketPath.toString());
+		try {
+			// A file which is not a socket is not removed.
+			Files.writeString(socketPath, "data");
+			try (TransformerDaemon daemon = new TransformerDaemon(cli.getLogger(), cli, socketPath, 1)) {
+				assertThatExceptionOfType(IOException.class).isThrownBy(daemon::start)
+					.withMessageContaining("is not a socket");
+			}
+			assertThat(socketPath).hasContent("data");
+			Files.delete(socketPath);
+
+			// A socket on which no daemon is listening is removed.
+			try (ServerSocketChannel stale = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+				stale.bind(UnixDomainSocketAddress.of(socketPath));
+			}
+			assertThat(socketPath).exists();
+			try (TransformerDaemon daemon = new TransformerDaemon(cli.getLogger(), cli, socketPath, 1)) {
+				assertThat(daemon.start()).isTrue();
+
+				// The socket of a listening daemon is not removed.
+				try (TransformerDaemon other = new TransformerDaemon(cli.getLogger(), cli, socketPath, 1)) {
+					assertThatExceptionOfType(IOException.class).isThrownBy(other::start)
+						.withMessageContaining("is in use");
+				}
+				assertThat(socketPath).exists();
+				try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+					assertThat(channel.isConnected()).isTrue();
+				}
+			}
+			assertThat(socketPath).doesNotExist();
+			// The directory in which the socket was bound is removed.
+			assertThat(socketDir).isEmptyDirectory();
+		} finally {
+			IO.delete(socketDir);
+		}
+	}
+
+	@Test
+	void testDaemonStopCompletesRequests() throws Exception {
+		Path socketDir = Files.createTempDirectory("transformer");
+		Path socketPath = socketDir.resolve("daemon.sock");
+		TransformerCLI cli = new JakartaTransformerCLI(System.out, System.err, "--daemon", socketPath.toString());
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		// Hold transform requests until they are released.
+		TransformerDaemon daemon = new TransformerDaemon(cli.getLogger(), cli, socketPath, 1) {
+			@Override
+			protected Map<String, Object> respond(String line) {
+				if (line.contains("\"input\"")) {
+					started.countDown();
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread()
+							.interrupt();
+					}
+				}
+				return super.respond(line);
+			}
+		};
+		try {
+			assertThat(daemon.start()).isTrue();
+			Thread server = new Thread(daemon::serve, "daemon");
+			server.start();
+
+			try (SocketChannel transformChannel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath));
+				BufferedReader transformReader = new BufferedReader(
+					new InputStreamReader(Channels.newInputStream(transformChannel), StandardCharsets.UTF_8));
+				Writer transformWriter = new OutputStreamWriter(Channels.newOutputStream(transformChannel),
+					StandardCharsets.UTF_8);
+				SocketChannel stopChannel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath));
+				BufferedReader stopReader = new BufferedReader(
+					new InputStreamReader(Channels.newInputStream(stopChannel), StandardCharsets.UTF_8));
+				Writer stopWriter = new OutputStreamWriter(Channels.newOutputStream(stopChannel),
+					StandardCharsets.UTF_8)) {
+				String outputFileName = DYNAMIC_CONTENT_DIR + "/A.java";
+				transformWriter.write(Json.toJson(Map.of("input", STATIC_CONTENT_DIR + "/command-line/A.java",
+					"output", outputFileName, "options", List.of("-o"))));
+				transformWriter.write('\n');
+				transformWriter.flush();
+				assertThat(started.await(10L, TimeUnit.SECONDS)).isTrue();
+
+				// Stopping does not wait for the request which is in progress,
+				// but serving does.
+				Map<String, Object> response = request(stopReader, stopWriter, Map.of("command", "stop"));
+				assertThat(response).containsEntry("resultCode", 0L);
+				server.join(500L);
+				assertThat(server.isAlive()).isTrue();
+
+				release.countDown();
+				response = Json.parseObject(transformReader.readLine());
+				assertThat(response).containsEntry("resultCode", 0L)
+					.containsEntry("output", outputFileName);
+				assertThat(new File(outputFileName)).isFile();
+			}
+			server.join(10_000L);
+			assertThat(server.isAlive()).isFalse();
+			daemon.awaitTermination();
+		} finally {
+			release.countDown();
+			daemon.close();
+			IO.delete(socketDir);
+		}
+	}
+
+	private static Map<String, Object> request(BufferedReader reader, Writer writer, Map<String, Object> request)
+		throws IOException {
+		writer.write(Json.toJson(request));
+		writer.write('\n');
+		writer.flush();
+		return Json.parseObject(reader.readLine());
+	}
+
 	@Test
 	void testEmptyInputRejected() throws Exception {
 		String inputFileName = "";
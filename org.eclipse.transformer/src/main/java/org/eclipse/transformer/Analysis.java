@@ -0,0 +1,558 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer;
+
+import static java.util.Objects.requireNonNull;
+import static org.eclipse.transformer.Transformer.consoleMarker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import aQute.lib.io.IO;
+import org.eclipse.transformer.Transformer.ResultCode;
+import org.eclipse.transformer.action.Action;
+import org.eclipse.transformer.action.ContainerAction;
+import org.eclipse.transformer.action.ElementAction;
+import org.eclipse.transformer.action.RenameAction;
+import org.eclipse.transformer.action.impl.ZipActionImpl;
+import org.eclipse.transformer.util.FileUtils;
+import org.eclipse.transformer.util.Json;
+import org.eclipse.transformer.util.ZipDirectory;
+import org.slf4j.Logger;
+
+/**
+ * Preflight analysis of the transform of one input.
+ * <p>
+ * No entry is inflated or transformed: Only the central directories of
+ * archives are read, and the actions and the selection rule of the transform
+ * are applied to the names of the entries. Nested archives which are stored
+ * are analyzed in place. Nested archives which are compressed cannot be
+ * analyzed without inflating them, and are reported as opaque.
+ * <p>
+ * The analysis reports the count of entries of each outcome: The name of the
+ * action which accepts the entry, or {@link #UNSELECTED}, {@link #UNACCEPTED},
+ * or {@link #STRIPPED}. The bytes of entries which would be collected,
+ * transformed, and rewritten are reported separately from the bytes of entries
+ * which would be copied.
+ * <p>
+ * The peak memory is estimated as the largest data which is held at once by
+ * the transform of one entry: An entry which is transformed holds its input
+ * and its output, and a nested archive which is collected holds its input and
+ * its output while its entries are transformed. Entries which are copied or
+ * streamed are not counted. The files of an input directory which are
+ * transformed concurrently are summed.
+ * <p>
+ * An archive can be passed through when the transform would not select any of
+ * its entries for an action, except for nested archives which can be passed
+ * through and which are not renamed.
+ */
+public class Analysis {
+	/** Outcome of entries which are not selected by the selection rule. */
+	public static final String	UNSELECTED	= "unselected";
+	/** Outcome of entries which are not accepted by any action. */
+	public static final String	UNACCEPTED	= "unaccepted";
+	/** Outcome of signature entries which are stripped. */
+	public static final String	STRIPPED	= "stripped";
+
+	/** Count of largest entries which are reported. */
+	public static final int		DEFAULT_TOP	= 10;
+
+	private static final double	KILOBYTE	= 1024.0;
+	private static final double	MEGABYTE	= 1024.0 * 1024.0;
+
+	/**
+	 * An entry which is reported as one of the largest entries.
+	 *
+	 * @param path The path of the entry. Entries of archives are named by the
+	 *            path of the archive followed by "!/" and the name of the
+	 *            entry.
+	 * @param outcome The outcome of the entry.
+	 * @param bytes The uncompressed bytes of the entry.
+	 */
+	public record Entry(String path, String outcome, long bytes) {}
+
+	/**
+	 * An archive which can be passed through, or which is opaque.
+	 *
+	 * @param path The path of the archive.
+	 * @param entries The count of entries of the archive. -1 if the archive is
+	 *            opaque.
+	 * @param bytes The uncompressed bytes of the archive.
+	 * @param reason The reason the archive is opaque. Null if the archive can
+	 *            be passed through.
+	 */
+	public record Archive(String path, long entries, long bytes, String reason) {}
+
+	/**
+	 * Result of the analysis of one entry or archive.
+	 *
+	 * @param passThrough True if the transform would not change the entry.
+	 * @param peakBytes The estimated peak memory of the transform of the
+	 *            entry.
+	 */
+	private record Scan(boolean passThrough, long peakBytes) {}
+
+	private static final Comparator<Entry>	BY_SIZE	= Comparator.comparingLong(Entry::bytes)
+		.thenComparing(Entry::path, Comparator.reverseOrder());
+
+	private final Logger					logger;
+	private final TransformOptions			options;
+
+	private String							inputName;
+	private long							inputBytes;
+	private long							elapsedNanos;
+	private Map<String, Long>				outcomes;
+	private long							entries;
+	private long							archives;
+	private long							transformedEntries;
+	private long							transformedBytes;
+	private long							copiedBytes;
+	private long							opaqueBytes;
+	private long							peakBytes;
+	private PriorityQueue<Entry>			largest;
+	private List<Archive>					passThrough;
+	private List<Archive>					opaque;
+
+	public Analysis(Logger logger, TransformOptions options) {
+		this.logger = requireNonNull(logger);
+		this.options = requireNonNull(options);
+		reset();
+	}
+
+	public Logger getLogger() {
+		return logger;
+	}
+
+	private void reset() {
+		inputName = null;
+		inputBytes = 0L;
+		elapsedNanos = 0L;
+		outcomes = new TreeMap<>();
+		entries = 0L;
+		archives = 0L;
+		transformedEntries = 0L;
+		transformedBytes = 0L;
+		copiedBytes = 0L;
+		opaqueBytes = 0L;
+		peakBytes = 0L;
+		largest = new PriorityQueue<>(BY_SIZE);
+		passThrough = new ArrayList<>();
+		opaque = new ArrayList<>();
+	}
+
+	/**
+	 * Run the analysis of the input of the options. The results are logged,
+	 * and are written to the analysis report of the options, if one is
+	 * specified.
+	 *
+	 * @return {@link ResultCode#SUCCESS_RC} if the analysis succeeded.
+	 *         Otherwise, the result code of the failure.
+	 */
+	public ResultCode run() {
+		Transformer transformer = new Transformer(getLogger(), options);
+		if (!transformer.setInput()) {
+			return ResultCode.TRANSFORM_ERROR_RC;
+		}
+		if (!transformer.loadRules()) {
+			return ResultCode.RULES_ERROR_RC;
+		}
+		if (!transformer.acceptAction()) {
+			getLogger().error(consoleMarker, "No action selected");
+			return ResultCode.FILE_TYPE_ERROR_RC;
+		}
+
+		try {
+			analyze(transformer);
+		} catch (TransformException e) {
+			getLogger().error(consoleMarker, "Analysis failure", e);
+			return ResultCode.TRANSFORM_ERROR_RC;
+		}
+
+		log();
+		String report = options.getOptionValue(AppOption.ANALYZE_REPORT);
+		if (report != null) {
+			File reportFile = new File(options.normalize(report));
+			try {
+				write(reportFile);
+			} catch (IOException e) {
+				getLogger().error(consoleMarker, "Failed to write analysis report [ {} ]", reportFile, e);
+				return ResultCode.TRANSFORM_ERROR_RC;
+			}
+			getLogger().info(consoleMarker, "Analysis report [ {} ]", reportFile);
+		}
+		return ResultCode.SUCCESS_RC;
+	}
+
+	/**
+	 * Analyze the input of a transformer. The input of the transformer must be
+	 * set, its rules must be loaded, and its action must be accepted.
+	 *
+	 * @param transformer The transformer of the input.
+	 * @throws TransformException Thrown if the input cannot be read.
+	 */
+	public void analyze(Transformer transformer) throws TransformException {
+		reset();
+		inputName = transformer.inputName;
+		File inputFile = transformer.inputFile;
+		Action action = transformer.acceptedAction;
+
+		long start = System.nanoTime();
+		try {
+			if (inputFile.isDirectory()) {
+				inputBytes = analyzeDirectory((ContainerAction) action, inputFile,
+					transformer.getDirectoryParallelism());
+			} else {
+				inputBytes = inputFile.length();
+				Scan scan;
+				if (action.isArchiveAction()) {
+					try (ZipDirectory directory = new ZipDirectory(inputFile.toPath(),
+						action.resourceCharset(inputName))) {
+						scan = analyzeArchive((ContainerAction) action, inputName, directory, inputBytes);
+					}
+				} else {
+					scan = analyzeElement(inputName, action.getName(), inputBytes);
+				}
+				peakBytes = scan.peakBytes();
+			}
+		} catch (IOException | UncheckedIOException e) {
+			throw new TransformException("Failed to analyze [ " + inputName + " ]", e);
+		}
+		elapsedNanos = System.nanoTime() - start;
+	}
+
+	private long analyzeDirectory(ContainerAction directoryAction, File inputDirectory, int parallelism)
+		throws IOException {
+		Path root = inputDirectory.toPath();
+		List<Path> files;
+		try (Stream<Path> paths = Files.walk(root)) {
+			files = paths.filter(Files::isRegularFile)
+				.sorted()
+				.toList();
+		}
+
+		long totalBytes = 0L;
+		// Files are transformed concurrently: The largest peaks are summed.
+		PriorityQueue<Long> peaks = new PriorityQueue<>();
+		for (Path file : files) {
+			String name = root.relativize(file)
+				.toString()
+				.replace(File.separatorChar, '/');
+			long size = Files.size(file);
+			totalBytes += size;
+			entries++;
+
+			Action action = directoryAction.selectAction(name, file.toFile());
+			Scan scan;
+			if (action == null) {
+				scan = copied(name, UNACCEPTED, size, true);
+			} else if (!directoryAction.selectResource(name)) {
+				scan = copied(name, UNSELECTED, size, true);
+			} else if (action.isRenameAction()) {
+				scan = copied(name, action.getName(), size, !isRenamed((RenameAction) action, name));
+			} else if (action.isArchiveAction()) {
+				count(action.getName());
+				try (ZipDirectory directory = new ZipDirectory(file, action.resourceCharset(name))) {
+					scan = analyzeArchive((ContainerAction) action, name, directory, size);
+				} catch (IOException e) {
+					scan = analyzeOpaque(name, size, e.getMessage());
+				}
+			} else {
+				scan = analyzeElement(name, action.getName(), size);
+			}
+			peaks.offer(scan.peakBytes());
+			if (peaks.size() > parallelism) {
+				peaks.poll();
+			}
+		}
+		peakBytes = peaks.stream()
+			.mapToLong(Long::longValue)
+			.sum();
+		return totalBytes;
+	}
+
+	/**
+	 * Analyze the entries of an archive.
+	 *
+	 * @param archiveAction The action of the archive.
+	 * @param archivePath The path of the archive.
+	 * @param directory The central directory of the archive.
+	 * @param archiveBytes The bytes of the archive.
+	 * @return The result of the analysis of the archive.
+	 */
+	private Scan analyzeArchive(ContainerAction archiveAction, String archivePath, ZipDirectory directory,
+		long archiveBytes) throws IOException {
+		archives++;
+		boolean stripSignatures = (archiveAction instanceof ZipActionImpl zipAction) && zipAction.isStripSignatures();
+		boolean archivePassThrough = true;
+		long archivePeak = 0L;
+		List<ZipDirectory.Entry> directoryEntries = directory.getEntries();
+
+		for (ZipDirectory.Entry directoryEntry : directoryEntries) {
+			String name = FileUtils.sanitize(directoryEntry.getName());
+			String path = archivePath + "!/" + name;
+			long size = directoryEntry.getSize();
+			entries++;
+
+			Scan scan;
+			if (stripSignatures && ElementAction.SIGNATURE_FILE_PATTERN.matcher(name)
+				.matches()) {
+				count(STRIPPED);
+				scan = new Scan(false, 0L);
+			} else {
+				Action action = archiveAction.selectAction(name);
+				if (action == null) {
+					scan = copied(path, UNACCEPTED, size, true);
+				} else if (!archiveAction.selectResource(name)) {
+					scan = copied(path, UNSELECTED, size, true);
+				} else if (action.isRenameAction()) {
+					scan = copied(path, action.getName(), size, !isRenamed((RenameAction) action, name));
+				} else if (action.isArchiveAction()) {
+					count(action.getName());
+					scan = analyzeNested((ZipActionImpl) action, directory, directoryEntry, name, path);
+				} else {
+					scan = analyzeElement(path, action.getName(), size);
+				}
+			}
+			archivePassThrough &= scan.passThrough();
+			archivePeak = Math.max(archivePeak, scan.peakBytes());
+		}
+
+		if (archivePassThrough) {
+			passThrough.add(new Archive(archivePath, directoryEntries.size(), archiveBytes, null));
+		}
+		return new Scan(archivePassThrough, archivePeak);
+	}
+
+	/**
+	 * Analyze a nested archive. Stored archives are analyzed in place.
+	 * Compressed archives are opaque.
+	 */
+	private Scan analyzeNested(ZipActionImpl zipAction, ZipDirectory directory, ZipDirectory.Entry directoryEntry,
+		String name, String path) {
+		long size = directoryEntry.getSize();
+		if (!directoryEntry.isStored()) {
+			return analyzeOpaque(path, size, "compressed");
+		}
+
+		Scan nestedScan;
+		try (ZipDirectory nestedDirectory = directory.nested(directoryEntry, zipAction.resourceCharset(name))) {
+			nestedScan = analyzeArchive(zipAction, path, nestedDirectory, size);
+		} catch (IOException e) {
+			return analyzeOpaque(path, size, e.getMessage());
+		}
+
+		boolean renamed = !FileUtils.sanitize(zipAction.relocateResource(name))
+			.equals(name);
+		// Stored archives are collected, unless they are too large.
+		long held = (size <= zipAction.getStreamingThreshold()) ? 2L * size : 0L;
+		return new Scan(nestedScan.passThrough() && !renamed, held + nestedScan.peakBytes());
+	}
+
+	/**
+	 * Record an archive which cannot be analyzed. The entries of the archive
+	 * are not known: The archive is assumed to be transformed in full, and to
+	 * be held in memory with its output.
+	 */
+	private Scan analyzeOpaque(String path, long bytes, String reason) {
+		opaque.add(new Archive(path, -1L, bytes, reason));
+		opaqueBytes += bytes;
+		largest(new Entry(path, "opaque", bytes));
+		return new Scan(false, 2L * bytes);
+	}
+
+	private Scan analyzeElement(String path, String actionName, long bytes) {
+		count(actionName);
+		transformedEntries++;
+		transformedBytes += bytes;
+		largest(new Entry(path, actionName, bytes));
+		long held = (bytes <= ZipActionImpl.DEFAULT_STREAMING_THRESHOLD) ? 2L * bytes : 0L;
+		return new Scan(false, held);
+	}
+
+	/**
+	 * Record an entry which is copied. Entries which are copied are streamed,
+	 * and are not held in memory. Entries which are renamed are copied, but
+	 * are changed.
+	 */
+	private Scan copied(String path, String outcome, long bytes, boolean unchanged) {
+		count(outcome);
+		copiedBytes += bytes;
+		largest(new Entry(path, outcome, bytes));
+		return new Scan(unchanged, 0L);
+	}
+
+	private static boolean isRenamed(RenameAction renameAction, String name) {
+		return !FileUtils.sanitize(renameAction.apply(name))
+			.equals(name);
+	}
+
+	private void count(String outcome) {
+		outcomes.merge(outcome, 1L, Long::sum);
+	}
+
+	private void largest(Entry entry) {
+		largest.offer(entry);
+		if (largest.size() > DEFAULT_TOP) {
+			largest.poll();
+		}
+	}
+
+	//
+
+	/** @return The count of entries of each outcome. */
+	public Map<String, Long> getOutcomes() {
+		return Collections.unmodifiableMap(outcomes);
+	}
+
+	/** @return The largest entries, largest first. */
+	public List<Entry> getLargest() {
+		List<Entry> result = new ArrayList<>(largest);
+		result.sort(BY_SIZE.reversed());
+		return result;
+	}
+
+	/** @return The archives which can be passed through. */
+	public List<Archive> getPassThrough() {
+		return Collections.unmodifiableList(passThrough);
+	}
+
+	/** @return The archives which cannot be analyzed. */
+	public List<Archive> getOpaque() {
+		return Collections.unmodifiableList(opaque);
+	}
+
+	/** @return The estimated peak memory of the transform. */
+	public long getPeakBytes() {
+		return peakBytes;
+	}
+
+	/**
+	 * Answer the JSON representation of the results of the last analysis.
+	 *
+	 * @return The JSON representation of the results.
+	 */
+	public Map<String, Object> toMap() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("input", inputName);
+		map.put("inputBytes", inputBytes);
+		map.put("elapsedMillis", elapsedNanos / 1_000_000.0);
+		map.put("entries", entries);
+		map.put("archives", archives);
+		map.put("outcomes", outcomes);
+		map.put("transformedEntries", transformedEntries);
+		map.put("transformedBytes", transformedBytes);
+		map.put("copiedBytes", copiedBytes);
+		map.put("opaqueBytes", opaqueBytes);
+		map.put("peakMemoryBytes", peakBytes);
+
+		List<Object> largestList = new ArrayList<>();
+		for (Entry entry : getLargest()) {
+			Map<String, Object> entryMap = new LinkedHashMap<>();
+			entryMap.put("path", entry.path());
+			entryMap.put("outcome", entry.outcome());
+			entryMap.put("bytes", entry.bytes());
+			largestList.add(entryMap);
+		}
+		map.put("largestEntries", largestList);
+		map.put("passThroughArchives", archiveList(passThrough));
+		map.put("opaqueArchives", archiveList(opaque));
+		return map;
+	}
+
+	private static List<Object> archiveList(List<Archive> archiveRecords) {
+		List<Object> archiveList = new ArrayList<>(archiveRecords.size());
+		for (Archive archive : archiveRecords) {
+			Map<String, Object> archiveMap = new LinkedHashMap<>();
+			archiveMap.put("path", archive.path());
+			if (archive.reason() == null) {
+				archiveMap.put("entries", archive.entries());
+			}
+			archiveMap.put("bytes", archive.bytes());
+			if (archive.reason() != null) {
+				archiveMap.put("reason", archive.reason());
+			}
+			archiveList.add(archiveMap);
+		}
+		return archiveList;
+	}
+
+	/**
+	 * Write the JSON representation of the results of the last analysis to a
+	 * file.
+	 *
+	 * @param file The file which is to be written.
+	 * @throws IOException Thrown if the file cannot be written.
+	 */
+	public void write(File file) throws IOException {
+		File parent = file.getAbsoluteFile()
+			.getParentFile();
+		if (parent != null) {
+			IO.mkdirs(parent);
+		}
+		try (Writer writer = IO.writer(file)) {
+			Json.write(writer, toMap());
+		}
+	}
+
+	/**
+	 * Log a summary of the results of the last analysis.
+	 */
+	public void log() {
+		Logger useLogger = getLogger();
+		useLogger.info(consoleMarker, "Analysis [ {} ] entries [ {} ] archives [ {} ] bytes [ {} ] in [ {} ]",
+			inputName, entries, archives, inputBytes, format("%.1fms", elapsedNanos / 1_000_000.0));
+		outcomes.forEach(
+			(outcome, count) -> useLogger.info(consoleMarker, "  Outcome [ {} ] entries [ {} ]", outcome, count));
+		useLogger.info(consoleMarker,
+			"  Transformed entries [ {} ] bytes [ {} ] Copied bytes [ {} ] Opaque bytes [ {} ]", transformedEntries,
+			size(transformedBytes), size(copiedBytes), size(opaqueBytes));
+		useLogger.info(consoleMarker, "  Estimated peak memory [ {} ]", size(peakBytes));
+		for (Entry entry : getLargest()) {
+			useLogger.info(consoleMarker, "  Largest [ {} ] [ {} ] [ {} ]", entry.path(), entry.outcome(),
+				size(entry.bytes()));
+		}
+		for (Archive archive : passThrough) {
+			useLogger.info(consoleMarker, "  Pass through [ {} ] entries [ {} ]", archive.path(), archive.entries());
+		}
+		for (Archive archive : opaque) {
+			useLogger.info(consoleMarker, "  Opaque [ {} ] [ {} ] [ {} ]", archive.path(), size(archive.bytes()),
+				archive.reason());
+		}
+	}
+
+	private static String size(long bytes) {
+		if (bytes < KILOBYTE) {
+			return bytes + " B";
+		} else if (bytes < MEGABYTE) {
+			return format("%.1f KB", bytes / KILOBYTE);
+		}
+		return format("%.1f MB", bytes / MEGABYTE);
+	}
+
+	private static String format(String format, Object value) {
+		return String.format(Locale.ROOT, format, value);
+	}
+}
@@ -39,6 +39,12 @@ public enum AppOption {
 		!Settings.IS_REQUIRED, Settings.NO_GROUP)),
 	LOG_FILE(new Settings("lf", "logFile", "Logging file", Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED,
 		Settings.NO_GROUP)),
+	LOG_ASYNC(new Settings("la", "logAsync",
+		"Write log output asynchronously, from a bounded buffer. The value is the policy when the buffer is full: block or drop."
+			+ " Log output which shows thread names or times shows those of the log writer thread",
+		Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	LOG_BUFFER(new Settings("lb", "logBuffer", "Capacity of the buffer of asynchronous log output, in log records",
+		Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
 
 	RULES_SELECTIONS(new Settings("ts", "selection", "Transformation selections URL", Settings.HAS_ARG,
 		!Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
@@ -54,6 +60,13 @@ public enum AppOption {
 	RULES_MASTER_TEXT(new Settings("tf", "text", "Map of filenames to property files", Settings.HAS_ARG,
 		!Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
 
+	RULES_SNAPSHOT(new Settings("rs", "rulesSnapshot",
+		"Rules snapshot file; used instead of the rules properties files", Settings.HAS_ARG, !Settings.HAS_ARGS,
+		!Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	RULES_COMPILE(new Settings("rc", "compileRules",
+		"Load and validate the rules, then write them to a rules snapshot file; no input is transformed",
+		Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+
 	RULES_IMMEDIATE_DATA(new Settings("ti", "immediate", "Immediate rule data", !Settings.HAS_ARG, !Settings.HAS_ARGS,
 		Settings.HAS_ARG_COUNT, 3, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
 
@@ -77,6 +90,10 @@ public enum AppOption {
 	INVERT(new Settings("i", "invert", "Invert transformation rules", !Settings.HAS_ARG, !Settings.HAS_ARGS,
 		!Settings.IS_REQUIRED, Settings.NO_GROUP)),
 
+	VALIDATE_RULES(new Settings("vr", "validateRules",
+		"Load and validate all rules files before transforming, instead of loading text substitutions when first used",
+		!Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+
 	STRIP_SIGNATURES(new Settings("s", "stripSignatures", "Strips signatures from signed jar files", !Settings.HAS_ARG, !Settings.HAS_ARGS,
 		!Settings.IS_REQUIRED, Settings.NO_GROUP)),
 
@@ -88,6 +105,78 @@ public enum AppOption {
 	DRYRUN(new Settings("d", "dryrun", "Dry run", !Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED,
 		Settings.NO_GROUP)),
 
+	BATCH(new Settings("b", "batch",
+		"Batch of inputs transformed in one run: A batch file of 'input=output' lines, or 'glob:' and an input pattern, with outputs written under the output directory argument",
+		Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	BATCH_PARALLELISM(new Settings("p", "parallelism",
+		"Number of batch inputs which are transformed concurrently; defaults to 1", Settings.HAS_ARG,
+		!Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+
+	DIRECTORY_PARALLELISM(new Settings("pd", "directoryParallelism",
+		"Number of files of an input directory which are transformed concurrently; defaults to 1", Settings.HAS_ARG,
+		!Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	PIPELINE(new Settings("pl", "pipeline",
+		"Read, transform, and write the entries of an input archive concurrently, using a reader thread and a writer thread",
+		!Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	PIPELINE_DEPTH(new Settings("pq", "pipelineDepth",
+		"Number of entries which are queued between the stages of the pipeline; defaults to 16", Settings.HAS_ARG,
+		!Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	PIPELINE_MEMORY(new Settings("pm", "pipelineMemory",
+		"Megabytes of entry data which are read ahead by the pipeline; larger entries are not read ahead; defaults to 64",
+		Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	DELTA(new Settings("dl", "delta",
+		"Update the output archive from a previous transform: The previous input archive and the previous output archive, which may be the output archive; only added and changed entries are transformed; implies overwrite",
+		!Settings.HAS_ARG, !Settings.HAS_ARGS, Settings.HAS_ARG_COUNT, 2, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	TIMING_REPORT(new Settings("tj", "timingReport",
+		"Write a JSON report of the time and bytes of the input archive, of its nested archives, and of their entries by action type, to this file",
+		Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	TIMING_TOP(new Settings("tt", "timingTop", "Log this number of the slowest archives and entries",
+		Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	METRICS_FILE(new Settings("mf", "metricsFile",
+		"Write metrics of the entries processed, bytes, latency by action type, signature cache lookups, failures and duplicates to this file when the run ends",
+		Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	METRICS_FORMAT(new Settings("mt", "metricsFormat",
+		"Format of the metrics file: 'prometheus' (exposition text) or 'json'; by default, 'json' for files with the '.json' extension and 'prometheus' otherwise",
+		Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	PROGRESS(new Settings("pg", "progress",
+		"Report the progress of the transform: The entries and bytes processed, the throughput, and the estimated time remaining",
+		!Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	RULES_PROFILE(new Settings("rp", "rulesProfile",
+		"Write a JSON profile of the rules to this file: The matches of each rule, ranked, the rules which never matched, and the time spent replacing packages, versions, and text",
+		Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	BENCHMARK(new Settings("bm", "benchmark",
+		"Run the transform repeatedly, discarding the output, and report its performance. The value is the count of measured iterations",
+		Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	BENCHMARK_WARMUP(new Settings("bmw", "benchmarkWarmup",
+		"Count of warmup iterations which are run before the measured iterations of a benchmark. Defaults to 1",
+		Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	BENCHMARK_OUTPUT(new Settings("bmo", "benchmarkOutput",
+		"Directory to which benchmark iterations write their output, for example, a tmpfs directory. Defaults to a temporary directory",
+		Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	BENCHMARK_REPORT(new Settings("bmr", "benchmarkReport", "JSON file to which the benchmark results are written",
+		Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	ANALYZE(new Settings("an", "analyze",
+		"Analyze the input without transforming it: Read only the central directories of archives, and report the entries per action, the bytes which would be transformed, the largest entries, the estimated peak memory, and the archives which could be passed through",
+		!Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	ANALYZE_REPORT(new Settings("anr", "analyzeReport", "JSON file to which the analysis is written",
+		Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	INCREMENTAL(new Settings("in", "incremental",
+		"Transform an input directory incrementally: Only inputs changed since the last incremental run are transformed, using a state file written next to the output; implies overwrite",
+		!Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	WATCH(new Settings("wa", "watch",
+		"Watch an input directory after transforming it, and transform its files as they change, until stopped; implies incremental",
+		!Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	WATCH_QUIET_PERIOD(new Settings("wq", "watchQuietPeriod",
+		"Milliseconds without file changes after which changed files are transformed in watch mode; defaults to 200",
+		Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+
+	DAEMON(new Settings("dm", "daemon",
+		"Run as a daemon which accepts transform requests on the Unix domain socket at this path; no input is transformed",
+		Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+	DAEMON_WORKERS(new Settings("dw", "daemonWorkers",
+		"Number of daemon requests which are transformed concurrently; defaults to the number of processors",
+		Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP)),
+
 	RULES_PER_CLASS_CONSTANT(
 		new Settings("tp", "per-class-constant", "Transformation per class constant string replacements",
 			Settings.HAS_ARG, !Settings.HAS_ARGS, !Settings.IS_REQUIRED, Settings.NO_GROUP));
@@ -0,0 +1,427 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer;
+
+import static java.util.Objects.requireNonNull;
+import static org.eclipse.transformer.Transformer.consoleMarker;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import aQute.lib.io.IO;
+import org.eclipse.transformer.Transformer.ResultCode;
+import org.eclipse.transformer.action.Changes;
+import org.eclipse.transformer.action.ContainerChanges;
+import org.eclipse.transformer.action.impl.ContainerChangesImpl;
+import org.slf4j.Logger;
+
+/**
+ * Transformer of a batch of inputs.
+ * <p>
+ * The rules are loaded once and are shared by the transformations of all of
+ * the inputs, including the caches of the signature rule. Each transformation
+ * uses its own actions, which allows several inputs to be transformed
+ * concurrently.
+ * <p>
+ * A result code is answered for each input. The changes of all of the inputs
+ * are added into a single aggregate changes.
+ */
+public class BatchTransformer {
+	/** Prefix of a batch value which is an input pattern. */
+	public static final String GLOB_PREFIX = "glob:";
+
+	/**
+	 * An input and its output.
+	 *
+	 * @param inputName The input file name.
+	 * @param outputName The output file name. Null to generate the output name
+	 *            from the input name.
+	 */
+	public record Artifact(String inputName, String outputName) {}
+
+	/**
+	 * The result of transforming one input.
+	 *
+	 * @param artifact The input and output which were transformed.
+	 * @param resultCode The result of transforming the input.
+	 * @param changes The changes of transforming the input. Null if the
+	 *            transformation failed before a transform action was run.
+	 */
+	public record Result(Artifact artifact, ResultCode resultCode, Changes changes) {}
+
+	private final Logger			logger;
+	private final TransformOptions	options;
+
+	private List<Result>			results;
+	private ContainerChangesImpl	changes;
+
+	public BatchTransformer(Logger logger, TransformOptions options) {
+		this.logger = requireNonNull(logger);
+		this.options = requireNonNull(options);
+	}
+
+	public Logger getLogger() {
+		return logger;
+	}
+
+	/**
+	 * Answer the inputs and outputs of the batch option.
+	 * <p>
+	 * A batch value which starts with {@link #GLOB_PREFIX} is an input
+	 * pattern. Otherwise, the value is the name of a batch file.
+	 *
+	 * @param batch The batch option value.
+	 * @param outputDirectoryName The output directory. Required for an input
+	 *            pattern. Not used for a batch file.
+	 * @return The inputs and outputs of the batch.
+	 * @throws IOException Thrown if the batch file cannot be read or the input
+	 *             pattern cannot be matched.
+	 */
+	public static List<Artifact> getArtifacts(String batch, String outputDirectoryName) throws IOException {
+		if (batch.startsWith(GLOB_PREFIX)) {
+			return globArtifacts(batch.substring(GLOB_PREFIX.length()), outputDirectoryName);
+		}
+		return readArtifacts(new File(batch));
+	}
+
+	/**
+	 * Read the inputs and outputs of a batch file.
+	 * <p>
+	 * Each line of the batch file has an input and output, separated by '='.
+	 * An output may be omitted, in which case the output is generated from the
+	 * input. Blank lines and lines starting with '#' are ignored.
+	 *
+	 * @param batchFile The batch file.
+	 * @return The inputs and outputs of the batch file, in the order of the
+	 *         batch file.
+	 * @throws IOException Thrown if the batch file cannot be read.
+	 */
+	public static List<Artifact> readArtifacts(File batchFile) throws IOException {
+		List<Artifact> artifacts = new ArrayList<>();
+		try (BufferedReader reader = IO.reader(batchFile)) {
+			for (String line; (line = reader.readLine()) != null;) {
+				line = line.trim();
+				if (line.isEmpty() || (line.charAt(0) == '#')) {
+					continue;
+				}
+				int separator = line.indexOf('=');
+				if (separator == -1) {
+					artifacts.add(new Artifact(line, null));
+				} else {
+					String outputName = line.substring(separator + 1)
+						.trim();
+					artifacts.add(new Artifact(line.substring(0, separator)
+						.trim(), outputName.isEmpty() ? null : outputName));
+				}
+			}
+		}
+		return artifacts;
+	}
+
+	/**
+	 * Match files to an input pattern.
+	 * <p>
+	 * The pattern uses {@link java.nio.file.FileSystem#getPathMatcher(String) glob} syntax, with '/' as the
+	 * separator, for example, "libs/**&#47;*.jar". The leading part of the
+	 * pattern which has no wildcards is the base directory of the search. Each
+	 * output is placed under the output directory at the path of the input
+	 * relative to the base directory.
+	 *
+	 * @param pattern The input pattern.
+	 * @param outputDirectoryName The output directory.
+	 * @return The matched inputs and their outputs, sorted by input name.
+	 * @throws IOException Thrown if the base directory cannot be searched.
+	 */
+	public static List<Artifact> globArtifacts(String pattern, String outputDirectoryName) throws IOException {
+		if (outputDirectoryName == null) {
+			throw new TransformException("An output directory is required for input pattern [ " + pattern + " ]");
+		}
+
+		int wildcard = -1;
+		for (int offset = 0; offset < pattern.length(); offset++) {
+			char c = pattern.charAt(offset);
+			if ((c == '*') || (c == '?') || (c == '[') || (c == '{') || (c == '\\')) {
+				wildcard = offset;
+				break;
+			}
+		}
+		if (wildcard == -1) {
+			Path input = Paths.get(pattern);
+			if (!Files.isRegularFile(input)) {
+				return Collections.emptyList();
+			}
+			return Collections.singletonList(new Artifact(pattern, outputDirectoryName + '/' + input.getFileName()));
+		}
+
+		Path base = Paths.get(pattern.substring(0, pattern.lastIndexOf('/', wildcard) + 1));
+		if (!Files.isDirectory(base)) {
+			return Collections.emptyList();
+		}
+
+		PathMatcher matcher = FileSystems.getDefault()
+			.getPathMatcher("glob:" + pattern);
+		try (Stream<Path> paths = Files.walk(base)) {
+			return paths.filter(path -> Files.isRegularFile(path) && matcher.matches(path))
+				.sorted()
+				.map(path -> new Artifact(IO.normalizePath(path), outputDirectoryName + '/'
+					+ IO.normalizePath(base.relativize(path))))
+				.toList();
+		}
+	}
+
+	/**
+	 * Answer the number of inputs which are to be transformed concurrently.
+	 *
+	 * @return The number of inputs which are to be transformed concurrently.
+	 */
+	public int getParallelism() {
+		String parallelism = options.getOptionValue(AppOption.BATCH_PARALLELISM);
+		if (parallelism == null) {
+			return 1;
+		}
+		int value;
+		try {
+			value = Integer.parseInt(parallelism.trim());
+		} catch (NumberFormatException e) {
+			throw new TransformException("Parallelism [ " + parallelism + " ] is not a number", e);
+		}
+		if (value < 1) {
+			throw new TransformException("Parallelism [ " + parallelism + " ] must be at least 1");
+		}
+		return value;
+	}
+
+	/**
+	 * Transform a batch of inputs.
+	 *
+	 * @param artifacts The inputs and outputs which are to be transformed.
+	 * @return {@link ResultCode#SUCCESS_RC} if all of the inputs were
+	 *         transformed. Otherwise, the result code of the first input, in
+	 *         batch order, which failed.
+	 */
+	public ResultCode run(List<Artifact> artifacts) {
+		results = new ArrayList<>(artifacts.size());
+		changes = new ContainerChangesImpl();
+
+		int parallelism;
+		try {
+			parallelism = getParallelism();
+		} catch (TransformException e) {
+			getLogger().error(consoleMarker, e.getMessage());
+			return ResultCode.ARGS_ERROR_RC;
+		}
+
+		Transformer rulesTransformer = new Transformer(getLogger(), options);
+		if (!rulesTransformer.loadRules()) {
+			return ResultCode.RULES_ERROR_RC;
+		}
+
+		getLogger().info(consoleMarker, "Batch inputs [ {} ] parallelism [ {} ]", artifacts.size(), parallelism);
+
+		if ((parallelism == 1) || (artifacts.size() < 2)) {
+			for (Artifact artifact : artifacts) {
+				results.add(transform(rulesTransformer, artifact));
+			}
+		} else {
+			ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, artifacts.size()));
+			try {
+				List<Future<Result>> futures = new ArrayList<>(artifacts.size());
+				for (Artifact artifact : artifacts) {
+					futures.add(executor.submit(() -> transform(rulesTransformer, artifact)));
+				}
+				for (int artifactNo = 0; artifactNo < artifacts.size(); artifactNo++) {
+					Result result;
+					try {
+						result = futures.get(artifactNo)
+							.get();
+					} catch (ExecutionException e) {
+						getLogger().error(consoleMarker, "Unexpected failure:", e.getCause());
+						result = new Result(artifacts.get(artifactNo), ResultCode.TRANSFORM_ERROR_RC, null);
+					} catch (InterruptedException e) {
+						Thread.currentThread()
+							.interrupt();
+						throw new TransformException("Batch interrupted", e);
+					}
+					results.add(result);
+				}
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+
+		for (Result result : results) {
+			if (result.changes() instanceof ContainerChanges containerChanges) {
+				changes.add(containerChanges);
+				changes.addChild(containerChanges);
+			}
+		}
+		changes.stop();
+
+		ResultCode batchRc = logResults();
+		try {
+			rulesTransformer.reportTiming(changes);
+		} catch (TransformException e) {
+			getLogger().error(consoleMarker, e.getMessage(), e.getCause());
+			if (batchRc == ResultCode.SUCCESS_RC) {
+				batchRc = ResultCode.TRANSFORM_ERROR_RC;
+			}
+		}
+		try {
+			rulesTransformer.writeMetrics();
+		} catch (TransformException e) {
+			getLogger().error(consoleMarker, e.getMessage(), e.getCause());
+			if (batchRc == ResultCode.SUCCESS_RC) {
+				batchRc = ResultCode.TRANSFORM_ERROR_RC;
+			}
+		}
+		try {
+			rulesTransformer.writeRuleProfile();
+		} catch (TransformException e) {
+			getLogger().error(consoleMarker, e.getMessage(), e.getCause());
+			if (batchRc == ResultCode.SUCCESS_RC) {
+				batchRc = ResultCode.TRANSFORM_ERROR_RC;
+			}
+		}
+		return batchRc;
+	}
+
+	private Result transform(Transformer rulesTransformer, Artifact artifact) {
+		Transformer transformer = new Transformer(getLogger(), new ArtifactOptions(options, artifact));
+		transformer.useRules(rulesTransformer);
+		transformer.setBase(rulesTransformer.getBase());
+
+		ResultCode rc;
+		try {
+			rc = transformer.run();
+		} catch (Throwable th) {
+			getLogger().error(consoleMarker, "Unexpected failure [ {} ]:", artifact.inputName(), th);
+			rc = ResultCode.TRANSFORM_ERROR_RC;
+		}
+		return new Result(artifact, rc, transformer.getLastActiveChanges());
+	}
+
+	private ResultCode logResults() {
+		ResultCode batchRc = ResultCode.SUCCESS_RC;
+		int failed = 0;
+		for (Result result : results) {
+			ResultCode rc = result.resultCode();
+			if (rc != ResultCode.SUCCESS_RC) {
+				failed++;
+				if (batchRc == ResultCode.SUCCESS_RC) {
+					batchRc = rc;
+				}
+			}
+			getLogger().info(consoleMarker, "Batch input [ {} ] Return Code [ {} ] [ {} ]",
+				result.artifact()
+					.inputName(),
+				rc.ordinal(), rc);
+		}
+		getLogger().info(consoleMarker, "Batch inputs [ {} ] succeeded [ {} ] failed [ {} ]", results.size(),
+			results.size() - failed, failed);
+		changes.logChanges(getLogger());
+		return batchRc;
+	}
+
+	/**
+	 * Answer the results of the last batch, in batch order.
+	 *
+	 * @return The results of the last batch.
+	 */
+	public List<Result> getResults() {
+		return (results == null) ? Collections.emptyList() : Collections.unmodifiableList(results);
+	}
+
+	/**
+	 * Answer the aggregate changes of the last batch. Only the changes of
+	 * container inputs, for example, archives and directories, are aggregated.
+	 *
+	 * @return The aggregate changes of the last batch.
+	 */
+	public ContainerChanges getChanges() {
+		return changes;
+	}
+
+	/**
+	 * Options of one input of a batch. The input and output are those of the
+	 * input. The timing, metrics, and rule profile options are those of the
+	 * batch as a whole, and are not options of the inputs. All other options
+	 * are those of the batch.
+	 */
+	record ArtifactOptions(TransformOptions options, Artifact artifact) implements TransformOptions {
+		private static boolean isBatchOption(AppOption option) {
+			return (option == AppOption.TIMING_REPORT) || (option == AppOption.TIMING_TOP)
+				|| (option == AppOption.METRICS_FILE) || (option == AppOption.METRICS_FORMAT)
+				|| (option == AppOption.RULES_PROFILE);
+		}
+
+		@Override
+		public boolean hasOption(AppOption option) {
+			return !isBatchOption(option) && options.hasOption(option);
+		}
+
+		@Override
+		public String getOptionValue(AppOption option) {
+			return isBatchOption(option) ? null : options.getOptionValue(option);
+		}
+
+		@Override
+		public List<String> getOptionValues(AppOption option) {
+			return isBatchOption(option) ? null : options.getOptionValues(option);
+		}
+
+		@Override
+		public String getDefaultValue(AppOption option) {
+			return options.getDefaultValue(option);
+		}
+
+		@Override
+		public Function<String, URL> getRuleLoader() {
+			return options.getRuleLoader();
+		}
+
+		@Override
+		public String getInputFileName() {
+			return artifact.inputName();
+		}
+
+		@Override
+		public String getOutputFileName() {
+			return artifact.outputName();
+		}
+
+		@Override
+		public String normalize(String value) {
+			return options.normalize(value);
+		}
+
+		@Override
+		public List<String> normalize(List<String> values) {
+			return options.normalize(values);
+		}
+	}
+}
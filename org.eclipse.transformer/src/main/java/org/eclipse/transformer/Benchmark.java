@@ -0,0 +1,452 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer;
+
+import static java.util.Objects.requireNonNull;
+import static org.eclipse.transformer.Transformer.consoleMarker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+import aQute.lib.io.IO;
+import com.sun.management.ThreadMXBean;
+import org.eclipse.transformer.BatchTransformer.Artifact;
+import org.eclipse.transformer.BatchTransformer.ArtifactOptions;
+import org.eclipse.transformer.Transformer.ResultCode;
+import org.eclipse.transformer.action.Changes;
+import org.eclipse.transformer.action.ContainerChanges;
+import org.eclipse.transformer.util.Json;
+import org.slf4j.Logger;
+
+/**
+ * Benchmark of the transform of one input.
+ * <p>
+ * The rules are loaded once. The input is then transformed repeatedly: First
+ * for a count of warmup iterations, which are not measured, then for a count
+ * of measured iterations. Each iteration writes its output to an output
+ * directory, and the output is deleted when the iteration completes. A tmpfs
+ * directory may be used as the output directory to minimize the cost of
+ * writing the output.
+ * <p>
+ * The wall time, entries, and bytes of each measured iteration are recorded,
+ * with the bytes allocated and the garbage collection time during the
+ * iteration. Allocated bytes are those of the threads which are live at the
+ * start or at the end of the iteration: Worker threads which start and end
+ * within an iteration are not counted. Allocated bytes are not known if the
+ * JVM does not measure the allocations of threads.
+ */
+public class Benchmark {
+	/** Default count of warmup iterations. */
+	public static final int				DEFAULT_WARMUP	= 1;
+
+	private static final double			MEGABYTE		= 1024.0 * 1024.0;
+
+	/** The threads bean, if it measures the allocations of threads. Otherwise, null. */
+	private static final ThreadMXBean	THREADS			= allocationThreads();
+
+	/**
+	 * One measured iteration.
+	 *
+	 * @param elapsedNanos The wall time of the transform.
+	 * @param entries The entries of the input, including the entries of
+	 *            nested archives. One for an input which is not a container.
+	 * @param inputBytes The bytes of the input.
+	 * @param allocatedBytes The bytes allocated during the transform. -1 if
+	 *            not known.
+	 * @param gcCount The count of garbage collections during the transform.
+	 * @param gcMillis The time of garbage collections during the transform.
+	 */
+	public record Iteration(long elapsedNanos, long entries, long inputBytes, long allocatedBytes, long gcCount,
+		long gcMillis) {}
+
+	private final Logger			logger;
+	private final TransformOptions	options;
+
+	private List<Iteration>			iterations;
+	private int						warmup;
+
+	public Benchmark(Logger logger, TransformOptions options) {
+		this.logger = requireNonNull(logger);
+		this.options = requireNonNull(options);
+		this.iterations = Collections.emptyList();
+	}
+
+	public Logger getLogger() {
+		return logger;
+	}
+
+	/**
+	 * Run the benchmark, using the counts of iterations and the output
+	 * directory of the options. The results are logged, and are written to
+	 * the benchmark report of the options, if one is specified.
+	 *
+	 * @return {@link ResultCode#SUCCESS_RC} if all iterations succeeded.
+	 *         Otherwise, the result code of the first iteration which failed.
+	 */
+	public ResultCode run() {
+		int useIterations;
+		int useWarmup;
+		try {
+			useIterations = getCount(AppOption.BENCHMARK, "Benchmark iterations", 1, 1);
+			useWarmup = getCount(AppOption.BENCHMARK_WARMUP, "Benchmark warmup", DEFAULT_WARMUP, 0);
+		} catch (TransformException e) {
+			getLogger().error(consoleMarker, e.getMessage());
+			return ResultCode.ARGS_ERROR_RC;
+		}
+
+		String outputName = options.getOptionValue(AppOption.BENCHMARK_OUTPUT);
+		File outputDirectory;
+		try {
+			if (outputName == null) {
+				outputDirectory = Files.createTempDirectory("transformer-benchmark")
+					.toFile();
+			} else {
+				outputDirectory = new File(options.normalize(outputName));
+				IO.mkdirs(outputDirectory);
+			}
+		} catch (IOException e) {
+			getLogger().error(consoleMarker, "Benchmark output [ {} ] cannot be created", outputName, e);
+			return ResultCode.ARGS_ERROR_RC;
+		}
+
+		ResultCode rc;
+		try {
+			rc = run(useWarmup, useIterations, outputDirectory);
+		} finally {
+			if (outputName == null) {
+				IO.delete(outputDirectory);
+			}
+		}
+		if (rc != ResultCode.SUCCESS_RC) {
+			return rc;
+		}
+
+		log();
+		String report = options.getOptionValue(AppOption.BENCHMARK_REPORT);
+		if (report != null) {
+			File reportFile = new File(options.normalize(report));
+			try {
+				write(reportFile);
+			} catch (IOException e) {
+				getLogger().error(consoleMarker, "Failed to write benchmark report [ {} ]", reportFile, e);
+				return ResultCode.TRANSFORM_ERROR_RC;
+			}
+			getLogger().info(consoleMarker, "Benchmark report [ {} ]", reportFile);
+		}
+		return ResultCode.SUCCESS_RC;
+	}
+
+	/**
+	 * Run the benchmark.
+	 *
+	 * @param useWarmup The count of warmup iterations.
+	 * @param useIterations The count of measured iterations.
+	 * @param outputDirectory The directory to which the iterations write their
+	 *            output.
+	 * @return {@link ResultCode#SUCCESS_RC} if all iterations succeeded.
+	 *         Otherwise, the result code of the first iteration which failed.
+	 */
+	public ResultCode run(int useWarmup, int useIterations, File outputDirectory) {
+		warmup = useWarmup;
+		iterations = new ArrayList<>(useIterations);
+
+		Transformer rulesTransformer = new Transformer(getLogger(), options);
+		if (!rulesTransformer.loadRules()) {
+			return ResultCode.RULES_ERROR_RC;
+		}
+
+		getLogger().info(consoleMarker, "Benchmark warmup [ {} ] iterations [ {} ] output [ {} ]", useWarmup,
+			useIterations, outputDirectory);
+
+		long inputBytes = -1L;
+		for (int iterationNo = 0; iterationNo < (useWarmup + useIterations); iterationNo++) {
+			File outputFile = new File(outputDirectory, "iteration-" + iterationNo);
+			Transformer transformer = new Transformer(getLogger(),
+				new ArtifactOptions(options, new Artifact(options.getInputFileName(), outputFile.getPath())));
+			transformer.useRules(rulesTransformer);
+			transformer.setBase(rulesTransformer.getBase());
+			try {
+				if (!transformer.setInput() || !transformer.setOutput()) {
+					return ResultCode.TRANSFORM_ERROR_RC;
+				}
+				if (!transformer.acceptAction()) {
+					getLogger().error(consoleMarker, "No action selected");
+					return ResultCode.FILE_TYPE_ERROR_RC;
+				}
+				if (inputBytes < 0L) {
+					inputBytes = sizeOf(transformer.inputFile);
+				}
+
+				Map<Long, Long> startAllocated = allocatedBytes();
+				long startGcCount = gcTotal(GarbageCollectorMXBean::getCollectionCount);
+				long startGcMillis = gcTotal(GarbageCollectorMXBean::getCollectionTime);
+				long start = System.nanoTime();
+				try {
+					transformer.transform();
+				} catch (Throwable th) {
+					getLogger().error(consoleMarker, "Benchmark iteration [ {} ] failed", iterationNo, th);
+					return ResultCode.TRANSFORM_ERROR_RC;
+				}
+				long elapsedNanos = System.nanoTime() - start;
+				long allocated = allocatedSince(startAllocated);
+				long gcCount = gcTotal(GarbageCollectorMXBean::getCollectionCount) - startGcCount;
+				long gcMillis = gcTotal(GarbageCollectorMXBean::getCollectionTime) - startGcMillis;
+
+				Changes changes = transformer.getLastActiveChanges();
+				long entries = 1L;
+				if (changes instanceof ContainerChanges containerChanges) {
+					if (containerChanges.getAllFailed() != 0) {
+						getLogger().error(consoleMarker, "Benchmark iteration [ {} ] had failures [ {} ]", iterationNo,
+							containerChanges.getAllFailed());
+						return ResultCode.TRANSFORM_ERROR_RC;
+					}
+					entries = containerChanges.getAllResources();
+				}
+				if (iterationNo >= useWarmup) {
+					iterations.add(new Iteration(elapsedNanos, entries, inputBytes, allocated, gcCount, gcMillis));
+				}
+			} finally {
+				IO.delete(outputFile);
+			}
+		}
+		return ResultCode.SUCCESS_RC;
+	}
+
+	private int getCount(AppOption option, String description, int defaultValue, int minimum) {
+		String text = options.getOptionValue(option);
+		if (text == null) {
+			return defaultValue;
+		}
+		int value;
+		try {
+			value = Integer.parseInt(text.trim());
+		} catch (NumberFormatException e) {
+			throw new TransformException(description + " [ " + text + " ] is not a number", e);
+		}
+		if (value < minimum) {
+			throw new TransformException(description + " [ " + text + " ] must be at least " + minimum);
+		}
+		return value;
+	}
+
+	private static long sizeOf(File inputFile) throws TransformException {
+		if (!inputFile.isDirectory()) {
+			return inputFile.length();
+		}
+		try (Stream<Path> paths = Files.walk(inputFile.toPath())) {
+			return paths.map(Path::toFile)
+				.filter(File::isFile)
+				.mapToLong(File::length)
+				.sum();
+		} catch (IOException | UncheckedIOException e) {
+			throw new TransformException("Failed to size [ " + inputFile + " ]", e);
+		}
+	}
+
+	//
+
+	private static long gcTotal(ToLongFunction<GarbageCollectorMXBean> measure) {
+		long total = 0L;
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			long value = measure.applyAsLong(collector);
+			if (value > 0L) {
+				total += value;
+			}
+		}
+		return total;
+	}
+
+	private static ThreadMXBean allocationThreads() {
+		try {
+			if ((ManagementFactory.getThreadMXBean() instanceof ThreadMXBean threads)
+				&& threads.isThreadAllocatedMemorySupported()) {
+				threads.setThreadAllocatedMemoryEnabled(true);
+				return threads;
+			}
+		} catch (LinkageError | UnsupportedOperationException e) {
+			// Allocations are not known.
+		}
+		return null;
+	}
+
+	private static Map<Long, Long> allocatedBytes() {
+		if (THREADS == null) {
+			return null;
+		}
+		long[] threadIds = THREADS.getAllThreadIds();
+		long[] allocated = THREADS.getThreadAllocatedBytes(threadIds);
+		Map<Long, Long> byThread = new HashMap<>(threadIds.length * 2);
+		for (int threadNo = 0; threadNo < threadIds.length; threadNo++) {
+			if (allocated[threadNo] >= 0L) {
+				byThread.put(threadIds[threadNo], allocated[threadNo]);
+			}
+		}
+		return byThread;
+	}
+
+	private static long allocatedSince(Map<Long, Long> startAllocated) {
+		if (startAllocated == null) {
+			return -1L;
+		}
+		long total = 0L;
+		for (Map.Entry<Long, Long> threadEntry : allocatedBytes().entrySet()) {
+			total += threadEntry.getValue() - startAllocated.getOrDefault(threadEntry.getKey(), 0L);
+		}
+		return total;
+	}
+
+	//
+
+	/**
+	 * Answer the measured iterations of the last run.
+	 *
+	 * @return The measured iterations of the last run.
+	 */
+	public List<Iteration> getIterations() {
+		return Collections.unmodifiableList(iterations);
+	}
+
+	private long[] sorted(ToLongFunction<Iteration> measure) {
+		return iterations.stream()
+			.mapToLong(measure)
+			.sorted()
+			.toArray();
+	}
+
+	private static long median(long[] values) {
+		int middle = values.length / 2;
+		return ((values.length % 2) == 1) ? values[middle] : ((values[middle - 1] + values[middle]) / 2L);
+	}
+
+	/** Nearest rank percentile. */
+	private static long percentile(long[] values, int percent) {
+		int rank = (int) Math.ceil((percent / 100.0) * values.length);
+		return values[Math.max(rank - 1, 0)];
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1_000_000.0;
+	}
+
+	/**
+	 * Answer the JSON representation of the results of the last run: The
+	 * summary of the measured iterations, and the measured iterations.
+	 *
+	 * @return The JSON representation of the results.
+	 */
+	public Map<String, Object> toMap() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("input", options.getInputFileName());
+		map.put("warmup", warmup);
+		map.put("iterations", iterations.size());
+		if (iterations.isEmpty()) {
+			return map;
+		}
+
+		Iteration first = iterations.get(0);
+		long[] elapsed = sorted(Iteration::elapsedNanos);
+		long medianNanos = median(elapsed);
+		double medianSeconds = medianNanos / 1_000_000_000.0;
+
+		map.put("entries", first.entries());
+		map.put("inputBytes", first.inputBytes());
+
+		Map<String, Object> wall = new LinkedHashMap<>();
+		wall.put("minMillis", millis(elapsed[0]));
+		wall.put("medianMillis", millis(medianNanos));
+		wall.put("p95Millis", millis(percentile(elapsed, 95)));
+		wall.put("maxMillis", millis(elapsed[elapsed.length - 1]));
+		map.put("wall", wall);
+
+		map.put("megabytesPerSecond", (medianSeconds > 0.0) ? ((first.inputBytes() / MEGABYTE) / medianSeconds) : 0.0);
+		map.put("entriesPerSecond", (medianSeconds > 0.0) ? (first.entries() / medianSeconds) : 0.0);
+		map.put("allocatedBytesMedian", median(sorted(Iteration::allocatedBytes)));
+		map.put("gcCount", iterations.stream()
+			.mapToLong(Iteration::gcCount)
+			.sum());
+		map.put("gcMillis", iterations.stream()
+			.mapToLong(Iteration::gcMillis)
+			.sum());
+
+		List<Object> iterationList = new ArrayList<>(iterations.size());
+		for (Iteration iteration : iterations) {
+			Map<String, Object> iterationMap = new LinkedHashMap<>();
+			iterationMap.put("elapsedNanos", iteration.elapsedNanos());
+			iterationMap.put("allocatedBytes", iteration.allocatedBytes());
+			iterationMap.put("gcCount", iteration.gcCount());
+			iterationMap.put("gcMillis", iteration.gcMillis());
+			iterationList.add(iterationMap);
+		}
+		map.put("measurements", iterationList);
+		return map;
+	}
+
+	/**
+	 * Write the JSON representation of the results of the last run to a file.
+	 *
+	 * @param file The file which is to be written.
+	 * @throws IOException Thrown if the file cannot be written.
+	 */
+	public void write(File file) throws IOException {
+		File parent = file.getAbsoluteFile()
+			.getParentFile();
+		if (parent != null) {
+			IO.mkdirs(parent);
+		}
+		try (Writer writer = IO.writer(file)) {
+			Json.write(writer, toMap());
+		}
+	}
+
+	/**
+	 * Log a summary of the results of the last run.
+	 */
+	public void log() {
+		if (iterations.isEmpty()) {
+			return;
+		}
+		Map<String, Object> summary = toMap();
+		@SuppressWarnings("unchecked")
+		Map<String, Object> wall = (Map<String, Object>) summary.get("wall");
+		getLogger().info(consoleMarker, "Benchmark [ {} ] iterations [ {} ] entries [ {} ] bytes [ {} ]",
+			summary.get("input"), summary.get("iterations"), summary.get("entries"), summary.get("inputBytes"));
+		getLogger().info(consoleMarker, "  Wall [ min {} ] [ median {} ] [ p95 {} ] [ max {} ]",
+			format("%.1fms", wall.get("minMillis")), format("%.1fms", wall.get("medianMillis")),
+			format("%.1fms", wall.get("p95Millis")), format("%.1fms", wall.get("maxMillis")));
+		getLogger().info(consoleMarker, "  Throughput [ {} ] [ {} ]",
+			format("%.1f MB/s", summary.get("megabytesPerSecond")),
+			format("%.0f entries/s", summary.get("entriesPerSecond")));
+		long allocated = (Long) summary.get("allocatedBytesMedian");
+		getLogger().info(consoleMarker, "  Allocated [ {} ] GC [ {} ] [ {}ms ]",
+			(allocated < 0L) ? "unknown" : format("%.1f MB", allocated / MEGABYTE), summary.get("gcCount"),
+			summary.get("gcMillis"));
+	}
+
+	private static String format(String format, Object value) {
+		return String.format(Locale.ROOT, format, value);
+	}
+}
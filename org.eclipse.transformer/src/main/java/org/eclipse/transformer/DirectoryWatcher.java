@@ -0,0 +1,237 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.Objects.requireNonNull;
+import static org.eclipse.transformer.Transformer.consoleMarker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import aQute.lib.io.IO;
+import org.eclipse.transformer.action.Changes;
+import org.eclipse.transformer.action.impl.DirectoryActionImpl;
+import org.slf4j.Logger;
+
+/**
+ * Watcher of an input directory, which transforms the files of the directory
+ * as they change.
+ * <p>
+ * A watcher is used after a transformer has transformed an input directory
+ * incrementally. Changes to the input directory are collected until no change
+ * is seen for a quiet period. The changed files are then transformed by
+ * {@link DirectoryActionImpl#update(String, java.io.File, String, java.io.File, java.util.Collection)}.
+ * The rules, the actions, and the caches of the transformer are reused by
+ * all of the updates.
+ */
+public class DirectoryWatcher implements Closeable {
+	/** Default quiet period, in milliseconds. */
+	public static final long			DEFAULT_QUIET_PERIOD	= 200L;
+
+	private final Logger				logger;
+	private final Transformer			transformer;
+	private final DirectoryActionImpl	directoryAction;
+	private final Path					rootPath;
+	private final long					quietPeriod;
+	private final WatchService			watchService;
+	private final Map<WatchKey, Path>	directories				= new ConcurrentHashMap<>();
+	private volatile Consumer<Changes>	updateListener			= changes -> {};
+
+	/**
+	 * Create a watcher of the input directory of a transformer. Changes are
+	 * collected from when the watcher is created.
+	 *
+	 * @param transformer A transformer which transformed an input directory
+	 *            incrementally.
+	 * @param quietPeriod The milliseconds without changes after which changed
+	 *            files are transformed.
+	 * @throws TransformException Thrown if the transformer did not transform
+	 *             an input directory incrementally.
+	 * @throws IOException Thrown if the input directory cannot be watched.
+	 */
+	public DirectoryWatcher(Transformer transformer, long quietPeriod) throws IOException {
+		this.transformer = requireNonNull(transformer);
+		this.logger = transformer.getLogger();
+		if (!(transformer.acceptedAction instanceof DirectoryActionImpl action) || !action.isIncremental()
+			|| !transformer.inputFile.isDirectory()) {
+			throw new TransformException(
+				"Only an input directory which is transformed incrementally can be watched [ " + transformer.inputPath
+					+ " ]");
+		}
+		if (quietPeriod < 0L) {
+			throw new IllegalArgumentException("Quiet period [ " + quietPeriod + " ] must not be negative");
+		}
+		this.directoryAction = action;
+		this.rootPath = transformer.inputFile.toPath();
+		this.quietPeriod = quietPeriod;
+		this.watchService = FileSystems.getDefault()
+			.newWatchService();
+		try {
+			register(rootPath);
+		} catch (IOException e) {
+			watchService.close();
+			throw e;
+		}
+	}
+
+	public long getQuietPeriod() {
+		return quietPeriod;
+	}
+
+	/**
+	 * Set a listener which receives the changes of each update.
+	 *
+	 * @param updateListener The listener which receives the changes of each
+	 *            update.
+	 */
+	public void setUpdateListener(Consumer<Changes> updateListener) {
+		this.updateListener = requireNonNull(updateListener);
+	}
+
+	/**
+	 * Watch the input directory until this watcher is closed, or until the
+	 * watching thread is interrupted. Failures to transform are logged, and do
+	 * not stop the watching.
+	 */
+	public void watch() {
+		try {
+			logger.info(consoleMarker, "Watching [ {} ] Quiet period [ {} ms ]", transformer.inputPath, quietPeriod);
+			while (true) {
+				WatchKey key = watchService.take();
+				long firstEvent = System.nanoTime();
+				Set<String> pathsFromRoot = new TreeSet<>();
+				boolean overflow = collect(key, pathsFromRoot);
+				while ((key = watchService.poll(quietPeriod, TimeUnit.MILLISECONDS)) != null) {
+					overflow |= collect(key, pathsFromRoot);
+				}
+				if (overflow || !pathsFromRoot.isEmpty()) {
+					update(pathsFromRoot, overflow, firstEvent);
+				}
+			}
+		} catch (ClosedWatchServiceException e) {
+			// Closed: Stop watching.
+		} catch (InterruptedException e) {
+			Thread.currentThread()
+				.interrupt();
+		}
+		logger.info(consoleMarker, "Stopped watching [ {} ]", transformer.inputPath);
+	}
+
+	/**
+	 * Stop watching.
+	 */
+	@Override
+	public void close() {
+		try {
+			watchService.close();
+		} catch (IOException e) {
+			logger.error("Failed to close watch service for [ {} ]", transformer.inputPath, e);
+		}
+	}
+
+	private void register(Path start) throws IOException {
+		// Symbolic links are followed, as the directory action follows them.
+		Files.walkFileTree(start, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+			new SimpleFileVisitor<>() {
+				@Override
+				public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attrs) throws IOException {
+					directories.put(directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY),
+						directory);
+					return FileVisitResult.CONTINUE;
+				}
+			});
+	}
+
+	/**
+	 * Collect the paths of the events of a watch key.
+	 *
+	 * @return True or false telling if events were lost.
+	 */
+	private boolean collect(WatchKey key, Set<String> pathsFromRoot) {
+		Path directory = directories.get(key);
+		boolean overflow = (directory == null);
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (overflow || (event.kind() == OVERFLOW)) {
+				overflow = true;
+				continue;
+			}
+			Path path = directory.resolve((Path) event.context());
+			if (Files.isDirectory(path)) {
+				if (event.kind() == ENTRY_MODIFY) {
+					continue; // Only the files of a directory are transformed.
+				}
+				if (event.kind() == ENTRY_CREATE) {
+					try {
+						register(path);
+					} catch (IOException e) {
+						logger.error("Failed to watch [ {} ]", path, e);
+					}
+				}
+			}
+			pathsFromRoot.add(IO.normalizePath(rootPath.relativize(path)));
+		}
+		if (!key.reset()) {
+			directories.remove(key);
+		}
+		return overflow;
+	}
+
+	private void update(Set<String> pathsFromRoot, boolean overflow, long firstEvent) {
+		long start = System.nanoTime();
+		try {
+			if (overflow) {
+				logger.info(consoleMarker, "Watch events were lost; all inputs of [ {} ] are examined",
+					transformer.inputPath);
+				directoryAction.apply(transformer.inputName, transformer.inputFile, transformer.outputName,
+					transformer.outputFile);
+			} else {
+				directoryAction.update(transformer.inputName, transformer.inputFile, transformer.outputName,
+					transformer.outputFile, pathsFromRoot);
+			}
+		} catch (TransformException e) {
+			logger.error(consoleMarker, "Transform failure", e);
+		} catch (Throwable th) {
+			logger.error(consoleMarker, "Unexpected failure", th);
+		} finally {
+			transformer.clearMemo();
+		}
+		long end = System.nanoTime();
+
+		Changes changes = directoryAction.getLastActiveChanges();
+		changes.log(logger, transformer.inputPath, transformer.outputPath);
+		logger.info(consoleMarker, "Watch update [ {} ]: Paths [ {} ] Latency [ {} ms ] Transform [ {} ms ]",
+			transformer.inputPath, pathsFromRoot.size(), (end - firstEvent) / 1_000_000L, (end - start) / 1_000_000L);
+		updateListener.accept(changes);
+	}
+}
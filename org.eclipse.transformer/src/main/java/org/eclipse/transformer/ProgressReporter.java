@@ -0,0 +1,207 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer;
+
+import static org.eclipse.transformer.Transformer.consoleMarker;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.transformer.action.ProgressListener;
+import org.slf4j.Logger;
+
+/**
+ * Progress listener which periodically reports the progress of transforms:
+ * The entries and bytes of the inputs which were processed, the throughput,
+ * and, when the totals of the inputs are known, the percentage done and the
+ * estimated time remaining.
+ * <p>
+ * Only the entries of the inputs are counted: The entries of nested archives
+ * are part of the entries of the inputs. Progress is reported at most once
+ * per interval, and is not reported for transforms which complete within the
+ * first interval. By default, progress is logged. Subclasses may render the
+ * progress otherwise.
+ */
+public class ProgressReporter implements ProgressListener {
+	/** Default interval between reports, in milliseconds. */
+	public static final long	DEFAULT_INTERVAL	= 10_000L;
+
+	private static final double	MEGABYTE			= 1024.0 * 1024.0;
+
+	private final Logger		logger;
+	private final long			intervalNanos;
+
+	private final Set<String>	inputs;
+	private final AtomicLong	totalEntries;
+	private final AtomicLong	totalBytes;
+	private volatile boolean	entriesKnown;
+	private volatile boolean	bytesKnown;
+
+	private final LongAdder		doneEntries;
+	private final LongAdder		doneBytes;
+	private volatile String		currentEntry;
+
+	private final AtomicLong	startNanos;
+	private final AtomicLong	nextReport;
+	private volatile boolean	reported;
+
+	public ProgressReporter(Logger logger, long intervalMillis) {
+		this.logger = logger;
+		this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+
+		this.inputs = ConcurrentHashMap.newKeySet();
+		this.totalEntries = new AtomicLong();
+		this.totalBytes = new AtomicLong();
+		this.entriesKnown = true;
+		this.bytesKnown = true;
+
+		this.doneEntries = new LongAdder();
+		this.doneBytes = new LongAdder();
+
+		this.startNanos = new AtomicLong();
+		this.nextReport = new AtomicLong(System.nanoTime() + intervalNanos);
+	}
+
+	public ProgressReporter(Logger logger) {
+		this(logger, DEFAULT_INTERVAL);
+	}
+
+	public Logger getLogger() {
+		return logger;
+	}
+
+	//
+
+	@Override
+	public void transformStarted(String inputName, long entries, long bytes) {
+		startNanos.compareAndSet(0L, System.nanoTime());
+		inputs.add(inputName);
+		if (entries == UNKNOWN) {
+			entriesKnown = false;
+		} else {
+			totalEntries.addAndGet(entries);
+		}
+		if (bytes == UNKNOWN) {
+			bytesKnown = false;
+		} else {
+			totalBytes.addAndGet(bytes);
+		}
+	}
+
+	@Override
+	public void entryStarted(String containerName, String entryName, long inputBytes) {
+		if (inputs.contains(containerName)) {
+			currentEntry = entryName;
+		}
+	}
+
+	@Override
+	public void entryFinished(String containerName, String entryName, long inputBytes, long outputBytes) {
+		if (inputs.contains(containerName)) {
+			doneEntries.increment();
+			doneBytes.add(inputBytes);
+		}
+		// Entries of nested archives refresh the report of a long input entry.
+		long next = nextReport.get();
+		long now = System.nanoTime();
+		if ((now - next >= 0L) && nextReport.compareAndSet(next, now + intervalNanos)) {
+			reported = true;
+			report(getProgress(now), false);
+		}
+	}
+
+	@Override
+	public void transformFinished(String inputName) {
+		inputs.remove(inputName);
+		if (reported && inputs.isEmpty()) {
+			report(getProgress(System.nanoTime()), true);
+		}
+	}
+
+	/**
+	 * Report progress. By default, progress is logged.
+	 *
+	 * @param progress The progress, formatted as one line.
+	 * @param finished True when all started transforms are finished.
+	 */
+	protected void report(String progress, boolean finished) {
+		logger.info(consoleMarker, "{}", progress);
+	}
+
+	//
+
+	/**
+	 * Answer the current progress, formatted as one line.
+	 *
+	 * @return The current progress.
+	 */
+	public String getProgress() {
+		return getProgress(System.nanoTime());
+	}
+
+	private String getProgress(long now) {
+		long entries = doneEntries.sum();
+		long bytes = doneBytes.sum();
+		long start = startNanos.get();
+		double seconds = (start == 0L) ? 0.0 : ((now - start) / 1_000_000_000.0);
+		double rate = (seconds > 0.0) ? ((bytes / MEGABYTE) / seconds) : 0.0;
+
+		StringBuilder progress = new StringBuilder("Progress");
+		boolean useEntriesKnown = entriesKnown;
+		boolean useBytesKnown = bytesKnown;
+		long useTotalEntries = totalEntries.get();
+		long useTotalBytes = totalBytes.get();
+		if (useEntriesKnown) {
+			progress.append(String.format(Locale.ROOT, " [ %d / %d ] entries", entries, useTotalEntries));
+		} else {
+			progress.append(String.format(Locale.ROOT, " [ %d ] entries", entries));
+		}
+		if (useBytesKnown) {
+			progress.append(
+				String.format(Locale.ROOT, " [ %.1f / %.1f MB ]", bytes / MEGABYTE, useTotalBytes / MEGABYTE));
+		} else {
+			progress.append(String.format(Locale.ROOT, " [ %.1f MB ]", bytes / MEGABYTE));
+		}
+		progress.append(String.format(Locale.ROOT, " [ %.1f MB/s ]", rate));
+
+		// Bytes are a better measure of the work than entries, when they are
+		// known.
+		double done;
+		if (useBytesKnown && (useTotalBytes > 0L)) {
+			done = Math.min(1.0, (double) bytes / useTotalBytes);
+		} else if (useEntriesKnown && (useTotalEntries > 0L)) {
+			done = Math.min(1.0, (double) entries / useTotalEntries);
+		} else {
+			done = -1.0;
+		}
+		if (done >= 0.0) {
+			progress.append(String.format(Locale.ROOT, " [ %.1f%% ]", done * 100.0));
+			if ((done > 0.0) && (seconds > 0.0)) {
+				long remaining = Math.round(seconds * ((1.0 - done) / done));
+				progress.append(String.format(Locale.ROOT, " ETA [ %d:%02d:%02d ]", remaining / 3600,
+					(remaining / 60) % 60, remaining % 60));
+			}
+		}
+
+		String entryName = currentEntry;
+		if ((entryName != null) && !inputs.isEmpty()) {
+			progress.append(" [ ")
+				.append(entryName)
+				.append(" ]");
+		}
+		return progress.toString();
+	}
+}
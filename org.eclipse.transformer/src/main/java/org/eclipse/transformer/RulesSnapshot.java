@@ -0,0 +1,374 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import aQute.bnd.stream.MapStream;
+import aQute.lib.io.IO;
+import org.eclipse.transformer.action.BundleData;
+import org.eclipse.transformer.action.impl.BundleDataImpl;
+import org.eclipse.transformer.util.SignatureUtils.RenameKeyComparator;
+
+/**
+ * Binary snapshot of fully merged and validated transformation rules.
+ * <p>
+ * A snapshot is written from the rules of a transformer after the rules have
+ * been loaded from the rules properties files, merged, inverted, and
+ * validated. Loading a snapshot replaces all of that processing: The rules are
+ * assigned directly to the transformer.
+ * <p>
+ * Package renames are stored in match order (more specific packages first,
+ * wildcards last). Text substitutions are stored fully loaded. All other
+ * tables are stored sorted by key, so that the same rules always produce the
+ * same snapshot bytes.
+ */
+public class RulesSnapshot {
+	/** Snapshot file marker: "ETRS". */
+	public static final int	MAGIC	= 0x45545253;
+
+	/** Snapshot format version. Snapshots of other versions are rejected. */
+	public static final int	FORMAT	= 1;
+
+	/**
+	 * The options which are applied when a snapshot is written. These options
+	 * have no effect when a snapshot is read.
+	 */
+	public static final List<AppOption> SNAPSHOT_OPTIONS = List.of(AppOption.RULES_SELECTIONS,
+		AppOption.RULES_RENAMES, AppOption.RULES_VERSIONS, AppOption.RULES_BUNDLES, AppOption.RULES_DIRECT,
+		AppOption.RULES_MASTER_TEXT, AppOption.RULES_PER_CLASS_CONSTANT, AppOption.INVERT);
+
+	private final Map<String, String>				includes;
+	private final Map<String, String>				excludes;
+	private final Map<String, String>				packageRenames;
+	private final Map<String, String>				packageVersions;
+	private final Map<String, Map<String, String>>	specificPackageVersions;
+	private final Map<String, BundleData>			bundleUpdates;
+	private final Map<String, String>				masterSubstitutionRefs;
+	private final Map<String, Map<String, String>>	masterTextUpdates;
+	private final Map<String, String>				directStrings;
+	private final Map<String, Map<String, String>>	perClassConstantStrings;
+
+	private RulesSnapshot(Map<String, String> includes, Map<String, String> excludes,
+		Map<String, String> packageRenames, Map<String, String> packageVersions,
+		Map<String, Map<String, String>> specificPackageVersions, Map<String, BundleData> bundleUpdates,
+		Map<String, String> masterSubstitutionRefs, Map<String, Map<String, String>> masterTextUpdates,
+		Map<String, String> directStrings, Map<String, Map<String, String>> perClassConstantStrings) {
+		this.includes = includes;
+		this.excludes = excludes;
+		this.packageRenames = packageRenames;
+		this.packageVersions = packageVersions;
+		this.specificPackageVersions = specificPackageVersions;
+		this.bundleUpdates = bundleUpdates;
+		this.masterSubstitutionRefs = masterSubstitutionRefs;
+		this.masterTextUpdates = masterTextUpdates;
+		this.directStrings = directStrings;
+		this.perClassConstantStrings = perClassConstantStrings;
+	}
+
+	/**
+	 * Capture the rules of a transformer. The rules must have been set. Text
+	 * substitutions which have not yet been loaded are loaded.
+	 *
+	 * @param transformer The transformer which has the rules.
+	 * @return A snapshot of the rules of the transformer.
+	 */
+	public static RulesSnapshot of(Transformer transformer) {
+		return new RulesSnapshot(transformer.includes, transformer.excludes, transformer.packageRenames,
+			transformer.packageVersions, transformer.specificPackageVersions, transformer.bundleUpdates,
+			transformer.masterSubstitutionRefs, transformer.masterTextUpdates, transformer.directStrings,
+			transformer.perClassConstantStrings);
+	}
+
+	/**
+	 * Assign the rules of this snapshot to a transformer.
+	 *
+	 * @param transformer The transformer which is to receive the rules.
+	 */
+	public void applyTo(Transformer transformer) {
+		transformer.includes = includes;
+		transformer.excludes = excludes;
+		transformer.packageRenames = packageRenames;
+		transformer.packageVersions = packageVersions;
+		transformer.specificPackageVersions = specificPackageVersions;
+		transformer.bundleUpdates = bundleUpdates;
+		transformer.masterSubstitutionRefs = masterSubstitutionRefs;
+		transformer.masterTextUpdates = masterTextUpdates;
+		transformer.directStrings = directStrings;
+		transformer.perClassConstantStrings = perClassConstantStrings;
+	}
+
+	//
+
+	public void write(File file) throws IOException {
+		IO.mkdirs(file.getAbsoluteFile()
+			.getParentFile());
+		try (OutputStream outputStream = IO.outputStream(file)) {
+			write(outputStream);
+		}
+	}
+
+	public void write(OutputStream outputStream) throws IOException {
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream));
+
+		output.writeInt(MAGIC);
+		output.writeInt(FORMAT);
+
+		writeMap(output, includes, null);
+		writeMap(output, excludes, null);
+		writeMap(output, packageRenames, new RenameKeyComparator('.'));
+		writeMap(output, packageVersions, null);
+		writeMaps(output, specificPackageVersions);
+
+		if (bundleUpdates == null) {
+			output.writeInt(-1);
+		} else {
+			output.writeInt(bundleUpdates.size());
+			for (Map.Entry<String, BundleData> entry : sorted(bundleUpdates, null).entrySet()) {
+				BundleData bundleData = entry.getValue();
+				writeString(output, entry.getKey());
+				writeString(output, bundleData.getSymbolicName());
+				writeString(output, bundleData.getVersion());
+				output.writeBoolean(bundleData.getAddName());
+				writeString(output, bundleData.getName());
+				output.writeBoolean(bundleData.getAddDescription());
+				writeString(output, bundleData.getDescription());
+			}
+		}
+
+		writeMap(output, masterSubstitutionRefs, null);
+		writeMaps(output, masterTextUpdates);
+		writeMap(output, directStrings, null);
+		writeMaps(output, perClassConstantStrings);
+
+		output.flush();
+	}
+
+	public static RulesSnapshot read(File file) throws IOException {
+		return read(IO.read(file), file.getAbsolutePath());
+	}
+
+	public static RulesSnapshot read(InputStream inputStream) throws IOException {
+		return read(IO.read(inputStream), "input stream");
+	}
+
+	private static RulesSnapshot read(byte[] bytes, String source) throws IOException {
+		SnapshotInput input = new SnapshotInput(ByteBuffer.wrap(bytes), source);
+
+		int magic = input.readInt();
+		if (magic != MAGIC) {
+			throw new IOException(
+				"Not a rules snapshot [ " + source + " ]: Marker [ " + Integer.toHexString(magic) + " ]");
+		}
+		int format = input.readInt();
+		if (format != FORMAT) {
+			throw new IOException("Unsupported rules snapshot [ " + source + " ] format [ " + format
+				+ " ]; expected format [ " + FORMAT + " ]");
+		}
+
+		Map<String, String> includes = readMap(input);
+		Map<String, String> excludes = readMap(input);
+		Map<String, String> packageRenames = readMap(input);
+		Map<String, String> packageVersions = readMap(input);
+		Map<String, Map<String, String>> specificPackageVersions = readMaps(input);
+
+		Map<String, BundleData> bundleUpdates;
+		// Five strings and two booleans.
+		int numUpdates = input.readSize(5 * Integer.BYTES + 2);
+		if (numUpdates == -1) {
+			bundleUpdates = null;
+		} else {
+			bundleUpdates = new LinkedHashMap<>(capacity(numUpdates));
+			for (int updateNo = 0; updateNo < numUpdates; updateNo++) {
+				String key = input.readString();
+				String symbolicName = input.readString();
+				String version = input.readString();
+				boolean addName = input.readBoolean();
+				String name = input.readString();
+				boolean addDescription = input.readBoolean();
+				String description = input.readString();
+				bundleUpdates.put(key,
+					new BundleDataImpl(symbolicName, version, addName, name, addDescription, description));
+			}
+		}
+
+		Map<String, String> masterSubstitutionRefs = readMap(input);
+		Map<String, Map<String, String>> masterTextUpdates = readMaps(input);
+		Map<String, String> directStrings = readMap(input);
+		Map<String, Map<String, String>> perClassConstantStrings = readMaps(input);
+
+		if (input.remaining() != 0) {
+			throw input.corrupt("[ " + input.remaining() + " ] extra bytes");
+		}
+
+		return new RulesSnapshot(includes, excludes, packageRenames, packageVersions, specificPackageVersions,
+			bundleUpdates, masterSubstitutionRefs, masterTextUpdates, directStrings, perClassConstantStrings);
+	}
+
+	//
+
+	private static <V> Map<String, V> sorted(Map<String, V> map, Comparator<String> comparator) {
+		Map<String, V> sorted = new LinkedHashMap<>(capacity(map.size()));
+		MapStream.of(map)
+			.sortedByKey((comparator == null) ? Comparator.naturalOrder() : comparator)
+			.forEachOrdered(sorted::put);
+		return sorted;
+	}
+
+	private static int capacity(int size) {
+		return (size * 4 / 3) + 1;
+	}
+
+	private static void writeMap(DataOutputStream output, Map<String, String> map, Comparator<String> comparator)
+		throws IOException {
+		if (map == null) {
+			output.writeInt(-1);
+			return;
+		}
+		output.writeInt(map.size());
+		for (Map.Entry<String, String> entry : sorted(map, comparator).entrySet()) {
+			writeString(output, entry.getKey());
+			writeString(output, entry.getValue());
+		}
+	}
+
+	private static Map<String, String> readMap(SnapshotInput input) throws IOException {
+		// A key and a value.
+		int size = input.readSize(2 * Integer.BYTES);
+		if (size == -1) {
+			return null;
+		}
+		Map<String, String> map = new LinkedHashMap<>(capacity(size));
+		for (int entryNo = 0; entryNo < size; entryNo++) {
+			String key = input.readString();
+			map.put(key, input.readString());
+		}
+		return map;
+	}
+
+	private static void writeMaps(DataOutputStream output, Map<String, Map<String, String>> maps)
+		throws IOException {
+		if (maps == null) {
+			output.writeInt(-1);
+			return;
+		}
+		output.writeInt(maps.size());
+		for (Map.Entry<String, Map<String, String>> entry : sorted(maps, null).entrySet()) {
+			writeString(output, entry.getKey());
+			writeMap(output, entry.getValue(), null);
+		}
+	}
+
+	private static Map<String, Map<String, String>> readMaps(SnapshotInput input) throws IOException {
+		// A key and a map.
+		int size = input.readSize(2 * Integer.BYTES);
+		if (size == -1) {
+			return null;
+		}
+		Map<String, Map<String, String>> maps = new LinkedHashMap<>(capacity(size));
+		for (int entryNo = 0; entryNo < size; entryNo++) {
+			String key = input.readString();
+			maps.put(key, readMap(input));
+		}
+		return maps;
+	}
+
+	// DataOutput.writeUTF is limited to 64K bytes, which is not enough
+	// for all rules values.
+
+	private static void writeString(DataOutputStream output, String value) throws IOException {
+		if (value == null) {
+			output.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	/**
+	 * Snapshot bytes which are being read. Each size which is read is checked
+	 * against the bytes which remain, so that a corrupt snapshot fails with an
+	 * exception which names the snapshot, instead of failing with a very large
+	 * allocation.
+	 */
+	private static final class SnapshotInput {
+		private final ByteBuffer	bytes;
+		private final String		source;
+
+		SnapshotInput(ByteBuffer bytes, String source) {
+			this.bytes = bytes;
+			this.source = source;
+		}
+
+		int remaining() {
+			return bytes.remaining();
+		}
+
+		int readInt() throws IOException {
+			if (bytes.remaining() < Integer.BYTES) {
+				throw corrupt("Truncated at offset [ " + bytes.position() + " ]");
+			}
+			return bytes.getInt();
+		}
+
+		boolean readBoolean() throws IOException {
+			if (!bytes.hasRemaining()) {
+				throw corrupt("Truncated at offset [ " + bytes.position() + " ]");
+			}
+			return bytes.get() != 0;
+		}
+
+		/**
+		 * Read a count of elements. -1 is answered for a null table.
+		 *
+		 * @param elementBytes The least number of bytes of each element.
+		 * @return The count of elements. -1 for a null table.
+		 * @throws IOException Thrown if the count is negative, or if the
+		 *             elements cannot fit in the remaining bytes.
+		 */
+		int readSize(int elementBytes) throws IOException {
+			int offset = bytes.position();
+			int size = readInt();
+			if ((size < -1) || ((size > 0) && (size > (bytes.remaining() / elementBytes)))) {
+				throw corrupt("Invalid size [ " + size + " ] at offset [ " + offset + " ]");
+			}
+			return size;
+		}
+
+		String readString() throws IOException {
+			int length = readSize(1);
+			if (length == -1) {
+				return null;
+			}
+			String value = new String(bytes.array(), bytes.arrayOffset() + bytes.position(), length,
+				StandardCharsets.UTF_8);
+			bytes.position(bytes.position() + length);
+			return value;
+		}
+
+		IOException corrupt(String reason) {
+			return new IOException("Corrupt rules snapshot [ " + source + " ]: " + reason);
+		}
+	}
+}
@@ -17,16 +17,24 @@ import static org.eclipse.transformer.util.FileUtils.DEFAULT_CHARSET;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -45,10 +53,13 @@ import org.eclipse.transformer.action.BundleData;
 import org.eclipse.transformer.action.Changes;
 import org.eclipse.transformer.action.ContainerAction;
 import org.eclipse.transformer.action.ContainerChanges;
+import org.eclipse.transformer.action.EntryListener;
+import org.eclipse.transformer.action.ProgressListener;
 import org.eclipse.transformer.action.SelectionRule;
 import org.eclipse.transformer.action.SignatureRule;
 import org.eclipse.transformer.action.impl.ActionSelectorImpl;
 import org.eclipse.transformer.action.impl.BundleDataImpl;
+import org.eclipse.transformer.action.impl.ChangesReport;
 import org.eclipse.transformer.action.impl.ClassActionImpl;
 import org.eclipse.transformer.action.impl.DirectoryActionImpl;
 import org.eclipse.transformer.action.impl.JSPActionImpl;
@@ -56,13 +67,22 @@ import org.eclipse.transformer.action.impl.JavaActionImpl;
 import org.eclipse.transformer.action.impl.ManifestActionImpl;
 import org.eclipse.transformer.action.impl.PropertiesActionImpl;
 import org.eclipse.transformer.action.impl.RenameActionImpl;
+import org.eclipse.transformer.action.impl.RuleProfiler;
 import org.eclipse.transformer.action.impl.SelectionRuleImpl;
 import org.eclipse.transformer.action.impl.ServiceLoaderConfigActionImpl;
 import org.eclipse.transformer.action.impl.SignatureRuleImpl;
 import org.eclipse.transformer.action.impl.TextActionImpl;
+import org.eclipse.transformer.action.impl.TransformMemo;
 import org.eclipse.transformer.action.impl.XmlActionImpl;
 import org.eclipse.transformer.action.impl.ZipActionImpl;
+import org.eclipse.transformer.action.impl.ZipDelta;
+import org.eclipse.transformer.action.impl.ZipPipeline;
+import org.eclipse.transformer.jfr.TransformerEvents;
+import org.eclipse.transformer.metrics.Metrics;
+import org.eclipse.transformer.metrics.MetricsRegistry;
+import org.eclipse.transformer.util.LazyMap;
 import org.eclipse.transformer.util.PropertiesUtils;
+import org.eclipse.transformer.util.ZipDirectory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
@@ -101,6 +121,9 @@ public class Transformer {
 	public Transformer(Logger logger, TransformOptions options) {
 		this.logger = requireNonNull(logger);
 		this.options = requireNonNull(options);
+		this.metrics = options.hasOption(AppOption.METRICS_FILE) ? new MetricsRegistry() : Metrics.DISABLED;
+		this.progress = options.hasOption(AppOption.PROGRESS) ? new ProgressReporter(logger)
+			: ProgressListener.NONE;
 	}
 
 	/**
@@ -112,6 +135,7 @@ public class Transformer {
 	public Map<String, String>				excludes;
 
 	public boolean							invert;
+	public boolean							validateRules;
 	public Map<String, String>				packageRenames;
 	public Map<String, String>				packageVersions;
 	public Map<String, Map<String, String>> specificPackageVersions;
@@ -124,6 +148,10 @@ public class Transformer {
 
 	public boolean							widenArchiveNesting;
 	private ActionSelector					actionSelector;
+	private TransformMemo					memo;
+	private Metrics							metrics;
+	private ProgressListener				progress;
+	private EntryListener					entries	= EntryListener.NONE;
 	public Action							acceptedAction;
 
 	public String							inputName;
@@ -153,11 +181,31 @@ public class Transformer {
 
 	public ResultCode run() {
 		ResultCode rc = basicRun();
+		try {
+			writeMetrics();
+		} catch (TransformException e) {
+			getLogger().error(consoleMarker, e.getMessage(), e.getCause());
+			if (rc == ResultCode.SUCCESS_RC) {
+				rc = ResultCode.TRANSFORM_ERROR_RC;
+			}
+		}
+		try {
+			writeRuleProfile();
+		} catch (TransformException e) {
+			getLogger().error(consoleMarker, e.getMessage(), e.getCause());
+			if (rc == ResultCode.SUCCESS_RC) {
+				rc = ResultCode.TRANSFORM_ERROR_RC;
+			}
+		}
 		getLogger().info(consoleMarker, "Transformer Return Code [ {} ] [ {} ]", rc.ordinal(), rc);
 		return rc;
 	}
 
 	protected ResultCode basicRun() {
+		if (options.hasOption(AppOption.RULES_COMPILE)) {
+			return compileRules();
+		}
+
 		if (!setInput()) {
 			return ResultCode.TRANSFORM_ERROR_RC;
 		}
@@ -165,18 +213,9 @@ public class Transformer {
 			return ResultCode.TRANSFORM_ERROR_RC;
 		}
 
-		boolean loadedRules;
-		try {
-			loadedRules = setRules(getImmediateData());
-		} catch (Exception e) {
-			getLogger().error(consoleMarker, "Exception loading rules:", e);
-			return ResultCode.RULES_ERROR_RC;
-		}
-		if (!loadedRules) {
-			getLogger().error(consoleMarker, "Transformation rules cannot be used");
+		if (!sharedRules && !loadRules()) {
 			return ResultCode.RULES_ERROR_RC;
 		}
-		logRules();
 
 		if (!acceptAction()) {
 			getLogger().error(consoleMarker, "No action selected");
@@ -199,12 +238,16 @@ public class Transformer {
 			transform();
 		} catch (TransformException e) {
 			getLogger().error(consoleMarker, "Transform failure", e);
-			return ResultCode.TRANSFORM_ERROR_RC;
+			return hasSubstitutionsFailure() ? ResultCode.RULES_ERROR_RC : ResultCode.TRANSFORM_ERROR_RC;
 		} catch (Throwable th) {
 			getLogger().error(consoleMarker, "Unexpected failure", th);
 			return ResultCode.TRANSFORM_ERROR_RC;
 		}
 
+		if (hasSubstitutionsFailure()) {
+			return ResultCode.RULES_ERROR_RC;
+		}
+
 		Changes lastActiveChanges = getLastActiveChanges();
 		if (lastActiveChanges instanceof ContainerChanges containerChanges) {
 			int numDuplicated = containerChanges.getAllDuplicated();
@@ -221,6 +264,28 @@ public class Transformer {
 		return ResultCode.SUCCESS_RC;
 	}
 
+	/**
+	 * Load and log the rules which are specified by the options. Failures are
+	 * logged.
+	 *
+	 * @return True or false telling if the rules were loaded.
+	 */
+	public boolean loadRules() {
+		boolean loadedRules;
+		try {
+			loadedRules = setRules(getImmediateData());
+		} catch (Exception e) {
+			getLogger().error(consoleMarker, "Exception loading rules:", e);
+			return false;
+		}
+		if (!loadedRules) {
+			getLogger().error(consoleMarker, "Transformation rules cannot be used");
+			return false;
+		}
+		logRules();
+		return true;
+	}
+
 	//
 
 	public String getInputFileName() {
@@ -304,12 +369,57 @@ public class Transformer {
 	 *             the data.
 	 */
 	public boolean setRules(ImmediateRuleData[] immediateData) throws Exception {
+		return setRules(immediateData, options.hasOption(AppOption.VALIDATE_RULES));
+	}
+
+	/**
+	 * Process the rules data. Load and validate the data.
+	 * <p>
+	 * When a rules snapshot is specified, the rules are assigned from the
+	 * snapshot, and only immediate rules data is processed.
+	 *
+	 * @param immediateData Immediate rules data.
+	 * @param validate Control parameter: Tell if all rules files are to be
+	 *            loaded and validated immediately.
+	 * @return True or false telling if the data was successfully loaded and is
+	 *         usable.
+	 * @throws Exception Thrown if an error occurred while loading or validating
+	 *             the data.
+	 */
+	public boolean setRules(ImmediateRuleData[] immediateData, boolean validate) throws Exception {
+		Object event = TransformerEvents.beginRules();
+		boolean loaded = false;
+		try {
+			loaded = basicSetRules(immediateData, validate);
+			return loaded;
+		} finally {
+			TransformerEvents.endRules(event, options.hasOption(AppOption.RULES_SNAPSHOT),
+				size(includes) + size(excludes), size(packageRenames), size(packageVersions), size(bundleUpdates),
+				size(directStrings), loaded);
+		}
+	}
+
+	private static int size(Map<?, ?> map) {
+		return (map == null) ? 0 : map.size();
+	}
+
+	private boolean basicSetRules(ImmediateRuleData[] immediateData, boolean validate) throws Exception {
 		if ( immediateData == null ) {
 			return false;
 		}
 
+		invert = options.hasOption(AppOption.INVERT);
+		validateRules = validate;
+
 		Set<String> orphanedFinalPackages = new HashSet<>();
 
+		if (options.hasOption(AppOption.RULES_SNAPSHOT)) {
+			// Snapshot rules are already merged, inverted, and validated.
+			setSnapshotRules();
+			processImmediateData(immediateData, null, orphanedFinalPackages);
+			return validateVersionUpdates(orphanedFinalPackages);
+		}
+
 		Map<String, String> selectionProperties = loadProperties(AppOption.RULES_SELECTIONS, null);
 		Map<String, String> renameProperties = loadProperties(AppOption.RULES_RENAMES, orphanedFinalPackages);
 		Map<String, String> versionProperties = loadProperties(AppOption.RULES_VERSIONS, null);
@@ -319,8 +429,6 @@ public class Transformer {
 		Map<String, String> perClassConstantProperties = loadProperties(AppOption.RULES_PER_CLASS_CONSTANT,
 			null);
 
-		invert = options.hasOption(AppOption.INVERT);
-
 		if ( !selectionProperties.isEmpty() ) {
 			includes = new HashMap<>();
 			excludes = new HashMap<>();
@@ -369,10 +477,7 @@ public class Transformer {
 				String substitutionsRef = options.normalize(substitutionRefEntry.getValue());
 
 				Map<String, String> substitutions =
-					loadSubstitutions(masterTextRef, simpleNameSelector, substitutionsRef);
-				if (invert) {
-					substitutions = TransformProperties.invert(substitutions);
-				}
+					textSubstitutions(masterTextRef, simpleNameSelector, substitutionsRef, invert);
 
 				textMasterProperties.put(simpleNameSelector, substitutionsRef);
 				masterUpdates.put(simpleNameSelector, substitutions);
@@ -381,6 +486,9 @@ public class Transformer {
 			masterSubstitutionRefs = textMasterProperties;
 			masterTextUpdates = masterUpdates;
 			getLogger().info(consoleMarker, "Text files will be updated");
+			if (!validateRules) {
+				getLogger().debug(consoleMarker, "Text substitutions will be loaded when first used");
+			}
 		} else {
 			masterTextRef = null;
 			masterTextUpdates = null;
@@ -450,6 +558,78 @@ public class Transformer {
 		return validateVersionUpdates(orphanedFinalPackages);
 	}
 
+	/**
+	 * Load, validate, and merge the rules, then write the rules to the rules
+	 * snapshot file which was specified by {@link AppOption#RULES_COMPILE}.
+	 * All rules files are loaded, as if {@link AppOption#VALIDATE_RULES} was
+	 * specified.
+	 *
+	 * @return The result of compiling the rules.
+	 */
+	protected ResultCode compileRules() {
+		String snapshotName = options.normalize(options.getOptionValue(AppOption.RULES_COMPILE));
+
+		boolean loadedRules;
+		try {
+			loadedRules = setRules(getImmediateData(), true);
+		} catch (Exception e) {
+			getLogger().error(consoleMarker, "Exception loading rules:", e);
+			return ResultCode.RULES_ERROR_RC;
+		}
+		if (!loadedRules) {
+			getLogger().error(consoleMarker, "Transformation rules cannot be used");
+			return ResultCode.RULES_ERROR_RC;
+		}
+		logRules();
+
+		File snapshotFile = resolveFile(snapshotName);
+		try {
+			RulesSnapshot.of(this)
+				.write(snapshotFile);
+		} catch (IOException e) {
+			getLogger().error(consoleMarker, "Failed to write rules snapshot [ {} ]", snapshotFile.getAbsolutePath(), e);
+			return ResultCode.RULES_ERROR_RC;
+		}
+		getLogger().info(consoleMarker, "Rules snapshot [ {} ] [ {} bytes ]", snapshotFile.getAbsolutePath(),
+			snapshotFile.length());
+
+		return ResultCode.SUCCESS_RC;
+	}
+
+	/**
+	 * Assign the rules from the rules snapshot which was specified by
+	 * {@link AppOption#RULES_SNAPSHOT}. The snapshot rules are used instead of
+	 * the rules properties files. A warning is logged for each of the
+	 * {@link RulesSnapshot#SNAPSHOT_OPTIONS} which is specified, since these
+	 * have no effect.
+	 *
+	 * @throws IOException Thrown if the snapshot could not be read.
+	 */
+	protected void setSnapshotRules() throws IOException {
+		String snapshotName = options.normalize(options.getOptionValue(AppOption.RULES_SNAPSHOT));
+		File snapshotFile = resolveFile(snapshotName);
+
+		for (AppOption option : RulesSnapshot.SNAPSHOT_OPTIONS) {
+			if (options.hasOption(option)) {
+				getLogger().warn(consoleMarker, "Option [ {} ] is ignored: The rules are read from snapshot [ {} ]",
+					option.getLongTag(), snapshotFile.getAbsolutePath());
+			}
+		}
+
+		long start = System.nanoTime();
+		RulesSnapshot.read(snapshotFile)
+			.applyTo(this);
+		long elapsed = System.nanoTime() - start;
+
+		getLogger().info(consoleMarker, "Rules snapshot [ {} ] loaded in [ {} ms ]", snapshotFile.getAbsolutePath(),
+			elapsed / 1_000_000L);
+	}
+
+	private File resolveFile(String fileName) {
+		File file = new File(fileName);
+		return file.isAbsolute() ? file : new File(new File(getBase()), fileName);
+	}
+
 	protected void processImmediateData(
 		ImmediateRuleData[] immediateData, String masterTextRef,
 		Set<String> orphanedFinalVersions)
@@ -710,6 +890,63 @@ public class Transformer {
 		return substitutions;
 	}
 
+	/**
+	 * Answer the text substitutions of a text master entry. Unless rules
+	 * validation was requested, the substitutions are loaded when first used,
+	 * which is when a resource first matches the selector. A failure to load
+	 * the substitutions is then reported as a transform failure of that
+	 * resource.
+	 *
+	 * <p>
+	 * The failure is logged once, when the substitutions are first used. The
+	 * failure is retained: Every later resource which matches the selector
+	 * fails without loading the substitutions again, and the run answers
+	 * {@link ResultCode#RULES_ERROR_RC}.
+	 *
+	 * @param masterRef The reference to the text master.
+	 * @param selector The simple file name selector of the entry.
+	 * @param substitutionsRef References to the substitutions properties.
+	 * @param invertSubstitutions Whether to invert the substitutions.
+	 * @return The substitutions of the entry.
+	 */
+	private Map<String, String> textSubstitutions(String masterRef, String selector, String substitutionsRef,
+		boolean invertSubstitutions) {
+		if (validateRules) {
+			Map<String, String> substitutions = loadSubstitutions(masterRef, selector, substitutionsRef);
+			return invertSubstitutions ? TransformProperties.invert(substitutions) : substitutions;
+		}
+
+		return new LazyMap<>(() -> {
+			getLogger().debug("Loading substitutions matching [ {} ] from [ {} ]", selector, substitutionsRef);
+			Map<String, String> substitutions;
+			try {
+				substitutions = loadSubstitutions(masterRef, selector, substitutionsRef);
+			} catch (Exception e) {
+				// Properties load failures are thrown without being wrapped.
+				TransformException failure = new TransformException(
+					"Failed to load substitutions matching [ " + selector + " ] from [ " + substitutionsRef + " ]", e);
+				getLogger().error(consoleMarker, failure.getMessage(), e);
+				throw failure;
+			}
+			return invertSubstitutions ? TransformProperties.invert(substitutions) : substitutions;
+		});
+	}
+
+	/**
+	 * Tell if any text substitutions which were loaded when first used failed
+	 * to load.
+	 *
+	 * @return True or false telling if any text substitutions failed to load.
+	 */
+	private boolean hasSubstitutionsFailure() {
+		if (masterTextUpdates == null) {
+			return false;
+		}
+		return masterTextUpdates.values()
+			.stream()
+			.anyMatch(substitutions -> (substitutions instanceof LazyMap<?, ?> lazy) && (lazy.getFailure() != null));
+	}
+
 	private void addImmediateMasterText(
 		String masterTextRef, String simpleNameSelector, String substitutionsRef)
 		throws IOException, URISyntaxException {
@@ -722,7 +959,7 @@ public class Transformer {
 		substitutionsRef = options.normalize(substitutionsRef);
 
 		Map<String, String> substitutionsMap =
-			loadSubstitutions(masterTextRef, simpleNameSelector, substitutionsRef);
+			textSubstitutions(masterTextRef, simpleNameSelector, substitutionsRef, false);
 
 		String oldSubstitutionsRef =
 			masterSubstitutionRefs.put(simpleNameSelector, substitutionsRef);
@@ -933,6 +1170,11 @@ public class Transformer {
 			getLogger().debug("  [ ** NONE ** ]");
 		} else {
 			for (Map.Entry<String, Map<String, String>> masterTextEntry : masterTextUpdates.entrySet()) {
+				if ((masterTextEntry.getValue() instanceof LazyMap<?, ?> lazy) && !lazy.isLoaded()) {
+					getLogger().debug("  Pattern [ {} ] [ {} ] (loaded when used)", masterTextEntry.getKey(),
+						masterSubstitutionRefs.get(masterTextEntry.getKey()));
+					continue;
+				}
 				getLogger().debug("  Pattern [ {} ]", masterTextEntry.getKey());
 				for (Map.Entry<String, String> substitution : masterTextEntry.getValue()
 					.entrySet()) {
@@ -955,15 +1197,54 @@ public class Transformer {
 
 	public SignatureRule getSignatureRule() {
 		if (signatureRules == null) {
-			signatureRules = new SignatureRuleImpl(
+			SignatureRuleImpl useSignatureRules = new SignatureRuleImpl(
 				getLogger(),
 				packageRenames, packageVersions, specificPackageVersions,
 				bundleUpdates,
 				masterTextUpdates, directStrings, perClassConstantStrings);
+			useSignatureRules.setMetrics(getMetrics());
+			if (options.hasOption(AppOption.RULES_PROFILE)) {
+				useSignatureRules.setProfiler(new RuleProfiler());
+			}
+			signatureRules = useSignatureRules;
 		}
 		return signatureRules;
 	}
 
+	private boolean sharedRules;
+
+	/**
+	 * Use the rules of another transformer instead of loading rules. The
+	 * selection and signature rules, including the caches of the signature
+	 * rule, the metrics, and the progress and entry listeners, are shared with
+	 * the other transformer. Actions are not shared: Each transformer creates
+	 * its own actions.
+	 *
+	 * @param rulesTransformer The transformer which has the rules. The rules
+	 *            must have been set.
+	 */
+	public void useRules(Transformer rulesTransformer) {
+		includes = rulesTransformer.includes;
+		excludes = rulesTransformer.excludes;
+		invert = rulesTransformer.invert;
+		packageRenames = rulesTransformer.packageRenames;
+		packageVersions = rulesTransformer.packageVersions;
+		specificPackageVersions = rulesTransformer.specificPackageVersions;
+		bundleUpdates = rulesTransformer.bundleUpdates;
+		masterSubstitutionRefs = rulesTransformer.masterSubstitutionRefs;
+		masterTextUpdates = rulesTransformer.masterTextUpdates;
+		directStrings = rulesTransformer.directStrings;
+		perClassConstantStrings = rulesTransformer.perClassConstantStrings;
+
+		selectionRules = rulesTransformer.getSelectionRule();
+		signatureRules = rulesTransformer.getSignatureRule();
+		metrics = rulesTransformer.getMetrics();
+		progress = rulesTransformer.getProgressListener();
+		entries = rulesTransformer.getEntryListener();
+
+		sharedRules = true;
+	}
+
 	public boolean setInput() {
 		String useInputName = options.getInputFileName();
 		if (useInputName == null || useInputName.isEmpty()) {
@@ -1056,7 +1337,9 @@ public class Transformer {
 		getLogger().debug(consoleMarker, "Output [ {} ] ({})", useOutputName, outputCase);
 		getLogger().info(consoleMarker, "Output [ {} ]", useOutputPath);
 
-		allowOverwrite = options.hasOption(AppOption.OVERWRITE);
+		// An incremental transformation updates an existing output.
+		allowOverwrite = options.hasOption(AppOption.OVERWRITE) || isIncremental()
+			|| options.hasOption(AppOption.DELTA);
 		if (allowOverwrite) {
 			getLogger().info(consoleMarker, "Overwrite of output is enabled");
 		}
@@ -1104,7 +1387,8 @@ public class Transformer {
 	// As a separate method to allow re-use.
 
 	public ActionContext getActionContext() {
-		return new ActionContext(getLogger(), getSelectionRule(), getSignatureRule());
+		return new ActionContext(getLogger(), getSelectionRule(), getSignatureRule(), getMetrics(),
+			getProgressListener(), getEntryListener());
 	}
 
 	public ActionSelector getActionSelector() {
@@ -1112,7 +1396,10 @@ public class Transformer {
 			ActionSelector useSelector = new ActionSelectorImpl();
 			ActionContext context = getActionContext();
 
-			ContainerAction directoryAction = useSelector.addUsing(DirectoryActionImpl::new, context);
+			int directoryParallelism = getDirectoryParallelism();
+			String incrementalFingerprint = isIncremental() ? getRulesFingerprint() : null;
+			ContainerAction directoryAction = useSelector.addUsing(
+				c -> new DirectoryActionImpl(c, directoryParallelism, incrementalFingerprint), context);
 
 			Action classAction = useSelector.addUsing(ClassActionImpl::new, context);
 			// The java and JSP actions must be before the text action.
@@ -1149,6 +1436,21 @@ public class Transformer {
 
 			Action renameAction = useSelector.addUsing(RenameActionImpl::new, context);
 
+			// Identical nested archives and resources are transformed once
+			// per run.
+			TransformMemo useMemo = new TransformMemo(getLogger());
+			for (ContainerAction archiveAction : List.of(jarAction, warAction, rarAction, earAction, zipAction)) {
+				((ZipActionImpl) archiveAction).setMemo(useMemo);
+			}
+			memo = useMemo;
+
+			ZipPipeline usePipeline = getPipeline();
+			if (usePipeline != null) {
+				for (ContainerAction archiveAction : List.of(jarAction, warAction, rarAction, earAction, zipAction)) {
+					((ZipActionImpl) archiveAction).setPipeline(usePipeline);
+				}
+			}
+
 			// Directory actions know about all actions except for directory
 			// actions, and except for the properties action.
 
@@ -1218,6 +1520,105 @@ public class Transformer {
 		return actionSelector;
 	}
 
+	/**
+	 * Answer the number of files of an input directory which are to be
+	 * transformed concurrently.
+	 *
+	 * @return The number of files of an input directory which are to be
+	 *         transformed concurrently.
+	 * @throws TransformException Thrown if the option value is not a number
+	 *             of at least 1.
+	 */
+	public int getDirectoryParallelism() {
+		return getPositiveOption(AppOption.DIRECTORY_PARALLELISM, "Directory parallelism", 1);
+	}
+
+	/**
+	 * Tell if an input directory is to be transformed incrementally. Watching
+	 * an input directory transforms it incrementally.
+	 *
+	 * @return True or false telling if an input directory is to be transformed
+	 *         incrementally.
+	 */
+	public boolean isIncremental() {
+		return options.hasOption(AppOption.INCREMENTAL) || options.hasOption(AppOption.WATCH);
+	}
+
+	/**
+	 * Answer the settings of the pipeline which is used to transform input
+	 * archives.
+	 *
+	 * @return The pipeline settings. Null if the pipeline is not enabled.
+	 */
+	public ZipPipeline getPipeline() {
+		if (!options.hasOption(AppOption.PIPELINE)) {
+			return null;
+		}
+		int depth = getPositiveOption(AppOption.PIPELINE_DEPTH, "Pipeline depth", ZipPipeline.DEFAULT_DEPTH);
+		long memoryLimit = ZipPipeline.DEFAULT_MEMORY_LIMIT;
+		String memory = options.getOptionValue(AppOption.PIPELINE_MEMORY);
+		if (memory != null) {
+			long megabytes;
+			try {
+				megabytes = Long.parseLong(memory.trim());
+			} catch (NumberFormatException e) {
+				throw new TransformException("Pipeline memory [ " + memory + " ] is not a number", e);
+			}
+			if ((megabytes < 0L) || (megabytes > 2047L)) {
+				throw new TransformException("Pipeline memory [ " + memory + " ] must be between 0 and 2047");
+			}
+			memoryLimit = megabytes * 1024L * 1024L;
+		}
+		return new ZipPipeline(depth, depth, memoryLimit);
+	}
+
+	private int getPositiveOption(AppOption option, String description, int defaultValue) {
+		String text = options.getOptionValue(option);
+		if (text == null) {
+			return defaultValue;
+		}
+		int value;
+		try {
+			value = Integer.parseInt(text.trim());
+		} catch (NumberFormatException e) {
+			throw new TransformException(description + " [ " + text + " ] is not a number", e);
+		}
+		if (value < 1) {
+			throw new TransformException(description + " [ " + text + " ] must be at least 1");
+		}
+		return value;
+	}
+
+	/**
+	 * Answer a fingerprint of the rules, and of the options which change the
+	 * results of a transformation. Transformations which have the same
+	 * fingerprint produce the same output for the same input.
+	 *
+	 * @return The fingerprint of the rules, as hexadecimal.
+	 * @throws TransformException Thrown if the rules cannot be written.
+	 */
+	public String getRulesFingerprint() {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e); // SHA-256 is always available
+		}
+		try (OutputStream outputStream = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+			RulesSnapshot.of(this)
+				.write(outputStream);
+		} catch (IOException e) {
+			throw new TransformException("Failed to fingerprint the rules", e);
+		}
+		String results = "version=" + getClass().getPackage()
+			.getImplementationVersion() + ",stripSignatures=" + options.hasOption(AppOption.STRIP_SIGNATURES)
+			+ ",widenArchiveNesting=" + options.hasOption(AppOption.WIDEN_ARCHIVE_NESTING) + ",type="
+			+ options.getOptionValue(AppOption.FILE_TYPE);
+		digest.update(results.getBytes(StandardCharsets.UTF_8));
+		return HexFormat.of()
+			.formatHex(digest.digest());
+	}
+
 	public boolean acceptAction() {
 		String actionName = options.getOptionValue(AppOption.FILE_TYPE);
 		if (actionName != null) {
@@ -1244,10 +1645,230 @@ public class Transformer {
 	}
 
 	public void transform() throws TransformException {
-		acceptedAction.apply(inputName, inputFile, outputName, outputFile);
+		if (progress != ProgressListener.NONE) {
+			startProgress();
+		}
+		try {
+			List<String> delta = options.getOptionValues(AppOption.DELTA);
+			if ((delta != null) && (delta.size() == 2) && (acceptedAction instanceof ZipActionImpl zipAction)) {
+				new ZipDelta(zipAction).apply(inputName, new File(delta.get(0)), new File(delta.get(1)), inputFile,
+					outputName, outputFile);
+			} else {
+				if (delta != null) {
+					getLogger().warn(consoleMarker, "Delta update is only available for archives; [ {} ] is transformed in full",
+						inputName);
+				}
+				acceptedAction.apply(inputName, inputFile, outputName, outputFile);
+			}
+		} finally {
+			clearMemo();
+			progress.transformFinished(inputName);
+		}
 
 		acceptedAction.getLastActiveChanges()
 			.log(getLogger(), inputPath, outputPath);
+		reportTiming(acceptedAction.getLastActiveChanges());
+	}
+
+	/**
+	 * Tell the progress listener that the transform of the input is started.
+	 * The totals of the input are obtained from the central directory of an
+	 * input archive, or from a listing of an input directory.
+	 */
+	private void startProgress() {
+		long entries = ProgressListener.UNKNOWN;
+		long bytes = ProgressListener.UNKNOWN;
+		try {
+			if (inputFile.isDirectory()) {
+				long[] totals = new long[2];
+				try (Stream<Path> paths = Files.walk(inputFile.toPath())) {
+					paths.map(Path::toFile)
+						.filter(File::isFile)
+						.forEach(file -> {
+							totals[0]++;
+							totals[1] += file.length();
+						});
+				}
+				entries = totals[0];
+				bytes = totals[1];
+			} else if (acceptedAction instanceof ZipActionImpl) {
+				try (ZipDirectory directory = new ZipDirectory(inputFile.toPath(), StandardCharsets.UTF_8)) {
+					List<ZipDirectory.Entry> directoryEntries = directory.getEntries();
+					entries = directoryEntries.size();
+					bytes = directoryEntries.stream()
+						.mapToLong(ZipDirectory.Entry::getSize)
+						.sum();
+				}
+			}
+		} catch (IOException | UncheckedIOException e) {
+			getLogger().debug("Totals of [ {} ] are not known", inputName, e);
+		}
+		progress.transformStarted(inputName, entries, bytes);
+	}
+
+	/**
+	 * Report the time and bytes of a transform, as specified by the timing
+	 * options: The JSON report is written, and the slowest archives and
+	 * entries are logged.
+	 *
+	 * @param changes The changes of the transform.
+	 * @throws TransformException Thrown if the report cannot be written.
+	 */
+	public void reportTiming(Changes changes) throws TransformException {
+		if (options.hasOption(AppOption.TIMING_TOP)) {
+			int top = getPositiveOption(AppOption.TIMING_TOP, "Timing top", 10);
+			ChangesReport.log(getLogger(), changes, top);
+		}
+		String report = options.getOptionValue(AppOption.TIMING_REPORT);
+		if (report != null) {
+			File reportFile = new File(options.normalize(report));
+			try {
+				ChangesReport.write(changes, reportFile);
+			} catch (IOException e) {
+				throw new TransformException("Failed to write timing report [ " + reportFile + " ]", e);
+			}
+			getLogger().info(consoleMarker, "Timing report [ {} ]", reportFile);
+		}
+	}
+
+	/**
+	 * Answer the metrics of the transforms of this transformer. Metrics are
+	 * collected when a metrics file is specified by
+	 * {@link AppOption#METRICS_FILE}.
+	 *
+	 * @return The metrics of the transforms. {@link Metrics#DISABLED} if
+	 *         metrics are not collected.
+	 */
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Set the metrics of the transforms of this transformer. Must be set
+	 * before the rules and actions are created.
+	 *
+	 * @param metrics The metrics of the transforms.
+	 */
+	public void setMetrics(Metrics metrics) {
+		this.metrics = requireNonNull(metrics);
+	}
+
+	/**
+	 * Answer the listener to the progress of the transforms of this
+	 * transformer. Progress is logged when {@link AppOption#PROGRESS} is
+	 * specified.
+	 *
+	 * @return The listener to the progress of the transforms.
+	 *         {@link ProgressListener#NONE} if progress is not listened to.
+	 */
+	public ProgressListener getProgressListener() {
+		return progress;
+	}
+
+	/**
+	 * Set the listener to the progress of the transforms of this transformer.
+	 * Must be set before the actions are created.
+	 *
+	 * @param progress The listener to the progress of the transforms.
+	 */
+	public void setProgressListener(ProgressListener progress) {
+		this.progress = requireNonNull(progress);
+	}
+
+	/**
+	 * Answer the listener to the outcomes of the entries which are transformed
+	 * by this transformer.
+	 *
+	 * @return The listener to the outcomes of entries.
+	 *         {@link EntryListener#NONE} if outcomes are not listened to.
+	 */
+	public EntryListener getEntryListener() {
+		return entries;
+	}
+
+	/**
+	 * Set the listener to the outcomes of the entries which are transformed by
+	 * this transformer. Must be set before the actions are created. Outcomes
+	 * are logged at debug level whether or not a listener is set.
+	 *
+	 * @param entries The listener to the outcomes of entries.
+	 */
+	public void setEntryListener(EntryListener entries) {
+		this.entries = requireNonNull(entries);
+	}
+
+	/**
+	 * Write the metrics of the transforms of this transformer to the metrics
+	 * file specified by {@link AppOption#METRICS_FILE}, in the format specified
+	 * by {@link AppOption#METRICS_FORMAT}. When no format is specified, files
+	 * with the ".json" extension are written as JSON, and other files are
+	 * written as Prometheus exposition text.
+	 *
+	 * @throws TransformException Thrown if the format is not valid, or if the
+	 *             metrics cannot be written.
+	 */
+	public void writeMetrics() throws TransformException {
+		String metricsName = options.getOptionValue(AppOption.METRICS_FILE);
+		if ((metricsName == null) || !(metrics instanceof MetricsRegistry registry)) {
+			return;
+		}
+		File metricsFile = new File(options.normalize(metricsName));
+
+		MetricsRegistry.Format format;
+		String formatName = options.getOptionValue(AppOption.METRICS_FORMAT);
+		if (formatName == null) {
+			format = MetricsRegistry.Format.of(metricsFile);
+		} else {
+			format = MetricsRegistry.Format.of(formatName);
+			if (format == null) {
+				throw new TransformException("Metrics format [ " + formatName + " ] is not one of "
+					+ Arrays.toString(MetricsRegistry.Format.values()));
+			}
+		}
+
+		try {
+			registry.write(metricsFile, format);
+		} catch (IOException e) {
+			throw new TransformException("Failed to write metrics [ " + metricsFile + " ]", e);
+		}
+		getLogger().info(consoleMarker, "Metrics [ {} ] [ {} ]", metricsFile, format);
+	}
+
+	/**
+	 * Write the profile of the rules of this transformer to the file specified
+	 * by {@link AppOption#RULES_PROFILE}, and log a summary of the profile.
+	 *
+	 * @throws TransformException Thrown if the profile cannot be written.
+	 */
+	public void writeRuleProfile() throws TransformException {
+		String profileName = options.getOptionValue(AppOption.RULES_PROFILE);
+		if ((profileName == null) || !(signatureRules instanceof SignatureRuleImpl useSignatureRules)) {
+			return;
+		}
+		RuleProfiler profiler = useSignatureRules.getProfiler();
+		if (profiler == null) {
+			return;
+		}
+		File profileFile = new File(options.normalize(profileName));
+		try {
+			profiler.write(profileFile);
+		} catch (IOException e) {
+			throw new TransformException("Failed to write rule profile [ " + profileFile + " ]", e);
+		}
+		profiler.log(getLogger());
+		getLogger().info(consoleMarker, "Rule profile [ {} ] Unused rules [ {} ]", profileFile, profiler.getUnused()
+			.size());
+	}
+
+	/**
+	 * Clear the results of the transforms of the last run, which are
+	 * memoized so that identical nested archives and resources are
+	 * transformed once per run.
+	 */
+	void clearMemo() {
+		if (memo != null) {
+			memo.clear();
+		}
 	}
 
 	public Changes getLastActiveChanges() {
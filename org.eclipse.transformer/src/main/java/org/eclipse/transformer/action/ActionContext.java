@@ -17,15 +17,34 @@
  *******************************************************************************/
 package org.eclipse.transformer.action;
 
+import org.eclipse.transformer.metrics.Metrics;
 import org.slf4j.Logger;
 
 import static java.util.Objects.requireNonNull;
 
 public record ActionContext(Logger logger, SelectionRule selectionRule,
-								SignatureRule signatureRule) {
-	public ActionContext(Logger logger, SelectionRule selectionRule, SignatureRule signatureRule) {
+								SignatureRule signatureRule, Metrics metrics, ProgressListener progress,
+								EntryListener entries) {
+	public ActionContext(Logger logger, SelectionRule selectionRule, SignatureRule signatureRule, Metrics metrics,
+		ProgressListener progress, EntryListener entries) {
 		this.logger = requireNonNull(logger);
 		this.selectionRule = requireNonNull(selectionRule);
 		this.signatureRule = requireNonNull(signatureRule);
+		this.metrics = requireNonNull(metrics);
+		this.progress = requireNonNull(progress);
+		this.entries = requireNonNull(entries);
+	}
+
+	public ActionContext(Logger logger, SelectionRule selectionRule, SignatureRule signatureRule, Metrics metrics,
+		ProgressListener progress) {
+		this(logger, selectionRule, signatureRule, metrics, progress, EntryListener.NONE);
+	}
+
+	public ActionContext(Logger logger, SelectionRule selectionRule, SignatureRule signatureRule, Metrics metrics) {
+		this(logger, selectionRule, signatureRule, metrics, ProgressListener.NONE);
+	}
+
+	public ActionContext(Logger logger, SelectionRule selectionRule, SignatureRule signatureRule) {
+		this(logger, selectionRule, signatureRule, Metrics.DISABLED);
 	}
 }
@@ -11,6 +11,8 @@
 
 package org.eclipse.transformer.action;
 
+import java.util.concurrent.TimeUnit;
+
 import org.slf4j.Logger;
 
 public interface Changes {
@@ -26,5 +28,44 @@ public interface Changes {
 	String getChangeText();
 	long getElapsedMillis();
 
+	/**
+	 * Answer the wall time of the transform, in nanoseconds. The time is
+	 * measured until recording stops, or until now while recording is active.
+	 * The default answers the elapsed milliseconds as nanoseconds.
+	 *
+	 * @return The wall time of the transform, in nanoseconds.
+	 */
+	default long getElapsedNanos() {
+		return TimeUnit.MILLISECONDS.toNanos(getElapsedMillis());
+	}
+
+	/**
+	 * Answer the count of bytes which were read by the transform. Zero if the
+	 * count was not recorded. The default does not record the count.
+	 *
+	 * @return The count of bytes read by the transform.
+	 */
+	default long getInputBytes() {
+		return 0L;
+	}
+
+	default Changes setInputBytes(long inputBytes) {
+		return this;
+	}
+
+	/**
+	 * Answer the count of bytes which were written by the transform. Zero if
+	 * the count was not recorded. The default does not record the count.
+	 *
+	 * @return The count of bytes written by the transform.
+	 */
+	default long getOutputBytes() {
+		return 0L;
+	}
+
+	default Changes setOutputBytes(long outputBytes) {
+		return this;
+	}
+
 	void log(Logger logger, String inputPath, String outputPath);
 }
@@ -11,10 +11,25 @@
 
 package org.eclipse.transformer.action;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 public interface ContainerChanges extends Changes {
+	/**
+	 * Timing of one entry of a container.
+	 *
+	 * @param name The name of the entry.
+	 * @param actionType The type of the action which processed the entry. Null
+	 *            if the entry was not accepted by an action.
+	 * @param elapsedNanos The wall time of the entry on the transforming
+	 *            thread, in nanoseconds.
+	 * @param inputBytes The input bytes of the entry.
+	 * @param outputBytes The output bytes of the entry.
+	 */
+	record EntryTiming(String name, ActionType actionType, long elapsedNanos, long inputBytes, long outputBytes) {}
+
 	int getAllResources();
 	int getAllUnselected();
 	int getAllSelected();
@@ -28,6 +43,9 @@ public interface ContainerChanges extends Changes {
 
 	int getAllFailed();
 	int getAllDuplicated();
+	default int getAllDeduplicated() {
+		return 0;
+	}
 
 	Map<String, int[]> getUnchangedByAction();
 
@@ -58,6 +76,41 @@ public interface ContainerChanges extends Changes {
 	int getDuplicated(Action action);
 	int getDuplicated(String name);
 
+	/**
+	 * Answer the entry counts, wall time, and bytes of the entries of this
+	 * container, by the type of the action which processed the entries.
+	 * Entries of nested containers are not included.
+	 *
+	 * @return The throughput of the entries of this container by action type.
+	 *         The default answers an empty map.
+	 */
+	default Map<ActionType, Throughput> getThroughputByType() {
+		return Collections.emptyMap();
+	}
+
+	/**
+	 * Answer the changes of the nested containers which were transformed as
+	 * entries of this container, in the order in which they were transformed.
+	 * Nested containers which reused an earlier transform are not included.
+	 *
+	 * @return The changes of the nested containers. The default answers an
+	 *         empty list.
+	 */
+	default List<ContainerChanges> getChildren() {
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Answer the slowest entries of this container, slowest first. Entries of
+	 * nested containers are not included.
+	 *
+	 * @return The slowest entries of this container. The default answers an
+	 *         empty list.
+	 */
+	default List<EntryTiming> getSlowestEntries() {
+		return Collections.emptyList();
+	}
+
 	//
 
 	void recordUnselected();
@@ -67,5 +120,19 @@ public interface ContainerChanges extends Changes {
 	void recordFailed(Action action);
 	void recordDuplicated(Action action);
 
+	/**
+	 * Record an action which reused the changes of an earlier transform of
+	 * identical data.
+	 * <p>
+	 * This API is specific to changes which record deduplicated entries.
+	 *
+	 * @param action The action which was selected for the entry.
+	 * @param changes The changes of the earlier transform.
+	 */
+	default void recordDeduplicated(Action action, Changes changes) {
+		throw new UnsupportedOperationException("Changes do not record deduplicated entries");
+	}
+
+
 	void add(ContainerChanges otherChanges);
 }
@@ -13,6 +13,8 @@ package org.eclipse.transformer.action;
 
 import org.eclipse.transformer.TransformException;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.regex.Pattern;
 
 public interface ElementAction extends Action {
@@ -34,4 +36,35 @@ public interface ElementAction extends Action {
 	 * @throws TransformException Thrown if the transform failed.
 	 */
 	ByteData apply(ByteData inputData) throws TransformException;
+
+	/**
+	 * Tell if this action can transform streamed data, using
+	 * {@link #apply(String, InputStream, OutputStream)}. Streaming is used for
+	 * data which is too large to be collected.
+	 *
+	 * @return True or false telling if this action can transform streamed
+	 *         data.
+	 */
+	default boolean isStreamingAction() {
+		return false;
+	}
+
+	/**
+	 * Apply this action on streamed input data. The output name is the
+	 * relocated input name, which is known before the data is transformed.
+	 * Neither stream is closed.
+	 * <p>
+	 * This API is specific to element type actions which are streaming
+	 * actions.
+	 *
+	 * @param inputName The name of the input data.
+	 * @param inputStream The stream of the input data.
+	 * @param outputStream The stream which receives the transformed data.
+	 * @return The name of the output data.
+	 * @throws TransformException Thrown if the transform failed.
+	 */
+	default String apply(String inputName, InputStream inputStream, OutputStream outputStream)
+		throws TransformException {
+		throw new UnsupportedOperationException("Action [ " + getName() + " ] does not transform streamed data");
+	}
 }
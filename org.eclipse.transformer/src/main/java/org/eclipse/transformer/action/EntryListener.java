@@ -0,0 +1,185 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.action;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Listener to the outcomes of the entries of containers.
+ * <p>
+ * One outcome is sent for each entry, except that an entry which was both
+ * renamed and changed is sent as {@link #renamed} and then as
+ * {@link #contentChanged}. Entries which reused the result of an earlier
+ * transform of identical data are sent as the outcome of that transform.
+ * Outcomes are sent for the entries of all containers, including the entries
+ * of nested archives.
+ * <p>
+ * Events are sent on the threads which transform the entries, and may be sent
+ * concurrently. Listeners must be thread safe, and must return quickly.
+ * {@link #NONE} is used when outcomes are not listened to, in which case no
+ * events are sent.
+ */
+public interface EntryListener {
+	/**
+	 * Listener which ignores all events.
+	 */
+	EntryListener NONE = new EntryListener() {
+		@Override
+		public String toString() {
+			return "EntryListener [ NONE ]";
+		}
+	};
+
+	/**
+	 * An entry was not selected by the selection rules.
+	 *
+	 * @param containerName The name of the container.
+	 * @param resourceName The name of the entry.
+	 */
+	default void unselected(String containerName, String resourceName) {
+		// Empty
+	}
+
+	/**
+	 * An entry was selected, but no action accepted the entry.
+	 *
+	 * @param containerName The name of the container.
+	 * @param resourceName The name of the entry.
+	 */
+	default void unaccepted(String containerName, String resourceName) {
+		// Empty
+	}
+
+	/**
+	 * An entry was selected and transformed, and was not changed.
+	 *
+	 * @param containerName The name of the container.
+	 * @param actionType The type of the action which transformed the entry.
+	 * @param resourceName The name of the entry.
+	 */
+	default void unchanged(String containerName, ActionType actionType, String resourceName) {
+		// Empty
+	}
+
+	/**
+	 * An entry was selected and transformed, and was renamed.
+	 *
+	 * @param containerName The name of the container.
+	 * @param actionType The type of the action which transformed the entry.
+	 * @param resourceName The name of the entry.
+	 */
+	default void renamed(String containerName, ActionType actionType, String resourceName) {
+		// Empty
+	}
+
+	/**
+	 * An entry was selected and transformed, and its content was changed.
+	 *
+	 * @param containerName The name of the container.
+	 * @param actionType The type of the action which transformed the entry.
+	 * @param resourceName The name of the entry.
+	 */
+	default void contentChanged(String containerName, ActionType actionType, String resourceName) {
+		// Empty
+	}
+
+	/**
+	 * The transform of an entry failed.
+	 *
+	 * @param containerName The name of the container.
+	 * @param actionType The type of the action which failed. Null if the entry
+	 *            failed before it was accepted by an action.
+	 * @param resourceName The name of the entry.
+	 * @param error The failure.
+	 */
+	default void failed(String containerName, ActionType actionType, String resourceName, Throwable error) {
+		// Empty
+	}
+
+	/**
+	 * An entry was not written, because an entry of the same name was already
+	 * written.
+	 *
+	 * @param containerName The name of the container.
+	 * @param actionType The type of the action of the entry. Null if the entry
+	 *            was not accepted by an action.
+	 * @param resourceName The name of the entry.
+	 */
+	default void duplicate(String containerName, ActionType actionType, String resourceName) {
+		// Empty
+	}
+
+	/**
+	 * Answer a listener which sends events to this listener and then to
+	 * another listener.
+	 *
+	 * @param other The listener which receives the events after this listener.
+	 * @return A listener which sends events to both listeners.
+	 */
+	default EntryListener andThen(EntryListener other) {
+		requireNonNull(other);
+		if (other == NONE) {
+			return this;
+		} else if (this == NONE) {
+			return other;
+		}
+		EntryListener first = this;
+		return new EntryListener() {
+			@Override
+			public void unselected(String containerName, String resourceName) {
+				first.unselected(containerName, resourceName);
+				other.unselected(containerName, resourceName);
+			}
+
+			@Override
+			public void unaccepted(String containerName, String resourceName) {
+				first.unaccepted(containerName, resourceName);
+				other.unaccepted(containerName, resourceName);
+			}
+
+			@Override
+			public void unchanged(String containerName, ActionType actionType, String resourceName) {
+				first.unchanged(containerName, actionType, resourceName);
+				other.unchanged(containerName, actionType, resourceName);
+			}
+
+			@Override
+			public void renamed(String containerName, ActionType actionType, String resourceName) {
+				first.renamed(containerName, actionType, resourceName);
+				other.renamed(containerName, actionType, resourceName);
+			}
+
+			@Override
+			public void contentChanged(String containerName, ActionType actionType, String resourceName) {
+				first.contentChanged(containerName, actionType, resourceName);
+				other.contentChanged(containerName, actionType, resourceName);
+			}
+
+			@Override
+			public void failed(String containerName, ActionType actionType, String resourceName, Throwable error) {
+				first.failed(containerName, actionType, resourceName, error);
+				other.failed(containerName, actionType, resourceName, error);
+			}
+
+			@Override
+			public void duplicate(String containerName, ActionType actionType, String resourceName) {
+				first.duplicate(containerName, actionType, resourceName);
+				other.duplicate(containerName, actionType, resourceName);
+			}
+
+			@Override
+			public String toString() {
+				return "EntryListener [ " + first + ", " + other + " ]";
+			}
+		};
+	}
+}
@@ -0,0 +1,87 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.action;
+
+/**
+ * Listener to the progress of transforms.
+ * <p>
+ * A transform is started for each input which is transformed. Entry events
+ * are sent for the entries of all containers: The entries of the input, and
+ * the entries of archives which are nested in the input. The entries of the
+ * input are those of the container which has the name of the input.
+ * <p>
+ * Events are sent on the threads which transform the entries, and may be sent
+ * concurrently. Listeners must be thread safe, and must return quickly.
+ * {@link #NONE} is used when progress is not listened to, in which case no
+ * events are sent.
+ */
+public interface ProgressListener {
+	/** The value of counts which are not known. */
+	long UNKNOWN = -1L;
+
+	/**
+	 * Listener which ignores all events.
+	 */
+	ProgressListener NONE = new ProgressListener() {
+		@Override
+		public String toString() {
+			return "ProgressListener [ NONE ]";
+		}
+	};
+
+	/**
+	 * A transform of an input was started.
+	 *
+	 * @param inputName The name of the input.
+	 * @param entries The number of entries of the input, when it is known
+	 *            from the central directory of an archive, or from a listing
+	 *            of a directory. Otherwise, {@link #UNKNOWN}.
+	 * @param bytes The total uncompressed bytes of the entries of the input,
+	 *            when known. Otherwise, {@link #UNKNOWN}.
+	 */
+	default void transformStarted(String inputName, long entries, long bytes) {
+		// Empty
+	}
+
+	/**
+	 * An entry of a container was started.
+	 *
+	 * @param containerName The name of the container.
+	 * @param entryName The name of the entry.
+	 * @param inputBytes The uncompressed bytes of the entry, when known.
+	 *            Otherwise, {@link #UNKNOWN}.
+	 */
+	default void entryStarted(String containerName, String entryName, long inputBytes) {
+		// Empty
+	}
+
+	/**
+	 * An entry of a container was finished.
+	 *
+	 * @param containerName The name of the container.
+	 * @param entryName The name of the entry.
+	 * @param inputBytes The bytes read for the entry.
+	 * @param outputBytes The bytes written for the entry.
+	 */
+	default void entryFinished(String containerName, String entryName, long inputBytes, long outputBytes) {
+		// Empty
+	}
+
+	/**
+	 * A transform of an input was finished, successfully or not.
+	 *
+	 * @param inputName The name of the input.
+	 */
+	default void transformFinished(String inputName) {
+		// Empty
+	}
+}
@@ -71,6 +71,12 @@ import org.eclipse.transformer.util.SignatureUtils;
  * lookup of an adjusted resource name. The resource is adjusted by removing the
  * initial file extension, either ".java" or ".jsp" is removed from the resource
  * name, then adding the extension ".class".
+ * <p>
+ * The replacement methods answer null when no replacement is made. Each has
+ * an overload which accepts a character sequence. The default implementations
+ * of these overloads convert the character sequence to a string. Implementations
+ * should override them to scan the character sequence, and should only create a
+ * string when a replacement is made.
  */
 public interface SignatureRule {
 	// Category 1: Package renames.
@@ -79,10 +85,18 @@ public interface SignatureRule {
 	String replacePackage(String initialName);
 	String replacePackages(String text);
 
+	default String replacePackages(CharSequence text) {
+		return replacePackages(text.toString());
+	}
+
 	Map<String, String> getBinaryPackageRenames();
 	String replaceBinaryPackage(String initialName);
 	String replaceBinaryPackages(String text);
 
+	default String replaceBinaryPackages(CharSequence text) {
+		return replaceBinaryPackages(text.toString());
+	}
+
 	// Category 2: Package version updates
 
 	Map<String, String> getPackageVersions();
@@ -104,14 +118,26 @@ public interface SignatureRule {
 
 	String replaceText(String inputName, String initialText);
 
+	default String replaceText(String inputName, CharSequence initialText) {
+		return replaceText(inputName, initialText.toString());
+	}
+
 	// Category 5: Direct string updates
 
 	Map<String, String> getDirectGlobalUpdates();
 	String replaceTextDirectGlobal(String initialValue, String inputName);
 
+	default String replaceTextDirectGlobal(CharSequence initialValue, String inputName) {
+		return replaceTextDirectGlobal(initialValue.toString(), inputName);
+	}
+
 	Map<String, Map<String, String>> getDirectPerClassUpdates();
 	String replaceTextDirectPerClass(String initialValue, String inputName);
 
+	default String replaceTextDirectPerClass(CharSequence initialValue, String inputName) {
+		return replaceTextDirectPerClass(initialValue.toString(), inputName);
+	}
+
 	// Complex (java specific) transformations.
 
 	String relocateResource(String inputPath);
@@ -0,0 +1,82 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.action;
+
+/**
+ * Accumulated entry count, wall time, and bytes of the entries of a container
+ * which were processed by one type of action.
+ */
+public class Throughput {
+	private int		count;
+	private long	elapsedNanos;
+	private long	inputBytes;
+	private long	outputBytes;
+
+	public Throughput() {
+		// Empty
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public long getInputBytes() {
+		return inputBytes;
+	}
+
+	public long getOutputBytes() {
+		return outputBytes;
+	}
+
+	/**
+	 * Answer the rate at which input bytes were processed.
+	 *
+	 * @return The rate at which input bytes were processed, in megabytes per
+	 *         second. Zero if no time was recorded.
+	 */
+	public double getInputMegabytesPerSecond() {
+		if (elapsedNanos == 0L) {
+			return 0.0;
+		}
+		return (inputBytes / (1024.0 * 1024.0)) / (elapsedNanos / 1_000_000_000.0);
+	}
+
+	/**
+	 * Add one entry.
+	 *
+	 * @param entryNanos The wall time of the entry, in nanoseconds.
+	 * @param entryInputBytes The input bytes of the entry.
+	 * @param entryOutputBytes The output bytes of the entry.
+	 */
+	public void add(long entryNanos, long entryInputBytes, long entryOutputBytes) {
+		count++;
+		elapsedNanos += entryNanos;
+		inputBytes += entryInputBytes;
+		outputBytes += entryOutputBytes;
+	}
+
+	public void add(Throughput other) {
+		count += other.count;
+		elapsedNanos += other.elapsedNanos;
+		inputBytes += other.inputBytes;
+		outputBytes += other.outputBytes;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("[%d] [%dns] [%d -> %d]", count, elapsedNanos, inputBytes, outputBytes);
+	}
+}
@@ -17,7 +17,10 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -35,6 +38,7 @@ import org.eclipse.transformer.action.Changes;
 import org.eclipse.transformer.action.SelectionRule;
 import org.eclipse.transformer.action.SignatureRule;
 import org.eclipse.transformer.action.SignatureRule.SignatureType;
+import org.eclipse.transformer.jfr.TransformerEvents;
 import org.eclipse.transformer.util.FileUtils;
 import org.slf4j.Logger;
 
@@ -71,7 +75,9 @@ import org.slf4j.Logger;
  * accumulated change record. The active resource is passed as method
  * parameters. The accumulated change record is managed within the actions as a
  * stack, with each 'apply' being required to begin and end with
- * {@link #startRecording(String)} and {@link #stopRecording(String)}.
+ * {@link #startRecording(String)} and {@link #stopRecording(String)}. The stack
+ * is kept per thread, which allows an action to be applied concurrently on
+ * several threads.
  * <p>
  * Third, there is data which is not transformation rules data and which is is
  * not related to the active resource or to accumulated Changes. This additional
@@ -86,9 +92,7 @@ public abstract class ActionImpl implements Action {
 
 		// Change tracking ...
 
-		this.changes = new ArrayDeque<>();
-		this.activeChanges = null;
-		this.lastActiveChanges = null;
+		this.recording = ThreadLocal.withInitial(Recording::new);
 	}
 
 	//
@@ -129,11 +133,11 @@ public abstract class ActionImpl implements Action {
 		return getSignatureRule().replaceBinaryPackage(initialName);
 	}
 
-	public String replacePackages(String initialText) {
+	public String replacePackages(CharSequence initialText) {
 		return getSignatureRule().replacePackages(initialText);
 	}
 
-	public String replaceBinaryPackages(String initialText) {
+	public String replaceBinaryPackages(CharSequence initialText) {
 		return getSignatureRule().replaceBinaryPackages(initialText);
 	}
 
@@ -153,15 +157,15 @@ public abstract class ActionImpl implements Action {
 		return getSignatureRule().getTextSubstitutions(inputName);
 	}
 
-	public String replaceText(String inputFileName, String initialText) {
+	public String replaceText(String inputFileName, CharSequence initialText) {
 		return getSignatureRule().replaceText(inputFileName, initialText);
 	}
 
-	public String replaceTextDirectPerClass(String initialValue, String inputName) {
+	public String replaceTextDirectPerClass(CharSequence initialValue, String inputName) {
 		return getSignatureRule().replaceTextDirectPerClass(initialValue, inputName);
 	}
 
-	public String replaceTextDirectGlobal(String initialValue, String inputName) {
+	public String replaceTextDirectGlobal(CharSequence initialValue, String inputName) {
 		return getSignatureRule().replaceTextDirectGlobal(initialValue, inputName);
 	}
 
@@ -192,12 +196,23 @@ public abstract class ActionImpl implements Action {
 
 	protected abstract Changes newChanges();
 
-	private final Deque<Changes>	changes;
-	private Changes					activeChanges;
-	private Changes					lastActiveChanges;
+	/**
+	 * Change record of the resources which are being transformed by one
+	 * thread.
+	 */
+	private static final class Recording {
+		final Deque<Changes>	changes	= new ArrayDeque<>();
+		Changes					activeChanges;
+		Changes					lastActiveChanges;
+
+		Recording() {}
+	}
+
+	private final ThreadLocal<Recording> recording;
 
 	protected void startRecording(ByteData inputData) {
 		startRecording(inputData.name());
+		recording.get().activeChanges.setInputBytes(inputData.length());
 	}
 
 	protected void stopRecording(ByteData inputData) {
@@ -208,37 +223,48 @@ public abstract class ActionImpl implements Action {
 	public void startRecording(String inputName) {
 		getLogger().debug("Start processing [ {} ] using [ {} ]", inputName, getName());
 
-		Changes useActiveChanges = activeChanges;
+		Recording useRecording = recording.get();
+		Changes useActiveChanges = useRecording.activeChanges;
 		if (useActiveChanges != null) {
-			changes.addLast(useActiveChanges);
+			useRecording.changes.addLast(useActiveChanges);
+		}
+		useRecording.activeChanges = newChanges();
+		if (useRecording.activeChanges instanceof ChangesImpl changesImpl) {
+			changesImpl.event = TransformerEvents.beginAction();
 		}
-		activeChanges = newChanges();
 	}
 
 	@Override
 	public void stopRecording(String inputName) {
-		Changes useActiveChanges = activeChanges;
+		Recording useRecording = recording.get();
+		Changes useActiveChanges = useRecording.activeChanges;
+		if (useActiveChanges instanceof ChangesImpl changesImpl) {
+			changesImpl.stop();
+			TransformerEvents.endAction(changesImpl.event, inputName, getActionType(), changesImpl.getInputBytes(),
+				changesImpl.getOutputBytes(), changesImpl.getChangeText());
+			changesImpl.event = null;
+		}
 		Logger useLogger = getLogger();
 		if (useLogger.isDebugEnabled()) {
 			useLogger.debug("Stop processing [ {} ] using [ {} ] took [ {}ms ]: {}", inputName, getName(),
 				useActiveChanges.getElapsedMillis(), useActiveChanges.getChangeText());
 		}
-		lastActiveChanges = useActiveChanges;
-		activeChanges = changes.pollLast();
+		useRecording.lastActiveChanges = useActiveChanges;
+		useRecording.activeChanges = useRecording.changes.pollLast();
 	}
 
 	//
 
 	@Override
 	public Changes getActiveChanges() {
-		return activeChanges;
+		return recording.get().activeChanges;
 	}
 
 	//
 
 	@Override
 	public Changes getLastActiveChanges() {
-		return lastActiveChanges;
+		return recording.get().lastActiveChanges;
 	}
 
 	//
@@ -289,7 +315,9 @@ public abstract class ActionImpl implements Action {
 	}
 
 	/**
-	 * Read all bytes from a file.
+	 * Read all bytes from a file. Large files are mapped instead of being
+	 * copied to the heap. See
+	 * {@link FileUtils#read(Logger, String, Charset, File)}.
 	 *
 	 * @param inputPath A name associated with the file.
 	 * @param inputFile A file which is to be read.
@@ -297,8 +325,8 @@ public abstract class ActionImpl implements Action {
 	 * @throws TransformException Thrown if the file cannot be read.
 	 */
 	public ByteData collect(String inputPath, File inputFile) throws TransformException {
-		try (InputStream inputStream = IO.stream(inputFile)) {
-			return collect(inputPath, inputStream, Math.toIntExact(inputFile.length()));
+		try {
+			return FileUtils.read(getLogger(), inputPath, resourceCharset(inputPath), inputFile);
 		} catch (IOException e) {
 			throw new TransformException("Failed to read input [ " + inputFile.getAbsolutePath() + " ]", e);
 		}
@@ -367,8 +395,13 @@ public abstract class ActionImpl implements Action {
 				"Failed to create parent directory of [ " + outputFile.getAbsolutePath() + " ]", e);
 		}
 
-		try (OutputStream outputStream = IO.outputStream(outputFile)) {
-			write(outputData, outputStream);
+		// Write the buffer directly: A mapped buffer is not copied to the heap.
+		try (FileChannel outputChannel = FileChannel.open(outputFile.toPath(), StandardOpenOption.WRITE,
+			StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = outputData.buffer();
+			while (buffer.hasRemaining()) {
+				outputChannel.write(buffer);
+			}
 		} catch (IOException e) {
 			throw new TransformException("Failed to write [ " + outputFile.getAbsolutePath() + " ]", e);
 		}
@@ -427,7 +460,7 @@ public abstract class ActionImpl implements Action {
 
 	@FunctionalInterface
 	public interface StringReplacement {
-		String apply(String inputName, String initialValue, List<String> cases);
+		String apply(String inputName, CharSequence initialValue, List<String> cases);
 	}
 
 	public static final List<StringReplacement> NO_ACTIVE_REPLACEMENTS = Collections.emptyList();
@@ -450,13 +483,16 @@ public abstract class ActionImpl implements Action {
 	}
 
 	// ClassActionImpl.transformString(String, String, String)
-	// TextActionImpl.transformString(String, String, String)
+	// TextActionImpl.transformString(String, String, CharSequence)
 
-	protected String updateString(String inputName, String valueCase, String initialValue) {
+	protected String updateString(String inputName, String valueCase, CharSequence initialValue) {
 		List<StringReplacement> useReplacements = getActiveReplacements();
 		if ((useReplacements == null) || useReplacements.isEmpty()) {
-			getLogger().trace("    String {} {}: {} (no-active replacements, unchanged)", inputName, valueCase,
-				initialValue);
+			// Called for every constant: Skip the trace without formatting.
+			if (getLogger().isTraceEnabled()) {
+				getLogger().trace("    String {} {}: {} (no-active replacements, unchanged)", inputName, valueCase,
+					initialValue);
+			}
 			return null;
 		} else {
 			return updateString(inputName, valueCase, initialValue, useReplacements);
@@ -464,13 +500,16 @@ public abstract class ActionImpl implements Action {
 	}
 
 	protected String updateString(
-		String inputName, String valueCase, String initialValue,
+		String inputName, String valueCase, CharSequence initialValue,
 		List<StringReplacement> replacements) {
 
 		Logger useLogger = getLogger();
+		boolean trace = useLogger.isTraceEnabled();
 
-		if ((initialValue == null) || initialValue.isEmpty()) {
-			useLogger.trace("    String {} {}: {} (empty, unchanged)", inputName, valueCase, initialValue);
+		if ((initialValue == null) || (initialValue.length() == 0)) {
+			if (trace) {
+				useLogger.trace("    String {} {}: {} (empty, unchanged)", inputName, valueCase, initialValue);
+			}
 			return null;
 		}
 
@@ -478,15 +517,19 @@ public abstract class ActionImpl implements Action {
 
 		List<String> cases = new ArrayList<>(allowMultiple ? replacements.size() : 1);
 
-		String finalValue = initialValue;
+		// Replacements answer null when they make no change, so a string is
+		// only created for a value which is changed.
+		CharSequence finalValue = initialValue;
 		for ( StringReplacement replacement : replacements ) {
-			String priorValue = finalValue;
+			CharSequence priorValue = finalValue;
 			finalValue = replacement.apply(inputName, priorValue, cases);
 			if ( finalValue == null ) {
 				finalValue = priorValue;
 			} else {
-				useLogger.trace("Input [ {} ] [ {} ] Initial [ {} ] Final [ {} ] ( {} )",
-					  inputName, valueCase, priorValue, finalValue, cases);
+				if (trace) {
+					useLogger.trace("Input [ {} ] [ {} ] Initial [ {} ] Final [ {} ] ( {} )",
+						  inputName, valueCase, priorValue, finalValue, cases);
+				}
 				if (!allowMultiple) {
 					break;
 				}
@@ -494,17 +537,22 @@ public abstract class ActionImpl implements Action {
 		}
 
 		if ( finalValue == initialValue ) {
-			useLogger.trace("    String {} {}: {} (unchanged)", inputName, valueCase, initialValue);
+			if (trace) {
+				useLogger.trace("    String {} {}: {} (unchanged)", inputName, valueCase, initialValue);
+			}
 			return null;
 		} else {
-			useLogger.trace("    String {} {}: {} -> {} ({})", inputName, valueCase, initialValue, finalValue, cases);
-			return finalValue;
+			if (trace) {
+				useLogger.trace("    String {} {}: {} -> {} ({})", inputName, valueCase, initialValue, finalValue,
+					cases);
+			}
+			return finalValue.toString();
 		}
 	}
 
 	//
 
-	protected String packagesUpdate(String inputName, String initialValue, List<String> cases) {
+	protected String packagesUpdate(String inputName, CharSequence initialValue, List<String> cases) {
 		String finalValue = getSignatureRule().replacePackages(initialValue);
 		if (finalValue != null) {
 			cases.add("packages");
@@ -512,7 +560,7 @@ public abstract class ActionImpl implements Action {
 		return finalValue;
 	}
 
-	protected String binaryPackagesUpdate(String inputName, String initialValue, List<String> cases) {
+	protected String binaryPackagesUpdate(String inputName, CharSequence initialValue, List<String> cases) {
 		String finalValue = getSignatureRule().replaceBinaryPackages(initialValue);
 		if (finalValue != null) {
 			cases.add("binary packages");
@@ -520,7 +568,7 @@ public abstract class ActionImpl implements Action {
 		return finalValue;
 	}
 
-	protected String textUpdate(String inputName, String initialValue, List<String> cases) {
+	protected String textUpdate(String inputName, CharSequence initialValue, List<String> cases) {
 		String finalValue = getSignatureRule().replaceText(inputName, initialValue);
 		if (finalValue != null) {
 			cases.add("text");
@@ -528,7 +576,7 @@ public abstract class ActionImpl implements Action {
 		return finalValue;
 	}
 
-	protected String directPerClassUpdate(String inputName, String initialValue, List<String> cases) {
+	protected String directPerClassUpdate(String inputName, CharSequence initialValue, List<String> cases) {
 		String finalValue = getSignatureRule().replaceTextDirectPerClass(initialValue, inputName);
 		if (finalValue != null) {
 			cases.add("direct per class");
@@ -545,7 +593,7 @@ public abstract class ActionImpl implements Action {
 	 * @param cases Record of what substitution cases were triggered.
 	 * @return The modified value. Null if no updates were made.
 	 */
-	protected String directPerClassUpdate_java(String inputName, String initialValue, List<String> cases) {
+	protected String directPerClassUpdate_java(String inputName, CharSequence initialValue, List<String> cases) {
 		String lookupName = switchExtensionTo(inputName, ".java", ".class");
 		if (lookupName == null) {
 			return null;
@@ -582,7 +630,7 @@ public abstract class ActionImpl implements Action {
 		return head + finalExtension;
 	}
 
-	protected String directGlobalUpdate(String inputName, String initialValue, List<String> cases) {
+	protected String directGlobalUpdate(String inputName, CharSequence initialValue, List<String> cases) {
 		String finalValue = getSignatureRule().replaceTextDirectGlobal(initialValue, inputName);
 		if (finalValue != null) {
 			cases.add("direct global");
@@ -590,16 +638,16 @@ public abstract class ActionImpl implements Action {
 		return finalValue;
 	}
 
-	protected String binaryTypeUpdate(String inputName, String initialValue, List<String> cases) {
-		String finalValue = getSignatureRule().transformBinaryType(initialValue);
+	protected String binaryTypeUpdate(String inputName, CharSequence initialValue, List<String> cases) {
+		String finalValue = getSignatureRule().transformBinaryType(initialValue.toString());
 		if (finalValue != null) {
 			cases.add("binary type");
 		}
 		return finalValue;
 	}
 
-	protected String descriptorUpdate(String inputName, String initialValue, List<String> cases) {
-		String finalValue = getSignatureRule().transformDescriptor(initialValue);
+	protected String descriptorUpdate(String inputName, CharSequence initialValue, List<String> cases) {
+		String finalValue = getSignatureRule().transformDescriptor(initialValue.toString());
 		if (finalValue != null) {
 			cases.add("binary descriptor");
 		}
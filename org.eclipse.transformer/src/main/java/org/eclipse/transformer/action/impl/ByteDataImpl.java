@@ -35,6 +35,10 @@ public class ByteDataImpl implements ByteData {
 	 * <p>
 	 * Usually, the name is a file or archive entry name and the byte data is
 	 * the contents of the file or entry.
+	 * <p>
+	 * The buffer may be a read-only, direct buffer, such as a buffer which
+	 * maps a file. Users of the data must not assume that the buffer has an
+	 * accessible array.
 	 *
 	 * @param name A name associated with the data.
 	 * @param buffer Byte data associated with the name.
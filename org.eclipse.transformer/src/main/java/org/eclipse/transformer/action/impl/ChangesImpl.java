@@ -20,7 +20,12 @@ import java.util.concurrent.TimeUnit;
 
 public abstract class ChangesImpl implements Changes {
 
-	private final long start = System.nanoTime();
+	private final long	start	= System.nanoTime();
+	private long		stop;
+	private boolean		stopped;
+
+	// The flight recorder event of the recording of these changes.
+	Object				event;
 
 	public ChangesImpl() {
 		// Empty
@@ -126,7 +131,50 @@ public abstract class ChangesImpl implements Changes {
 
 	@Override
 	public long getElapsedMillis() {
-		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		return TimeUnit.NANOSECONDS.toMillis(getElapsedNanos());
+	}
+
+	@Override
+	public long getElapsedNanos() {
+		return (stopped ? stop : System.nanoTime()) - start;
+	}
+
+	/**
+	 * Stop the wall time of these changes. Called when recording of these
+	 * changes stops.
+	 */
+	public void stop() {
+		if (!stopped) {
+			stop = System.nanoTime();
+			stopped = true;
+		}
+	}
+
+	//
+
+	private long	inputBytes;
+	private long	outputBytes;
+
+	@Override
+	public long getInputBytes() {
+		return inputBytes;
+	}
+
+	@Override
+	public ChangesImpl setInputBytes(long inputBytes) {
+		this.inputBytes = inputBytes;
+		return this;
+	}
+
+	@Override
+	public long getOutputBytes() {
+		return outputBytes;
+	}
+
+	@Override
+	public ChangesImpl setOutputBytes(long outputBytes) {
+		this.outputBytes = outputBytes;
+		return this;
 	}
 
 	protected void logChanges(Logger logger) {
@@ -0,0 +1,242 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.action.impl;
+
+import static org.eclipse.transformer.Transformer.consoleMarker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import aQute.lib.io.IO;
+import org.eclipse.transformer.action.ActionType;
+import org.eclipse.transformer.action.Changes;
+import org.eclipse.transformer.action.ContainerChanges;
+import org.eclipse.transformer.action.ContainerChanges.EntryTiming;
+import org.eclipse.transformer.action.Throughput;
+import org.eclipse.transformer.util.Json;
+import org.slf4j.Logger;
+
+/**
+ * Timing and byte report of a transform.
+ * <p>
+ * The changes of a container and the changes of its nested containers form a
+ * tree. The report writes the tree as JSON, and finds the slowest archives
+ * and entries of the tree. The paths of nested archives and entries are the
+ * path of their container followed by "!/" and their name in the container.
+ */
+public class ChangesReport {
+	private ChangesReport() {}
+
+	/**
+	 * Timing of an archive or entry of a tree of changes.
+	 *
+	 * @param path The path of the archive or entry.
+	 * @param actionType The type of the action of the entry. Null for
+	 *            archives, and for entries which were not accepted.
+	 * @param elapsedNanos The wall time, in nanoseconds.
+	 * @param inputBytes The input bytes.
+	 * @param outputBytes The output bytes.
+	 */
+	public record Timing(String path, ActionType actionType, long elapsedNanos, long inputBytes, long outputBytes) {}
+
+	private static final Comparator<Timing> SLOWEST_FIRST = Comparator.comparingLong(Timing::elapsedNanos)
+		.reversed();
+
+	/**
+	 * Answer the JSON representation of changes: An object which has the
+	 * name, time, and bytes of the changes. The object of container changes
+	 * also has the resource counts, the throughput by action type, the
+	 * slowest entries, and the objects of the nested containers.
+	 *
+	 * @param changes The changes.
+	 * @return The JSON representation of the changes.
+	 */
+	public static Map<String, Object> toMap(Changes changes) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("name", changes.getInputResourceName());
+		map.put("output", changes.getOutputResourceName());
+		map.put("elapsedNanos", changes.getElapsedNanos());
+		map.put("inputBytes", changes.getInputBytes());
+		map.put("outputBytes", changes.getOutputBytes());
+		map.put("changed", changes.isChanged());
+
+		if (changes instanceof ContainerChanges containerChanges) {
+			map.put("resources", containerChanges.getAllResources());
+			map.put("changedResources", containerChanges.getAllChanged());
+			map.put("failedResources", containerChanges.getAllFailed());
+
+			Map<String, Object> byType = new LinkedHashMap<>();
+			for (Map.Entry<ActionType, Throughput> typeEntry : containerChanges.getThroughputByType()
+				.entrySet()) {
+				Throughput throughput = typeEntry.getValue();
+				Map<String, Object> typeMap = new LinkedHashMap<>();
+				typeMap.put("count", throughput.getCount());
+				typeMap.put("elapsedNanos", throughput.getElapsedNanos());
+				typeMap.put("inputBytes", throughput.getInputBytes());
+				typeMap.put("outputBytes", throughput.getOutputBytes());
+				byType.put(typeEntry.getKey()
+					.name(), typeMap);
+			}
+			map.put("byType", byType);
+
+			List<Object> slowestEntries = new ArrayList<>();
+			for (EntryTiming entryTiming : containerChanges.getSlowestEntries()) {
+				Map<String, Object> entryMap = new LinkedHashMap<>();
+				entryMap.put("name", entryTiming.name());
+				entryMap.put("type", (entryTiming.actionType() == null) ? null
+					: entryTiming.actionType()
+						.name());
+				entryMap.put("elapsedNanos", entryTiming.elapsedNanos());
+				entryMap.put("inputBytes", entryTiming.inputBytes());
+				entryMap.put("outputBytes", entryTiming.outputBytes());
+				slowestEntries.add(entryMap);
+			}
+			map.put("slowestEntries", slowestEntries);
+
+			List<Object> children = new ArrayList<>();
+			for (ContainerChanges child : containerChanges.getChildren()) {
+				children.add(toMap(child));
+			}
+			map.put("children", children);
+		}
+		return map;
+	}
+
+	/**
+	 * Write the JSON representation of changes to a file.
+	 *
+	 * @param changes The changes.
+	 * @param file The file which is to be written.
+	 * @throws IOException Thrown if the file cannot be written.
+	 */
+	public static void write(Changes changes, File file) throws IOException {
+		File parent = file.getAbsoluteFile()
+			.getParentFile();
+		if (parent != null) {
+			IO.mkdirs(parent);
+		}
+		try (Writer writer = IO.writer(file)) {
+			Json.write(writer, toMap(changes));
+		}
+	}
+
+	/**
+	 * Answer the slowest archives of a tree of changes, slowest first.
+	 *
+	 * @param changes The root of the tree.
+	 * @param count The largest count of archives to answer.
+	 * @return The slowest archives.
+	 */
+	public static List<Timing> slowestArchives(Changes changes, int count) {
+		List<Timing> archives = new ArrayList<>();
+		if (changes instanceof ContainerChanges containerChanges) {
+			collectArchives(null, containerChanges, archives);
+		}
+		return slowest(archives, count);
+	}
+
+	private static void collectArchives(String parentPath, ContainerChanges changes, List<Timing> archives) {
+		String path = path(parentPath, changes.getInputResourceName());
+		if (path != null) {
+			archives.add(new Timing(path, null, changes.getElapsedNanos(), changes.getInputBytes(),
+				changes.getOutputBytes()));
+		}
+		for (ContainerChanges child : changes.getChildren()) {
+			collectArchives(path, child, archives);
+		}
+	}
+
+	/**
+	 * Answer the slowest entries of a tree of changes, slowest first. Since
+	 * each container keeps only its slowest
+	 * {@link ContainerChangesImpl#SLOWEST_ENTRIES} entries, a count larger than
+	 * that answers the slowest of the kept entries.
+	 *
+	 * @param changes The root of the tree.
+	 * @param count The largest count of entries to answer.
+	 * @return The slowest entries.
+	 */
+	public static List<Timing> slowestEntries(Changes changes, int count) {
+		List<Timing> entries = new ArrayList<>();
+		if (changes instanceof ContainerChanges containerChanges) {
+			collectEntries(null, containerChanges, entries);
+		}
+		return slowest(entries, count);
+	}
+
+	private static void collectEntries(String parentPath, ContainerChanges changes, List<Timing> entries) {
+		String path = path(parentPath, changes.getInputResourceName());
+		for (EntryTiming entryTiming : changes.getSlowestEntries()) {
+			entries.add(new Timing(path(path, entryTiming.name()), entryTiming.actionType(),
+				entryTiming.elapsedNanos(), entryTiming.inputBytes(), entryTiming.outputBytes()));
+		}
+		for (ContainerChanges child : changes.getChildren()) {
+			collectEntries(path, child, entries);
+		}
+	}
+
+	private static String path(String parentPath, String name) {
+		if (parentPath == null) {
+			return name;
+		} else if (name == null) {
+			return parentPath;
+		} else {
+			return parentPath + "!/" + name;
+		}
+	}
+
+	private static List<Timing> slowest(List<Timing> timings, int count) {
+		timings.sort(SLOWEST_FIRST);
+		return (timings.size() > count) ? new ArrayList<>(timings.subList(0, count)) : timings;
+	}
+
+	/**
+	 * Log the slowest archives and entries of a tree of changes.
+	 *
+	 * @param logger The logger which receives the report.
+	 * @param changes The root of the tree.
+	 * @param count The count of archives and of entries which are logged.
+	 */
+	public static void log(Logger logger, Changes changes, int count) {
+		if (!logger.isInfoEnabled(consoleMarker)) {
+			return;
+		}
+		logger.info(consoleMarker, "Slowest archives:");
+		for (Timing timing : slowestArchives(changes, count)) {
+			logTiming(logger, timing);
+		}
+		logger.info(consoleMarker, "Slowest entries:");
+		for (Timing timing : slowestEntries(changes, count)) {
+			logTiming(logger, timing);
+		}
+	}
+
+	private static void logTiming(Logger logger, Timing timing) {
+		long millis = TimeUnit.NANOSECONDS.toMillis(timing.elapsedNanos());
+		if (timing.actionType() == null) {
+			logger.info(consoleMarker, "  [ {}ms ] [ {} ] Bytes [ {} ] to [ {} ]", millis, timing.path(),
+				timing.inputBytes(), timing.outputBytes());
+		} else {
+			logger.info(consoleMarker, "  [ {}ms ] [ {} ] [ {} ] Bytes [ {} ] to [ {} ]", millis, timing.path(),
+				timing.actionType()
+					.getName(),
+				timing.inputBytes(), timing.outputBytes());
+		}
+	}
+}
@@ -78,14 +78,15 @@ import aQute.bnd.classfile.TypeAnnotationsAttribute;
 import aQute.bnd.classfile.builder.ClassFileBuilder;
 import aQute.bnd.classfile.builder.MutableConstantPool;
 import aQute.lib.io.ByteBufferDataInput;
-import aQute.lib.io.ByteBufferDataOutput;
 import org.eclipse.transformer.TransformException;
 import org.eclipse.transformer.action.ActionContext;
 import org.eclipse.transformer.action.ActionType;
 import org.eclipse.transformer.action.ByteData;
 import org.eclipse.transformer.action.SignatureRule;
 import org.eclipse.transformer.action.SignatureRule.SignatureType;
+import org.eclipse.transformer.jfr.TransformerEvents;
 import org.eclipse.transformer.util.FileUtils;
+import org.eclipse.transformer.util.PooledOutputStream;
 import org.slf4j.Logger;
 
 /**
@@ -281,7 +282,7 @@ public class ClassActionImpl extends ElementActionImpl {
 	 * override is used to make the implementation consistent with the
 	 * implementation before the use of active replacements.
 	 * <p>
-	 * See: {@link ActionImpl#updateString(String, String, String, List)}.
+	 * See: {@link ActionImpl#updateString(String, String, CharSequence, List)}.
 	 *
 	 * @return True or false telling if multiple updates are allowed. This
 	 *         implementation answers false.
@@ -354,6 +355,8 @@ public class ClassActionImpl extends ElementActionImpl {
 		Logger useLogger = getLogger();
 
 		startRecording(inputData);
+		Object event = TransformerEvents.beginClass();
+		boolean failed = false;
 		try {
 			useLogger.debug("Class input: [ {} ]", inputData);
 			traceDump(inputData);
@@ -471,19 +474,19 @@ public class ClassActionImpl extends ElementActionImpl {
 			}
 
 			if (!isChanged()) {
-				return inputData;
+				return recordOutput(inputData);
 			}
 
 			if (!isContentChanged()) {
 				ByteData outputData = inputData.copy(outputName);
 				useLogger.debug("  Class bytes: [ {} ]", outputData);
-				return outputData;
+				return recordOutput(outputData);
 			}
 
 			ClassFile outputClass = classBuilder.build();
 
 			Charset charset = inputData.charset();
-			ByteBufferDataOutput outputClassData = new ByteBufferDataOutput(inputData.length() + FileUtils.PAGE_SIZE);
+			PooledOutputStream outputClassData = new PooledOutputStream(inputData.length() + FileUtils.PAGE_SIZE);
 			try {
 				outputClass.write(outputClassData);
 			} catch (IOException e) {
@@ -492,12 +495,26 @@ public class ClassActionImpl extends ElementActionImpl {
 
 			ByteData outputData = new ByteDataImpl(outputName, outputClassData.toByteBuffer(), charset);
 			useLogger.debug("  Class output: [ {} ]", outputData);
-			return outputData;
+			return recordOutput(outputData);
+		} catch (RuntimeException e) {
+			failed = true;
+			throw e;
 		} finally {
+			if (event != null) {
+				ClassChangesImpl changes = getActiveChanges();
+				TransformerEvents.endClass(event, inputData.name(), changes.getInputClassName(),
+					changes.getOutputClassName(), inputData.length(), changes.getOutputBytes(),
+					changes.getModifiedConstants(), failed ? "Failed" : changes.getChangeText());
+			}
 			stopRecording(inputData);
 		}
 	}
 
+	private ByteData recordOutput(ByteData outputData) {
+		getActiveChanges().setOutputBytes(outputData.length());
+		return outputData;
+	}
+
 	private void displayClass(String inputName, ClassFile inputClass) {
 		Logger useLogger = getLogger();
 
@@ -17,7 +17,12 @@ import java.util.function.Function;
 import org.eclipse.transformer.action.Action;
 import org.eclipse.transformer.action.ActionContext;
 import org.eclipse.transformer.action.ActionSelector;
+import org.eclipse.transformer.action.ActionType;
+import org.eclipse.transformer.action.Changes;
 import org.eclipse.transformer.action.ContainerAction;
+import org.eclipse.transformer.action.ContainerChanges;
+import org.eclipse.transformer.action.EntryListener;
+import org.eclipse.transformer.action.ProgressListener;
 
 /**
  * Action type used to transform a collection of resources.
@@ -43,6 +48,14 @@ public abstract class ContainerActionImpl extends ActionImpl implements Containe
 	public ContainerActionImpl(ActionContext context, ActionSelector actionSelector) {
 		super(context);
 		this.actionSelector = actionSelector;
+		this.entryMetrics = context.metrics()
+			.isEnabled() ? new EntryMetrics(context.metrics()) : null;
+		this.progress = (context.progress() == ProgressListener.NONE) ? null : context.progress();
+		EntryListener useEntries = context.entries();
+		if (getLogger().isDebugEnabled()) {
+			useEntries = useEntries.andThen(new EntryLogger(getLogger()));
+		}
+		this.entries = (useEntries == EntryListener.NONE) ? null : useEntries;
 	}
 
 	public ContainerActionImpl(ActionContext context) {
@@ -64,11 +77,24 @@ public abstract class ContainerActionImpl extends ActionImpl implements Containe
 
 	//
 
+	private final EntryMetrics		entryMetrics;
+	private final ProgressListener	progress;
+	/** The listener to the outcomes of entries. Null if not listened to. */
+	private final EntryListener		entries;
+
 	@Override
 	protected ContainerChangesImpl newChanges() {
 		return new ContainerChangesImpl();
 	}
 
+	@Override
+	public void startRecording(String inputName) {
+		super.startRecording(inputName);
+		ContainerChangesImpl changes = getActiveChanges();
+		changes.metrics = entryMetrics;
+		changes.progress = progress;
+	}
+
 	@Override
 	public ContainerChangesImpl getActiveChanges() {
 		return (ContainerChangesImpl) super.getActiveChanges();
@@ -80,25 +106,61 @@ public abstract class ContainerActionImpl extends ActionImpl implements Containe
 	}
 
 	protected void recordUnaccepted(String resourceName) {
-		getLogger().debug("Resource [ {} ]: Not accepted", resourceName);
 		getActiveChanges().recordUnaccepted();
+		if (entries != null) {
+			entries.unaccepted(getActiveChanges().getInputResourceName(), resourceName);
+		}
 	}
 
 	protected void recordUnselected(String resourceName) {
-		getLogger().debug("Resource [ {} ]: Not selected", resourceName);
 		getActiveChanges().recordUnselected();
+		if (entries != null) {
+			entries.unselected(getActiveChanges().getInputResourceName(), resourceName);
+		}
 	}
 
 	protected void recordUnchanged(Action action, String resourceName) {
-		getLogger().debug("Resource [ {} ]: Action [ {} ]: Not changed", action.getName(), resourceName);
 		getActiveChanges().recordUnchanged(action);
+		if (entries != null) {
+			entries.unchanged(getActiveChanges().getInputResourceName(), action.getActionType(), resourceName);
+		}
 	}
 
 	protected void recordAction(Action action, String resourceName) {
-		getLogger().debug("Resource [ {} ]: Action [ {} ]", action.getName(), resourceName);
 		getActiveChanges().recordAction(action);
 		if (action.isContainerAction()) {
-			getActiveChanges().add(((ContainerAction) action).getLastActiveChanges());
+			ContainerChanges childChanges = ((ContainerAction) action).getLastActiveChanges();
+			getActiveChanges().add(childChanges);
+			getActiveChanges().addChild(childChanges);
+		}
+		if (entries != null) {
+			sendOutcome(action, resourceName, action.getLastActiveChanges());
+		}
+	}
+
+	protected void recordDeduplicated(Action action, String resourceName, Changes changes) {
+		getActiveChanges().recordDeduplicated(action, changes);
+		if (changes instanceof ContainerChanges containerChanges) {
+			getActiveChanges().add(containerChanges);
+		}
+		if (entries != null) {
+			sendOutcome(action, resourceName, changes);
+		}
+	}
+
+	private void sendOutcome(Action action, String resourceName, Changes changes) {
+		String containerName = getActiveChanges().getInputResourceName();
+		ActionType actionType = action.getActionType();
+		boolean renamed = changes.isRenamed();
+		boolean contentChanged = changes.isContentChanged();
+		if (renamed) {
+			entries.renamed(containerName, actionType, resourceName);
+		}
+		if (contentChanged) {
+			entries.contentChanged(containerName, actionType, resourceName);
+		}
+		if (!renamed && !contentChanged) {
+			entries.unchanged(containerName, actionType, resourceName);
 		}
 	}
 
@@ -106,12 +168,20 @@ public abstract class ContainerActionImpl extends ActionImpl implements Containe
 		String actionName = ( (action == null) ? "null" : action.getName() );
 		getLogger().error("Resource [ {} ] Action [ {} ]: Failed transform", resourceName, actionName, error);
 		getActiveChanges().recordFailed(action);
+		if (entries != null) {
+			entries.failed(getActiveChanges().getInputResourceName(), (action == null) ? null : action.getActionType(),
+				resourceName, error);
+		}
 	}
 
 	protected void recordDuplicate(Action action, String resourceName) {
 		String actionName = ( (action == null) ? "null" : action.getName() );
 		getLogger().error("Resource [ {} ] Action [ {} ]: Duplicate", resourceName, actionName);
 		getActiveChanges().recordDuplicated(action);
+		if (entries != null) {
+			entries.duplicate(getActiveChanges().getInputResourceName(),
+				(action == null) ? null : action.getActionType(), resourceName);
+		}
 	}
 
 	@Override
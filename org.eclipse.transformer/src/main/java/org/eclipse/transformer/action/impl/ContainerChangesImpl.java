@@ -13,15 +13,24 @@ package org.eclipse.transformer.action.impl;
 
 import static org.eclipse.transformer.Transformer.consoleMarker;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 
 import org.eclipse.transformer.action.Action;
+import org.eclipse.transformer.action.ActionType;
 import org.eclipse.transformer.action.Changes;
 import org.eclipse.transformer.action.ContainerChanges;
+import org.eclipse.transformer.action.ProgressListener;
+import org.eclipse.transformer.action.Throughput;
+import org.eclipse.transformer.jfr.TransformerEvents;
 import org.slf4j.Logger;
 
 public class ContainerChangesImpl extends ChangesImpl implements ContainerChanges {
@@ -52,6 +61,11 @@ public class ContainerChangesImpl extends ChangesImpl implements ContainerChange
 
 		this.allFailed = 0;
 		this.allDuplicated = 0;
+		this.allDeduplicated = 0;
+
+		this.throughputByType = new EnumMap<>(ActionType.class);
+		this.children = new ArrayList<>();
+		this.slowestEntries = new PriorityQueue<>(ENTRY_TIMING_ORDER);
 	}
 
 	@Override
@@ -84,12 +98,40 @@ public class ContainerChangesImpl extends ChangesImpl implements ContainerChange
 	private int							allChanged;
 	private int							allFailed;
 	private int							allDuplicated;
+	private int							allDeduplicated;
 
 	private int							allRenamed;
 	private int							allContentChanged;
 
 	//
 
+	/** The count of the slowest entries which are kept for each container. */
+	public static final int							SLOWEST_ENTRIES		= 20;
+
+	private static final Comparator<EntryTiming>	ENTRY_TIMING_ORDER	= Comparator
+		.comparingLong(EntryTiming::elapsedNanos);
+
+	private final Map<ActionType, Throughput>		throughputByType;
+	private final List<ContainerChanges>			children;
+	private final PriorityQueue<EntryTiming>		slowestEntries;
+
+	// The entry which is being processed.
+	private boolean									entryStarted;
+	private long									entryStart;
+	private ActionType								entryType;
+	private Changes									entryChanges;
+	private String									entryOutcome;
+	private Object									entryEvent;
+	private EntryMetrics.Outcome					entryResult;
+
+	/** The metrics of the entries of this container. Null if not collected. */
+	EntryMetrics									metrics;
+
+	/** The listener to the progress of entries. Null if not listened to. */
+	ProgressListener								progress;
+
+	//
+
 	@Override
 	public Set<String> getActionNames() {
 		Set<String> unchangedNames = unchangedByAction.keySet();
@@ -149,11 +191,162 @@ public class ContainerChangesImpl extends ChangesImpl implements ContainerChange
 
 		this.allFailed += otherChanges.getAllFailed();
 		this.allDuplicated += otherChanges.getAllDuplicated();
+		this.allDeduplicated += otherChanges.getAllDeduplicated();
 
 		this.allContentChanged += otherChanges.getAllChanged();
 		this.allRenamed += otherChanges.getAllRenamed();
 	}
 
+	/**
+	 * Merge changes which were recorded separately for some of the resources
+	 * of this container. Unlike {@link #add(ContainerChanges)}, which adds the
+	 * changes of a nested container, every count is summed as recorded, so
+	 * that merging the changes of several parts of a container produces the
+	 * same changes as recording all of the resources of the container
+	 * together.
+	 *
+	 * @param otherChanges Changes recorded for some of the resources of this
+	 *            container.
+	 */
+	public void merge(ContainerChangesImpl otherChanges) {
+		addChangeMap(this.unchangedByAction, otherChanges.unchangedByAction);
+		addChangeMap(this.changedByAction, otherChanges.changedByAction);
+		addChangeMap(this.renamedByAction, otherChanges.renamedByAction);
+		addChangeMap(this.contentChangedByAction, otherChanges.contentChangedByAction);
+		addChangeMap(this.failedByAction, otherChanges.failedByAction);
+		addChangeMap(this.duplicatedByAction, otherChanges.duplicatedByAction);
+
+		this.allResources += otherChanges.allResources;
+		this.allUnselected += otherChanges.allUnselected;
+		this.allSelected += otherChanges.allSelected;
+		this.allUnaccepted += otherChanges.allUnaccepted;
+		this.allAccepted += otherChanges.allAccepted;
+		this.allUnchanged += otherChanges.allUnchanged;
+		this.allChanged += otherChanges.allChanged;
+		this.allFailed += otherChanges.allFailed;
+		this.allDuplicated += otherChanges.allDuplicated;
+		this.allDeduplicated += otherChanges.allDeduplicated;
+		this.allRenamed += otherChanges.allRenamed;
+		this.allContentChanged += otherChanges.allContentChanged;
+
+		for (Map.Entry<ActionType, Throughput> mapEntry : otherChanges.throughputByType.entrySet()) {
+			this.throughputByType.computeIfAbsent(mapEntry.getKey(), type -> new Throughput())
+				.add(mapEntry.getValue());
+		}
+		this.children.addAll(otherChanges.children);
+		otherChanges.slowestEntries.forEach(this::addSlowest);
+	}
+
+	/**
+	 * Add the changes of a nested container which was transformed as an entry
+	 * of this container.
+	 *
+	 * @param childChanges The changes of the nested container.
+	 */
+	public void addChild(ContainerChanges childChanges) {
+		children.add(childChanges);
+	}
+
+	@Override
+	public List<ContainerChanges> getChildren() {
+		return Collections.unmodifiableList(children);
+	}
+
+	@Override
+	public Map<ActionType, Throughput> getThroughputByType() {
+		return Collections.unmodifiableMap(throughputByType);
+	}
+
+	@Override
+	public List<EntryTiming> getSlowestEntries() {
+		List<EntryTiming> slowest = new ArrayList<>(slowestEntries);
+		slowest.sort(ENTRY_TIMING_ORDER.reversed());
+		return slowest;
+	}
+
+	/**
+	 * Start timing an entry of this container. The entry is timed until
+	 * {@link #endEntry(String, long)} is invoked. The type of the action of
+	 * the entry, and the bytes written for the entry, are taken from the
+	 * record of the entry.
+	 *
+	 * @param name The name of the entry.
+	 * @param inputBytes The input bytes of the entry. A negative value if the
+	 *            size of the entry is not known.
+	 */
+	public void startEntry(String name, long inputBytes) {
+		if (progress != null) {
+			progress.entryStarted(getInputResourceName(), name,
+				(inputBytes < 0L) ? ProgressListener.UNKNOWN : inputBytes);
+		}
+		entryStarted = true;
+		entryStart = System.nanoTime();
+		entryType = null;
+		entryChanges = null;
+		entryOutcome = null;
+		entryResult = null;
+		entryEvent = TransformerEvents.beginEntry();
+	}
+
+	/**
+	 * End timing an entry of this container.
+	 *
+	 * @param name The name of the entry.
+	 * @param inputBytes The input bytes of the entry. A negative value if the
+	 *            size of the entry is not known, in which case the input
+	 *            bytes recorded by the action of the entry are used.
+	 */
+	public void endEntry(String name, long inputBytes) {
+		if (!entryStarted) {
+			return;
+		}
+		long elapsedNanos = System.nanoTime() - entryStart;
+		entryStarted = false;
+
+		long useInputBytes = inputBytes;
+		if (useInputBytes < 0L) {
+			useInputBytes = (entryChanges == null) ? 0L : entryChanges.getInputBytes();
+		}
+		// Unchanged content is written as read.
+		long useOutputBytes = ((entryChanges != null) && entryChanges.isContentChanged())
+			? entryChanges.getOutputBytes()
+			: useInputBytes;
+
+		if (entryType != null) {
+			throughputByType.computeIfAbsent(entryType, type -> new Throughput())
+				.add(elapsedNanos, useInputBytes, useOutputBytes);
+		}
+		addSlowest(new EntryTiming(name, entryType, elapsedNanos, useInputBytes, useOutputBytes));
+
+		TransformerEvents.endEntry(entryEvent, getInputResourceName(), name, entryType, useInputBytes, useOutputBytes,
+			entryOutcome);
+		entryEvent = null;
+
+		if ((metrics != null) && (entryResult != null)) {
+			metrics.record(entryType, entryResult, elapsedNanos, useInputBytes, useOutputBytes);
+		}
+		if (progress != null) {
+			progress.entryFinished(getInputResourceName(), name, useInputBytes, useOutputBytes);
+		}
+	}
+
+	private void addSlowest(EntryTiming entryTiming) {
+		if (slowestEntries.size() < SLOWEST_ENTRIES) {
+			slowestEntries.add(entryTiming);
+		} else if (entryTiming.elapsedNanos() > slowestEntries.peek()
+			.elapsedNanos()) {
+			slowestEntries.poll();
+			slowestEntries.add(entryTiming);
+		}
+	}
+
+	private void noteEntry(Action action, Changes changes, String outcome, EntryMetrics.Outcome result) {
+		entryType = ((action == null) ? null : action.getActionType());
+		entryChanges = changes;
+		entryOutcome = outcome;
+		entryResult = result;
+	}
+
 	//
 
 	@Override
@@ -238,6 +431,11 @@ public class ContainerChangesImpl extends ChangesImpl implements ContainerChange
 		return allFailed;
 	}
 
+	@Override
+	public int getAllDeduplicated() {
+		return allDeduplicated;
+	}
+
 	@Override
 	public int getAllDuplicated() {
 		return allDuplicated;
@@ -315,12 +513,14 @@ public class ContainerChangesImpl extends ChangesImpl implements ContainerChange
 
 	@Override
 	public void recordUnselected() {
+		noteEntry(null, null, "Unselected", EntryMetrics.Outcome.UNSELECTED);
 		allResources++;
 		allUnselected++;
 	}
 
 	@Override
 	public void recordUnaccepted() {
+		noteEntry(null, null, "Unaccepted", EntryMetrics.Outcome.UNACCEPTED);
 		allResources++;
 		allSelected++;
 		allUnaccepted++;
@@ -338,17 +538,40 @@ public class ContainerChangesImpl extends ChangesImpl implements ContainerChange
 
 		allUnchanged++;
 		increment(unchangedByAction, action.getName());
+
+		noteEntry(action, null, "Unchanged", EntryMetrics.Outcome.UNCHANGED);
 	}
 
 	@Override
 	public void recordAction(Action action) {
+		recordAction(action, action.getLastActiveChanges());
+	}
+
+	/**
+	 * Record an action which reused the result of an earlier transform of
+	 * identical data. The action is recorded as having made the changes of
+	 * the earlier transform.
+	 *
+	 * @param action The action which was reused.
+	 * @param changes The changes of the earlier transform.
+	 */
+	@Override
+	public void recordDeduplicated(Action action, Changes changes) {
+		allDeduplicated++;
+		recordAction(action, changes);
+		entryOutcome = "Deduplicated";
+		entryResult = EntryMetrics.Outcome.DEDUPLICATED;
+	}
+
+	private void recordAction(Action action, Changes lastChanges) {
 		recordAccepted();
+		noteEntry(action, lastChanges, lastChanges.getChangeText(),
+			lastChanges.isChanged() ? EntryMetrics.Outcome.CHANGED : EntryMetrics.Outcome.UNCHANGED);
 
 		String name = action.getName();
 
 		boolean anyChanges = false;
 
-		Changes lastChanges = action.getLastActiveChanges();
 		if (lastChanges.isRenamed()) {
 			anyChanges = true;
 			allRenamed++;
@@ -383,6 +606,7 @@ public class ContainerChangesImpl extends ChangesImpl implements ContainerChange
 		recordAccepted();
 
 		String name = ((action == null) ? "null" : action.getName());
+		noteEntry(action, null, "Failed", EntryMetrics.Outcome.FAILED);
 
 		allUnchanged++;
 		increment(unchangedByAction, name);
@@ -396,6 +620,7 @@ public class ContainerChangesImpl extends ChangesImpl implements ContainerChange
 		recordAccepted();
 
 		String name = ((action == null) ? "null" : action.getName());
+		noteEntry(action, null, "Duplicate", EntryMetrics.Outcome.DUPLICATE);
 
 		allUnchanged++;
 		increment(unchangedByAction, name);
@@ -463,6 +688,13 @@ public class ContainerChangesImpl extends ChangesImpl implements ContainerChange
 			formatData("All Changed", getAllChanged(),
 				       "Renamed", getAllRenamed(),
 				       "Content", getAllContentChanged(), ""));
+
+		if (getAllDeduplicated() != 0) {
+			logger.info(consoleMarker,
+				formatData("All Accepted", getAllAccepted(),
+					       "Transformed", getAllAccepted() - getAllDeduplicated(),
+					       "Deduplicated", getAllDeduplicated(), ""));
+		}
 	}
 
 	private void displayActions(Logger logger) {
@@ -12,7 +12,28 @@
 package org.eclipse.transformer.action.impl;
 
 import java.io.File;
-
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import aQute.lib.io.IO;
 import org.eclipse.transformer.TransformException;
 import org.eclipse.transformer.action.Action;
 import org.eclipse.transformer.action.ActionContext;
@@ -33,7 +54,62 @@ import org.eclipse.transformer.util.FileUtils;
 public class DirectoryActionImpl extends ContainerActionImpl {
 
 	public DirectoryActionImpl(ActionContext context) {
+		this(context, 1);
+	}
+
+	/**
+	 * Create a directory action which transforms the files of a directory
+	 * concurrently.
+	 *
+	 * @param context The context of the action.
+	 * @param parallelism The number of files which are transformed
+	 *            concurrently. When 1, the files are transformed one after
+	 *            another on the thread which applies this action.
+	 */
+	public DirectoryActionImpl(ActionContext context, int parallelism) {
+		this(context, parallelism, null);
+	}
+
+	/**
+	 * Create a directory action which optionally transforms a directory
+	 * incrementally.
+	 * <p>
+	 * An incremental transformation records the state of the transformation
+	 * in a state file next to the output directory. A later incremental
+	 * transformation only transforms the input files which were added or
+	 * changed since, and deletes the output files of input files which were
+	 * removed since. All input files are transformed when the rules
+	 * fingerprint differs from the fingerprint of the recorded state.
+	 *
+	 * @param context The context of the action.
+	 * @param parallelism The number of files which are transformed
+	 *            concurrently.
+	 * @param incrementalFingerprint The fingerprint of the rules of the
+	 *            transformation. Null to transform all input files and to not
+	 *            record the state of the transformation.
+	 */
+	public DirectoryActionImpl(ActionContext context, int parallelism, String incrementalFingerprint) {
 		super(context);
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism [ " + parallelism + " ] must be at least 1");
+		}
+		this.parallelism = parallelism;
+		this.incrementalFingerprint = incrementalFingerprint;
+	}
+
+	private final int		parallelism;
+	private final String	incrementalFingerprint;
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public boolean isIncremental() {
+		return incrementalFingerprint != null;
+	}
+
+	public String getIncrementalFingerprint() {
+		return incrementalFingerprint;
 	}
 
 	//
@@ -61,10 +137,11 @@ public class DirectoryActionImpl extends ContainerActionImpl {
 	 * @param rootInputFile The root input file.
 	 * @param rootOutputFile The root output file.
 	 * @throws TransformException Thrown in case of a transformation error.
-	 *             Currently, never thrown: A failure to transform a single file
-	 *             does not cause the transformation to fail as a whole. The
-	 *             single file is copied, an error is emitted, and the
-	 *             transformation continues.
+	 *             Currently, only thrown if interrupted while transforming
+	 *             concurrently: A failure to transform a single file does not
+	 *             cause the transformation to fail as a whole. The single file
+	 *             is copied, an error is emitted, and the transformation
+	 *             continues.
 	 */
 	@Override
 	public void apply(String rootInputPath, File rootInputFile, String rootOutputPath, File rootOutputFile)
@@ -74,10 +151,14 @@ public class DirectoryActionImpl extends ContainerActionImpl {
 		try {
 			setResourceNames(rootInputPath, rootOutputPath);
 
-			if (rootInputFile.isDirectory()) {
-				transformDirectory("", rootInputFile, rootOutputFile);
-			} else {
+			if (!rootInputFile.isDirectory()) {
 				transformFile("", rootInputFile, rootOutputFile);
+			} else if (isIncremental()) {
+				transformDirectoryIncrementally(rootInputFile, rootOutputFile);
+			} else if (getParallelism() > 1) {
+				transformDirectoryConcurrently(rootInputFile, rootOutputFile);
+			} else {
+				transformDirectory("", rootInputFile, rootOutputFile);
 			}
 
 		} finally {
@@ -125,6 +206,424 @@ public class DirectoryActionImpl extends ContainerActionImpl {
 		}
 	}
 
+	/**
+	 * Transform a directory using several threads. The directory is walked on
+	 * the applying thread, while the files are transformed on worker threads.
+	 * <p>
+	 * Each file is transformed as by {@link #transformFile(String, File, File)}:
+	 * A failure to transform a single file does not cause processing as a
+	 * whole to fail. Each worker records the changes of its files separately.
+	 * These changes are merged into the changes of this action, which produces
+	 * the same changes as a transformation which uses a single thread.
+	 *
+	 * @param inputDirectory The directory which is to be transformed.
+	 * @param rootOutputFile The root output file.
+	 */
+	protected void transformDirectoryConcurrently(File inputDirectory, File rootOutputFile) {
+		Path rootPath = inputDirectory.toPath();
+		ExecutorService executor = Executors.newFixedThreadPool(getParallelism());
+		try {
+			List<Future<Part>> parts = new ArrayList<>();
+
+			// Symbolic links are followed, as 'File.isDirectory' and
+			// 'File.listFiles' follow them.
+			try {
+				Files.walkFileTree(rootPath, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+					new SimpleFileVisitor<>() {
+						@Override
+						public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+							String pathFromRoot = IO.normalizePath(rootPath.relativize(file));
+							parts.add(executor.submit(() -> transformPart(pathFromRoot, file.toFile(), rootOutputFile)));
+							return FileVisitResult.CONTINUE;
+						}
+
+						@Override
+						public FileVisitResult visitFileFailed(Path file, IOException e) {
+							recordError(null, IO.normalizePath(rootPath.relativize(file)), e);
+							return FileVisitResult.CONTINUE;
+						}
+					});
+			} catch (IOException e) {
+				recordError(null, inputDirectory.getPath(), e);
+			}
+
+			ContainerChangesImpl activeChanges = getActiveChanges();
+			for (Future<Part> part : parts) {
+				try {
+					activeChanges.merge(part.get()
+						.changes());
+				} catch (ExecutionException e) {
+					// Not expected: 'transformFile' handles all failures.
+					recordError(null, inputDirectory.getPath(), e.getCause());
+				} catch (InterruptedException e) {
+					Thread.currentThread()
+						.interrupt();
+					throw new TransformException("Interrupted transforming [ " + inputDirectory.getPath() + " ]",
+						e);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Changes and output path of a file which was transformed on a worker
+	 * thread.
+	 */
+	private record Part(ContainerChangesImpl changes, String outputPathFromRoot) {}
+
+	private Part transformPart(String pathFromRoot, File inputFile, File rootOutputFile) {
+		String outputPathFromRoot;
+		startRecording(pathFromRoot);
+		try {
+			outputPathFromRoot = transformFile(pathFromRoot, inputFile, rootOutputFile);
+		} finally {
+			stopRecording(pathFromRoot);
+		}
+		return new Part(getLastActiveChanges(), outputPathFromRoot);
+	}
+
+	/**
+	 * An input file of an incremental transformation.
+	 */
+	private record Input(String pathFromRoot, File file, long size, long modified) {}
+
+	/**
+	 * Transform a directory incrementally. See
+	 * {@link #DirectoryActionImpl(ActionContext, int, String)}.
+	 * <p>
+	 * An input file is unchanged when its size and last modified time match
+	 * the recorded state, or, when only the last modified time differs, when
+	 * its content hash matches the recorded state. An unchanged input file is
+	 * not transformed, unless its output file is missing. Unchanged files are
+	 * not recorded in the changes of this action.
+	 * <p>
+	 * Input files which fail to transform are not recorded in the new state,
+	 * and are transformed again by the next incremental transformation.
+	 *
+	 * @param inputDirectory The directory which is to be transformed.
+	 * @param rootOutputFile The root output file.
+	 */
+	protected void transformDirectoryIncrementally(File inputDirectory, File rootOutputFile) {
+		String fingerprint = getIncrementalFingerprint();
+		File stateFile = DirectoryState.stateFile(rootOutputFile);
+		DirectoryState previousState = DirectoryState.read(getLogger(), stateFile);
+		boolean reuse = fingerprint.equals(previousState.getFingerprint());
+		if (!reuse && !previousState.entries()
+			.isEmpty()) {
+			getLogger().info("Rules changed since the incremental state [ {} ] was recorded; all inputs are transformed",
+				stateFile);
+		}
+		DirectoryState nextState = new DirectoryState(fingerprint);
+
+		List<Input> inputs = listInputs(inputDirectory.toPath(), inputDirectory.toPath());
+		List<Input> changedInputs = new ArrayList<>();
+		for (Input input : inputs) {
+			DirectoryState.Entry entry = reuse ? previousState.get(input.pathFromRoot()) : null;
+			DirectoryState.Entry unchanged = unchangedEntry(input, entry, rootOutputFile);
+			if (unchanged != null) {
+				nextState.put(input.pathFromRoot(), unchanged);
+			} else {
+				changedInputs.add(input);
+			}
+		}
+
+		transformInputs(inputDirectory, changedInputs, rootOutputFile, nextState);
+		int deleted = deleteStaleOutputs(inputDirectory, rootOutputFile, previousState, nextState);
+
+		getLogger().info("Incremental transform [ {} ]: Unchanged [ {} ] Transformed [ {} ] Deleted [ {} ]",
+			inputDirectory, inputs.size() - changedInputs.size(), changedInputs.size(), deleted);
+
+		writeState(nextState, stateFile);
+	}
+
+	/**
+	 * Update the output of an incremental transformation for input files which
+	 * were added, changed, or removed since the last incremental
+	 * transformation. Only the specified input files are examined: Changed
+	 * input files are transformed, and the output files of removed input files
+	 * are deleted. All input files are transformed when the rules fingerprint
+	 * differs from the fingerprint of the recorded state.
+	 * <p>
+	 * Transformed files are first written to a staging directory next to the
+	 * output directory, then are moved into the output directory. A partially
+	 * written output file is never visible in the output directory.
+	 *
+	 * @param rootInputPath The path to the input root directory.
+	 * @param rootInputFile The input root directory.
+	 * @param rootOutputPath The path to the output root directory.
+	 * @param rootOutputFile The output root directory.
+	 * @param pathsFromRoot The paths from the input root of the input files and
+	 *            directories which were added, changed, or removed.
+	 * @throws TransformException Thrown if this action is not incremental, or
+	 *             if interrupted while transforming concurrently.
+	 */
+	public void update(String rootInputPath, File rootInputFile, String rootOutputPath, File rootOutputFile,
+		Collection<String> pathsFromRoot) throws TransformException {
+		if (!isIncremental()) {
+			throw new TransformException("Directory action is not incremental [ " + rootInputPath + " ]");
+		}
+		startRecording(rootInputPath);
+		try {
+			setResourceNames(rootInputPath, rootOutputPath);
+			updateDirectory(rootInputFile, rootOutputFile, pathsFromRoot);
+		} finally {
+			stopRecording(rootInputPath);
+		}
+	}
+
+	/**
+	 * Update the output of an incremental transformation. See
+	 * {@link #update(String, File, String, File, Collection)}.
+	 *
+	 * @param inputDirectory The directory which is to be transformed.
+	 * @param rootOutputFile The root output file.
+	 * @param pathsFromRoot The paths from the input root of the input files and
+	 *            directories which were added, changed, or removed.
+	 */
+	protected void updateDirectory(File inputDirectory, File rootOutputFile, Collection<String> pathsFromRoot) {
+		File stateFile = DirectoryState.stateFile(rootOutputFile);
+		DirectoryState previousState = DirectoryState.read(getLogger(), stateFile);
+		if (!getIncrementalFingerprint().equals(previousState.getFingerprint())) {
+			transformDirectoryIncrementally(inputDirectory, rootOutputFile);
+			return;
+		}
+
+		DirectoryState nextState = previousState.copy();
+		for (String pathFromRoot : pathsFromRoot) {
+			nextState.remove(pathFromRoot);
+		}
+
+		Path rootPath = inputDirectory.toPath();
+		Map<String, Input> inputs = new LinkedHashMap<>();
+		for (String pathFromRoot : pathsFromRoot) {
+			File inputFile = new File(inputDirectory, pathFromRoot);
+			if (inputFile.exists()) {
+				for (Input input : listInputs(rootPath, inputFile.toPath())) {
+					inputs.putIfAbsent(input.pathFromRoot(), input);
+				}
+			}
+		}
+		List<Input> changedInputs = new ArrayList<>();
+		for (Input input : inputs.values()) {
+			DirectoryState.Entry entry = previousState.get(input.pathFromRoot());
+			DirectoryState.Entry unchanged = unchangedEntry(input, entry, rootOutputFile);
+			if (unchanged != null) {
+				nextState.put(input.pathFromRoot(), unchanged);
+			} else {
+				changedInputs.add(input);
+			}
+		}
+
+		File stagingDirectory = DirectoryState.stagingDirectory(rootOutputFile);
+		IO.delete(stagingDirectory);
+		try {
+			transformInputs(inputDirectory, changedInputs, stagingDirectory, nextState);
+			for (Input input : changedInputs) {
+				DirectoryState.Entry entry = nextState.get(input.pathFromRoot());
+				if (entry == null) {
+					continue; // Failed: The prior output, if any, is kept.
+				}
+				File stagedFile = new File(stagingDirectory, entry.output());
+				File outputFile = new File(rootOutputFile, entry.output());
+				try {
+					moveInto(stagedFile, outputFile);
+				} catch (IOException e) {
+					recordError(null, input.pathFromRoot(), e);
+					nextState.remove(input.pathFromRoot());
+				}
+			}
+		} finally {
+			IO.delete(stagingDirectory);
+		}
+		int deleted = deleteStaleOutputs(inputDirectory, rootOutputFile, previousState, nextState);
+
+		getLogger().info("Incremental update [ {} ]: Unchanged [ {} ] Transformed [ {} ] Deleted [ {} ]",
+			inputDirectory, inputs.size() - changedInputs.size(), changedInputs.size(), deleted);
+
+		writeState(nextState, stateFile);
+	}
+
+	private static void moveInto(File stagedFile, File outputFile) throws IOException {
+		IO.mkdirs(outputFile.getParentFile());
+		try {
+			Files.move(stagedFile.toPath(), outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(stagedFile.toPath(), outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * List the input files at or beneath a path.
+	 *
+	 * @param rootPath The path of the input root directory.
+	 * @param path The path of an input file or directory beneath the input
+	 *            root directory.
+	 * @return The input files at or beneath the path.
+	 */
+	private List<Input> listInputs(Path rootPath, Path path) {
+		List<Input> inputs = new ArrayList<>();
+		// Symbolic links are followed, as 'File.isDirectory' and
+		// 'File.listFiles' follow them.
+		try {
+			Files.walkFileTree(path, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+				new SimpleFileVisitor<>() {
+					@Override
+					public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+						inputs.add(new Input(IO.normalizePath(rootPath.relativize(file)), file.toFile(), attrs.size(),
+							attrs.lastModifiedTime()
+								.toMillis()));
+						return FileVisitResult.CONTINUE;
+					}
+
+					@Override
+					public FileVisitResult visitFileFailed(Path file, IOException e) {
+						recordError(null, IO.normalizePath(rootPath.relativize(file)), e);
+						return FileVisitResult.CONTINUE;
+					}
+				});
+		} catch (IOException e) {
+			recordError(null, path.toString(), e);
+		}
+		return inputs;
+	}
+
+	/**
+	 * Transform input files, and record their state.
+	 *
+	 * @param inputDirectory The directory which is being transformed.
+	 * @param inputs The input files which are to be transformed.
+	 * @param rootOutputFile The directory which receives the output files.
+	 * @param state The state which records the transformed input files.
+	 */
+	private void transformInputs(File inputDirectory, List<Input> inputs, File rootOutputFile,
+		DirectoryState state) {
+		if ((getParallelism() == 1) || (inputs.size() < 2)) {
+			for (Input input : inputs) {
+				recordState(state, input, transformFile(input.pathFromRoot(), input.file(), rootOutputFile));
+			}
+			return;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(getParallelism());
+		try {
+			List<Future<Part>> parts = new ArrayList<>(inputs.size());
+			for (Input input : inputs) {
+				parts.add(executor.submit(() -> transformPart(input.pathFromRoot(), input.file(), rootOutputFile)));
+			}
+			ContainerChangesImpl activeChanges = getActiveChanges();
+			for (int index = 0; index < parts.size(); index++) {
+				Input input = inputs.get(index);
+				try {
+					Part part = parts.get(index)
+						.get();
+					activeChanges.merge(part.changes());
+					recordState(state, input, part.outputPathFromRoot());
+				} catch (ExecutionException e) {
+					// Not expected: 'transformFile' handles all failures.
+					recordError(null, input.pathFromRoot(), e.getCause());
+				} catch (InterruptedException e) {
+					Thread.currentThread()
+						.interrupt();
+					throw new TransformException("Interrupted transforming [ " + inputDirectory.getPath() + " ]", e);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Delete the output files which are no longer produced: Those of removed
+	 * input files, and those of input files which are now transformed to a
+	 * different output file. The output files of input files which failed to
+	 * transform are kept.
+	 *
+	 * @return The number of deleted output files.
+	 */
+	private int deleteStaleOutputs(File inputDirectory, File rootOutputFile, DirectoryState previousState,
+		DirectoryState nextState) {
+		Set<String> outputs = nextState.outputs();
+		int deleted = 0;
+		for (Map.Entry<String, DirectoryState.Entry> previous : previousState.entries()
+			.entrySet()) {
+			String output = previous.getValue()
+				.output();
+			if (outputs.contains(output)) {
+				continue;
+			}
+			if ((nextState.get(previous.getKey()) == null) && new File(inputDirectory, previous.getKey()).exists()) {
+				continue; // Failed to transform
+			}
+			File outputFile = new File(rootOutputFile, output);
+			if (outputFile.isFile()) {
+				if (outputFile.delete()) {
+					getLogger().debug("Deleted stale output [ {} ]", outputFile);
+					deleted++;
+				} else {
+					getLogger().error("Failed to delete stale output [ {} ]", outputFile);
+				}
+			}
+		}
+		return deleted;
+	}
+
+	private void writeState(DirectoryState state, File stateFile) {
+		try {
+			state.write(stateFile);
+		} catch (IOException e) {
+			getLogger().error("Failed to write incremental state [ {} ]", stateFile, e);
+		}
+	}
+
+	/**
+	 * Answer the state entry to record for an input which is unchanged since
+	 * the previous state was recorded.
+	 * <p>
+	 * An input which was touched, but which has the same content, is unchanged.
+	 * Its entry is recorded with the new modification time, so that the input
+	 * is not hashed again by the next transform.
+	 *
+	 * @param input The input.
+	 * @param entry The previous entry of the input. Null if there is none.
+	 * @param rootOutputFile The root output directory.
+	 * @return The entry to record. Null if the input changed.
+	 */
+	private static DirectoryState.Entry unchangedEntry(Input input, DirectoryState.Entry entry, File rootOutputFile) {
+		if ((entry == null) || (entry.size() != input.size())) {
+			return null;
+		}
+		if (!new File(rootOutputFile, entry.output()).isFile()) {
+			return null;
+		}
+		if (entry.modified() == input.modified()) {
+			return entry;
+		}
+		try {
+			if (!DirectoryState.hash(input.file())
+				.equals(entry.hash())) {
+				return null;
+			}
+		} catch (IOException e) {
+			return null;
+		}
+		return new DirectoryState.Entry(input.size(), input.modified(), entry.hash(), entry.output());
+	}
+
+	private void recordState(DirectoryState state, Input input, String outputPathFromRoot) {
+		if (outputPathFromRoot == null) {
+			return; // Failed: Transform again next time.
+		}
+		try {
+			state.put(input.pathFromRoot(), new DirectoryState.Entry(input.size(), input.modified(),
+				DirectoryState.hash(input.file()), outputPathFromRoot));
+		} catch (IOException e) {
+			getLogger().error("Failed to hash [ {} ]", input.file(), e);
+		}
+	}
+
 	// TODO: Add duplicate checking when --overwrite is not enabled.
 	//
 	// See issue #306.
@@ -141,19 +640,31 @@ public class DirectoryActionImpl extends ContainerActionImpl {
 	 *            includes the name of the file.
 	 * @param inputFile The file which is to be transformed.
 	 * @param rootOutputFile The root output file.
+	 * @return The path from the root of the output file. Null if the file
+	 *         failed to transform.
 	 */
-	protected void transformFile(String pathFromRoot, File inputFile, File rootOutputFile) {
-		Action action = selectAction(pathFromRoot, inputFile);
+	protected String transformFile(String pathFromRoot, File inputFile, File rootOutputFile) {
+		getActiveChanges().startEntry(pathFromRoot, inputFile.length());
+		try {
+			return transformFile(pathFromRoot, inputFile, rootOutputFile, selectAction(pathFromRoot, inputFile));
+		} finally {
+			getActiveChanges().endEntry(pathFromRoot, inputFile.length());
+		}
+	}
+
+	private String transformFile(String pathFromRoot, File inputFile, File rootOutputFile, Action action) {
 		try {
 			if (action == null) {
 				copyInto(pathFromRoot, inputFile, rootOutputFile);
 				recordUnaccepted(pathFromRoot);
+				return pathFromRoot;
 			} else if (!selectResource(pathFromRoot)) {
 				// Unselected resources are *not* renamed.
 				// The expectation is that files which are deliberately
 				// omitted should not be transformed in any way.
 				copyInto(pathFromRoot, inputFile, rootOutputFile);
 				recordUnselected(pathFromRoot);
+				return pathFromRoot;
 
 			} else if (action.isRenameAction()) {
 				RenameAction renameAction = (RenameAction) action;
@@ -161,6 +672,7 @@ public class DirectoryActionImpl extends ContainerActionImpl {
 				outputPathFromRoot = FileUtils.sanitize(outputPathFromRoot);
 				copyInto(pathFromRoot, inputFile, rootOutputFile, outputPathFromRoot);
 				recordAction(action, pathFromRoot);
+				return outputPathFromRoot;
 
 			} else if (action.isArchiveAction()) {
 				ZipActionImpl zipAction = (ZipActionImpl) action;
@@ -171,6 +683,7 @@ public class DirectoryActionImpl extends ContainerActionImpl {
 
 				zipAction.apply(pathFromRoot, inputFile, outputPathFromRoot, outputFile);
 				recordAction(zipAction, pathFromRoot);
+				return outputPathFromRoot;
 
 			} else if (!action.isElementAction()) {
 				getLogger().warn("Strange: Unknown action type [ {} ] for [ {} ]", action.getClass()
@@ -178,37 +691,51 @@ public class DirectoryActionImpl extends ContainerActionImpl {
 
 				copyInto(pathFromRoot, inputFile, rootOutputFile);
 				recordUnaccepted(pathFromRoot);
+				return pathFromRoot;
 
 			} else {
 				ElementAction elementAction = (ElementAction) action;
-				transformFile(elementAction, pathFromRoot, inputFile, rootOutputFile);
+				String outputPathFromRoot = transformFile(elementAction, pathFromRoot, inputFile, rootOutputFile);
 				recordAction(elementAction, pathFromRoot);
+				return outputPathFromRoot;
 			}
 
 		} catch (Throwable th) {
 			recordError(action, pathFromRoot, th);
+			return null;
 		}
 	}
 
-	private void transformFile(ElementAction elementAction, String inputName, File inputFile, File outputRoot)
+	private String transformFile(ElementAction elementAction, String inputName, File inputFile, File outputRoot)
 		throws TransformException {
 		ByteData inputData = collect(inputName, inputFile);
 
 		ByteData outputData;
 		TransformException transformError;
+		boolean contentChanged;
 		try {
 			outputData = elementAction.apply(inputData);
 			transformError = null;
+			contentChanged = elementAction.getLastActiveChanges()
+				.setOutputBytes(outputData.length())
+				.isContentChanged();
 		} catch (TransformException t) {
 			outputData = inputData; // Fallback: copy.
 			transformError = t;
+			contentChanged = false;
 		}
 
-		File outputFile = new File(outputRoot, outputData.name());
-		write(outputData, outputFile);
+		if (contentChanged) {
+			File outputFile = new File(outputRoot, outputData.name());
+			write(outputData, outputFile);
+		} else {
+			// Copy the file: The content is not copied through the heap.
+			copyInto(inputName, inputFile, outputRoot, outputData.name());
+		}
 
 		if (transformError != null) {
 			throw transformError;
 		}
+		return outputData.name();
 	}
 }
@@ -0,0 +1,225 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.action.impl;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import aQute.lib.io.IO;
+import org.eclipse.transformer.util.FileUtils;
+import org.eclipse.transformer.util.Json;
+import org.slf4j.Logger;
+
+/**
+ * State of an incremental directory transformation.
+ * <p>
+ * The state records, for each input file of the directory, the size, the last
+ * modified time, and a content hash of the input file, and the path of the
+ * output file which was produced from the input file. The state also records a
+ * fingerprint of the rules which were used. A state is only reused when the
+ * fingerprint matches the fingerprint of the current rules.
+ * <p>
+ * The state is stored as JSON in a file next to the output directory.
+ */
+class DirectoryState {
+	/** Suffix of the state file name. Appended to the output file name. */
+	static final String	STATE_FILE_SUFFIX			= ".transformer-state";
+
+	/** Suffix of the staging directory name. Appended to the output file name. */
+	static final String	STAGING_DIRECTORY_SUFFIX	= ".transformer-staging";
+
+	/** State file format version. States of other versions are not reused. */
+	static final int	FORMAT						= 1;
+
+	/**
+	 * State of one input file.
+	 *
+	 * @param size The size of the input file.
+	 * @param modified The last modified time of the input file, in
+	 *            milliseconds.
+	 * @param hash The content hash of the input file.
+	 * @param output The path of the output file from the output root.
+	 */
+	record Entry(long size, long modified, String hash, String output) {}
+
+	static File stateFile(File rootOutputFile) {
+		return sibling(rootOutputFile, STATE_FILE_SUFFIX);
+	}
+
+	static File stagingDirectory(File rootOutputFile) {
+		return sibling(rootOutputFile, STAGING_DIRECTORY_SUFFIX);
+	}
+
+	private static File sibling(File rootOutputFile, String suffix) {
+		File outputFile = rootOutputFile.getAbsoluteFile();
+		return new File(outputFile.getParentFile(), outputFile.getName() + suffix);
+	}
+
+	private final String					fingerprint;
+	private final TreeMap<String, Entry>	entries;
+
+	DirectoryState(String fingerprint) {
+		this.fingerprint = requireNonNull(fingerprint);
+		this.entries = new TreeMap<>();
+	}
+
+	String getFingerprint() {
+		return fingerprint;
+	}
+
+	Entry get(String pathFromRoot) {
+		return entries.get(pathFromRoot);
+	}
+
+	void put(String pathFromRoot, Entry entry) {
+		entries.put(pathFromRoot, entry);
+	}
+
+	/**
+	 * Remove the state of an input file, or of all input files of an input
+	 * directory.
+	 *
+	 * @param pathFromRoot The path of the input file or directory.
+	 */
+	void remove(String pathFromRoot) {
+		entries.remove(pathFromRoot);
+		String prefix = pathFromRoot + '/';
+		entries.subMap(prefix, prefix + Character.MAX_VALUE)
+			.clear();
+	}
+
+	Map<String, Entry> entries() {
+		return Collections.unmodifiableMap(entries);
+	}
+
+	DirectoryState copy() {
+		DirectoryState copy = new DirectoryState(fingerprint);
+		copy.entries.putAll(entries);
+		return copy;
+	}
+
+	Set<String> outputs() {
+		Set<String> outputs = new HashSet<>(entries.size());
+		for (Entry entry : entries.values()) {
+			outputs.add(entry.output());
+		}
+		return outputs;
+	}
+
+	/**
+	 * Read a state file. A missing or unreadable state file answers an empty
+	 * state which has no fingerprint.
+	 *
+	 * @param logger Logger used to report an unreadable state file.
+	 * @param stateFile The state file.
+	 * @return The state read from the state file.
+	 */
+	static DirectoryState read(Logger logger, File stateFile) {
+		if (!stateFile.isFile()) {
+			return new DirectoryState("");
+		}
+		try {
+			Map<String, Object> json = Json.parseObject(IO.collect(stateFile));
+			if (!Long.valueOf(FORMAT)
+				.equals(json.get("format"))) {
+				logger.info("Incremental state [ {} ] has format [ {} ]; expected format [ {} ]", stateFile,
+					json.get("format"), FORMAT);
+				return new DirectoryState("");
+			}
+			DirectoryState state = new DirectoryState((String) json.get("rules"));
+			@SuppressWarnings("unchecked")
+			Map<String, Map<String, Object>> inputs = (Map<String, Map<String, Object>>) json.get("inputs");
+			for (Map.Entry<String, Map<String, Object>> input : inputs.entrySet()) {
+				Map<String, Object> value = input.getValue();
+				state.put(input.getKey(), new Entry(((Number) value.get("size")).longValue(),
+					((Number) value.get("modified")).longValue(), (String) value.get("hash"),
+					(String) value.get("output")));
+			}
+			return state;
+		} catch (IOException | RuntimeException e) {
+			logger.error("Incremental state [ {} ] cannot be read; all inputs are transformed", stateFile, e);
+			return new DirectoryState("");
+		}
+	}
+
+	/**
+	 * Write this state. The state is written to a temporary file which then
+	 * replaces the state file, so that an interrupted write does not leave a
+	 * partial state file.
+	 *
+	 * @param stateFile The state file.
+	 * @throws IOException Thrown if the state file cannot be written.
+	 */
+	void write(File stateFile) throws IOException {
+		Map<String, Object> inputs = new LinkedHashMap<>(entries.size() * 4 / 3 + 1);
+		for (Map.Entry<String, Entry> input : entries.entrySet()) {
+			Entry entry = input.getValue();
+			Map<String, Object> value = new LinkedHashMap<>();
+			value.put("size", entry.size());
+			value.put("modified", entry.modified());
+			value.put("hash", entry.hash());
+			value.put("output", entry.output());
+			inputs.put(input.getKey(), value);
+		}
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put("format", FORMAT);
+		json.put("rules", fingerprint);
+		json.put("inputs", inputs);
+
+		IO.mkdirs(stateFile.getParentFile());
+		File tempFile = new File(stateFile.getParentFile(), stateFile.getName() + ".tmp");
+		try (Writer writer = IO.writer(tempFile)) {
+			Json.write(writer, json);
+		}
+		Files.move(tempFile.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+			StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Compute the content hash of a file.
+	 *
+	 * @param file The file which is to be hashed.
+	 * @return The SHA-256 hash of the content of the file, as hexadecimal.
+	 * @throws IOException Thrown if the file cannot be read.
+	 */
+	static String hash(File file) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e); // SHA-256 is always available
+		}
+		byte[] buffer = new byte[FileUtils.BUFFER_ADJUSTMENT];
+		try (InputStream inputStream = IO.stream(file)) {
+			for (int count; (count = inputStream.read(buffer)) != -1;) {
+				digest.update(buffer, 0, count);
+			}
+		}
+		return HexFormat.of()
+			.formatHex(digest.digest());
+	}
+}
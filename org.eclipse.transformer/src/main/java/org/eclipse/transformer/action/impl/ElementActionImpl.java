@@ -71,6 +71,7 @@ public abstract class ElementActionImpl extends ActionImpl implements ElementAct
 		TransformException transformError;
 		try {
 			outputData = apply(inputData);
+			getLastActiveChanges().setOutputBytes(outputData.length());
 			transformError = null;
 		} catch (TransformException t) {
 			outputData = inputData; // Fallback: copy.
@@ -103,6 +104,7 @@ public abstract class ElementActionImpl extends ActionImpl implements ElementAct
 		TransformException transformError;
 		try {
 			outputData = apply(inputData);
+			getLastActiveChanges().setOutputBytes(outputData.length());
 			transformError = null;
 		} catch (TransformException t) {
 			outputData = inputData; // Fallback: copy.
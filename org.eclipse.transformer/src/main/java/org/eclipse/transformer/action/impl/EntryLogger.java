@@ -0,0 +1,61 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.action.impl;
+
+import org.eclipse.transformer.action.ActionType;
+import org.eclipse.transformer.action.EntryListener;
+import org.slf4j.Logger;
+
+/**
+ * Entry listener which logs the outcomes of entries at debug level.
+ * <p>
+ * Container actions subscribe this listener only when debug logging is
+ * enabled. Failed and duplicate entries are logged as errors by the container
+ * actions, and are not logged by this listener.
+ */
+final class EntryLogger implements EntryListener {
+	private final Logger logger;
+
+	EntryLogger(Logger logger) {
+		this.logger = logger;
+	}
+
+	@Override
+	public void unselected(String containerName, String resourceName) {
+		logger.debug("Resource [ {} ]: Not selected", resourceName);
+	}
+
+	@Override
+	public void unaccepted(String containerName, String resourceName) {
+		logger.debug("Resource [ {} ]: Not accepted", resourceName);
+	}
+
+	@Override
+	public void unchanged(String containerName, ActionType actionType, String resourceName) {
+		logger.debug("Resource [ {} ]: Action [ {} ]: Not changed", resourceName, actionType);
+	}
+
+	@Override
+	public void renamed(String containerName, ActionType actionType, String resourceName) {
+		logger.debug("Resource [ {} ]: Action [ {} ]: Renamed", resourceName, actionType);
+	}
+
+	@Override
+	public void contentChanged(String containerName, ActionType actionType, String resourceName) {
+		logger.debug("Resource [ {} ]: Action [ {} ]: Content changed", resourceName, actionType);
+	}
+
+	@Override
+	public String toString() {
+		return "EntryLogger [ " + logger.getName() + " ]";
+	}
+}
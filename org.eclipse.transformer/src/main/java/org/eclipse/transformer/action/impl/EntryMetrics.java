@@ -0,0 +1,105 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.action.impl;
+
+import java.util.Locale;
+
+import org.eclipse.transformer.action.ActionType;
+import org.eclipse.transformer.metrics.Metrics;
+import org.eclipse.transformer.metrics.Metrics.Counter;
+import org.eclipse.transformer.metrics.Metrics.Histogram;
+
+/**
+ * Metrics of the entries of containers, by action type.
+ * <p>
+ * The counters and histograms of an action type are obtained when the first
+ * entry of the type is recorded, and are kept, so that recording an entry
+ * does not look up metrics.
+ */
+final class EntryMetrics {
+	static final String	ENTRIES			= "transformer_entries_total";
+	static final String	INPUT_BYTES		= "transformer_entry_input_bytes_total";
+	static final String	OUTPUT_BYTES	= "transformer_entry_output_bytes_total";
+	static final String	DURATION		= "transformer_entry_duration_seconds";
+
+	/**
+	 * Outcomes of entries.
+	 */
+	enum Outcome {
+		UNSELECTED,
+		UNACCEPTED,
+		UNCHANGED,
+		CHANGED,
+		FAILED,
+		DUPLICATE,
+		DEDUPLICATED;
+
+		final String label = name().toLowerCase(Locale.ROOT);
+	}
+
+	private static final class TypeMetrics {
+		final Counter[]	entries;
+		final Counter	inputBytes;
+		final Counter	outputBytes;
+		final Histogram	duration;
+
+		TypeMetrics(Metrics metrics, String type) {
+			Outcome[] outcomes = Outcome.values();
+			entries = new Counter[outcomes.length];
+			for (Outcome outcome : outcomes) {
+				entries[outcome.ordinal()] = metrics.counter(ENTRIES, "Entries of containers, by outcome", "type",
+					type, "outcome", outcome.label);
+			}
+			inputBytes = metrics.counter(INPUT_BYTES, "Bytes read from entries of containers", "type", type);
+			outputBytes = metrics.counter(OUTPUT_BYTES, "Bytes written for entries of containers", "type", type);
+			duration = metrics.histogram(DURATION, "Time to process entries of containers", "type", type);
+		}
+	}
+
+	private final Metrics			metrics;
+	/** Metrics by action type ordinal. The last are of entries which have no type. */
+	private final TypeMetrics[]		byType;
+
+	EntryMetrics(Metrics metrics) {
+		this.metrics = metrics;
+		this.byType = new TypeMetrics[ActionType.values().length + 1];
+	}
+
+	private TypeMetrics typeMetrics(ActionType actionType) {
+		int typeNo = (actionType == null) ? (byType.length - 1) : actionType.ordinal();
+		TypeMetrics typeMetrics = byType[typeNo];
+		if (typeMetrics == null) {
+			// Racing threads obtain the same counters and histograms.
+			typeMetrics = new TypeMetrics(metrics, (actionType == null) ? "NONE" : actionType.name());
+			byType[typeNo] = typeMetrics;
+		}
+		return typeMetrics;
+	}
+
+	/**
+	 * Record an entry.
+	 *
+	 * @param actionType The type of the action of the entry. Null if the entry
+	 *            was not accepted by an action.
+	 * @param outcome The outcome of the entry.
+	 * @param elapsedNanos The wall time of the entry.
+	 * @param inputBytes The input bytes of the entry.
+	 * @param outputBytes The output bytes of the entry.
+	 */
+	void record(ActionType actionType, Outcome outcome, long elapsedNanos, long inputBytes, long outputBytes) {
+		TypeMetrics typeMetrics = typeMetrics(actionType);
+		typeMetrics.entries[outcome.ordinal()].increment();
+		typeMetrics.inputBytes.add(inputBytes);
+		typeMetrics.outputBytes.add(outputBytes);
+		typeMetrics.duration.observe(elapsedNanos / 1_000_000_000.0);
+	}
+}
@@ -17,24 +17,24 @@ import static org.eclipse.transformer.util.SignatureUtils.stripWildcard;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.PrintWriter;
-import java.nio.charset.Charset;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.jar.Attributes;
-import java.util.jar.Manifest;
 
-import aQute.bnd.header.Attrs;
-import aQute.bnd.header.OSGiHeader;
-import aQute.bnd.header.Parameters;
 import aQute.bnd.unmodifiable.Sets;
-import aQute.lib.io.ByteBufferOutputStream;
-import aQute.lib.manifest.ManifestUtil;
 import org.eclipse.transformer.TransformException;
 import org.eclipse.transformer.action.ActionContext;
 import org.eclipse.transformer.action.ActionType;
 import org.eclipse.transformer.action.BundleData;
 import org.eclipse.transformer.action.ByteData;
+import org.eclipse.transformer.util.FileUtils;
+import org.eclipse.transformer.util.PooledOutputStream;
 
 /**
  * Action for manifest, including feature manifest.
@@ -46,6 +46,9 @@ import org.eclipse.transformer.action.ByteData;
  * differences: First, feature manifest generally will have the extension ".mf"
  * but will not have the name "MANIFEST". Second, feature manifest do not have
  * the line length restrictions as are had by manifest.
+ * <p>
+ * Updates are made directly to the manifest bytes: Only updated headers are
+ * rewritten. All other headers and sections are copied unchanged.
  */
 public class ManifestActionImpl extends ElementActionImpl {
 
@@ -82,31 +85,12 @@ public class ManifestActionImpl extends ElementActionImpl {
 
 			setResourceNames(inputData.name(), inputData.name());
 
-			Manifest initialManifest;
-			try {
-				initialManifest = new Manifest(inputData.stream());
-			} catch (IOException e) {
-				throw new TransformException("Failed to parse manifest [ " + inputData.name() + " ]", e);
-			}
-
-			Manifest finalManifest = new Manifest();
-
-			transform(inputData.name(), initialManifest, finalManifest);
-
-			if (!isChanged()) {
+			ByteData outputData = edit(inputData);
+			if (outputData == null) {
 				getLogger().debug("[ {}.{} ]: [ {} ] Null transform", className, methodName, inputData.name());
 				return inputData;
 			}
 
-			Charset charset = inputData.charset();
-			ByteBufferOutputStream outputStream = new ByteBufferOutputStream(inputData.length());
-			try {
-				write(finalManifest, outputStream);
-			} catch (IOException e) {
-				throw new TransformException("Failed to write manifest [ " + inputData.name() + " ]", e);
-			}
-
-			ByteData outputData = new ByteDataImpl(inputData.name(), outputStream.toByteBuffer(), charset);
 			getLogger().debug("[ {}.{} ]: Final [ {} ]", className, methodName, outputData);
 			return outputData;
 		} finally {
@@ -114,155 +98,292 @@ public class ManifestActionImpl extends ElementActionImpl {
 		}
 	}
 
-	protected void transform(String inputName, Manifest initialManifest, Manifest finalManifest) {
-		Attributes initialMainAttributes = initialManifest.getMainAttributes();
-		Attributes finalMainAttributes = finalManifest.getMainAttributes();
+	/**
+	 * A manifest header located in the manifest bytes.
+	 *
+	 * @param start Offset of the first byte of the header name.
+	 * @param valueStart Offset of the first byte of the header value.
+	 * @param end Offset just past the line separator of the last line of the
+	 *            header, including continuation lines.
+	 * @param name The header name.
+	 */
+	private record Header(int start, int valueStart, int end, String name) {}
 
-		addReplacements(transformPackages(inputName, "main", initialMainAttributes, finalMainAttributes));
+	/**
+	 * Edit the manifest bytes in place. Headers are located without parsing
+	 * the manifest into {@link java.util.jar.Manifest}: Only the headers which are selected
+	 * for package updates, and the bundle identity headers of the main
+	 * section, are unfolded and decoded. All other bytes, including line
+	 * separators and per-entry sections, are copied unchanged.
+	 *
+	 * @param inputData The manifest bytes.
+	 * @return The updated manifest bytes. Null if no updates were made.
+	 * @throws TransformException Thrown if the manifest is malformed, or if
+	 *             the updated manifest could not be written.
+	 */
+	protected ByteData edit(ByteData inputData) throws TransformException {
+		String inputName = inputData.name();
+		ByteBuffer bytes = inputData.buffer();
+
+		List<Header> selected = new ArrayList<>();
+		List<Header> identity = new ArrayList<>();
+		locateHeaders(inputName, bytes, selected, identity);
 
-		if (transformBundleIdentity(inputName, initialMainAttributes, finalMainAttributes)) {
-			addReplacement();
+		if (selected.isEmpty() && identity.isEmpty()) {
+			return null;
 		}
 
-		Map<String, Attributes> initialEntries = initialManifest.getEntries();
-		Map<String, Attributes> finalEntries = finalManifest.getEntries();
+		Map<Header, String> updates = new HashMap<>();
 
-		for (Map.Entry<String, Attributes> entry : initialEntries.entrySet()) {
-			String entryKey = entry.getKey();
-			Attributes initialEntryAttributes = entry.getValue();
+		for (Header header : selected) {
+			String finalValue = replacePackages(header.name(), unfold(bytes, header));
+			if (finalValue != null) {
+				updates.put(header, finalValue);
+				addReplacement();
+			}
+		}
 
-			Attributes finalAttributes = new Attributes(initialEntryAttributes.size());
-			finalEntries.put(entryKey, finalAttributes);
+		if (!identity.isEmpty()) {
+			Attributes initialIdentity = new Attributes(identity.size());
+			for (Header header : identity) {
+				initialIdentity.putValue(header.name(), unfold(bytes, header));
+			}
+			Attributes finalIdentity = new Attributes(identity.size());
+			if (transformBundleIdentity(inputName, initialIdentity, finalIdentity)) {
+				addReplacement();
+				for (Header header : identity) {
+					String finalValue = finalIdentity.getValue(header.name());
+					if ((finalValue != null) && !finalValue.equals(initialIdentity.getValue(header.name()))) {
+						updates.put(header, finalValue);
+					}
+				}
+			}
+		}
 
-			addReplacements(transformPackages(inputName, entryKey, initialEntryAttributes, finalAttributes));
+		if (!isChanged()) {
+			return null;
 		}
-	}
 
-	private static final Set<String> SELECT_ATTRIBUTES = Sets.of("DynamicImport-Package", "Import-Package",
-		"Export-Package", "Subsystem-Content", "IBM-API-Package", "Provide-Capability", "Require-Capability");
+		List<Header> updated = new ArrayList<>(updates.keySet());
+		updated.sort(Comparator.comparingInt(Header::start));
 
-	public static Set<String> getSelectedAttributes() {
-		return SELECT_ATTRIBUTES;
-	}
+		PooledOutputStream outputStream = new PooledOutputStream(inputData.length() + FileUtils.PAGE_SIZE);
+		int copied = bytes.position();
+		for (Header header : updated) {
+			outputStream.write(slice(bytes, copied, header.start()));
+			writeHeader(outputStream, bytes, header, updates.get(header));
+			copied = header.end();
+		}
+		outputStream.write(slice(bytes, copied, bytes.limit()));
 
-	public static boolean selectAttribute(String name) {
-		return SELECT_ATTRIBUTES.contains(name);
+		return new ByteDataImpl(inputName, outputStream.toByteBuffer(), inputData.charset());
 	}
 
-	protected int transformPackages(String inputName, String entryName, Attributes initialAttributes,
-		Attributes finalAttributes) {
-
-		getLogger().trace("Transforming [ {} ]: [ {} ] Attributes [ {} ]", inputName, entryName,
-			initialAttributes.size());
-
-		int replacements = 0;
-
-		for (Map.Entry<Object, Object> entries : initialAttributes.entrySet()) {
-			Object untypedName = entries.getKey();
-			String typedName = untypedName.toString();
-
-			String initialValue = (String) entries.getValue();
-			String finalValue = null;
-
-			if (selectAttribute(typedName)) {
-				finalValue = replacePackages(typedName, initialValue);
+	/**
+	 * Locate the headers which are candidates for update. Selected package
+	 * headers are located in all sections. Bundle identity headers are only
+	 * located in the main section.
+	 */
+	private void locateHeaders(String inputName, ByteBuffer bytes, List<Header> selected, List<Header> identity) {
+		int limit = bytes.limit();
+		boolean mainSection = true;
+
+		int headerStart = -1;
+		int headerNameEnd = -1;
+		int headerEnd = -1;
+
+		for (int lineStart = bytes.position(); lineStart < limit;) {
+			int lineEnd = lineStart;
+			while ((lineEnd < limit) && !isLineSeparator(bytes.get(lineEnd))) {
+				lineEnd++;
 			}
+			int nextLine = skipLineSeparator(bytes, lineEnd);
 
-			if (finalValue == null) {
-				finalValue = initialValue;
+			if ((lineEnd > lineStart) && (bytes.get(lineStart) == ' ')) {
+				if (headerStart == -1) {
+					throw new TransformException(
+						"Failed to parse manifest [ " + inputName + " ]: Continuation line at [ " + lineStart + " ]");
+				}
+				headerEnd = nextLine;
 			} else {
-				replacements++;
+				if (headerStart != -1) {
+					addHeader(bytes, headerStart, headerNameEnd, headerEnd, mainSection, selected, identity);
+					headerStart = -1;
+				}
+				if (lineEnd == lineStart) {
+					mainSection = false; // A blank line ends the section.
+				} else {
+					headerNameEnd = lineStart;
+					while ((headerNameEnd < lineEnd) && (bytes.get(headerNameEnd) != ':')) {
+						headerNameEnd++;
+					}
+					if (headerNameEnd == lineEnd) {
+						throw new TransformException(
+							"Failed to parse manifest [ " + inputName + " ]: Missing ':' at [ " + lineStart + " ]");
+					}
+					headerStart = lineStart;
+					headerEnd = nextLine;
+				}
 			}
 
-			finalAttributes.put(untypedName, finalValue);
+			lineStart = nextLine;
 		}
 
-		getLogger().trace("Transformed [ {} ]: [ {} ] Attributes [ {} ] Replacements [ {} ]", inputName, entryName,
-			finalAttributes.size(), replacements);
-
-		return replacements;
-	}
-
-	protected void write(Manifest manifest, OutputStream outputStream) throws IOException {
-		if (isManifest()) {
-			writeAsManifest(manifest, outputStream);
-		} else {
-			writeAsFeature(manifest, outputStream);
+		if (headerStart != -1) {
+			addHeader(bytes, headerStart, headerNameEnd, headerEnd, mainSection, selected, identity);
 		}
 	}
 
-	protected void writeAsManifest(Manifest manifest, OutputStream outputStream) throws IOException {
-		// manifest.write(outputStream);
-		ManifestUtil.write(manifest, outputStream);
-	}
+	private void addHeader(ByteBuffer bytes, int start, int nameEnd, int end, boolean mainSection,
+		List<Header> selected, List<Header> identity) {
+		int nameLength = nameEnd - start;
+		byte[] nameBytes = new byte[nameLength];
+		bytes.get(start, nameBytes);
+		String name = new String(nameBytes, StandardCharsets.UTF_8);
 
-	// Copied and updated from:
-	// https://github.com/OpenLiberty/open-liberty/blob/integration/
-	// dev/wlp-featureTasks/src/com/ibm/ws/wlp/feature/tasks/FeatureBuilder.java
+		int valueStart = nameEnd + 1;
+		if ((valueStart < end) && (bytes.get(valueStart) == ' ')) {
+			valueStart++;
+		}
 
-	@SuppressWarnings("unused")
-	protected void writeAsFeature(Manifest manifest, OutputStream outputStream) throws IOException {
-		PrintWriter writer = new PrintWriter(outputStream);
+		if (selectAttribute(name)) {
+			selected.add(new Header(start, valueStart, end, name));
+		} else if (mainSection && IDENTITY_ATTRIBUTES.contains(name)) {
+			identity.add(new Header(start, valueStart, end, name));
+		}
+	}
 
-		StringBuilder builder = new StringBuilder();
+	private static boolean isLineSeparator(byte b) {
+		return (b == '\n') || (b == '\r');
+	}
 
-		for (Map.Entry<Object, Object> mainEntry : manifest.getMainAttributes().entrySet()) {
-			writer.append(mainEntry.getKey().toString());
-			writer.append(": ");
+	private static int skipLineSeparator(ByteBuffer bytes, int offset) {
+		int limit = bytes.limit();
+		if (offset < limit) {
+			if ((bytes.get(offset++) == '\r') && (offset < limit) && (bytes.get(offset) == '\n')) {
+				offset++;
+			}
+		}
+		return offset;
+	}
 
-			String value = (String) mainEntry.getValue();
-			if (value.indexOf(',') == -1) {
-				writer.append(value);
+	private static ByteBuffer slice(ByteBuffer bytes, int start, int end) {
+		return bytes.duplicate()
+			.limit(end)
+			.position(start);
+	}
 
+	/**
+	 * Answer the value of a header, with continuation lines joined. Bytes are
+	 * joined before decoding, since a multi-byte character may be split
+	 * across lines.
+	 */
+	private static String unfold(ByteBuffer bytes, Header header) {
+		byte[] value = new byte[header.end() - header.valueStart()];
+		int length = 0;
+		for (int offset = header.valueStart(); offset < header.end();) {
+			byte b = bytes.get(offset);
+			if (isLineSeparator(b)) {
+				offset = skipLineSeparator(bytes, offset) + 1; // Skip the continuation space.
 			} else {
-				Parameters parms = OSGiHeader.parseHeader(value);
-
-				boolean continuedLine = false;
-				for (Map.Entry<String, Attrs> parmEntry : parms.entrySet()) {
-					if (continuedLine) {
-						writer.append(",\r ");
-					}
-
-					// bnd might have added ~ characters if there are duplicates
-					// in
-					// the source, so we should remove them before we output it
-					// so we
-					// get back to the original intended content.
+				value[length++] = b;
+				offset++;
+			}
+		}
+		return new String(value, 0, length, StandardCharsets.UTF_8);
+	}
 
-					String parmName = parmEntry.getKey();
-					int index = parmName.indexOf('~');
-					if (index != -1) {
-						parmName = parmName.substring(0, index);
-					}
-					writer.append(parmName);
+	/**
+	 * Write an updated header. The line separator of the header is reused.
+	 * Manifest headers are folded at 72 bytes. Feature manifest headers have
+	 * no line length restriction and are folded after each clause.
+	 */
+	private void writeHeader(PooledOutputStream outputStream, ByteBuffer bytes, Header header, String value)
+		throws TransformException {
+		int lineEnd = header.valueStart();
+		while ((lineEnd < header.end()) && !isLineSeparator(bytes.get(lineEnd))) {
+			lineEnd++;
+		}
+		byte[] separator = new byte[skipLineSeparator(bytes, lineEnd) - lineEnd];
+		bytes.get(lineEnd, separator);
+		byte[] foldSeparator = (separator.length == 0) ? new byte[] {
+			'\r', '\n'
+		} : separator;
+
+		// The header separator of the last line of the header is retained,
+		// including when the header ends the manifest without a separator.
+		int lastEnd = header.end();
+		int lastStart = lastEnd;
+		while ((lastStart > header.start()) && isLineSeparator(bytes.get(lastStart - 1))) {
+			lastStart--;
+		}
 
-					Attrs parmAttrs = parmEntry.getValue();
-					for (Map.Entry<String, String> parmAttrEntry : parmAttrs.entrySet()) {
-						String parmAttrName = parmAttrEntry.getKey();
-						String parmAttrValue = quote(builder, parmAttrEntry.getValue());
+		try {
+			outputStream.write(slice(bytes, header.start(), header.valueStart()));
+			byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+			if (isManifest()) {
+				writeFolded(outputStream, header.valueStart() - header.start(), valueBytes, foldSeparator);
+			} else {
+				writeClauses(outputStream, valueBytes, foldSeparator);
+			}
+			outputStream.write(slice(bytes, lastStart, lastEnd));
+		} catch (IOException e) {
+			throw new TransformException("Failed to write manifest header [ " + header.name() + " ]", e);
+		}
+	}
 
-						writer.append("; ");
-						writer.append(parmAttrName);
-						writer.append('=');
-						writer.append(parmAttrValue);
-					}
+	private static final int MAX_LINE_LENGTH = 72;
+
+	private static void writeFolded(OutputStream outputStream, int prefixLength, byte[] value, byte[] separator)
+		throws IOException {
+		int room = Math.max(1, MAX_LINE_LENGTH - prefixLength);
+		int start = 0;
+		while (start < value.length) {
+			int end = Math.min(value.length, start + room);
+			// Do not split a multi-byte character.
+			while ((end < value.length) && (end > start + 1) && ((value[end] & 0xC0) == 0x80)) {
+				end--;
+			}
+			outputStream.write(value, start, end - start);
+			start = end;
+			if (start < value.length) {
+				outputStream.write(separator);
+				outputStream.write(' ');
+				room = MAX_LINE_LENGTH - 1;
+			}
+		}
+	}
 
-					continuedLine = true;
+	private static void writeClauses(OutputStream outputStream, byte[] value, byte[] separator) throws IOException {
+		boolean quoted = false;
+		int start = 0;
+		for (int offset = 0; offset < value.length; offset++) {
+			byte b = value[offset];
+			if (b == '"') {
+				quoted = !quoted;
+			} else if ((b == ',') && !quoted) {
+				outputStream.write(value, start, offset + 1 - start);
+				outputStream.write(separator);
+				outputStream.write(' ');
+				start = offset + 1;
+				while ((start < value.length) && (value[start] == ' ')) {
+					start++;
 				}
+				offset = start - 1;
 			}
-
-			writer.append("\r");
 		}
+		outputStream.write(value, start, value.length - start);
+	}
+
+	private static final Set<String> SELECT_ATTRIBUTES = Sets.of("DynamicImport-Package", "Import-Package",
+		"Export-Package", "Subsystem-Content", "IBM-API-Package", "Provide-Capability", "Require-Capability");
 
-		writer.flush();
+	public static Set<String> getSelectedAttributes() {
+		return SELECT_ATTRIBUTES;
 	}
 
-	public String quote(StringBuilder sb, String value) {
-		@SuppressWarnings("unused")
-		boolean isClean = OSGiHeader.quote(sb, value);
-		String quotedValue = sb.toString();
-		sb.setLength(0);
-		return quotedValue;
+	public static boolean selectAttribute(String name) {
+		return SELECT_ATTRIBUTES.contains(name);
 	}
 
 	/**
@@ -598,6 +719,9 @@ public class ManifestActionImpl extends ElementActionImpl {
 	public static final String	NAME_PROPERTY_NAME			= "Bundle-Name";
 	public static final String	DESCRIPTION_PROPERTY_NAME	= "Bundle-Description";
 
+	private static final Set<String> IDENTITY_ATTRIBUTES = Sets.of(SYMBOLIC_NAME_PROPERTY_NAME,
+		VERSION_PROPERTY_NAME, NAME_PROPERTY_NAME, DESCRIPTION_PROPERTY_NAME);
+
 	// Bundle case:
 	// Bundle updates:
 	//
@@ -0,0 +1,308 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.action.impl;
+
+import static org.eclipse.transformer.Transformer.consoleMarker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import aQute.lib.io.IO;
+import org.eclipse.transformer.util.Json;
+import org.slf4j.Logger;
+
+/**
+ * Profile of the use of the rules of a signature rule: The count of matches
+ * of each rule, and the calls and time of each replacement method.
+ * <p>
+ * The rules which were loaded are registered when the profiler is set on the
+ * signature rule, so that rules which never matched are reported.
+ * <p>
+ * Matches are counted when a rule is matched. Binary types, descriptors, and
+ * signatures are cached by the signature rule: A package rename is counted
+ * once for each distinct value which it changed, not for each use of the
+ * value.
+ */
+public class RuleProfiler {
+	/**
+	 * Types of rules.
+	 */
+	public enum RuleType {
+		/** Package renames. */
+		RENAME,
+		/** Package version updates. The selector is the attribute name of specific updates. */
+		VERSION,
+		/** Global direct string updates. */
+		DIRECT,
+		/** Per class direct string updates. The selector is the class. */
+		PER_CLASS_DIRECT,
+		/** Text substitutions. The selector is the file name or file name pattern. */
+		TEXT
+	}
+
+	/**
+	 * Replacement methods of the signature rule.
+	 */
+	public enum Method {
+		REPLACE_PACKAGE("replacePackage"),
+		REPLACE_BINARY_PACKAGE("replaceBinaryPackage"),
+		REPLACE_PACKAGES("replacePackages"),
+		REPLACE_BINARY_PACKAGES("replaceBinaryPackages"),
+		REPLACE_PACKAGE_VERSION("replacePackageVersion"),
+		REPLACE_TEXT("replaceText"),
+		REPLACE_TEXT_DIRECT_GLOBAL("replaceTextDirectGlobal"),
+		REPLACE_TEXT_DIRECT_PER_CLASS("replaceTextDirectPerClass");
+
+		private final String methodName;
+
+		Method(String methodName) {
+			this.methodName = methodName;
+		}
+
+		public String getMethodName() {
+			return methodName;
+		}
+	}
+
+	/**
+	 * The use of one rule.
+	 *
+	 * @param type The type of the rule.
+	 * @param selector The selector of the rule. Null for rules which apply to
+	 *            all resources.
+	 * @param key The key of the rule: The initial package or text.
+	 * @param matches The count of matches of the rule.
+	 */
+	public record RuleUsage(RuleType type, String selector, String key, long matches) {}
+
+	/**
+	 * The cost of one replacement method.
+	 *
+	 * @param method The method.
+	 * @param calls The count of calls of the method.
+	 * @param elapsedNanos The total time of the calls, in nanoseconds.
+	 */
+	public record MethodCost(Method method, long calls, long elapsedNanos) {}
+
+	private record RuleKey(RuleType type, String selector, String key) {}
+
+	private static final Comparator<RuleUsage>	MOST_MATCHES	= Comparator.comparingLong(RuleUsage::matches)
+		.reversed()
+		.thenComparing(RuleUsage::type)
+		.thenComparing(usage -> Objects.toString(usage.selector(), ""))
+		.thenComparing(RuleUsage::key);
+
+	private final Map<RuleKey, LongAdder>		matches;
+	private final Map<Method, LongAdder>		calls;
+	private final Map<Method, LongAdder>		nanos;
+
+	public RuleProfiler() {
+		this.matches = new ConcurrentHashMap<>();
+		this.calls = new EnumMap<>(Method.class);
+		this.nanos = new EnumMap<>(Method.class);
+		for (Method method : Method.values()) {
+			calls.put(method, new LongAdder());
+			nanos.put(method, new LongAdder());
+		}
+	}
+
+	/**
+	 * Register a rule, so that the rule is reported if it never matches.
+	 *
+	 * @param type The type of the rule.
+	 * @param selector The selector of the rule. Null for rules which apply to
+	 *            all resources.
+	 * @param key The key of the rule.
+	 */
+	public void register(RuleType type, String selector, String key) {
+		matches.computeIfAbsent(new RuleKey(type, selector, key), k -> new LongAdder());
+	}
+
+	/**
+	 * Count a match of a rule.
+	 *
+	 * @param type The type of the rule.
+	 * @param selector The selector of the rule. Null for rules which apply to
+	 *            all resources.
+	 * @param key The key of the rule.
+	 */
+	public void match(RuleType type, String selector, String key) {
+		matches.computeIfAbsent(new RuleKey(type, selector, key), k -> new LongAdder())
+			.increment();
+	}
+
+	/**
+	 * Count a call of a replacement method.
+	 *
+	 * @param method The method.
+	 * @param startNanos The time at which the call started, as answered by
+	 *            {@link System#nanoTime()}.
+	 */
+	public void call(Method method, long startNanos) {
+		long elapsed = System.nanoTime() - startNanos;
+		calls.get(method)
+			.increment();
+		nanos.get(method)
+			.add(elapsed);
+	}
+
+	/**
+	 * Answer the use of all rules, with the most matched rules first.
+	 *
+	 * @return The use of all rules.
+	 */
+	public List<RuleUsage> getUsage() {
+		List<RuleUsage> usage = new ArrayList<>(matches.size());
+		matches.forEach((ruleKey, count) -> usage
+			.add(new RuleUsage(ruleKey.type(), ruleKey.selector(), ruleKey.key(), count.sum())));
+		usage.sort(MOST_MATCHES);
+		return usage;
+	}
+
+	/**
+	 * Answer the rules which never matched.
+	 *
+	 * @return The rules which never matched.
+	 */
+	public List<RuleUsage> getUnused() {
+		List<RuleUsage> unused = new ArrayList<>();
+		for (RuleUsage usage : getUsage()) {
+			if (usage.matches() == 0L) {
+				unused.add(usage);
+			}
+		}
+		return unused;
+	}
+
+	/**
+	 * Answer the cost of the replacement methods, with the most costly method
+	 * first.
+	 *
+	 * @return The cost of the replacement methods.
+	 */
+	public List<MethodCost> getCosts() {
+		List<MethodCost> costs = new ArrayList<>();
+		for (Method method : Method.values()) {
+			costs.add(new MethodCost(method, calls.get(method)
+				.sum(),
+				nanos.get(method)
+					.sum()));
+		}
+		costs.sort(Comparator.comparingLong(MethodCost::elapsedNanos)
+			.reversed());
+		return costs;
+	}
+
+	//
+
+	/**
+	 * Answer the JSON representation of the profile: An object which has the
+	 * ranked use of the rules, the rules which never matched, and the cost of
+	 * the replacement methods.
+	 *
+	 * @return The JSON representation of the profile.
+	 */
+	public Map<String, Object> toMap() {
+		List<RuleUsage> usage = getUsage();
+		List<Object> rules = new ArrayList<>(usage.size());
+		List<Object> unused = new ArrayList<>();
+		for (RuleUsage ruleUsage : usage) {
+			Map<String, Object> ruleMap = toMap(ruleUsage);
+			rules.add(ruleMap);
+			if (ruleUsage.matches() == 0L) {
+				unused.add(ruleMap);
+			}
+		}
+
+		List<Object> methods = new ArrayList<>();
+		for (MethodCost cost : getCosts()) {
+			Map<String, Object> methodMap = new LinkedHashMap<>();
+			methodMap.put("method", cost.method()
+				.getMethodName());
+			methodMap.put("calls", cost.calls());
+			methodMap.put("elapsedNanos", cost.elapsedNanos());
+			methods.add(methodMap);
+		}
+
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("rules", rules);
+		map.put("unused", unused);
+		map.put("methods", methods);
+		return map;
+	}
+
+	private static Map<String, Object> toMap(RuleUsage usage) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("type", usage.type()
+			.name());
+		if (usage.selector() != null) {
+			map.put("selector", usage.selector());
+		}
+		map.put("key", usage.key());
+		map.put("matches", usage.matches());
+		return map;
+	}
+
+	/**
+	 * Write the JSON representation of the profile to a file.
+	 *
+	 * @param file The file which is to be written.
+	 * @throws IOException Thrown if the file cannot be written.
+	 */
+	public void write(File file) throws IOException {
+		File parent = file.getAbsoluteFile()
+			.getParentFile();
+		if (parent != null) {
+			IO.mkdirs(parent);
+		}
+		try (Writer writer = IO.writer(file)) {
+			Json.write(writer, toMap());
+		}
+	}
+
+	/**
+	 * Log a summary of the profile: The cost of the replacement methods, and
+	 * the counts of used and unused rules by rule type.
+	 *
+	 * @param logger The logger which receives the summary.
+	 */
+	public void log(Logger logger) {
+		if (!logger.isInfoEnabled(consoleMarker)) {
+			return;
+		}
+		Map<RuleType, int[]> counts = new EnumMap<>(RuleType.class);
+		for (RuleUsage usage : getUsage()) {
+			int[] typeCounts = counts.computeIfAbsent(usage.type(), type -> new int[2]);
+			typeCounts[(usage.matches() == 0L) ? 1 : 0]++;
+		}
+		logger.info(consoleMarker, "Rule profile:");
+		counts.forEach((type, typeCounts) -> logger.info(consoleMarker, "  [ {} ] Used [ {} ] Unused [ {} ]", type,
+			typeCounts[0], typeCounts[1]));
+		for (MethodCost cost : getCosts()) {
+			if (cost.calls() != 0L) {
+				logger.info(consoleMarker, "  [ {} ] Calls [ {} ] [ {}ms ]", cost.method()
+					.getMethodName(), cost.calls(), TimeUnit.NANOSECONDS.toMillis(cost.elapsedNanos()));
+			}
+		}
+	}
+}
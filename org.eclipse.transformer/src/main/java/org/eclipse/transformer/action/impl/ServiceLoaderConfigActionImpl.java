@@ -16,13 +16,13 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
 
-import aQute.lib.io.ByteBufferOutputStream;
 import org.eclipse.transformer.TransformException;
 import org.eclipse.transformer.action.ActionContext;
 import org.eclipse.transformer.action.ActionType;
 import org.eclipse.transformer.action.ByteData;
 import org.eclipse.transformer.util.FileUtils;
-import org.eclipse.transformer.util.LineSeparatorBufferedReader;
+import org.eclipse.transformer.util.LineIterator;
+import org.eclipse.transformer.util.PooledOutputStream;
 
 /**
  * Transform service configuration bytes. Per:
@@ -99,11 +99,12 @@ public class ServiceLoaderConfigActionImpl extends ElementActionImpl {
 			}
 			setResourceNames(inputName, outputName);
 
-			ByteBufferOutputStream outputStream = new ByteBufferOutputStream(inputData.length());
+			PooledOutputStream outputStream = new PooledOutputStream(inputData.length());
 
 			Charset charset = inputData.charset();
-			try (LineSeparatorBufferedReader reader = new LineSeparatorBufferedReader(inputData.reader()); BufferedWriter writer = FileUtils.writer(outputStream, charset)) {
-				transform(reader, writer);
+			LineIterator lines = LineIterator.of(inputData.buffer(), charset);
+			try (BufferedWriter writer = FileUtils.writer(outputStream, charset)) {
+				transform(lines, writer);
 			} catch (IOException e) {
 				throw new TransformException("Failed to transform [ " + inputName + " ]", e);
 			}
@@ -121,87 +122,91 @@ public class ServiceLoaderConfigActionImpl extends ElementActionImpl {
 		}
 	}
 
-	protected void transform(LineSeparatorBufferedReader reader, BufferedWriter writer) throws IOException {
-		for (String inputLine; (inputLine = reader.readLine()) != null; writer.write(reader.lineSeparator())) {
+	protected void transform(LineIterator lines, BufferedWriter writer) throws IOException {
+		while (lines.next()) {
+			CharSequence inputLine = lines.line();
+
 			// Goal is to find the input package name. Find it by
-			// successively taking text off of the input line.
+			// successively narrowing the range of the input line.
+			// The line is only materialized as a string if a rename
+			// is performed.
 
-			String inputPackageName;
+			int inputEnd = inputLine.length();
 
 			// The first '#' and all following characters are ignored.
 
-			int poundLocation = inputLine.indexOf('#');
-			if (poundLocation != -1) {
-				inputPackageName = inputLine.substring(0, poundLocation);
-			} else {
-				inputPackageName = inputLine;
+			for (int i = 0; i < inputEnd; i++) {
+				if (inputLine.charAt(i) == '#') {
+					inputEnd = i;
+					break;
+				}
 			}
 
 			// Leading and trailing whitespace which surrounds the fully
 			// qualified name is ignored. This step must be done after
 			// trimming off a comment, since the trim must be of immediately
-			// surrounding whitespace.
+			// surrounding whitespace. Use the same whitespace test as
+			// String.trim().
 
-			inputPackageName = inputPackageName.trim();
+			int inputStart = 0;
+			while ((inputStart < inputEnd) && (inputLine.charAt(inputStart) <= ' ')) {
+				inputStart++;
+			}
+			while ((inputEnd > inputStart) && (inputLine.charAt(inputEnd - 1) <= ' ')) {
+				inputEnd--;
+			}
 
 			// Renames are performed on package names. Per the documentation,
 			// the values are fully qualified class names.
 
-			int dotLocation;
+			int dotLocation = -1;
 			String outputPackageName;
 
-			if (inputPackageName.isEmpty()) {
+			if (inputStart == inputEnd) {
 				// The line was either entirely blank space, or was just
 				// comment. There is no package to rename.
-				dotLocation = -1;
 				outputPackageName = null;
 
 			} else {
-				dotLocation = inputPackageName.lastIndexOf('.');
+				for (int i = inputEnd - 1; i >= inputStart; i--) {
+					if (inputLine.charAt(i) == '.') {
+						dotLocation = i;
+						break;
+					}
+				}
 				if (dotLocation == -1) {
 					// A class which uses the default package: There is no
 					// package to rename.
 					outputPackageName = null;
-				} else if (dotLocation == 0) {
+				} else if (dotLocation == inputStart) {
 					// Strange leading ".": Ignore it.
 					outputPackageName = null;
 				} else {
 					// Nab just the fully qualified package name.
-					inputPackageName = inputPackageName.substring(0, dotLocation);
+					String inputPackageName = inputLine.subSequence(inputStart, dotLocation)
+						.toString();
 					// And perform any renames which apply.
 					outputPackageName = replacePackage(inputPackageName);
 				}
 			}
 
-			String outputLine;
-
 			if (outputPackageName == null) {
 				// For one of the reasons, above, no rename was performed on the
 				// line.
-				outputLine = inputLine;
+				lines.writeLine(writer);
 				addUnchangedProvider();
 
 			} else {
-				// Not most efficient, but good enough:
-				// Service configuration files are expected to have only a few
-				// values, and these are expected to use little or no white
-				// space.
-
-				// Figure where the input fully qualified package name began and
-				// ended.
-
-				int inputPackageStart = inputLine.indexOf(inputPackageName);
-				int inputPackageEnd = inputPackageStart + dotLocation;
-
 				// Recover as much of the original file as possible.
 
-				outputLine = inputLine.substring(0, inputPackageStart) + outputPackageName
-					+ inputLine.substring(inputPackageEnd);
+				writer.append(inputLine, 0, inputStart);
+				writer.write(outputPackageName);
+				writer.append(inputLine, dotLocation, inputLine.length());
 
 				addChangedProvider();
 			}
 
-			writer.write(outputLine);
+			lines.writeLineSeparator(writer);
 		}
 	}
 }
@@ -19,10 +19,10 @@ import static org.eclipse.transformer.util.SignatureUtils.stripWildcard;
 
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -44,6 +44,11 @@ import aQute.bnd.stream.MapStream;
 import aQute.libg.glob.Glob;
 import org.eclipse.transformer.action.BundleData;
 import org.eclipse.transformer.action.SignatureRule;
+import org.eclipse.transformer.action.impl.RuleProfiler.Method;
+import org.eclipse.transformer.action.impl.RuleProfiler.RuleType;
+import org.eclipse.transformer.jfr.TransformerEvents;
+import org.eclipse.transformer.metrics.Metrics;
+import org.eclipse.transformer.metrics.Metrics.Counter;
 import org.eclipse.transformer.util.FileUtils;
 import org.eclipse.transformer.util.SignatureUtils.RenameKeyComparator;
 import org.slf4j.Logger;
@@ -173,16 +178,17 @@ public class SignatureRuleImpl implements SignatureRule {
 		}
 		this.perClassDirectStrings = usePerClassDirectStrings;
 
-		//
+		// The caches are concurrent: A single signature rule may be shared
+		// by transformations which run on several threads.
 
-		this.unchangedBinaryTypes = new HashSet<>();
-		this.changedBinaryTypes = new HashMap<>();
+		this.unchangedBinaryTypes = ConcurrentHashMap.newKeySet();
+		this.changedBinaryTypes = new ConcurrentHashMap<>();
 
-		this.unchangedDescriptors = new HashSet<>();
-		this.changedDescriptors = new HashMap<>();
+		this.unchangedDescriptors = ConcurrentHashMap.newKeySet();
+		this.changedDescriptors = new ConcurrentHashMap<>();
 
-		this.unchangedSignatures = new HashSet<>();
-		this.changedSignatures = new HashMap<>();
+		this.unchangedSignatures = ConcurrentHashMap.newKeySet();
+		this.changedSignatures = new ConcurrentHashMap<>();
 	}
 
 	//
@@ -193,6 +199,99 @@ public class SignatureRuleImpl implements SignatureRule {
 		return logger;
 	}
 
+	// Cache metrics
+
+	private static final int		BINARY_TYPE_CACHE	= 0;
+	private static final int		DESCRIPTOR_CACHE	= 1;
+	private static final int		SIGNATURE_CACHE		= 2;
+	private static final String[]	CACHE_NAMES			= {
+		"binaryType", "descriptor", "signature"
+	};
+
+	static final String				CACHE_LOOKUPS		= "transformer_signature_cache_total";
+
+	// Null when metrics are not collected.
+	private Counter[]				cacheHits;
+	private Counter[]				cacheMisses;
+
+	/**
+	 * Count the hits and misses of the caches of transformed binary types,
+	 * descriptors, and signatures. Metrics must be set before the rule is
+	 * used.
+	 *
+	 * @param metrics The metrics which receive the counts.
+	 */
+	public void setMetrics(Metrics metrics) {
+		if (!metrics.isEnabled()) {
+			cacheHits = null;
+			cacheMisses = null;
+			return;
+		}
+		Counter[] hits = new Counter[CACHE_NAMES.length];
+		Counter[] misses = new Counter[CACHE_NAMES.length];
+		for (int cacheNo = 0; cacheNo < CACHE_NAMES.length; cacheNo++) {
+			hits[cacheNo] = metrics.counter(CACHE_LOOKUPS, "Lookups of the signature caches", "cache",
+				CACHE_NAMES[cacheNo], "result", "hit");
+			misses[cacheNo] = metrics.counter(CACHE_LOOKUPS, "Lookups of the signature caches", "cache",
+				CACHE_NAMES[cacheNo], "result", "miss");
+		}
+		cacheHits = hits;
+		cacheMisses = misses;
+	}
+
+	private void countCache(int cacheNo, boolean hit) {
+		Counter[] counters = hit ? cacheHits : cacheMisses;
+		if (counters != null) {
+			counters[cacheNo].increment();
+		}
+	}
+
+	// Rule profile
+
+	// Null when rules are not profiled.
+	private RuleProfiler profiler;
+
+	/**
+	 * Profile the use of the rules: Count the matches of each rule, and the
+	 * calls and time of each replacement method. The rules of this signature
+	 * rule are registered with the profiler, so that rules which never match
+	 * are reported. A profiler must be set before the rule is used.
+	 *
+	 * @param profiler The profiler which receives the counts. Null to stop
+	 *            profiling.
+	 */
+	public void setProfiler(RuleProfiler profiler) {
+		if (profiler != null) {
+			dottedPackageRenames.keySet()
+				.forEach(key -> profiler.register(RuleType.RENAME, null, key));
+			packageVersions.keySet()
+				.forEach(key -> profiler.register(RuleType.VERSION, null, key));
+			specificPackageVersions.forEach((attributeName, versions) -> versions.keySet()
+				.forEach(key -> profiler.register(RuleType.VERSION, attributeName, key)));
+			directStrings.keySet()
+				.forEach(key -> profiler.register(RuleType.DIRECT, null, key));
+			perClassDirectStrings.forEach((className, updates) -> updates.keySet()
+				.forEach(key -> profiler.register(RuleType.PER_CLASS_DIRECT, className, key)));
+			specificTextUpdates.forEach((fileName, updates) -> updates.keySet()
+				.forEach(key -> profiler.register(RuleType.TEXT, fileName, key)));
+			wildCardTextUpdates.forEach((pattern, updates) -> updates.keySet()
+				.forEach(key -> profiler.register(RuleType.TEXT, pattern.pattern(), key)));
+		}
+		this.profiler = profiler;
+	}
+
+	public RuleProfiler getProfiler() {
+		return profiler;
+	}
+
+	/**
+	 * Count a match of a package rename. Slashed rename keys are counted as
+	 * their dotted form.
+	 */
+	private void matchRename(String key, boolean slashed) {
+		profiler.match(RuleType.RENAME, null, slashed ? key.replace('/', '.') : key);
+	}
+
 	// Cat 1: Package renames
 
 	// Package rename: "javax.servlet" ==> "jakarta.servlet"
@@ -214,12 +313,30 @@ public class SignatureRuleImpl implements SignatureRule {
 
 	@Override
 	public String replacePackage(String initialName) {
-		return replacePackage(initialName, DOT_WILDCARD, dottedPackageRenames);
+		RuleProfiler useProfiler = profiler;
+		if (useProfiler == null) {
+			return replacePackage(initialName, DOT_WILDCARD, dottedPackageRenames);
+		}
+		long startNanos = System.nanoTime();
+		try {
+			return replacePackage(initialName, DOT_WILDCARD, dottedPackageRenames);
+		} finally {
+			useProfiler.call(Method.REPLACE_PACKAGE, startNanos);
+		}
 	}
 
 	@Override
 	public String replaceBinaryPackage(String initialName) {
-		return replacePackage(initialName, SLASH_WILDCARD, slashedPackageRenames);
+		RuleProfiler useProfiler = profiler;
+		if (useProfiler == null) {
+			return replacePackage(initialName, SLASH_WILDCARD, slashedPackageRenames);
+		}
+		long startNanos = System.nanoTime();
+		try {
+			return replacePackage(initialName, SLASH_WILDCARD, slashedPackageRenames);
+		} finally {
+			useProfiler.call(Method.REPLACE_BINARY_PACKAGE, startNanos);
+		}
 	}
 
 	private static final String	DOT_WILDCARD	= ".*";
@@ -229,6 +346,9 @@ public class SignatureRuleImpl implements SignatureRule {
 		String finalName = keyStream(initialName, wildcard).filter(renames::containsKey)
 			.findFirst()
 			.map(key -> {
+				if (profiler != null) {
+					matchRename(key, renames == slashedPackageRenames);
+				}
 				String name = renames.get(key);
 				if (containsWildcard(key)) {
 					name = name.concat(initialName.substring(key.length() - 2));
@@ -241,12 +361,40 @@ public class SignatureRuleImpl implements SignatureRule {
 
 	@Override
 	public String replacePackages(String text) {
-		return replacePackages(text, dottedPackageRenames);
+		return replacePackages((CharSequence) text);
+	}
+
+	@Override
+	public String replacePackages(CharSequence text) {
+		RuleProfiler useProfiler = profiler;
+		if (useProfiler == null) {
+			return replacePackages(text, dottedPackageRenames);
+		}
+		long startNanos = System.nanoTime();
+		try {
+			return replacePackages(text, dottedPackageRenames);
+		} finally {
+			useProfiler.call(Method.REPLACE_PACKAGES, startNanos);
+		}
 	}
 
 	@Override
 	public String replaceBinaryPackages(String text) {
-		return replacePackages(text, slashedPackageRenames);
+		return replaceBinaryPackages((CharSequence) text);
+	}
+
+	@Override
+	public String replaceBinaryPackages(CharSequence text) {
+		RuleProfiler useProfiler = profiler;
+		if (useProfiler == null) {
+			return replacePackages(text, slashedPackageRenames);
+		}
+		long startNanos = System.nanoTime();
+		try {
+			return replacePackages(text, slashedPackageRenames);
+		} finally {
+			useProfiler.call(Method.REPLACE_BINARY_PACKAGES, startNanos);
+		}
 	}
 
 	// TODO: Unify the implementations of 'replacePackages'
@@ -254,17 +402,27 @@ public class SignatureRuleImpl implements SignatureRule {
 	//
 	// See issue #307.
 
-	private String replacePackages(String text, Map<String, String> renames) {
+	private String replacePackages(CharSequence chars, Map<String, String> renames) {
+		String text = (chars instanceof String) ? (String) chars : null;
 		String initialText = text;
+		RuleProfiler useProfiler = profiler;
 
 		for (Map.Entry<String, String> renameEntry : renames.entrySet()) {
 			String key = renameEntry.getKey();
+			String ruleKey = key;
 
 			boolean matchPackageStem = containsWildcard(key);
 			if (matchPackageStem) {
 				key = stripWildcard(key);
 			}
 
+			if (text == null) {
+				if (indexOf(chars, key) == -1) {
+					continue;
+				}
+				initialText = text = chars.toString();
+			}
+
 			int keyLen = key.length();
 			int textLimit = text.length() - keyLen;
 
@@ -289,6 +447,10 @@ public class SignatureRuleImpl implements SignatureRule {
 				String tail = text.substring(packageEnd);
 				text = head + value + tail;
 
+				if (useProfiler != null) {
+					matchRename(ruleKey, renames == slashedPackageRenames);
+				}
+
 				matchEnd = matchStart + value.length();
 				textLimit = text.length() - keyLen;
 			}
@@ -301,6 +463,41 @@ public class SignatureRuleImpl implements SignatureRule {
 		}
 	}
 
+	/**
+	 * Answer the index of the first occurrence of a key in a character
+	 * sequence. This is used to test a character sequence for a replacement
+	 * before creating a string from it.
+	 *
+	 * @param chars The characters which are to be searched.
+	 * @param key The key which is to be located.
+	 * @return The index of the first occurrence of the key. -1 if the key does
+	 *         not occur.
+	 */
+	static int indexOf(CharSequence chars, String key) {
+		if (chars instanceof String) {
+			return ((String) chars).indexOf(key);
+		}
+		int keyLen = key.length();
+		if (keyLen == 0) {
+			return 0;
+		}
+		char first = key.charAt(0);
+		int limit = chars.length() - keyLen;
+		for (int start = 0; start <= limit; start++) {
+			if (chars.charAt(start) != first) {
+				continue;
+			}
+			int offset = 1;
+			while ((offset < keyLen) && (chars.charAt(start + offset) == key.charAt(offset))) {
+				offset++;
+			}
+			if (offset == keyLen) {
+				return start;
+			}
+		}
+		return -1;
+	}
+
 	// Cat 2: Package Version Updates
 
 	protected final Map<String, String> packageVersions;
@@ -319,6 +516,19 @@ public class SignatureRuleImpl implements SignatureRule {
 
 	@Override
 	public String replacePackageVersion(String attributeName, String packageName, String oldVersion) {
+		RuleProfiler useProfiler = profiler;
+		if (useProfiler == null) {
+			return basicReplacePackageVersion(attributeName, packageName, oldVersion);
+		}
+		long startNanos = System.nanoTime();
+		try {
+			return basicReplacePackageVersion(attributeName, packageName, oldVersion);
+		} finally {
+			useProfiler.call(Method.REPLACE_PACKAGE_VERSION, startNanos);
+		}
+	}
+
+	private String basicReplacePackageVersion(String attributeName, String packageName, String oldVersion) {
 		Logger useLogger = getLogger();
 
 		Map<String, String> versionsForAttribute = getSpecificPackageVersions().get(attributeName);
@@ -337,16 +547,25 @@ public class SignatureRuleImpl implements SignatureRule {
 				oldVersion);
 			return null;
 		} else if (specificVersion == null) {
+			if (profiler != null) {
+				profiler.match(RuleType.VERSION, null, packageName);
+			}
 			useLogger.trace("Manifest attribute {}: Generic update of package {} version {} to {}", attributeName,
 				packageName,
 				oldVersion, genericVersion);
 			return genericVersion;
 		} else if (genericVersion == null) {
+			if (profiler != null) {
+				profiler.match(RuleType.VERSION, attributeName, packageName);
+			}
 			useLogger.trace("Manifest attribute {}: Specific update of package {} version {} to {}", attributeName,
 				packageName,
 				oldVersion, specificVersion);
 			return specificVersion;
 		} else {
+			if (profiler != null) {
+				profiler.match(RuleType.VERSION, attributeName, packageName);
+			}
 			useLogger.trace(
 				"Manifest attribute {}: Specific update of package {} version {} to {} overrides generic version update {}",
 				attributeName, packageName, oldVersion, specificVersion, genericVersion);
@@ -398,6 +617,25 @@ public class SignatureRuleImpl implements SignatureRule {
 		return null;
 	}
 
+	/**
+	 * Answer the selector of the text substitutions of an input: The simple
+	 * file name, or the file name pattern, which selected the substitutions.
+	 * This repeats the selection made by {@link #getTextSubstitutions(String)},
+	 * and is used only when rules are profiled.
+	 */
+	private String getTextSelector(String inputName) {
+		String simpleFileName = FileUtils.getFileNameFromFullyQualifiedFileName(inputName);
+		if (getSpecificTextUpdates().containsKey(simpleFileName)) {
+			return simpleFileName;
+		}
+		for (Pattern pattern : getWildCardTextUpdates().keySet()) {
+			if (matches(pattern, simpleFileName)) {
+				return pattern.pattern();
+			}
+		}
+		return null;
+	}
+
 	private static boolean matches(Pattern p, CharSequence input) {
 		Matcher m = p.matcher(input);
 		return m.matches();
@@ -405,6 +643,24 @@ public class SignatureRuleImpl implements SignatureRule {
 
 	@Override
 	public String replaceText(String inputName, String text) {
+		return replaceText(inputName, (CharSequence) text);
+	}
+
+	@Override
+	public String replaceText(String inputName, CharSequence text) {
+		RuleProfiler useProfiler = profiler;
+		if (useProfiler == null) {
+			return basicReplaceText(inputName, text);
+		}
+		long startNanos = System.nanoTime();
+		try {
+			return basicReplaceText(inputName, text);
+		} finally {
+			useProfiler.call(Method.REPLACE_TEXT, startNanos);
+		}
+	}
+
+	private String basicReplaceText(String inputName, CharSequence chars) {
 		Map<String, String> substitutions = getTextSubstitutions(inputName);
 		if (substitutions == null) {
 			// This is now allowed, because of of the new
@@ -412,12 +668,22 @@ public class SignatureRuleImpl implements SignatureRule {
 			return null;
 		}
 
+		String text = (chars instanceof String) ? (String) chars : null;
 		String initialText = text;
+		RuleProfiler useProfiler = profiler;
+		String selector = (useProfiler == null) ? null : getTextSelector(inputName);
 
 		for (Map.Entry<String, String> entry : substitutions.entrySet()) {
 			String key = entry.getKey();
 			int keyLen = key.length();
 
+			if (text == null) {
+				if (indexOf(chars, key) == -1) {
+					continue;
+				}
+				initialText = text = chars.toString();
+			}
+
 			int textLimit = text.length() - keyLen;
 
 			int lastMatchEnd = 0;
@@ -434,6 +700,10 @@ public class SignatureRuleImpl implements SignatureRule {
 				String tail = text.substring(matchStart + keyLen);
 				text = head + value + tail;
 
+				if (useProfiler != null) {
+					useProfiler.match(RuleType.TEXT, selector, key);
+				}
+
 				lastMatchEnd = matchStart + valueLen;
 				textLimit += (valueLen - keyLen);
 			}
@@ -467,6 +737,16 @@ public class SignatureRuleImpl implements SignatureRule {
 		return perClassDirectStrings;
 	}
 
+	@Override
+	public String replaceTextDirectGlobal(String initialValue, String inputName) {
+		return replaceTextDirectGlobal((CharSequence) initialValue, inputName);
+	}
+
+	@Override
+	public String replaceTextDirectPerClass(String initialValue, String inputName) {
+		return replaceTextDirectPerClass((CharSequence) initialValue, inputName);
+	}
+
 	/**
 	 * Perform global (non-resource specific) substitutions on a UTF8 value
 	 * obtained as a string constant from a java class resource, or as a line in
@@ -477,8 +757,17 @@ public class SignatureRuleImpl implements SignatureRule {
 	 * @return Null if no updates were made. Otherwise, the updated value.
 	 */
 	@Override
-	public String replaceTextDirectGlobal(String initialValue, String inputName) {
-		return replaceTextDirect(initialValue, inputName, directStrings, "Global");
+	public String replaceTextDirectGlobal(CharSequence initialValue, String inputName) {
+		RuleProfiler useProfiler = profiler;
+		if (useProfiler == null) {
+			return replaceTextDirect(initialValue, inputName, directStrings, "Global", RuleType.DIRECT, null);
+		}
+		long startNanos = System.nanoTime();
+		try {
+			return replaceTextDirect(initialValue, inputName, directStrings, "Global", RuleType.DIRECT, null);
+		} finally {
+			useProfiler.call(Method.REPLACE_TEXT_DIRECT_GLOBAL, startNanos);
+		}
 	}
 
 	/**
@@ -494,22 +783,55 @@ public class SignatureRuleImpl implements SignatureRule {
 	 * @return Null if no updates were made. Otherwise, the updated value.
 	 */
 	@Override
-	public String replaceTextDirectPerClass(String initialValue, String inputName) {
+	public String replaceTextDirectPerClass(CharSequence initialValue, String inputName) {
+		RuleProfiler useProfiler = profiler;
+		if (useProfiler == null) {
+			return basicReplaceTextDirectPerClass(initialValue, inputName);
+		}
+		long startNanos = System.nanoTime();
+		try {
+			return basicReplaceTextDirectPerClass(initialValue, inputName);
+		} finally {
+			useProfiler.call(Method.REPLACE_TEXT_DIRECT_PER_CLASS, startNanos);
+		}
+	}
+
+	private String basicReplaceTextDirectPerClass(CharSequence initialValue, String inputName) {
 		Map<String, String> directStringsForClass = perClassDirectStrings.get(inputName);
 		if (directStringsForClass == null) {
 			return null; // Nothing specific to do.
 		}
-		return replaceTextDirect(initialValue, inputName, directStringsForClass, "Per-Class");
+		return replaceTextDirect(initialValue, inputName, directStringsForClass, "Per-Class",
+			RuleType.PER_CLASS_DIRECT, inputName);
 	}
 
-	private String replaceTextDirect(String initialValue, String inputName, Map<String, String> updates, String updateCase) {
+	private String replaceTextDirect(CharSequence chars, String inputName, Map<String, String> updates,
+		String updateCase, RuleType ruleType, String selector) {
 		Logger useLogger = getLogger();
+		RuleProfiler useProfiler = profiler;
+
+		// A full substitution is also a token substitution. Only create
+		// a string when at least one token is present.
+
+		String initialValue;
+		if (chars instanceof String) {
+			initialValue = (String) chars;
+		} else if (updates.keySet()
+			.stream()
+			.anyMatch(key -> indexOf(chars, key) != -1)) {
+			initialValue = chars.toString();
+		} else {
+			return null;
+		}
 
 		// If the table has a simple, full substitution, use it.
 		// This is an optimization of the token substitution case.
 
 		String fullFinalValue = updates.get(initialValue);
 		if (fullFinalValue != null) {
+			if (useProfiler != null) {
+				useProfiler.match(ruleType, selector, initialValue);
+			}
 			useLogger.debug("{} full direct replacement: [ {} ]: [ {} => {} ]", updateCase, inputName, initialValue,
 				fullFinalValue);
 			return fullFinalValue;
@@ -527,6 +849,9 @@ public class SignatureRuleImpl implements SignatureRule {
 			String finalSubValue = directEntry.getValue();
 			if (finalValue.contains(initialSubValue)) {
 				finalValue = finalValue.replace(initialSubValue, finalSubValue);
+				if (useProfiler != null) {
+					useProfiler.match(ruleType, selector, initialSubValue);
+				}
 				useLogger.debug("{} token direct replacement: [ {} ]: [ {} => {} ]", updateCase, inputName,
 					initialSubValue,
 					finalSubValue);
@@ -633,14 +958,19 @@ public class SignatureRuleImpl implements SignatureRule {
 	 */
 	private String basicTransformBinaryType(String inputName) {
 		if (unchangedBinaryTypes.contains(inputName)) {
+			countCache(BINARY_TYPE_CACHE, true);
 			return null;
 		}
 
 		String outputName = changedBinaryTypes.get(inputName);
 		if (outputName != null) {
+			countCache(BINARY_TYPE_CACHE, true);
 			return outputName;
 		}
 
+		countCache(BINARY_TYPE_CACHE, false);
+		Object event = TransformerEvents.beginCacheMiss();
+
 		char c = inputName.charAt(0);
 		if ((c == '[') || ((c == 'L') && (inputName.charAt(inputName.length() - 1) == ';'))) {
 			JavaTypeSignature inputSignature = JavaTypeSignature.of(inputName.replace('$', '.'));
@@ -672,6 +1002,7 @@ public class SignatureRuleImpl implements SignatureRule {
 		} else {
 			changedBinaryTypes.put(inputName, outputName);
 		}
+		TransformerEvents.endCacheMiss(event, CACHE_NAMES[BINARY_TYPE_CACHE], inputName, outputName != null);
 
 		return outputName;
 	}
@@ -721,14 +1052,19 @@ public class SignatureRuleImpl implements SignatureRule {
 
 	private String basicTransformDescriptor(String inputDescriptor) {
 		if (unchangedDescriptors.contains(inputDescriptor)) {
+			countCache(DESCRIPTOR_CACHE, true);
 			return null;
 		}
 
 		String outputDescriptor = changedDescriptors.get(inputDescriptor);
 		if (outputDescriptor != null) {
+			countCache(DESCRIPTOR_CACHE, true);
 			return outputDescriptor;
 		}
 
+		countCache(DESCRIPTOR_CACHE, false);
+		Object event = TransformerEvents.beginCacheMiss();
+
 		char c = inputDescriptor.charAt(0);
 		if (c == '(') {
 			String inputSignature = inputDescriptor.replace('$', '.');
@@ -757,6 +1093,7 @@ public class SignatureRuleImpl implements SignatureRule {
 		} else {
 			changedDescriptors.put(inputDescriptor, outputDescriptor);
 		}
+		TransformerEvents.endCacheMiss(event, CACHE_NAMES[DESCRIPTOR_CACHE], inputDescriptor, outputDescriptor != null);
 		return outputDescriptor;
 	}
 
@@ -782,6 +1119,7 @@ public class SignatureRuleImpl implements SignatureRule {
 	@Override
 	public String transformSignature(String initialSignature, SignatureType signatureType) {
 		if (unchangedSignatures.contains(initialSignature)) {
+			countCache(SIGNATURE_CACHE, true);
 			return null;
 		}
 
@@ -790,9 +1128,13 @@ public class SignatureRuleImpl implements SignatureRule {
 
 		String finalSignature = changedSignatures.get(initialSignature);
 		if (finalSignature != null) {
+			countCache(SIGNATURE_CACHE, true);
 			return finalSignature;
 		}
 
+		countCache(SIGNATURE_CACHE, false);
+		Object event = TransformerEvents.beginCacheMiss();
+
 		if (signatureType == SignatureType.CLASS) {
 			ClassSignature initialClassSignature = ClassSignature.of(initialSignature);
 			ClassSignature finalClassSignature = transform(initialClassSignature);
@@ -830,6 +1172,7 @@ public class SignatureRuleImpl implements SignatureRule {
 		} else {
 			changedSignatures.put(initialSignature, finalSignature);
 		}
+		TransformerEvents.endCacheMiss(event, CACHE_NAMES[SIGNATURE_CACHE], initialSignature, finalSignature != null);
 
 		return finalSignature;
 	}
@@ -14,18 +14,21 @@ package org.eclipse.transformer.action.impl;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 
-import aQute.lib.io.ByteBufferOutputStream;
 import org.eclipse.transformer.TransformException;
 import org.eclipse.transformer.action.ActionContext;
 import org.eclipse.transformer.action.ActionType;
 import org.eclipse.transformer.action.ByteData;
 import org.eclipse.transformer.action.SignatureRule;
 import org.eclipse.transformer.util.FileUtils;
-import org.eclipse.transformer.util.LineSeparatorBufferedReader;
+import org.eclipse.transformer.util.LineIterator;
+import org.eclipse.transformer.util.PooledOutputStream;
 
 /**
  * Action for general text updates. This action performs text updates, either
@@ -80,11 +83,12 @@ public class TextActionImpl extends ElementActionImpl {
 			String outputName = relocateResource(inputName);
 			setResourceNames(inputName, outputName);
 
-			ByteBufferOutputStream outputStream = new ByteBufferOutputStream(inputData.length());
+			PooledOutputStream outputStream = new PooledOutputStream(inputData.length());
 
 			Charset charset = inputData.charset();
-			try (LineSeparatorBufferedReader reader = new LineSeparatorBufferedReader(inputData.reader()); BufferedWriter writer = FileUtils.writer(outputStream, charset)) {
-				transform(inputName, reader, writer);
+			LineIterator lines = LineIterator.of(inputData.buffer(), charset);
+			try (BufferedWriter writer = FileUtils.writer(outputStream, charset)) {
+				transform(inputName, lines, writer);
 			} catch (IOException e) {
 				throw new TransformException("Failed to transform [ " + inputName + " ]", e);
 			}
@@ -102,22 +106,64 @@ public class TextActionImpl extends ElementActionImpl {
 		}
 	}
 
+	@Override
+	public boolean isStreamingAction() {
+		return true;
+	}
+
+	@Override
+	public String apply(String inputName, InputStream inputStream, OutputStream outputStream)
+		throws TransformException {
+		startRecording(inputName);
+		try {
+			String outputName = relocateResource(inputName);
+			setResourceNames(inputName, outputName);
+
+			// Don't close the reader or the writer: Closing them closes the
+			// streams.
+			Charset charset = resourceCharset(inputName);
+			LineIterator lines = LineIterator.of(new InputStreamReader(inputStream, charset),
+				FileUtils.BUFFER_ADJUSTMENT);
+			BufferedWriter writer = FileUtils.writer(outputStream, charset);
+			try {
+				transform(inputName, lines, writer);
+				writer.flush();
+			} catch (IOException e) {
+				throw new TransformException("Failed to transform [ " + inputName + " ]", e);
+			}
+			return outputName;
+
+		} finally {
+			stopRecording(inputName);
+		}
+	}
+
 	//
 
-	protected void transform(String inputName, LineSeparatorBufferedReader reader, BufferedWriter writer) throws IOException {
-		for (String inputLine; (inputLine = reader.readLine()) != null; writer.write(reader.lineSeparator())) {
-			String outputLine = transformString(inputName, "text line", inputLine);
+	protected void transform(String inputName, LineIterator lines, BufferedWriter writer) throws IOException {
+		List<StringReplacement> replacements = getActiveReplacements();
+		boolean noReplacements = (replacements == null) || replacements.isEmpty();
+		while (lines.next()) {
+			CharSequence inputLine = lines.line();
+			// The replacements scan the line view. A string is only created
+			// for a line which is changed.
+			String outputLine;
+			if (noReplacements || (inputLine.length() == 0)) {
+				outputLine = null;
+			} else {
+				outputLine = transformString(inputName, "text line", inputLine);
+			}
 			if (outputLine != null) {
 				addReplacement(); // Count lines, not individual replacements.
+				writer.write(outputLine);
 			} else {
-				outputLine = inputLine;
+				lines.writeLine(writer);
 			}
-
-			writer.write(outputLine);
+			lines.writeLineSeparator(writer);
 		}
 	}
 
-	protected String transformString(String inputName, String inputCase, String initialValue) {
+	protected String transformString(String inputName, String inputCase, CharSequence initialValue) {
 		return updateString(inputName, inputCase, initialValue);
 	}
 }
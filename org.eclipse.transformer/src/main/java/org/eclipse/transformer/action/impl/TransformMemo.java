@@ -0,0 +1,253 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.action.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import aQute.lib.io.IO;
+import org.eclipse.transformer.action.Action;
+import org.eclipse.transformer.action.ByteData;
+import org.eclipse.transformer.action.Changes;
+import org.eclipse.transformer.util.FileUtils;
+import org.slf4j.Logger;
+
+/**
+ * Memo of the results of transforming nested archives and resources, which is
+ * used to reuse the first transform of data for every byte-identical copy of
+ * the data in the same run.
+ * <p>
+ * Results are keyed by the action type and a SHA-256 digest of the input
+ * data, and by the charset of the input. The results of element actions are
+ * also keyed by the input name, since the name selects the text updates of
+ * a resource. The results of archive actions are not keyed by the input name,
+ * so that a nested archive is reused across different output names.
+ * <p>
+ * The output bytes of results are held in memory until the memory limit of the
+ * memo is reached. The output bytes of later results are written to temporary
+ * files, which are deleted when the memo is cleared or closed. Unchanged
+ * output is not stored: The input data is reused.
+ * <p>
+ * A memo is safe for use by concurrent threads.
+ */
+public class TransformMemo implements Closeable {
+	/** Default limit of the output bytes which are held in memory. */
+	public static final long	DEFAULT_MEMORY_LIMIT	= 64L * 1024 * 1024;
+
+	/** Default size of the largest input which is memoized. */
+	public static final int		DEFAULT_MAX_INPUT_SIZE	= 32 * 1024 * 1024;
+
+	/**
+	 * Result of a transform.
+	 *
+	 * @param outputName The name of the output.
+	 * @param contentChanged True or false telling if the content was changed.
+	 *            The output is the input when the content was not changed.
+	 * @param changes The changes of the transform.
+	 * @param bytes The output bytes, when held in memory.
+	 * @param file The file of the output bytes, when written to a temporary
+	 *            file.
+	 */
+	public record Result(String outputName, boolean contentChanged, Changes changes, byte[] bytes, Path file) {}
+
+	private final Logger				logger;
+	private final long					memoryLimit;
+	private final int					maxInputSize;
+	private final Map<String, Result>	results		= new ConcurrentHashMap<>();
+	private final AtomicLong			memoryBytes	= new AtomicLong();
+	private final AtomicLong			spilledBytes	= new AtomicLong();
+	private Path						spillDirectory;
+
+	public TransformMemo(Logger logger) {
+		this(logger, DEFAULT_MEMORY_LIMIT, DEFAULT_MAX_INPUT_SIZE);
+	}
+
+	/**
+	 * Create a memo.
+	 *
+	 * @param logger The logger of the memo.
+	 * @param memoryLimit The limit of the output bytes which are held in
+	 *            memory.
+	 * @param maxInputSize The size of the largest input which is memoized.
+	 */
+	public TransformMemo(Logger logger, long memoryLimit, int maxInputSize) {
+		this.logger = logger;
+		this.memoryLimit = memoryLimit;
+		this.maxInputSize = maxInputSize;
+	}
+
+	public int getMaxInputSize() {
+		return maxInputSize;
+	}
+
+	/** @return The count of results which are memoized. */
+	public int size() {
+		return results.size();
+	}
+
+	/** @return The output bytes which are held in memory. */
+	public long getMemoryBytes() {
+		return memoryBytes.get();
+	}
+
+	/** @return The output bytes which were written to temporary files. */
+	public long getSpilledBytes() {
+		return spilledBytes.get();
+	}
+
+	/**
+	 * Compute the key of the transform of input data.
+	 *
+	 * @param action The action which transforms the data.
+	 * @param inputData The input data.
+	 * @return The key of the transform. Null if the data is too large to be
+	 *         memoized.
+	 */
+	public String key(Action action, ByteData inputData) {
+		if (inputData.length() > maxInputSize) {
+			return null;
+		}
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e); // SHA-256 is always available
+		}
+		digest.update(inputData.buffer());
+
+		StringBuilder key = new StringBuilder(128);
+		key.append(action.getActionType()
+			.name())
+			.append('|')
+			.append(inputData.charset()
+				.name())
+			.append('|');
+		if (!action.isArchiveAction()) {
+			key.append(inputData.name())
+				.append('|');
+		}
+		return key.append(HexFormat.of()
+			.formatHex(digest.digest()))
+			.toString();
+	}
+
+	/**
+	 * Answer the result of a transform.
+	 *
+	 * @param key The key of the transform.
+	 * @return The result. Null if the transform has no result.
+	 */
+	public Result get(String key) {
+		return results.get(key);
+	}
+
+	/**
+	 * Record the result of a transform. The output bytes are copied, since
+	 * the buffer of the output may be released after the output is written.
+	 * The result of the first transform of a key is retained.
+	 *
+	 * @param key The key of the transform.
+	 * @param outputData The output of the transform.
+	 * @param contentChanged True or false telling if the content was changed.
+	 * @param changes The changes of the transform.
+	 */
+	public void put(String key, ByteData outputData, boolean contentChanged, Changes changes) {
+		if (results.containsKey(key)) {
+			return;
+		}
+		byte[] bytes = null;
+		Path file = null;
+		if (contentChanged) {
+			int length = outputData.length();
+			if (memoryBytes.addAndGet(length) <= memoryLimit) {
+				bytes = new byte[length];
+				outputData.buffer()
+					.get(bytes);
+			} else {
+				memoryBytes.addAndGet(-length);
+				try {
+					file = spill(outputData);
+				} catch (IOException e) {
+					logger.debug("Failed to store the output of [ {} ]", outputData.name(), e);
+					return;
+				}
+				spilledBytes.addAndGet(length);
+			}
+		}
+		results.putIfAbsent(key, new Result(outputData.name(), contentChanged, changes, bytes, file));
+	}
+
+	/**
+	 * Answer the output data of a result which has changed content.
+	 *
+	 * @param result The result.
+	 * @param outputName The name of the output data.
+	 * @param inputData The input data, which supplies the charset of the
+	 *            output data.
+	 * @return The output data of the result.
+	 * @throws IOException Thrown if the output data cannot be read.
+	 */
+	public ByteData data(Result result, String outputName, ByteData inputData) throws IOException {
+		if (result.bytes() != null) {
+			return new ByteDataImpl(outputName, ByteBuffer.wrap(result.bytes()), inputData.charset());
+		}
+		return FileUtils.read(logger, outputName, inputData.charset(), result.file()
+			.toFile());
+	}
+
+	private synchronized Path spill(ByteData outputData) throws IOException {
+		if (spillDirectory == null) {
+			spillDirectory = Files.createTempDirectory("transformer-memo");
+		}
+		Path file = Files.createTempFile(spillDirectory, "result", ".bin");
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = outputData.buffer();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+		return file;
+	}
+
+	/**
+	 * Remove all results, and delete the temporary files of the results.
+	 */
+	public synchronized void clear() {
+		results.clear();
+		memoryBytes.set(0L);
+		spilledBytes.set(0L);
+		if (spillDirectory != null) {
+			try {
+				IO.delete(spillDirectory);
+			} catch (RuntimeException e) {
+				logger.debug("Failed to delete [ {} ]", spillDirectory, e);
+			}
+			spillDirectory = null;
+		}
+	}
+
+	@Override
+	public void close() {
+		clear();
+	}
+}
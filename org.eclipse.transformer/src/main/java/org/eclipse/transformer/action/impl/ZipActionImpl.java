@@ -11,30 +11,40 @@
 
 package org.eclipse.transformer.action.impl;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.attribute.FileTime;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
-import aQute.lib.io.ByteBufferOutputStream;
 import aQute.lib.io.IO;
 import org.eclipse.transformer.TransformException;
 import org.eclipse.transformer.action.Action;
 import org.eclipse.transformer.action.ActionContext;
 import org.eclipse.transformer.action.ActionType;
 import org.eclipse.transformer.action.ByteData;
+import org.eclipse.transformer.action.Changes;
 import org.eclipse.transformer.action.ElementAction;
 import org.eclipse.transformer.action.RenameAction;
+import org.eclipse.transformer.util.BufferPool;
 import org.eclipse.transformer.util.FileUtils;
+import org.eclipse.transformer.util.PooledOutputStream;
 import org.slf4j.Logger;
 
 /**
@@ -61,6 +71,88 @@ public class ZipActionImpl extends ContainerActionImpl implements ElementAction
 	private final ActionType	actionType;
 	private final boolean stripSignatures;
 
+	/** @return True if signature files are removed from archives. */
+	public boolean isStripSignatures() {
+		return stripSignatures;
+	}
+
+	/**
+	 * Default streaming threshold. Entries which are larger than can be held
+	 * in a single buffer are streamed.
+	 */
+	public static final long	DEFAULT_STREAMING_THRESHOLD	= FileUtils.MAX_ARRAY_LENGTH - 1;
+
+	private long				streamingThreshold			= DEFAULT_STREAMING_THRESHOLD;
+
+	public long getStreamingThreshold() {
+		return streamingThreshold;
+	}
+
+	/**
+	 * Set the size above which entries are streamed instead of being
+	 * collected.
+	 * <p>
+	 * Large entries which are selected for a streaming element action are
+	 * transformed as they are read. Large entries which are selected for other
+	 * element actions are copied unchanged. Large stored nested archives are
+	 * transformed through a temporary file, since the size and CRC of a stored
+	 * entry must be known before the entry is written.
+	 *
+	 * @param streamingThreshold The size above which entries are streamed.
+	 */
+	public void setStreamingThreshold(long streamingThreshold) {
+		if ((streamingThreshold < 0L) || (streamingThreshold > DEFAULT_STREAMING_THRESHOLD)) {
+			throw new IllegalArgumentException("Streaming threshold [ " + streamingThreshold
+				+ " ] must be between zero and [ " + DEFAULT_STREAMING_THRESHOLD + " ]");
+		}
+		this.streamingThreshold = streamingThreshold;
+	}
+
+	private TransformMemo		memo;
+
+	public TransformMemo getMemo() {
+		return memo;
+	}
+
+	/**
+	 * Set the memo which is used to reuse the transforms of identical nested
+	 * archives and resources. The same memo should be set on all of the zip
+	 * actions of a transformer.
+	 * <p>
+	 * Compressed nested archives which are no larger than the maximum input
+	 * size of the memo are collected instead of being streamed, so that they
+	 * can be memoized.
+	 *
+	 * @param memo The memo. Null to transform every nested archive and
+	 *            resource.
+	 */
+	public void setMemo(TransformMemo memo) {
+		this.memo = memo;
+	}
+
+	private ZipPipeline			pipeline;
+
+	/**
+	 * Writer of the pipeline of the top level archive which is being
+	 * transformed by the current thread.
+	 */
+	private static final ThreadLocal<ZipPipeline.Writer> pipelineWriter = new ThreadLocal<>();
+
+	public ZipPipeline getPipeline() {
+		return pipeline;
+	}
+
+	/**
+	 * Set the pipeline which is used to read, transform, and write the entries
+	 * of top level archives concurrently. Nested archives are not pipelined.
+	 *
+	 * @param pipeline The pipeline settings. Null to read, transform, and
+	 *            write the entries of archives one after another.
+	 */
+	public void setPipeline(ZipPipeline pipeline) {
+		this.pipeline = pipeline;
+	}
+
 	@Override
 	public ActionType getActionType() {
 		return actionType;
@@ -88,10 +180,13 @@ public class ZipActionImpl extends ContainerActionImpl implements ElementAction
 		try {
 			setResourceNames(inputPath, outputPath);
 			applyFile(inputPath, inputFile, outputPath, outputFile);
+			getActiveChanges().setInputBytes(inputFile.length())
+				.setOutputBytes(outputFile.length());
 
 			// print the timings for the current archive and a tip for user if archive hasn't been updated
 			printZipActionDuration(inputPath);
 			printAdviseOnUnchanged(inputPath);
+			getLogger().debug("Buffer pool [ {} ]: {}", inputPath, BufferPool.local());
 		} finally {
 			stopRecording(inputPath);
 		}
@@ -107,16 +202,19 @@ public class ZipActionImpl extends ContainerActionImpl implements ElementAction
 		try {
 			String outputPath = relocateResource(inputPath);
 			setResourceNames(inputPath, outputPath);
+			getActiveChanges().setInputBytes(inputData.length());
 			InputStream inputStream = inputData.stream();
-			ByteBufferOutputStream outputStream = new ByteBufferOutputStream(inputData.length());
-			applyStream(inputPath, inputStream, outputPath, outputStream);
+			PooledOutputStream outputStream = new PooledOutputStream(inputData.length());
+			applyStream(inputPath, inputStream, outputPath, outputStream, null);
 			if (!isChanged()) {
+				getActiveChanges().setOutputBytes(inputData.length());
 				return inputData;
 			}
 			ByteBuffer outputBuffer = isContentChanged()
 				? outputStream.toByteBuffer()
 				: inputData.buffer();
 			ByteData outputData = new ByteDataImpl(outputPath, outputBuffer, inputData.charset());
+			getActiveChanges().setOutputBytes(outputData.length());
 
 
 			// print the timings for the current archive and a tip for user if archive hasn't been updated
@@ -139,9 +237,13 @@ public class ZipActionImpl extends ContainerActionImpl implements ElementAction
 		// when attempting to record the action.
 
 		startRecording(inputPath);
+		CountingInputStream countingInput = new CountingInputStream(inputStream);
+		CountingOutputStream countingOutput = new CountingOutputStream(outputStream);
 		try {
 			setResourceNames(inputPath, outputPath);
-			applyStream(inputPath, inputStream, outputPath, outputStream);
+			applyStream(inputPath, countingInput, outputPath, countingOutput, null);
+			getActiveChanges().setInputBytes(countingInput.getCount())
+				.setOutputBytes(countingOutput.getCount());
 
 			// print the timings for the current archive and a tip for user if archive hasn't been updated
 			printZipActionDuration(inputPath);
@@ -164,9 +266,11 @@ public class ZipActionImpl extends ContainerActionImpl implements ElementAction
 			throw new TransformException("Failed to create directory [ " + outputParent.getAbsolutePath() + " ]", e);
 		}
 
-		try (InputStream inputStream = IO.stream(inputFile)) {
-			try (OutputStream outputStream = IO.outputStream(outputFile)) {
-				applyStream(inputPath, inputStream, outputPath, outputStream);
+		// Zip streams read and write entry headers in small pieces.
+		try (InputStream inputStream = new BufferedInputStream(IO.stream(inputFile), FileUtils.BUFFER_ADJUSTMENT)) {
+			try (OutputStream outputStream = new BufferedOutputStream(IO.outputStream(outputFile),
+				FileUtils.BUFFER_ADJUSTMENT)) {
+				applyStream(inputPath, inputStream, outputPath, outputStream, pipeline);
 			} catch (IOException e) {
 				throw new TransformException("Failed to write [ " + outputFile.getAbsolutePath() + " ]", e);
 			}
@@ -175,8 +279,8 @@ public class ZipActionImpl extends ContainerActionImpl implements ElementAction
 		}
 	}
 
-	private void applyStream(String inputPath, InputStream inputStream, String outputPath, OutputStream outputStream)
-		throws TransformException {
+	private void applyStream(String inputPath, InputStream inputStream, String outputPath, OutputStream outputStream,
+		ZipPipeline usePipeline) throws TransformException {
 
 		// Use Zip streams instead of Jar streams. Jar streams automatically
 		// read and consume the manifest, which we don't want.
@@ -192,7 +296,7 @@ public class ZipActionImpl extends ContainerActionImpl implements ElementAction
 
 			ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream, charset);
 			try {
-				applyZipStream(inputPath, zipInputStream, outputPath, zipOutputStream);
+				applyZipStream(inputPath, zipInputStream, outputPath, zipOutputStream, usePipeline);
 			} finally {
 				zipOutputStream.finish();
 			}
@@ -232,17 +336,21 @@ public class ZipActionImpl extends ContainerActionImpl implements ElementAction
 	 * @param zipInputStream An input stream for the input archive.
 	 * @param outputPath A name associated with the output stream.
 	 * @param zipOutputStream An output stream for the output archive.
+	 * @param usePipeline The pipeline settings. Null if the entries are read,
+	 *            transformed, and written one after another.
 	 * @throws TransformException Thrown if reading or writing the archives
 	 *             fails, or if transformation of an entry fails.
 	 */
 	private void applyZipStream(
 		String inputPath, ZipInputStream zipInputStream,
-		String outputPath, ZipOutputStream zipOutputStream) throws TransformException {
+		String outputPath, ZipOutputStream zipOutputStream, ZipPipeline usePipeline) throws TransformException {
 
 		String className = getClass().getSimpleName();
 		String methodName = "apply";
 
 		Logger useLogger = getLogger();
+		// Per entry logging is skipped without formatting its arguments.
+		boolean debug = useLogger.isDebugEnabled();
 
 		useLogger.debug("[ {}.{} ] [ {} ]", className, methodName, inputPath);
 
@@ -259,19 +367,45 @@ public class ZipActionImpl extends ContainerActionImpl implements ElementAction
 		String prevName = null;
 		String inputName = null;
 
+		// Entries are read ahead by a reader thread, and are written by a
+		// writer thread. Entries are transformed by this thread.
+		ZipPipeline.Reader reader = null;
+		ZipPipeline.Writer writer = null;
+		if (usePipeline != null) {
+			useLogger.debug("[ {}.{} ] Pipeline [ {} ]", className, methodName, usePipeline);
+			reader = usePipeline.reader(inputPath, zipInputStream);
+			writer = usePipeline.writer(outputPath, zipOutputStream);
+			pipelineWriter.set(writer);
+		}
+
 		try {
-			for ( ZipEntry inputEntry;
-				  (inputEntry = zipInputStream.getNextEntry()) != null;
+			for ( ZipPipeline.Entry readEntry;
+				  (readEntry = nextEntry(zipInputStream, reader)) != null;
 				  prevName = inputName, inputName = null ) {
 
+				if (writer != null) {
+					writer.harvest();
+					writer.setLive(readEntry.live);
+				}
+				ZipEntry inputEntry = readEntry.zipEntry;
+				InputStream entryStream = (reader == null) ? zipInputStream : reader.stream(readEntry);
+
+				// Buffers of the entry are released once the entry is written.
+				BufferPool.Scope entryScope = BufferPool.local().open();
 				try {
 					inputName = FileUtils.sanitize(inputEntry.getName()); // Avoid ZipSlip
 					if (stripSignatures && ElementAction.SIGNATURE_FILE_PATTERN.matcher(inputName).matches()) {
 						continue;
 					}
-					int inputLength = Math.toIntExact(inputEntry.getSize());
-
-					useLogger.debug("[ {}.{} ] Entry [ {} ] Size [ {} ]", className, methodName, inputName, inputLength);
+					// The size is not known for entries which are followed by a
+					// data descriptor. Zip64 entries may exceed the maximum array size.
+					long inputLength = inputEntry.getSize();
+					getActiveChanges().startEntry(inputName, inputLength);
+
+					if (debug) {
+						useLogger.debug("[ {}.{} ] Entry [ {} ] Size [ {} ]", className, methodName, inputName,
+							inputLength);
+					}
 
 					Action action = selectAction(inputName);
 
@@ -305,7 +439,7 @@ public class ZipActionImpl extends ContainerActionImpl implements ElementAction
 						if ( isDuplicate(inputName, inputPath, inputName, outputPath, seen) ) {
 							recordDuplicate(action, inputName);
 						} else {
-							copy(inputEntry, zipInputStream, inputName, zipOutputStream, copyBuffer);
+							copy(inputEntry, entryStream, inputName, zipOutputStream, copyBuffer);
 							recordUnaccepted(inputName);
 						}
 					} else if (!selectResource(inputName)) {
@@ -315,7 +449,7 @@ public class ZipActionImpl extends ContainerActionImpl implements ElementAction
 						if ( isDuplicate(inputName, inputPath, inputName, outputPath, seen) ) {
 							recordDuplicate(action, inputName);
 						} else {
-							copy(inputEntry, zipInputStream, inputName, zipOutputStream, copyBuffer);
+							copy(inputEntry, entryStream, inputName, zipOutputStream, copyBuffer);
 							recordUnselected(inputName);
 						}
 
@@ -327,7 +461,7 @@ public class ZipActionImpl extends ContainerActionImpl implements ElementAction
 						if ( isDuplicate(inputName, inputPath, outputName, outputPath, seen) ) {
 							recordDuplicate(action, inputName);
 						} else {
-							copy(inputEntry, zipInputStream, outputName, zipOutputStream, copyBuffer);
+							copy(inputEntry, entryStream, outputName, zipOutputStream, copyBuffer);
 							recordAction(action, inputName);
 						}
 
@@ -340,30 +474,48 @@ public class ZipActionImpl extends ContainerActionImpl implements ElementAction
 							recordDuplicate(zipAction, inputName);
 						} else {
 							try {
-								if (inputEntry.getMethod() == ZipEntry.STORED) {
+								if ((inputEntry.getMethod() == ZipEntry.STORED) && (inputLength > streamingThreshold)) {
+									// Too large to collect: Transform through a temporary file.
+									String putInputName = inputName; // Need these to be effectively final
+									String putOutputName = outputName;
+									writeStreamed(inputEntry, outputName, zipOutputStream, copyBuffer,
+										stream -> zipAction.apply(putInputName, entryStream, putOutputName, stream));
+									recordAction(zipAction, inputName);
+								} else if (inputEntry.getMethod() == ZipEntry.STORED) {
 									// For STORED, we must know the size of the result
 									// before creating the ZipEntry. So we cannot stream.
-									ByteData inputData = collect(inputName, zipInputStream, inputLength);
-									ByteData outputData = zipAction.apply(inputData);
-									ZipEntry outputEntry = createEntry(inputEntry, outputName, outputData);
-									putEntry(zipOutputStream, outputEntry, () -> outputData.writeTo(zipOutputStream));
+									ByteData inputData = collect(inputName, entryStream, (int) inputLength);
+									applyArchive(zipAction, inputEntry, inputName, inputData, outputName, zipOutputStream);
 								} else {
 									// For COMPRESSED, we use streaming.
 									// Loading entire archives into memory is to be avoided.
 									// However, that means the new entry name must be known
 									// before invoking 'apply' on the selected action.
+									//
+									// Archives which can be memoized are collected.
+									InputStream inputStream = entryStream;
+									if (memo != null) {
+										ByteData inputData = collectBounded(inputName, entryStream, copyBuffer,
+											memo.getMaxInputSize());
+										if (inputData.length() <= memo.getMaxInputSize()) {
+											applyArchive(zipAction, inputEntry, inputName, inputData, outputName,
+												zipOutputStream);
+											continue;
+										}
+										inputStream = largeStream(inputData, entryStream);
+									}
 									ZipEntry outputEntry = createEntry(inputEntry, outputName);
 									String putInputName = inputName; // Need these to be effectively final
 									String putOutputName = outputName;
-									putEntry(zipOutputStream, outputEntry, () -> {
+									InputStream putInputStream = inputStream;
+									putEntryNow(zipOutputStream, outputEntry, () -> {
 										// Note the use of 'apply' and not the internal 'applyStream'.
 										// Recording must be performed.  And, the streams must be put through
 										// conversion to zip streams as a part of handling nested archives.
-										zipAction.apply(putInputName, zipInputStream, putOutputName, zipOutputStream);
+										zipAction.apply(putInputName, putInputStream, putOutputName, zipOutputStream);
 									});
+									recordAction(zipAction, inputName);
 								}
-
-								recordAction(zipAction, inputName);
 							} catch (Throwable th) {
 								recordError(zipAction, inputName, th);
 							}
@@ -376,7 +528,7 @@ public class ZipActionImpl extends ContainerActionImpl implements ElementAction
 						if ( isDuplicate(inputName, inputPath, inputName, outputPath, seen) ) {
 							recordDuplicate(action, inputName);
 						} else {
-							copy(inputEntry, zipInputStream, inputName, zipOutputStream, copyBuffer);
+							copy(inputEntry, entryStream, inputName, zipOutputStream, copyBuffer);
 							recordUnaccepted(inputName);
 						}
 
@@ -385,12 +537,40 @@ public class ZipActionImpl extends ContainerActionImpl implements ElementAction
 
 						// Collect up front, then allow the action to run, which includes
 						// both renaming and content transformation, then put and write the
-						// entry.
+						// entry.  Entries which are too large to collect are streamed.
+
+						ByteData inputData;
+						if (inputLength > streamingThreshold) {
+							inputData = null;
+						} else if (inputLength >= 0L) {
+							inputData = collect(inputName, entryStream, (int) inputLength);
+						} else {
+							inputData = collectBounded(inputName, entryStream, copyBuffer, streamingThreshold);
+						}
+						if ((inputData == null) || (inputData.length() > streamingThreshold)) {
+							InputStream inputStream = largeStream(inputData, entryStream);
+							applyLarge(inputPath, inputEntry, inputName, elementAction, inputStream, outputPath,
+								zipOutputStream, seen, copyBuffer);
+							continue;
+						}
+
+						String memoKey = (memo == null) ? null : memo.key(elementAction, inputData);
+						TransformMemo.Result memoResult = (memoKey == null) ? null : memo.get(memoKey);
+						if (memoResult != null) {
+							applyMemoized(inputPath, inputEntry, inputName, elementAction, inputData, memoResult,
+								outputPath, zipOutputStream, seen);
+							continue;
+						}
 
-						ByteData inputData = collect(inputName, zipInputStream, inputLength);
 						boolean beganWrite = false;
 						try {
 							ByteData outputData = elementAction.apply(inputData);
+							elementAction.getLastActiveChanges()
+								.setOutputBytes(outputData.length());
+							if (memoKey != null) {
+								Changes changes = elementAction.getLastActiveChanges();
+								memo.put(memoKey, outputData, changes.isContentChanged(), changes);
+							}
 							String outputName = outputData.name();
 							outputName = FileUtils.sanitize(outputName); // Avoid ZipSlip
 
@@ -417,8 +597,15 @@ public class ZipActionImpl extends ContainerActionImpl implements ElementAction
 					}
 				} catch (Throwable t) {
 					useLogger.error("Transform failure [ {} ] of [ {} ]", inputName, inputPath, t);
+				} finally {
+					getActiveChanges().endEntry((inputName == null) ? inputEntry.getName() : inputName,
+						inputEntry.getSize());
+					endEntry(reader, writer, readEntry, entryScope);
 				}
 			}
+			if (writer != null) {
+				writer.sync();
+			}
 
 		} catch (IOException e) {
 			String message;
@@ -433,7 +620,45 @@ public class ZipActionImpl extends ContainerActionImpl implements ElementAction
 				message = "Failed to process first entry of [ " + inputPath + " ]";
 			}
 			throw new TransformException(message, e);
+		} finally {
+			if (writer != null) {
+				writer.close();
+				reader.close();
+				pipelineWriter.remove();
+			}
+		}
+	}
+
+	/**
+	 * Answer the next entry of an archive. Entries which are not read by a
+	 * pipeline are read from the zip stream as they are transformed.
+	 */
+	private static ZipPipeline.Entry nextEntry(ZipInputStream zipInputStream, ZipPipeline.Reader reader)
+		throws IOException {
+		if (reader != null) {
+			return reader.next();
+		}
+		ZipEntry zipEntry = zipInputStream.getNextEntry();
+		return (zipEntry == null) ? null : new ZipPipeline.Entry(zipEntry, null, true);
+	}
+
+	/**
+	 * Release the buffers of an entry once the entry is written. The data of
+	 * an entry which was read ahead is released by the writer thread.
+	 */
+	private static void endEntry(ZipPipeline.Reader reader, ZipPipeline.Writer writer, ZipPipeline.Entry readEntry,
+		BufferPool.Scope entryScope) {
+		if (writer == null) {
+			entryScope.close();
+			return;
 		}
+		writer.setLive(false);
+		if (readEntry.live) {
+			reader.release(readEntry);
+		} else {
+			writer.afterWrites(() -> reader.release(readEntry));
+		}
+		writer.complete(entryScope::close);
 	}
 
 	private void printZipActionDuration(final String inputName) {
@@ -455,17 +680,204 @@ public class ZipActionImpl extends ContainerActionImpl implements ElementAction
 		}
 	}
 
+	/**
+	 * Transform a collected nested archive. The result of an earlier transform
+	 * of an identical archive is reused when the memo has the result.
+	 */
+	private void applyArchive(
+		ZipActionImpl zipAction, ZipEntry inputEntry, String inputName, ByteData inputData,
+		String outputName, ZipOutputStream zipOutputStream) throws IOException {
+
+		String memoKey = (memo == null) ? null : memo.key(zipAction, inputData);
+		TransformMemo.Result memoResult = (memoKey == null) ? null : memo.get(memoKey);
+
+		ByteData outputData;
+		if (memoResult == null) {
+			outputData = zipAction.apply(inputData);
+		} else if (memoResult.contentChanged()) {
+			outputData = memo.data(memoResult, outputName, inputData);
+		} else {
+			outputData = inputData;
+		}
+		ZipEntry outputEntry = createEntry(inputEntry, outputName, outputData);
+		putEntry(zipOutputStream, outputEntry, () -> outputData.writeTo(zipOutputStream));
+
+		if (memoResult != null) {
+			recordDeduplicated(zipAction, inputName, memoResult.changes());
+		} else {
+			if (memoKey != null) {
+				Changes changes = zipAction.getLastActiveChanges();
+				memo.put(memoKey, outputData, changes.isContentChanged(), changes);
+			}
+			recordAction(zipAction, inputName);
+		}
+	}
+
+	/**
+	 * Write an element entry using the result of an earlier transform of an
+	 * identical element.
+	 */
+	private void applyMemoized(
+		String inputPath, ZipEntry inputEntry, String inputName, ElementAction elementAction,
+		ByteData inputData, TransformMemo.Result memoResult,
+		String outputPath, ZipOutputStream zipOutputStream, Set<String> seen) throws IOException {
+
+		String outputName = FileUtils.sanitize(memoResult.outputName()); // Avoid ZipSlip
+		if ( isDuplicate(inputName, inputPath, outputName, outputPath, seen) ) {
+			recordDuplicate(elementAction, inputName);
+		} else if ( memoResult.contentChanged() ) {
+			ByteData outputData = memo.data(memoResult, outputName, inputData);
+			writeModified(inputEntry, inputData, outputData, outputName, zipOutputStream);
+			recordDeduplicated(elementAction, inputName, memoResult.changes());
+		} else {
+			writeUnmodified(inputEntry, inputData, outputName, zipOutputStream);
+			recordDeduplicated(elementAction, inputName, memoResult.changes());
+		}
+	}
+
+	/**
+	 * Collect an entry which has an unknown size. Collection stops when more
+	 * than a limit has been read.
+	 *
+	 * @return Data of the entry. If more than the limit was read, the data has
+	 *         only the initial bytes of the entry.
+	 */
+	private ByteData collectBounded(String inputName, InputStream inputStream, byte[] copyBuffer, long limit)
+		throws IOException {
+		PooledOutputStream outputStream = new PooledOutputStream(FileUtils.BUFFER_ADJUSTMENT);
+		int count;
+		while ((outputStream.size() <= limit) && ((count = inputStream.read(copyBuffer, 0,
+			(int) Math.min(copyBuffer.length, limit + 1L - outputStream.size()))) != -1)) {
+			outputStream.write(copyBuffer, 0, count);
+		}
+		return new ByteDataImpl(inputName, outputStream.toByteBuffer(), resourceCharset(inputName));
+	}
+
+	/**
+	 * Answer a stream of a large entry. The stream does not close the zip
+	 * stream.
+	 *
+	 * @param initialData The initial bytes of the entry which have already
+	 *            been read. Null if no bytes have been read.
+	 * @param zipInputStream The stream of the remaining bytes of the entry.
+	 * @return A stream of all bytes of the entry.
+	 */
+	private InputStream largeStream(ByteData initialData, InputStream zipInputStream) {
+		InputStream remainingStream = new FilterInputStream(zipInputStream) {
+			@Override
+			public void close() {
+				// Leave the zip stream open for the next entry.
+			}
+		};
+		if (initialData == null) {
+			return remainingStream;
+		}
+		return new SequenceInputStream(initialData.stream(), remainingStream);
+	}
+
+	/**
+	 * Transform an element entry which is too large to be collected. The
+	 * entry is transformed as it is read if the action is a streaming action.
+	 * Otherwise, the entry is copied unchanged.
+	 */
+	private void applyLarge(
+		String inputPath, ZipEntry inputEntry, String inputName, ElementAction elementAction,
+		InputStream inputStream, String outputPath, ZipOutputStream zipOutputStream,
+		Set<String> seen, byte[] copyBuffer) throws IOException {
+
+		if (!elementAction.isStreamingAction()) {
+			getLogger().warn("Entry [ {} ] of [ {} ] is too large for action [ {} ] and is copied unchanged",
+				inputName, inputPath, elementAction.getName());
+			if ( isDuplicate(inputName, inputPath, inputName, outputPath, seen) ) {
+				recordDuplicate(elementAction, inputName);
+			} else {
+				copy(inputEntry, inputStream, inputName, zipOutputStream, copyBuffer);
+				recordUnchanged(elementAction, inputName);
+			}
+			return;
+		}
+
+		String outputName = FileUtils.sanitize(elementAction.relocateResource(inputName)); // Avoid ZipSlip
+		if ( isDuplicate(inputName, inputPath, outputName, outputPath, seen) ) {
+			recordDuplicate(elementAction, inputName);
+			return;
+		}
+		getLogger().debug("Streaming entry [ {} ] of [ {} ]", inputName, inputPath);
+		try {
+			writeStreamed(inputEntry, outputName, zipOutputStream, copyBuffer, stream -> {
+				CountingInputStream countingInput = new CountingInputStream(inputStream);
+				CountingOutputStream countingOutput = new CountingOutputStream(stream);
+				elementAction.apply(inputName, countingInput, countingOutput);
+				elementAction.getLastActiveChanges()
+					.setInputBytes(countingInput.getCount())
+					.setOutputBytes(countingOutput.getCount());
+			});
+			recordAction(elementAction, inputName);
+		} catch (Throwable t) {
+			// The entry may have been partially written.
+			getLogger().error("Write failure of [ {} ] of [ {} ]", inputName, inputPath);
+			recordError(elementAction, inputName, t);
+		}
+	}
+
+	@FunctionalInterface
+	private interface TransformerWriter {
+		void write(OutputStream outputStream) throws IOException, TransformException;
+	}
+
+	/**
+	 * Write an entry which is transformed as it is written.
+	 * <p>
+	 * The size and CRC of a stored entry must be set before the entry is put.
+	 * Stored entries are written to a temporary file, which is then copied
+	 * into the output archive.
+	 */
+	private void writeStreamed(
+		ZipEntry inputEntry, String outputName, ZipOutputStream zipOutputStream,
+		byte[] copyBuffer, TransformerWriter writer) throws IOException {
+
+		ZipEntry outputEntry = createEntry(inputEntry, outputName);
+		if (outputEntry.getMethod() != ZipEntry.STORED) {
+			putEntryNow(zipOutputStream, outputEntry, () -> writer.write(zipOutputStream));
+			return;
+		}
+
+		Path tempFile = Files.createTempFile("transformer", ".entry");
+		try {
+			CRC32 crc = new CRC32();
+			try (OutputStream outputStream = new BufferedOutputStream(
+				new CheckedOutputStream(IO.outputStream(tempFile), crc), FileUtils.BUFFER_ADJUSTMENT)) {
+				writer.write(outputStream);
+			}
+			long size = Files.size(tempFile);
+			outputEntry.setSize(size);
+			outputEntry.setCompressedSize(size);
+			outputEntry.setCrc(crc.getValue());
+			putEntryNow(zipOutputStream, outputEntry, () -> {
+				try (InputStream inputStream = IO.stream(tempFile)) {
+					FileUtils.transfer(inputStream, zipOutputStream, copyBuffer);
+				}
+			});
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
 	private void copy(
-		ZipEntry inputEntry, ZipInputStream zipInputStream,
+		ZipEntry inputEntry, InputStream zipInputStream,
         String outputName, ZipOutputStream zipOutputStream,
         byte[] buffer) throws IOException {
 
 		getLogger().trace("Copy entry [ {} ] Directory [ {} ] as [ {} ]",
 			inputEntry.getName(), inputEntry.isDirectory(), outputName);
 		ZipEntry outputEntry = copyEntry(inputEntry, outputName);
+		// The transfer buffer is shared with the transform: Copies which are
+		// written by a pipeline use the buffer of the pipeline.
+		ZipPipeline.Writer writer = deferringWriter(zipOutputStream);
+		byte[] useBuffer = (writer == null) ? buffer : writer.getCopyBuffer();
 		putEntry(zipOutputStream, outputEntry, () -> {
 			if ( !inputEntry.isDirectory() ) {
-				long bytesWritten = FileUtils.transfer(zipInputStream, zipOutputStream, buffer);
+				long bytesWritten = FileUtils.transfer(zipInputStream, zipOutputStream, useBuffer);
 				getLogger().trace("Copied [ {} ] bytes to [ {} ]", bytesWritten, outputName);
 			}
 		});
@@ -587,7 +999,46 @@ public class ZipActionImpl extends ContainerActionImpl implements ElementAction
 		void run() throws IOException, TransformException;
 	}
 
+	/**
+	 * Answer the pipeline writer which writes entries to a zip stream. Null
+	 * if entries of the stream are written by the current thread.
+	 */
+	private static ZipPipeline.Writer deferringWriter(ZipOutputStream zipOutputStream) {
+		ZipPipeline.Writer writer = pipelineWriter.get();
+		if ((writer == null) || !writer.writes(zipOutputStream) || writer.isLive()) {
+			return null;
+		}
+		return writer;
+	}
+
+	/**
+	 * Put an entry. The entry is written by the pipeline writer, if there is
+	 * one, in which case the populator must only write data which remains
+	 * valid until the current entry ends.
+	 */
 	private void putEntry(ZipOutputStream zipOutputStream, ZipEntry outputEntry, TransformerRunnable populator) throws IOException, TransformException {
+		ZipPipeline.Writer writer = deferringWriter(zipOutputStream);
+		if (writer != null) {
+			writer.submit(() -> writeEntry(zipOutputStream, outputEntry, populator));
+		} else {
+			putEntryNow(zipOutputStream, outputEntry, populator);
+		}
+	}
+
+	/**
+	 * Put an entry using the current thread. This is necessary when the
+	 * populator transforms data, or reads data which is not retained. Earlier
+	 * entries which were given to the pipeline writer are written first.
+	 */
+	private void putEntryNow(ZipOutputStream zipOutputStream, ZipEntry outputEntry, TransformerRunnable populator) throws IOException, TransformException {
+		ZipPipeline.Writer writer = pipelineWriter.get();
+		if ((writer != null) && writer.writes(zipOutputStream)) {
+			writer.sync();
+		}
+		writeEntry(zipOutputStream, outputEntry, populator);
+	}
+
+	private static void writeEntry(ZipOutputStream zipOutputStream, ZipEntry outputEntry, TransformerRunnable populator) throws IOException, TransformException {
 		zipOutputStream.putNextEntry(outputEntry); // throws IOException
 		try {
 			populator.run(); // throws TransformException
@@ -595,4 +1046,73 @@ public class ZipActionImpl extends ContainerActionImpl implements ElementAction
 			zipOutputStream.closeEntry(); // throws IOException
 		}
 	}
+
+	/**
+	 * Input stream which counts the bytes which are read. The count is read
+	 * once the stream is done, possibly by a different thread than the
+	 * thread which read the stream.
+	 */
+	private static final class CountingInputStream extends FilterInputStream {
+		private volatile long count;
+
+		CountingInputStream(InputStream inputStream) {
+			super(inputStream);
+		}
+
+		long getCount() {
+			return count;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int result = super.read();
+			if (result != -1) {
+				count++;
+			}
+			return result;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int result = super.read(buffer, offset, length);
+			if (result > 0) {
+				count += result;
+			}
+			return result;
+		}
+
+		@Override
+		public long skip(long length) throws IOException {
+			long result = super.skip(length);
+			count += result;
+			return result;
+		}
+	}
+
+	/**
+	 * Output stream which counts the bytes which are written.
+	 */
+	private static final class CountingOutputStream extends FilterOutputStream {
+		private volatile long count;
+
+		CountingOutputStream(OutputStream outputStream) {
+			super(outputStream);
+		}
+
+		long getCount() {
+			return count;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] buffer, int offset, int length) throws IOException {
+			out.write(buffer, offset, length);
+			count += length;
+		}
+	}
 }
@@ -0,0 +1,273 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.action.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import aQute.lib.io.IO;
+import org.eclipse.transformer.TransformException;
+import org.eclipse.transformer.action.ElementAction;
+import org.eclipse.transformer.util.ZipDirectory;
+import org.slf4j.Logger;
+
+/**
+ * Delta update of the output of a zip action.
+ * <p>
+ * A delta update takes the previous input archive, the previous output
+ * archive, and the new input archive. The central directories of the input
+ * archives are compared by entry name, method, size, and CRC. Only entries
+ * which were added or changed are transformed. The compressed bytes of the
+ * output entries of all other entries are copied from the previous output
+ * archive, without being inflated or transformed again.
+ * <p>
+ * Entries of the previous output are matched to entries of the previous input
+ * by position, since the zip action writes one output entry for each input
+ * entry, in the order of the input entries, except for stripped signature
+ * files. When the previous archives do not match in that way, for example
+ * because an entry was dropped as a duplicate, the new input is transformed
+ * in full.
+ */
+public class ZipDelta {
+	/**
+	 * Result of a delta update.
+	 *
+	 * @param copied The count of output entries which were copied from the
+	 *            previous output.
+	 * @param transformed The count of input entries which were transformed.
+	 * @param removed The count of previous input entries which are no longer
+	 *            present.
+	 * @param full True if the new input was transformed in full, because the
+	 *            previous archives could not be used. The counts are zero when
+	 *            the new input was transformed in full.
+	 */
+	public record Result(int copied, int transformed, int removed, boolean full) {}
+
+	private final ZipActionImpl	zipAction;
+	private final Logger		logger;
+
+	/**
+	 * Create a delta update.
+	 *
+	 * @param zipAction The zip action which transforms the changed entries.
+	 */
+	public ZipDelta(ZipActionImpl zipAction) {
+		this.zipAction = zipAction;
+		this.logger = zipAction.getLogger();
+	}
+
+	/**
+	 * Update an output archive. The output archive may be the previous output
+	 * archive, which is replaced once the update is complete.
+	 *
+	 * @param inputPath A name associated with the new input archive.
+	 * @param previousInputFile The previous input archive.
+	 * @param previousOutputFile The output archive of the previous input
+	 *            archive.
+	 * @param inputFile The new input archive.
+	 * @param outputPath A name associated with the output archive.
+	 * @param outputFile The output archive.
+	 * @return The result of the update.
+	 * @throws TransformException Thrown if the update fails.
+	 */
+	public Result apply(String inputPath, File previousInputFile, File previousOutputFile, File inputFile,
+		String outputPath, File outputFile) throws TransformException {
+
+		Charset charset = zipAction.resourceCharset(inputPath);
+		List<ZipDirectory> directories = new ArrayList<>();
+		Path changedInput = null;
+		Path changedOutput = null;
+		Path updatedOutput = null;
+		try {
+			ZipDirectory previousInput;
+			ZipDirectory previousOutput;
+			try {
+				previousInput = open(directories, previousInputFile, charset);
+				previousOutput = open(directories, previousOutputFile, charset);
+			} catch (IOException e) {
+				logger.warn("Delta [ {} ]: Previous archives cannot be read: {}", inputPath, e.toString());
+				return full(directories, inputPath, inputFile, outputPath, outputFile);
+			}
+			ZipDirectory input = open(directories, inputFile, charset);
+
+			// Pair the previous input entries with their output entries.
+			List<ZipDirectory.Entry> previousInputEntries = written(previousInput.getEntries());
+			List<ZipDirectory.Entry> previousOutputEntries = previousOutput.getEntries();
+			if (previousInputEntries.size() != previousOutputEntries.size()) {
+				logger.warn("Delta [ {} ]: Previous input has [ {} ] entries but previous output has [ {} ] entries",
+					inputPath, previousInputEntries.size(), previousOutputEntries.size());
+				return full(directories, inputPath, inputFile, outputPath, outputFile);
+			}
+			Map<String, Integer> previousPositions = new HashMap<>();
+			for (int entryNo = 0; entryNo < previousInputEntries.size(); entryNo++) {
+				previousPositions.put(previousInputEntries.get(entryNo)
+					.getName(), entryNo);
+			}
+
+			List<ZipDirectory.Entry> inputEntries = written(input.getEntries());
+			List<ZipDirectory.Entry> changedEntries = new ArrayList<>();
+			List<ZipDirectory.Entry> sources = new ArrayList<>(inputEntries.size());
+			for (ZipDirectory.Entry entry : inputEntries) {
+				Integer previousPosition = previousPositions.get(entry.getName());
+				if ((previousPosition != null) && entry.isSame(previousInputEntries.get(previousPosition))) {
+					sources.add(previousOutputEntries.get(previousPosition));
+				} else {
+					sources.add(null);
+					changedEntries.add(entry);
+				}
+			}
+			Set<String> inputNames = new HashSet<>();
+			inputEntries.forEach(entry -> inputNames.add(entry.getName()));
+			int removed = (int) previousInputEntries.stream()
+				.filter(entry -> !inputNames.contains(entry.getName()))
+				.count();
+
+			// Transform the changed entries as an archive of their own.
+			ZipDirectory changedDirectory = null;
+			if (!changedEntries.isEmpty()) {
+				changedInput = Files.createTempFile("transformer-delta", ".zip");
+				try (ZipDirectory.Writer writer = new ZipDirectory.Writer(changedInput)) {
+					for (ZipDirectory.Entry entry : changedEntries) {
+						writer.copy(input, entry);
+					}
+				}
+				changedOutput = Files.createTempFile("transformer-delta-output", ".zip");
+				zipAction.apply(inputPath, changedInput.toFile(), outputPath, changedOutput.toFile());
+				changedDirectory = open(directories, changedOutput.toFile(), charset);
+				if (changedDirectory.getEntries()
+					.size() != changedEntries.size()) {
+					logger.warn("Delta [ {} ]: [ {} ] changed entries were transformed to [ {} ] entries", inputPath,
+						changedEntries.size(), changedDirectory.getEntries()
+							.size());
+					return full(directories, inputPath, inputFile, outputPath, outputFile);
+				}
+			} else {
+				// Record empty changes, so that there are changes to report.
+				zipAction.startRecording(inputPath);
+				try {
+					zipAction.setResourceNames(inputPath, outputPath);
+				} finally {
+					zipAction.stopRecording(inputPath);
+				}
+			}
+
+			// Assemble the output in the order of the new input.
+			Path outputDirectory = outputFile.getAbsoluteFile()
+				.toPath()
+				.getParent();
+			IO.mkdirs(outputDirectory);
+			updatedOutput = Files.createTempFile(outputDirectory, outputFile.getName(), ".tmp");
+			int copied = 0;
+			try (ZipDirectory.Writer writer = new ZipDirectory.Writer(updatedOutput)) {
+				Iterator<ZipDirectory.Entry> changedOutputs = (changedDirectory == null) ? null
+					: changedDirectory.getEntries()
+						.iterator();
+				Set<String> seen = new HashSet<>();
+				for (ZipDirectory.Entry source : sources) {
+					ZipDirectory from = (source == null) ? changedDirectory : previousOutput;
+					ZipDirectory.Entry outputEntry = (source == null) ? changedOutputs.next() : source;
+					if (!seen.add(outputEntry.getName())) {
+						logger.error("Duplicate entry: Entry [ {} ] of [ {} ] is a duplicate and cannot be written to [ {} ].  Ignoring.",
+							outputEntry.getName(), inputPath, outputPath);
+						continue;
+					}
+					writer.copy(from, outputEntry);
+					if (source != null) {
+						copied++;
+					}
+				}
+			}
+			replace(updatedOutput, outputFile.toPath());
+			updatedOutput = null;
+
+			Result result = new Result(copied, changedEntries.size(), removed, false);
+			logger.info("Delta [ {} ]: Copied [ {} ] Transformed [ {} ] Removed [ {} ]", inputPath, result.copied(),
+				result.transformed(), result.removed());
+			return result;
+
+		} catch (IOException e) {
+			throw new TransformException("Failed delta update of [ " + outputPath + " ] from [ " + inputPath + " ]",
+				e);
+		} finally {
+			close(directories);
+			for (Path path : new Path[] {
+				changedInput, changedOutput, updatedOutput
+			}) {
+				if (path != null) {
+					IO.delete(path);
+				}
+			}
+		}
+	}
+
+	private static ZipDirectory open(List<ZipDirectory> directories, File file, Charset charset) throws IOException {
+		ZipDirectory directory = new ZipDirectory(file.toPath(), charset);
+		directories.add(directory);
+		return directory;
+	}
+
+	/**
+	 * Answer the entries which have output entries.
+	 */
+	private List<ZipDirectory.Entry> written(List<ZipDirectory.Entry> entries) {
+		if (!zipAction.isStripSignatures()) {
+			return entries;
+		}
+		List<ZipDirectory.Entry> written = new ArrayList<>(entries.size());
+		for (ZipDirectory.Entry entry : entries) {
+			if (!ElementAction.SIGNATURE_FILE_PATTERN.matcher(entry.getName())
+				.matches()) {
+				written.add(entry);
+			}
+		}
+		return written;
+	}
+
+	private static void close(List<ZipDirectory> directories) {
+		for (ZipDirectory directory : directories) {
+			IO.close(directory);
+		}
+		directories.clear();
+	}
+
+	/**
+	 * Transform all entries. The previous archives are closed first, since
+	 * the previous output may be the output.
+	 */
+	private Result full(List<ZipDirectory> directories, String inputPath, File inputFile, String outputPath,
+		File outputFile) throws TransformException {
+		close(directories);
+		logger.warn("Delta [ {} ]: Transforming all entries", inputPath);
+		zipAction.apply(inputPath, inputFile, outputPath, outputFile);
+		return new Result(0, 0, 0, true);
+	}
+
+	private static void replace(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+}
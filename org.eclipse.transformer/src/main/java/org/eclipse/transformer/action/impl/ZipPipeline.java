@@ -0,0 +1,441 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.action.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.eclipse.transformer.TransformException;
+import org.eclipse.transformer.util.FileUtils;
+
+/**
+ * Settings of the pipeline which is used by zip actions to overlap reading,
+ * transforming, and writing the entries of a top level archive.
+ * <p>
+ * A reader thread reads and inflates entries ahead of the transform, into a
+ * queue which is bounded both by a count of entries and by a count of bytes.
+ * The entries are transformed by the thread which applies the zip action, in
+ * the order in which they were read. Transformed entries are deflated and
+ * written by a writer thread, in the same order, through a queue which is
+ * bounded by a count of entries. The output is the same as the output which
+ * is written without a pipeline.
+ * <p>
+ * Entries which are larger than the memory limit are not read ahead: The
+ * reader waits while such entries are transformed and written by the thread
+ * which applies the zip action. Nested archives are not pipelined.
+ */
+public class ZipPipeline {
+	/** Default count of entries which are queued between stages. */
+	public static final int		DEFAULT_DEPTH			= 16;
+
+	/** Default limit of the entry bytes which are read ahead. */
+	public static final long	DEFAULT_MEMORY_LIMIT	= 64L * 1024 * 1024;
+
+	private final int			readDepth;
+	private final int			writeDepth;
+	private final long			memoryLimit;
+
+	public ZipPipeline() {
+		this(DEFAULT_DEPTH, DEFAULT_DEPTH, DEFAULT_MEMORY_LIMIT);
+	}
+
+	/**
+	 * Create pipeline settings.
+	 *
+	 * @param readDepth The count of entries which are read ahead of the
+	 *            transform.
+	 * @param writeDepth The count of transformed entries which are queued to
+	 *            be written.
+	 * @param memoryLimit The limit of the entry bytes which are read ahead.
+	 *            Entries which are larger than the limit are not read ahead.
+	 */
+	public ZipPipeline(int readDepth, int writeDepth, long memoryLimit) {
+		if ((readDepth < 1) || (writeDepth < 1)) {
+			throw new IllegalArgumentException(
+				"Pipeline depths [ " + readDepth + " ] [ " + writeDepth + " ] must be at least 1");
+		}
+		if (memoryLimit < 0L) {
+			throw new IllegalArgumentException("Pipeline memory limit [ " + memoryLimit + " ] must not be negative");
+		}
+		this.readDepth = readDepth;
+		this.writeDepth = writeDepth;
+		this.memoryLimit = Math.min(memoryLimit, FileUtils.MAX_ARRAY_LENGTH - 1);
+	}
+
+	public int getReadDepth() {
+		return readDepth;
+	}
+
+	public int getWriteDepth() {
+		return writeDepth;
+	}
+
+	public long getMemoryLimit() {
+		return memoryLimit;
+	}
+
+	@Override
+	public String toString() {
+		return "Read depth [ " + readDepth + " ] Write depth [ " + writeDepth + " ] Memory limit [ " + memoryLimit
+			+ " ]";
+	}
+
+	Reader reader(String inputPath, ZipInputStream zipInputStream) {
+		return new Reader(inputPath, zipInputStream);
+	}
+
+	Writer writer(String outputPath, ZipOutputStream zipOutputStream) {
+		return new Writer(outputPath, zipOutputStream);
+	}
+
+	/**
+	 * An entry which was read by the reader thread.
+	 */
+	static final class Entry {
+		final ZipEntry	zipEntry;
+		/** The bytes of the entry, or the initial bytes of a live entry. */
+		final byte[]	bytes;
+		/** True if the remaining bytes must be read from the zip stream. */
+		final boolean	live;
+
+		Entry(ZipEntry zipEntry, byte[] bytes, boolean live) {
+			this.zipEntry = zipEntry;
+			this.bytes = bytes;
+			this.live = live;
+		}
+	}
+
+	private static final Entry END = new Entry(null, null, false);
+
+	/**
+	 * Stage which reads entries ahead of the transform.
+	 */
+	final class Reader implements AutoCloseable {
+		private final ZipInputStream		zipInputStream;
+		private final BlockingQueue<Entry>	queue;
+		private final Semaphore				memory;
+		private final Semaphore				handoff	= new Semaphore(0);
+		private final Thread				thread;
+		private volatile IOException		failure;
+
+		Reader(String inputPath, ZipInputStream zipInputStream) {
+			this.zipInputStream = zipInputStream;
+			this.queue = new ArrayBlockingQueue<>(readDepth + 1);
+			this.memory = new Semaphore((int) memoryLimit);
+			this.thread = new Thread(this::run, "transformer-read " + inputPath);
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		private void run() {
+			try {
+				try {
+					for (ZipEntry zipEntry; (zipEntry = zipInputStream.getNextEntry()) != null;) {
+						long size = zipEntry.getSize();
+						if (size > memoryLimit) {
+							live(new Entry(zipEntry, null, true));
+							continue;
+						}
+						byte[] bytes = zipInputStream.readNBytes((int) ((size >= 0L) ? size : memoryLimit + 1L));
+						if (bytes.length > memoryLimit) {
+							live(new Entry(zipEntry, bytes, true));
+							continue;
+						}
+						memory.acquire(bytes.length);
+						queue.put(new Entry(zipEntry, bytes, false));
+					}
+				} catch (IOException e) {
+					failure = e;
+				}
+				queue.put(END);
+			} catch (InterruptedException e) {
+				// The transform was stopped.
+			}
+		}
+
+		/**
+		 * The remaining bytes of a live entry are read by the thread which
+		 * transforms the entry. Reading resumes once the entry is done.
+		 */
+		private void live(Entry entry) throws InterruptedException {
+			queue.put(entry);
+			handoff.acquire();
+		}
+
+		/**
+		 * Answer the next entry.
+		 *
+		 * @return The next entry. Null if all entries have been read.
+		 * @throws IOException Thrown if reading failed.
+		 */
+		Entry next() throws IOException {
+			Entry entry;
+			try {
+				entry = queue.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread()
+					.interrupt();
+				throw new InterruptedIOException("Interrupted while reading entries");
+			}
+			if (entry == END) {
+				queue.add(END); // Answer null to later calls.
+				if (failure != null) {
+					throw failure;
+				}
+				return null;
+			}
+			return entry;
+		}
+
+		/**
+		 * Answer a stream of the bytes of an entry. The stream of a live entry
+		 * reads from the zip stream, and does not close the zip stream.
+		 */
+		InputStream stream(Entry entry) {
+			InputStream bytesStream = (entry.bytes == null) ? null : new ByteArrayInputStream(entry.bytes);
+			if (!entry.live) {
+				return bytesStream;
+			}
+			InputStream remainingStream = new FilterInputStream(zipInputStream) {
+				@Override
+				public void close() {
+					// Leave the zip stream open for the next entry.
+				}
+			};
+			return (bytesStream == null) ? remainingStream : new SequenceInputStream(bytesStream, remainingStream);
+		}
+
+		/**
+		 * Release an entry once it has been written. Reading resumes after a
+		 * live entry is released.
+		 */
+		void release(Entry entry) {
+			if (entry.live) {
+				handoff.release();
+			} else {
+				memory.release(entry.bytes.length);
+			}
+		}
+
+		@Override
+		public void close() {
+			thread.interrupt();
+			boolean interrupted = false;
+			while (thread.isAlive()) {
+				try {
+					thread.join();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread()
+					.interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Write task of an entry.
+	 */
+	@FunctionalInterface
+	interface Task {
+		void run() throws IOException, TransformException;
+	}
+
+	/**
+	 * Stage which writes transformed entries.
+	 * <p>
+	 * Tasks are run by the writer thread in the order in which they are
+	 * submitted. Completions are run by the thread which transforms the
+	 * entries, after all earlier tasks have run. A failed task fails all
+	 * later tasks, and the failure is thrown to the transform.
+	 */
+	final class Writer implements AutoCloseable {
+		private final ZipOutputStream	zipOutputStream;
+		private final ExecutorService	executor;
+		private final Semaphore			slots;
+		private final ArrayDeque<Object>	pending		= new ArrayDeque<>();
+		private final byte[]			copyBuffer	= new byte[FileUtils.BUFFER_ADJUSTMENT];
+		private volatile Throwable		failure;
+		private boolean					live;
+
+		/** Step which is run by the transform thread. */
+		private record Completion(Runnable step) {}
+
+		Writer(String outputPath, ZipOutputStream zipOutputStream) {
+			this.zipOutputStream = zipOutputStream;
+			this.executor = Executors.newSingleThreadExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "transformer-write " + outputPath);
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.slots = new Semaphore(writeDepth);
+		}
+
+		/**
+		 * Tell if writes to a zip stream are done by this writer.
+		 */
+		boolean writes(ZipOutputStream outputStream) {
+			return zipOutputStream == outputStream;
+		}
+
+		/** @return True if the current entry is read from the zip stream. */
+		boolean isLive() {
+			return live;
+		}
+
+		void setLive(boolean live) {
+			this.live = live;
+		}
+
+		/** @return A transfer buffer for use by tasks. */
+		byte[] getCopyBuffer() {
+			return copyBuffer;
+		}
+
+		/**
+		 * Submit a task. Waits while the queue of tasks is full.
+		 */
+		void submit(Task task) throws IOException {
+			checkFailure();
+			try {
+				slots.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread()
+					.interrupt();
+				throw new InterruptedIOException("Interrupted while writing entries");
+			}
+			pending.add(executor.submit(() -> {
+				try {
+					if (failure == null) {
+						task.run();
+					}
+				} catch (Throwable t) {
+					failure = t;
+				} finally {
+					slots.release();
+				}
+			}));
+		}
+
+		/**
+		 * Submit a step which is run by the writer thread after all earlier
+		 * tasks, even if a task failed.
+		 */
+		void afterWrites(Runnable step) {
+			executor.execute(step);
+		}
+
+		/**
+		 * Run a completion after all earlier tasks have run.
+		 */
+		void complete(Runnable completion) {
+			if (pending.isEmpty()) {
+				completion.run();
+			} else {
+				pending.add(new Completion(completion));
+			}
+		}
+
+		/**
+		 * Run the completions of the tasks which have run.
+		 */
+		void harvest() throws IOException {
+			drain(false);
+		}
+
+		/**
+		 * Wait for all tasks, and run all completions.
+		 */
+		void sync() throws IOException {
+			drain(true);
+		}
+
+		private void drain(boolean wait) throws IOException {
+			for (Object next; (next = pending.peek()) != null;) {
+				if (next instanceof Future<?> future) {
+					if (!wait && !future.isDone()) {
+						break;
+					}
+					try {
+						future.get();
+					} catch (InterruptedException e) {
+						Thread.currentThread()
+							.interrupt();
+						throw new InterruptedIOException("Interrupted while writing entries");
+					} catch (ExecutionException e) {
+						failure = e.getCause();
+					}
+				} else {
+					((Completion) next).step()
+						.run();
+				}
+				pending.poll();
+			}
+			checkFailure();
+		}
+
+		private void checkFailure() throws IOException {
+			Throwable t = failure;
+			if (t != null) {
+				if (t instanceof IOException e) {
+					throw e;
+				}
+				throw new IOException("Failed to write entries", t);
+			}
+		}
+
+		/**
+		 * Stop the writer thread once the submitted tasks have run, and run
+		 * the remaining completions.
+		 */
+		@Override
+		public void close() {
+			executor.shutdown();
+			boolean interrupted = false;
+			while (!executor.isTerminated()) {
+				try {
+					executor.awaitTermination(1L, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			for (Object next; (next = pending.poll()) != null;) {
+				if (next instanceof Completion completion) {
+					completion.step()
+						.run();
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread()
+					.interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,262 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event types of the transformer. Only used through
+ * {@link TransformerEvents}, when the JFR API is available.
+ */
+final class JfrEvents {
+	private JfrEvents() {}
+
+	private static <E extends Event> E begin(E event) {
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	//
+
+	@Name("org.eclipse.transformer.Action")
+	@Label("Transformer Action")
+	@Category("Eclipse Transformer")
+	@Description("Transformation of a resource by an action, from the start to the stop of its recording")
+	@StackTrace(false)
+	static final class ActionEvent extends Event {
+		@Label("Resource Name")
+		String	resourceName;
+
+		@Label("Action Type")
+		String	actionType;
+
+		@Label("Input Bytes")
+		@DataAmount
+		long	inputBytes;
+
+		@Label("Output Bytes")
+		@DataAmount
+		long	outputBytes;
+
+		@Label("Outcome")
+		String	outcome;
+	}
+
+	static Object beginAction() {
+		return begin(new ActionEvent());
+	}
+
+	static void endAction(Object token, String resourceName, String actionType, long inputBytes, long outputBytes,
+		String outcome) {
+		ActionEvent event = (ActionEvent) token;
+		event.end();
+		if (event.shouldCommit()) {
+			event.resourceName = resourceName;
+			event.actionType = actionType;
+			event.inputBytes = inputBytes;
+			event.outputBytes = outputBytes;
+			event.outcome = outcome;
+			event.commit();
+		}
+	}
+
+	//
+
+	@Name("org.eclipse.transformer.Entry")
+	@Label("Transformer Entry")
+	@Category("Eclipse Transformer")
+	@Description("Processing of an entry of a container on the transforming thread")
+	@StackTrace(false)
+	static final class EntryEvent extends Event {
+		@Label("Container Name")
+		String	containerName;
+
+		@Label("Entry Name")
+		String	entryName;
+
+		@Label("Action Type")
+		String	actionType;
+
+		@Label("Input Bytes")
+		@DataAmount
+		long	inputBytes;
+
+		@Label("Output Bytes")
+		@DataAmount
+		long	outputBytes;
+
+		@Label("Outcome")
+		String	outcome;
+	}
+
+	static Object beginEntry() {
+		return begin(new EntryEvent());
+	}
+
+	static void endEntry(Object token, String containerName, String entryName, String actionType, long inputBytes,
+		long outputBytes, String outcome) {
+		EntryEvent event = (EntryEvent) token;
+		event.end();
+		if (event.shouldCommit()) {
+			event.containerName = containerName;
+			event.entryName = entryName;
+			event.actionType = actionType;
+			event.inputBytes = inputBytes;
+			event.outputBytes = outputBytes;
+			event.outcome = outcome;
+			event.commit();
+		}
+	}
+
+	//
+
+	@Name("org.eclipse.transformer.Class")
+	@Label("Transformer Class")
+	@Category("Eclipse Transformer")
+	@Description("Transformation of a class")
+	@StackTrace(false)
+	static final class ClassEvent extends Event {
+		@Label("Resource Name")
+		String	resourceName;
+
+		@Label("Input Class Name")
+		String	inputClassName;
+
+		@Label("Output Class Name")
+		String	outputClassName;
+
+		@Label("Input Bytes")
+		@DataAmount
+		long	inputBytes;
+
+		@Label("Output Bytes")
+		@DataAmount
+		long	outputBytes;
+
+		@Label("Modified Constants")
+		int		modifiedConstants;
+
+		@Label("Outcome")
+		String	outcome;
+	}
+
+	static Object beginClass() {
+		return begin(new ClassEvent());
+	}
+
+	static void endClass(Object token, String resourceName, String inputClassName, String outputClassName,
+		long inputBytes, long outputBytes, int modifiedConstants, String outcome) {
+		ClassEvent event = (ClassEvent) token;
+		event.end();
+		if (event.shouldCommit()) {
+			event.resourceName = resourceName;
+			event.inputClassName = inputClassName;
+			event.outputClassName = outputClassName;
+			event.inputBytes = inputBytes;
+			event.outputBytes = outputBytes;
+			event.modifiedConstants = modifiedConstants;
+			event.outcome = outcome;
+			event.commit();
+		}
+	}
+
+	//
+
+	@Name("org.eclipse.transformer.SignatureCacheMiss")
+	@Label("Transformer Signature Cache Miss")
+	@Category("Eclipse Transformer")
+	@Description("Transformation of a binary type, descriptor, or signature which was not cached")
+	@StackTrace(false)
+	static final class CacheMissEvent extends Event {
+		@Label("Cache")
+		String	cache;
+
+		@Label("Value")
+		String	value;
+
+		@Label("Changed")
+		boolean	changed;
+	}
+
+	static Object beginCacheMiss() {
+		return begin(new CacheMissEvent());
+	}
+
+	static void endCacheMiss(Object token, String cache, String value, boolean changed) {
+		CacheMissEvent event = (CacheMissEvent) token;
+		event.end();
+		if (event.shouldCommit()) {
+			event.cache = cache;
+			event.value = value;
+			event.changed = changed;
+			event.commit();
+		}
+	}
+
+	//
+
+	@Name("org.eclipse.transformer.Rules")
+	@Label("Transformer Rules")
+	@Category("Eclipse Transformer")
+	@Description("Loading of the transformation rules")
+	static final class RulesEvent extends Event {
+		@Label("Snapshot")
+		boolean	snapshot;
+
+		@Label("Selections")
+		int		selections;
+
+		@Label("Package Renames")
+		int		renames;
+
+		@Label("Package Versions")
+		int		versions;
+
+		@Label("Bundle Updates")
+		int		bundles;
+
+		@Label("Direct Strings")
+		int		directStrings;
+
+		@Label("Loaded")
+		boolean	loaded;
+	}
+
+	static Object beginRules() {
+		return begin(new RulesEvent());
+	}
+
+	static void endRules(Object token, boolean snapshot, int selections, int renames, int versions, int bundles,
+		int directStrings, boolean loaded) {
+		RulesEvent event = (RulesEvent) token;
+		event.end();
+		if (event.shouldCommit()) {
+			event.snapshot = snapshot;
+			event.selections = selections;
+			event.renames = renames;
+			event.versions = versions;
+			event.bundles = bundles;
+			event.directStrings = directStrings;
+			event.loaded = loaded;
+			event.commit();
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.jfr;
+
+import org.eclipse.transformer.action.ActionType;
+
+/**
+ * Java Flight Recorder events of the transformer.
+ * <p>
+ * Each event is begun by a "begin" method, which answers an event token, and
+ * is committed by the matching "end" method, which is given the token. The
+ * token is null when the event is not enabled by a recording, in which case
+ * the "end" method does nothing.
+ * <p>
+ * The JFR API is optional: When the "jdk.jfr" module is not available, no
+ * events are begun. The JFR API is used only by {@link JfrEvents}, which is
+ * not loaded unless the API is available.
+ */
+public final class TransformerEvents {
+	private TransformerEvents() {}
+
+	private static final boolean AVAILABLE = loadable();
+
+	private static boolean loadable() {
+		try {
+			Class.forName("jdk.jfr.Event", false, TransformerEvents.class.getClassLoader());
+			return true;
+		} catch (Throwable th) {
+			return false;
+		}
+	}
+
+	/**
+	 * Tell if the JFR API is available.
+	 *
+	 * @return True or false telling if the JFR API is available.
+	 */
+	public static boolean isAvailable() {
+		return AVAILABLE;
+	}
+
+	private static String name(ActionType actionType) {
+		return (actionType == null) ? null : actionType.name();
+	}
+
+	// Action: From the start to the stop of the recording of an action.
+
+	public static Object beginAction() {
+		return AVAILABLE ? JfrEvents.beginAction() : null;
+	}
+
+	public static void endAction(Object event, String resourceName, ActionType actionType, long inputBytes,
+		long outputBytes, String outcome) {
+		if (event != null) {
+			JfrEvents.endAction(event, resourceName, name(actionType), inputBytes, outputBytes, outcome);
+		}
+	}
+
+	// Entry: The processing of one entry of a container.
+
+	public static Object beginEntry() {
+		return AVAILABLE ? JfrEvents.beginEntry() : null;
+	}
+
+	public static void endEntry(Object event, String containerName, String entryName, ActionType actionType,
+		long inputBytes, long outputBytes, String outcome) {
+		if (event != null) {
+			JfrEvents.endEntry(event, containerName, entryName, name(actionType), inputBytes, outputBytes,
+				outcome);
+		}
+	}
+
+	// Class: The transformation of one class.
+
+	public static Object beginClass() {
+		return AVAILABLE ? JfrEvents.beginClass() : null;
+	}
+
+	public static void endClass(Object event, String resourceName, String inputClassName, String outputClassName,
+		long inputBytes, long outputBytes, int modifiedConstants, String outcome) {
+		if (event != null) {
+			JfrEvents.endClass(event, resourceName, inputClassName, outputClassName, inputBytes, outputBytes,
+				modifiedConstants, outcome);
+		}
+	}
+
+	// Signature cache miss: The computation of a value which was not cached.
+
+	public static Object beginCacheMiss() {
+		return AVAILABLE ? JfrEvents.beginCacheMiss() : null;
+	}
+
+	public static void endCacheMiss(Object event, String cache, String value, boolean changed) {
+		if (event != null) {
+			JfrEvents.endCacheMiss(event, cache, value, changed);
+		}
+	}
+
+	// Rules: The loading of the transformation rules.
+
+	public static Object beginRules() {
+		return AVAILABLE ? JfrEvents.beginRules() : null;
+	}
+
+	public static void endRules(Object event, boolean snapshot, int selections, int renames, int versions,
+		int bundles, int directStrings, boolean loaded) {
+		if (event != null) {
+			JfrEvents.endRules(event, snapshot, selections, renames, versions, bundles, directStrings, loaded);
+		}
+	}
+}
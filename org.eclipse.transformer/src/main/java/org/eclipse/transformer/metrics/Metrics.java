@@ -0,0 +1,118 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.metrics;
+
+/**
+ * Metrics of transforms: Named counters and histograms, each of which has a
+ * series for each distinct set of label values.
+ * <p>
+ * Metrics are passed to actions through the action context. Actions obtain
+ * their counters and histograms once, and update them as resources are
+ * transformed. {@link #DISABLED} metrics are used when no metrics are
+ * collected, in which case actions obtain no counters or histograms.
+ * <p>
+ * {@link MetricsRegistry} is the metrics implementation of the transformer.
+ * Other implementations may be provided, for example, to bridge to the
+ * metrics library of an application.
+ */
+public interface Metrics {
+	/**
+	 * A counter: A value which only increases.
+	 */
+	interface Counter {
+		/**
+		 * Add to the counter.
+		 *
+		 * @param amount The amount which is added. Must not be negative.
+		 */
+		void add(long amount);
+
+		/**
+		 * Add one to the counter.
+		 */
+		default void increment() {
+			add(1L);
+		}
+	}
+
+	/**
+	 * A histogram: A distribution of observed values.
+	 */
+	interface Histogram {
+		/**
+		 * Observe a value.
+		 *
+		 * @param value The observed value.
+		 */
+		void observe(double value);
+	}
+
+	/**
+	 * Metrics which collect nothing.
+	 */
+	Metrics DISABLED = new Metrics() {
+		private final Counter	counter		= amount -> {};
+		private final Histogram	histogram	= value -> {};
+
+		@Override
+		public boolean isEnabled() {
+			return false;
+		}
+
+		@Override
+		public Counter counter(String name, String help, String... labels) {
+			return counter;
+		}
+
+		@Override
+		public Histogram histogram(String name, String help, String... labels) {
+			return histogram;
+		}
+
+		@Override
+		public String toString() {
+			return "Metrics [ DISABLED ]";
+		}
+	};
+
+	/**
+	 * Tell if these metrics collect values. Actions do not obtain counters or
+	 * histograms from metrics which are not enabled.
+	 *
+	 * @return True or false telling if these metrics collect values.
+	 */
+	default boolean isEnabled() {
+		return true;
+	}
+
+	/**
+	 * Answer the series of a counter. The same counter is answered for the
+	 * same name and label values.
+	 *
+	 * @param name The name of the counter.
+	 * @param help A description of the counter.
+	 * @param labels Label names and values, alternating.
+	 * @return The series of the counter.
+	 */
+	Counter counter(String name, String help, String... labels);
+
+	/**
+	 * Answer the series of a histogram. The same histogram is answered for
+	 * the same name and label values.
+	 *
+	 * @param name The name of the histogram.
+	 * @param help A description of the histogram.
+	 * @param labels Label names and values, alternating.
+	 * @return The series of the histogram.
+	 */
+	Histogram histogram(String name, String help, String... labels);
+}
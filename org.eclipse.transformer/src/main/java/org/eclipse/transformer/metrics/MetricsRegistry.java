@@ -0,0 +1,417 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import aQute.lib.io.IO;
+import org.eclipse.transformer.util.Json;
+
+/**
+ * Metrics which are kept in memory, and which are written as Prometheus
+ * exposition text or as JSON.
+ * <p>
+ * The Prometheus text is suitable for the text file collector of the node
+ * exporter: Files are written to a temporary file which is then moved to the
+ * target file, so that a collector never reads a partially written file.
+ * <p>
+ * Counters and histograms may be updated concurrently.
+ */
+public class MetricsRegistry implements Metrics {
+	/**
+	 * Formats in which metrics are written.
+	 */
+	public enum Format {
+		/** Prometheus exposition text. */
+		PROMETHEUS,
+		/** JSON. */
+		JSON;
+
+		/**
+		 * Answer a format by name, ignoring case.
+		 *
+		 * @param name The name of the format.
+		 * @return The named format. Null if no format has the name.
+		 */
+		public static Format of(String name) {
+			for (Format format : values()) {
+				if (format.name()
+					.equalsIgnoreCase(name.trim())) {
+					return format;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Answer the format of a file: JSON for files which have the ".json"
+		 * extension, and Prometheus text for all other files.
+		 *
+		 * @param file The file.
+		 * @return The format of the file.
+		 */
+		public static Format of(File file) {
+			return file.getName()
+				.toLowerCase(Locale.ROOT)
+				.endsWith(".json") ? JSON : PROMETHEUS;
+		}
+	}
+
+	/**
+	 * The upper bounds of the buckets of histograms, in seconds.
+	 */
+	public static final double[] DEFAULT_BUCKETS = {
+		0.0001, 0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1.0, 5.0, 10.0
+	};
+
+	private final Map<String, Family>	families;
+	private final double[]				buckets;
+
+	public MetricsRegistry() {
+		this(DEFAULT_BUCKETS);
+	}
+
+	/**
+	 * Create metrics which use specific histogram buckets.
+	 *
+	 * @param buckets The upper bounds of the buckets of histograms, in
+	 *            increasing order. The "+Inf" bucket is implied.
+	 */
+	public MetricsRegistry(double[] buckets) {
+		this.families = new ConcurrentHashMap<>();
+		this.buckets = buckets.clone();
+		for (int bucketNo = 1; bucketNo < this.buckets.length; bucketNo++) {
+			if (this.buckets[bucketNo - 1] >= this.buckets[bucketNo]) {
+				throw new IllegalArgumentException("Buckets are not increasing " + Arrays.toString(buckets));
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Metrics [ " + families.size() + " ]";
+	}
+
+	//
+
+	private enum Type {
+		COUNTER,
+		HISTOGRAM;
+
+		String getName() {
+			return name().toLowerCase(Locale.ROOT);
+		}
+	}
+
+	/**
+	 * The series of a named counter or histogram, keyed by label values.
+	 */
+	private record Family(String name, String help, Type type, List<String> labelNames,
+		Map<List<String>, Object> series) {}
+
+	private static final class CounterSeries implements Counter {
+		private final LongAdder value = new LongAdder();
+
+		@Override
+		public void add(long amount) {
+			if (amount < 0L) {
+				throw new IllegalArgumentException("Counters cannot be decreased [ " + amount + " ]");
+			}
+			value.add(amount);
+		}
+	}
+
+	private static final class HistogramSeries implements Histogram {
+		private final double[]		bounds;
+		private final LongAdder[]	counts;
+		private final DoubleAdder	sum;
+
+		HistogramSeries(double[] bounds) {
+			this.bounds = bounds;
+			// The last count is of the "+Inf" bucket.
+			this.counts = new LongAdder[bounds.length + 1];
+			for (int bucketNo = 0; bucketNo < counts.length; bucketNo++) {
+				counts[bucketNo] = new LongAdder();
+			}
+			this.sum = new DoubleAdder();
+		}
+
+		@Override
+		public void observe(double value) {
+			int bucketNo = 0;
+			while ((bucketNo < bounds.length) && (value > bounds[bucketNo])) {
+				bucketNo++;
+			}
+			counts[bucketNo].increment();
+			sum.add(value);
+		}
+
+		/**
+		 * Answer the cumulative counts of the buckets. The last count is the
+		 * count of all observations.
+		 */
+		long[] cumulativeCounts() {
+			long[] cumulative = new long[counts.length];
+			long total = 0L;
+			for (int bucketNo = 0; bucketNo < counts.length; bucketNo++) {
+				total += counts[bucketNo].sum();
+				cumulative[bucketNo] = total;
+			}
+			return cumulative;
+		}
+	}
+
+	@Override
+	public Counter counter(String name, String help, String... labels) {
+		return (Counter) series(name, help, Type.COUNTER, labels);
+	}
+
+	@Override
+	public Histogram histogram(String name, String help, String... labels) {
+		return (Histogram) series(name, help, Type.HISTOGRAM, labels);
+	}
+
+	private Object series(String name, String help, Type type, String... labels) {
+		requireNonNull(name);
+		if ((labels.length % 2) != 0) {
+			throw new IllegalArgumentException(
+				"Metric [ " + name + " ] labels must be names and values [ " + Arrays.toString(labels) + " ]");
+		}
+		List<String> labelNames = new ArrayList<>(labels.length / 2);
+		List<String> labelValues = new ArrayList<>(labels.length / 2);
+		for (int labelNo = 0; labelNo < labels.length; labelNo += 2) {
+			labelNames.add(requireNonNull(labels[labelNo]));
+			labelValues.add(requireNonNull(labels[labelNo + 1]));
+		}
+
+		Family family = families.computeIfAbsent(name,
+			n -> new Family(n, help, type, labelNames, new ConcurrentHashMap<>()));
+		if ((family.type() != type) || !family.labelNames()
+			.equals(labelNames)) {
+			throw new IllegalArgumentException("Metric [ " + name + " ] is a [ " + family.type()
+				.getName() + " ] with labels " + family.labelNames() + " and is not a [ " + type.getName()
+				+ " ] with labels " + labelNames);
+		}
+		return family.series()
+			.computeIfAbsent(labelValues,
+				values -> (type == Type.COUNTER) ? new CounterSeries() : new HistogramSeries(buckets));
+	}
+
+	//
+
+	private List<Family> sortedFamilies() {
+		List<Family> sorted = new ArrayList<>(families.values());
+		sorted.sort(Comparator.comparing(Family::name));
+		return sorted;
+	}
+
+	private static List<Map.Entry<List<String>, Object>> sortedSeries(Family family) {
+		List<Map.Entry<List<String>, Object>> sorted = new ArrayList<>(family.series()
+			.entrySet());
+		sorted.sort(Comparator.comparing(seriesEntry -> String.join("\u0000", seriesEntry.getKey())));
+		return sorted;
+	}
+
+	private static String bound(double bound) {
+		return BigDecimal.valueOf(bound)
+			.stripTrailingZeros()
+			.toPlainString();
+	}
+
+	/**
+	 * Write these metrics as Prometheus exposition text.
+	 *
+	 * @param output The output to which the text is written.
+	 * @throws IOException Thrown if the output fails.
+	 */
+	public void writePrometheus(Appendable output) throws IOException {
+		for (Family family : sortedFamilies()) {
+			if (family.help() != null) {
+				output.append("# HELP ")
+					.append(family.name())
+					.append(' ')
+					.append(escapeHelp(family.help()))
+					.append('\n');
+			}
+			output.append("# TYPE ")
+				.append(family.name())
+				.append(' ')
+				.append(family.type()
+					.getName())
+				.append('\n');
+
+			for (Map.Entry<List<String>, Object> seriesEntry : sortedSeries(family)) {
+				List<String> labelValues = seriesEntry.getKey();
+				if (seriesEntry.getValue() instanceof CounterSeries counter) {
+					writeSample(output, family.name(), family.labelNames(), labelValues, null, null);
+					output.append(Long.toString(counter.value.sum()))
+						.append('\n');
+				} else {
+					HistogramSeries histogram = (HistogramSeries) seriesEntry.getValue();
+					long[] cumulative = histogram.cumulativeCounts();
+					for (int bucketNo = 0; bucketNo < cumulative.length; bucketNo++) {
+						String le = (bucketNo < buckets.length) ? bound(buckets[bucketNo]) : "+Inf";
+						writeSample(output, family.name() + "_bucket", family.labelNames(), labelValues, "le", le);
+						output.append(Long.toString(cumulative[bucketNo]))
+							.append('\n');
+					}
+					writeSample(output, family.name() + "_sum", family.labelNames(), labelValues, null, null);
+					output.append(Double.toString(histogram.sum.sum()))
+						.append('\n');
+					writeSample(output, family.name() + "_count", family.labelNames(), labelValues, null, null);
+					output.append(Long.toString(cumulative[cumulative.length - 1]))
+						.append('\n');
+				}
+			}
+		}
+	}
+
+	private static void writeSample(Appendable output, String name, List<String> labelNames,
+		List<String> labelValues, String extraName, String extraValue) throws IOException {
+		output.append(name);
+		if (!labelNames.isEmpty() || (extraName != null)) {
+			output.append('{');
+			String separator = "";
+			for (int labelNo = 0; labelNo < labelNames.size(); labelNo++) {
+				output.append(separator)
+					.append(labelNames.get(labelNo))
+					.append("=\"")
+					.append(escapeLabel(labelValues.get(labelNo)))
+					.append('"');
+				separator = ",";
+			}
+			if (extraName != null) {
+				output.append(separator)
+					.append(extraName)
+					.append("=\"")
+					.append(extraValue)
+					.append('"');
+			}
+			output.append('}');
+		}
+		output.append(' ');
+	}
+
+	private static String escapeHelp(String help) {
+		return help.replace("\\", "\\\\")
+			.replace("\n", "\\n");
+	}
+
+	private static String escapeLabel(String value) {
+		return value.replace("\\", "\\\\")
+			.replace("\"", "\\\"")
+			.replace("\n", "\\n");
+	}
+
+	/**
+	 * Answer the JSON representation of these metrics: An object which has a
+	 * "metrics" array, which has an object for each counter and histogram,
+	 * which has the series of the counter or histogram.
+	 *
+	 * @return The JSON representation of these metrics.
+	 */
+	public Map<String, Object> toMap() {
+		List<Object> metrics = new ArrayList<>();
+		for (Family family : sortedFamilies()) {
+			Map<String, Object> familyMap = new LinkedHashMap<>();
+			familyMap.put("name", family.name());
+			familyMap.put("type", family.type()
+				.getName());
+			familyMap.put("help", family.help());
+
+			List<Object> series = new ArrayList<>();
+			for (Map.Entry<List<String>, Object> seriesEntry : sortedSeries(family)) {
+				Map<String, Object> seriesMap = new LinkedHashMap<>();
+				Map<String, Object> labels = new LinkedHashMap<>();
+				for (int labelNo = 0; labelNo < family.labelNames()
+					.size(); labelNo++) {
+					labels.put(family.labelNames()
+						.get(labelNo),
+						seriesEntry.getKey()
+							.get(labelNo));
+				}
+				seriesMap.put("labels", labels);
+				if (seriesEntry.getValue() instanceof CounterSeries counter) {
+					seriesMap.put("value", counter.value.sum());
+				} else {
+					HistogramSeries histogram = (HistogramSeries) seriesEntry.getValue();
+					long[] cumulative = histogram.cumulativeCounts();
+					seriesMap.put("count", cumulative[cumulative.length - 1]);
+					seriesMap.put("sum", histogram.sum.sum());
+					Map<String, Object> bucketCounts = new LinkedHashMap<>();
+					for (int bucketNo = 0; bucketNo < cumulative.length; bucketNo++) {
+						bucketCounts.put((bucketNo < buckets.length) ? bound(buckets[bucketNo]) : "+Inf",
+							cumulative[bucketNo]);
+					}
+					seriesMap.put("buckets", bucketCounts);
+				}
+				series.add(seriesMap);
+			}
+			familyMap.put("series", series);
+			metrics.add(familyMap);
+		}
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("metrics", metrics);
+		return map;
+	}
+
+	/**
+	 * Write these metrics to a file. The metrics are written to a temporary
+	 * file, which is then moved to the file.
+	 *
+	 * @param file The file which is to be written.
+	 * @param format The format in which the metrics are written.
+	 * @throws IOException Thrown if the file cannot be written.
+	 */
+	public void write(File file, Format format) throws IOException {
+		Path target = file.getAbsoluteFile()
+			.toPath();
+		Path parent = target.getParent();
+		IO.mkdirs(parent);
+		Path temp = Files.createTempFile(parent, file.getName(), ".tmp");
+		try {
+			try (Writer writer = IO.writer(temp)) {
+				if (format == Format.JSON) {
+					Json.write(writer, toMap());
+				} else {
+					writePrometheus(writer);
+				}
+			}
+			try {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+}
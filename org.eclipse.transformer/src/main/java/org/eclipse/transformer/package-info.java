@@ -9,7 +9,7 @@
  * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
  ********************************************************************************/
 
-@Version("1.0.0")
+@Version("1.1.0")
 @Export
 package org.eclipse.transformer;
 
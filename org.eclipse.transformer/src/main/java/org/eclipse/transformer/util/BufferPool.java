@@ -0,0 +1,245 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Pool of heap byte buffers, with one pool per worker thread.
+ * <p>
+ * Buffers are pooled in size classes, which are the powers of two from
+ * {@link FileUtils#PAGE_SIZE} to {@link #MAX_POOLED_CAPACITY}. A buffer has
+ * the capacity of its size class, which may be larger than was requested.
+ * Larger buffers are not pooled.
+ * <p>
+ * Buffers are acquired within a {@link Scope}. A buffer is returned to the
+ * pool when it is released, or when its scope is closed, after which the
+ * buffer must no longer be used. The zip action opens a scope for each entry,
+ * which is closed once the entry has been written. Buffers which are acquired
+ * while no scope is open are not pooled, and are never reused.
+ * <p>
+ * A pool is used only by its worker thread, and is not thread safe.
+ */
+public class BufferPool {
+	/** Capacity of the largest pooled buffers. */
+	public static final int					MAX_POOLED_CAPACITY		= 16 * 1024 * 1024;
+
+	/** Default limit of the bytes of the free buffers of a pool. */
+	public static final long				DEFAULT_RETAINED_LIMIT	= 64L * 1024 * 1024;
+
+	private static final int				MIN_CLASS				= Integer
+		.numberOfTrailingZeros(FileUtils.PAGE_SIZE);
+	private static final int				MAX_CLASS				= Integer
+		.numberOfTrailingZeros(MAX_POOLED_CAPACITY);
+
+	private static final ThreadLocal<BufferPool>	local					= ThreadLocal
+		.withInitial(() -> new BufferPool(DEFAULT_RETAINED_LIMIT));
+
+	/**
+	 * Answer the pool of the current worker thread.
+	 *
+	 * @return The pool of the current thread.
+	 */
+	public static BufferPool local() {
+		return local.get();
+	}
+
+	/**
+	 * Acquire a buffer in the innermost open scope of the pool of the current
+	 * thread. A plain buffer is allocated if no scope is open.
+	 *
+	 * @param capacity The minimum capacity of the buffer.
+	 * @return A heap buffer which has a position of zero, a limit equal to its
+	 *         capacity, and an array offset of zero.
+	 */
+	public static ByteBuffer allocate(int capacity) {
+		Scope scope = local().current();
+		return (scope == null) ? ByteBuffer.allocate(capacity) : scope.acquire(capacity);
+	}
+
+	private final long					retainedLimit;
+	private final ArrayDeque<ByteBuffer>[]	free;
+	private final ArrayDeque<Scope>		scopes		= new ArrayDeque<>();
+
+	private long						retainedBytes;
+	private long						inUseBytes;
+	private long						highWaterMark;
+	private long						allocations;
+	private long						reuses;
+
+	/**
+	 * Create a pool. Pools are usually obtained using {@link #local()}.
+	 *
+	 * @param retainedLimit The limit of the bytes of the free buffers of the
+	 *            pool. Released buffers which would exceed the limit are
+	 *            discarded.
+	 */
+	@SuppressWarnings("unchecked")
+	public BufferPool(long retainedLimit) {
+		this.retainedLimit = retainedLimit;
+		this.free = new ArrayDeque[MAX_CLASS - MIN_CLASS + 1];
+		for (int sizeClass = 0; sizeClass < free.length; sizeClass++) {
+			free[sizeClass] = new ArrayDeque<>();
+		}
+	}
+
+	/**
+	 * Open a scope. The scope becomes the innermost open scope of this pool.
+	 *
+	 * @return The new scope.
+	 */
+	public Scope open() {
+		Scope scope = new Scope();
+		scopes.push(scope);
+		return scope;
+	}
+
+	/**
+	 * Answer the innermost open scope of this pool.
+	 *
+	 * @return The innermost open scope. Null if no scope is open.
+	 */
+	public Scope current() {
+		return scopes.peek();
+	}
+
+	/** @return The bytes of the buffers which are acquired and not released. */
+	public long getInUseBytes() {
+		return inUseBytes;
+	}
+
+	/** @return The largest value of the bytes in use. */
+	public long getHighWaterMark() {
+		return highWaterMark;
+	}
+
+	/** @return The bytes of the free buffers of this pool. */
+	public long getRetainedBytes() {
+		return retainedBytes;
+	}
+
+	/** @return The count of pooled buffers which were newly allocated. */
+	public long getAllocations() {
+		return allocations;
+	}
+
+	/** @return The count of pooled buffers which were reused. */
+	public long getReuses() {
+		return reuses;
+	}
+
+	@Override
+	public String toString() {
+		return "In use [ " + inUseBytes + " ] High water [ " + highWaterMark + " ] Retained [ " + retainedBytes
+			+ " ] Allocated [ " + allocations + " ] Reused [ " + reuses + " ]";
+	}
+
+	private static int sizeClass(int capacity) {
+		if (capacity <= FileUtils.PAGE_SIZE) {
+			return 0;
+		}
+		int bits = 32 - Integer.numberOfLeadingZeros(capacity - 1);
+		return Math.max(bits, MIN_CLASS) - MIN_CLASS;
+	}
+
+	private ByteBuffer take(int capacity) {
+		if ((capacity < 0) || (capacity > MAX_POOLED_CAPACITY)) {
+			return ByteBuffer.allocate(capacity);
+		}
+		int sizeClass = sizeClass(capacity);
+		ByteBuffer buffer = free[sizeClass].poll();
+		if (buffer == null) {
+			buffer = ByteBuffer.allocate(1 << (sizeClass + MIN_CLASS));
+			allocations++;
+		} else {
+			retainedBytes -= buffer.capacity();
+			buffer.clear();
+			reuses++;
+		}
+		inUseBytes += buffer.capacity();
+		if (inUseBytes > highWaterMark) {
+			highWaterMark = inUseBytes;
+		}
+		return buffer;
+	}
+
+	private void give(ByteBuffer buffer) {
+		int capacity = buffer.capacity();
+		inUseBytes -= capacity;
+		if (retainedBytes + capacity <= retainedLimit) {
+			free[sizeClass(capacity)].push(buffer);
+			retainedBytes += capacity;
+		}
+	}
+
+	/**
+	 * Scope of acquired buffers. Closing a scope releases the buffers which
+	 * were acquired in the scope and which were not already released.
+	 */
+	public class Scope implements AutoCloseable {
+		private final Set<ByteBuffer>	buffers	= Collections.newSetFromMap(new IdentityHashMap<>());
+		private boolean					closed;
+
+		Scope() {}
+
+		/**
+		 * Acquire a buffer. The buffer is a plain buffer, which is not
+		 * released, if the scope is closed or if the capacity is larger than
+		 * {@link BufferPool#MAX_POOLED_CAPACITY}.
+		 *
+		 * @param capacity The minimum capacity of the buffer.
+		 * @return A heap buffer which has a position of zero, a limit equal to
+		 *         its capacity, and an array offset of zero.
+		 */
+		public ByteBuffer acquire(int capacity) {
+			if (closed || (capacity > MAX_POOLED_CAPACITY)) {
+				return ByteBuffer.allocate(capacity);
+			}
+			ByteBuffer buffer = take(capacity);
+			buffers.add(buffer);
+			return buffer;
+		}
+
+		/**
+		 * Release a buffer before the scope is closed. Buffers which were not
+		 * acquired in this scope are ignored.
+		 *
+		 * @param buffer The buffer which is to be released.
+		 */
+		public void release(ByteBuffer buffer) {
+			if (buffers.remove(buffer)) {
+				give(buffer);
+			}
+		}
+
+		/**
+		 * Close the scope, and release all buffers which were acquired in the
+		 * scope.
+		 */
+		@Override
+		public void close() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			scopes.remove(this);
+			for (ByteBuffer buffer : buffers) {
+				give(buffer);
+			}
+			buffers.clear();
+		}
+	}
+}
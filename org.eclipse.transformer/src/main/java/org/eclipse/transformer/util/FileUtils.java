@@ -12,6 +12,7 @@
 package org.eclipse.transformer.util;
 
 import java.io.BufferedWriter;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -19,10 +20,12 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.regex.Pattern;
 
 import aQute.lib.io.ByteBufferInputStream;
@@ -41,6 +44,11 @@ public class FileUtils {
 	/** Size for allocating read buffers. */
 	public static final int	BUFFER_ADJUSTMENT	= PAGE_SIZE * 16;
 
+	/**
+	 * Size at and above which input files are mapped instead of being read.
+	 */
+	public static final int	MAP_THRESHOLD		= BUFFER_ADJUSTMENT;
+
 	/** Maximum array size. Adjusted per ByteArrayInputStream comments. */
 	public static final int	MAX_ARRAY_LENGTH	= Integer.MAX_VALUE - 8;
 
@@ -119,7 +127,7 @@ public class FileUtils {
 
 		logger.debug("Reading [ {} ] bytes [ {} ]", inputName, requested);
 
-		ByteBuffer initialBuffer = ByteBuffer.allocate((requested < 0) ? BUFFER_ADJUSTMENT : requested);
+		ByteBuffer initialBuffer = BufferPool.allocate((requested < 0) ? BUFFER_ADJUSTMENT : requested);
 
 		ByteBuffer finalBuffer = read(inputName, inputStream, initialBuffer, requested);
 
@@ -149,7 +157,9 @@ public class FileUtils {
 	 * @param requested The count of bytes to read from the stream. If less than
 	 *            zero, all available bytes will be read.
 	 * @return Byte data from the read.  The original byte buffer, if it had enough capacity.
-	 *     Otherwise, a newly allocated byte buffer.
+	 *     Otherwise, a newly allocated byte buffer.  Larger buffers are acquired from the
+	 *     innermost open scope of the {@link BufferPool} of the current thread, and
+	 *     replaced buffers which were acquired in that scope are released.
 	 * @throws IOException Thrown if a read fails, or if overflow or underflow
 	 *             occurs.
 	 */
@@ -180,6 +190,8 @@ public class FileUtils {
 		// We intend to read starting at position 0 of the output buffer.
 		// The entire capacity of the output buffer is available.
 		int outputCapacity = outputBuffer.capacity();
+		BufferPool.Scope scope = BufferPool.local()
+			.current();
 
 		int read = 0;
 
@@ -188,8 +200,8 @@ public class FileUtils {
 			if ( requested > outputCapacity ) {
 				// 'allocate' sets the position to zero, but also sets the limit to
 				// the capacity.  We will correct that before returning the buffer.
-				outputBuffer = ByteBuffer.allocate(requested);
-				outputCapacity = requested;
+				outputBuffer = (scope == null) ? ByteBuffer.allocate(requested) : scope.acquire(requested);
+				outputCapacity = outputBuffer.capacity();
 			}
 
 			int unread = requested;
@@ -244,12 +256,19 @@ public class FileUtils {
 
 				// 'allocate' sets the position to zero, but also sets the limit to
 				// the capacity.  We will correct that before returning the buffer.
-				outputBuffer = ByteBuffer.allocate(outputCapacity += adjustment);
-				unused = adjustment; // 'unused' must initially be zero.
+				// Pooled buffers may have more than the requested capacity.
+				ByteBuffer oldBuffer = outputBuffer;
+				int capacity = outputCapacity + adjustment;
+				outputBuffer = (scope == null) ? ByteBuffer.allocate(capacity) : scope.acquire(capacity);
+				outputCapacity = outputBuffer.capacity();
+				unused = outputCapacity - read; // 'unused' must initially be zero.
 
 				byte[] oldBuf = buf;
 				buf = outputBuffer.array();
 				System.arraycopy(oldBuf, 0, buf, 0, read);
+				if (scope != null) {
+					scope.release(oldBuffer);
+				}
 			}
 		}
 
@@ -261,6 +280,51 @@ public class FileUtils {
 		return outputBuffer;
 	}
 
+	/**
+	 * Read data from a file.
+	 * <p>
+	 * Files of at least {@link #MAP_THRESHOLD} bytes are mapped: The data has
+	 * a read-only, direct buffer, and the file is not copied to the heap.
+	 * Smaller files are read into a heap buffer of exactly the file size,
+	 * using a single channel read for most files.
+	 *
+	 * @param logger A logger for debugging output.
+	 * @param inputName The name of the input file.
+	 * @param charset The charset of the file data.
+	 * @param inputFile The file which is to be read.
+	 * @return Byte data of the file.
+	 * @throws IOException Thrown if the file cannot be read, or if the file is
+	 *             too large.
+	 */
+	public static ByteData read(Logger logger, String inputName, Charset charset, File inputFile) throws IOException {
+		try (FileChannel channel = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > MAX_ARRAY_LENGTH) {
+				throw new IOException(
+					"Overflow of [ " + inputName + " ].  Size [ " + size + " ] bytes (MAX_ARRAY_LENGTH).");
+			}
+
+			ByteBuffer buffer;
+			if (size >= MAP_THRESHOLD) {
+				logger.debug("Mapping [ {} ] bytes [ {} ]", inputName, size);
+				// The mapping remains valid after the channel is closed.
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+			} else {
+				logger.debug("Reading [ {} ] bytes [ {} ]", inputName, size);
+				buffer = ByteBuffer.allocate((int) size);
+				while (buffer.hasRemaining() && (channel.read(buffer) != -1)) {
+					// Read until full
+				}
+				if (buffer.hasRemaining()) {
+					throw new IOException("Underflow of [ " + inputName + " ].  Read [ " + buffer.position()
+						+ " ] bytes, expected [ " + size + " ].");
+				}
+				buffer.flip();
+			}
+			return new ByteDataImpl(inputName, buffer, charset);
+		}
+	}
+
 	public static ByteBuffer read(String inputName, InputStream inputStream, ByteBuffer buffer) throws IOException {
 		return read(inputName, inputStream, buffer, -1);
 	}
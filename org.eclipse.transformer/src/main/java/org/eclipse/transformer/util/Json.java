@@ -0,0 +1,348 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON reading and writing.
+ * <p>
+ * JSON objects are represented as maps with string keys, arrays as lists,
+ * strings as strings, numbers as {@link Long} or {@link Double}, and booleans
+ * as {@link Boolean}. The JSON null is represented as null.
+ */
+public class Json {
+	private Json() {}
+
+	/**
+	 * Parse JSON text.
+	 *
+	 * @param text The JSON text.
+	 * @return The parsed value.
+	 * @throws IllegalArgumentException Thrown if the text is not valid JSON.
+	 */
+	public static Object parse(CharSequence text) {
+		Parser parser = new Parser(text);
+		Object value = parser.value();
+		parser.skipWhitespace();
+		if (parser.offset != text.length()) {
+			throw parser.error("Unexpected text after value");
+		}
+		return value;
+	}
+
+	/**
+	 * Parse JSON text which is an object.
+	 *
+	 * @param text The JSON text.
+	 * @return The parsed object.
+	 * @throws IllegalArgumentException Thrown if the text is not a valid JSON
+	 *             object.
+	 */
+	@SuppressWarnings("unchecked")
+	public static Map<String, Object> parseObject(CharSequence text) {
+		Object value = parse(text);
+		if (!(value instanceof Map)) {
+			throw new IllegalArgumentException("JSON text is not an object");
+		}
+		return (Map<String, Object>) value;
+	}
+
+	/**
+	 * Write a value as JSON text. Maps are written as objects, iterables and
+	 * arrays of objects as arrays, numbers and booleans as themselves, and all
+	 * other values as strings.
+	 *
+	 * @param value The value to write.
+	 * @return The JSON text of the value.
+	 */
+	public static String toJson(Object value) {
+		StringBuilder builder = new StringBuilder();
+		try {
+			write(builder, value);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // Not thrown by StringBuilder
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Write a value as JSON text. See {@link #toJson(Object)}.
+	 *
+	 * @param output The output which receives the JSON text.
+	 * @param value The value to write.
+	 * @throws IOException Thrown if the write fails.
+	 */
+	public static void write(Appendable output, Object value) throws IOException {
+		if (value == null) {
+			output.append("null");
+		} else if (value instanceof Map<?, ?> map) {
+			output.append('{');
+			boolean first = true;
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				if (!first) {
+					output.append(',');
+				}
+				first = false;
+				writeString(output, String.valueOf(entry.getKey()));
+				output.append(':');
+				write(output, entry.getValue());
+			}
+			output.append('}');
+		} else if (value instanceof Iterable<?> iterable) {
+			output.append('[');
+			boolean first = true;
+			for (Object element : iterable) {
+				if (!first) {
+					output.append(',');
+				}
+				first = false;
+				write(output, element);
+			}
+			output.append(']');
+		} else if (value instanceof Object[] array) {
+			write(output, List.of(array));
+		} else if ((value instanceof Number number) && !isNonFinite(number)) {
+			output.append(number.toString());
+		} else if (value instanceof Boolean) {
+			output.append(value.toString());
+		} else {
+			writeString(output, value.toString());
+		}
+	}
+
+	private static boolean isNonFinite(Number number) {
+		return ((number instanceof Double d) && !Double.isFinite(d))
+			|| ((number instanceof Float f) && !Float.isFinite(f));
+	}
+
+	private static void writeString(Appendable output, String value) throws IOException {
+		output.append('"');
+		for (int offset = 0, length = value.length(); offset < length; offset++) {
+			char c = value.charAt(offset);
+			switch (c) {
+				case '"' :
+					output.append("\\\"");
+					break;
+				case '\\' :
+					output.append("\\\\");
+					break;
+				case '\n' :
+					output.append("\\n");
+					break;
+				case '\r' :
+					output.append("\\r");
+					break;
+				case '\t' :
+					output.append("\\t");
+					break;
+				default :
+					if (c < 0x20) {
+						output.append(String.format("\\u%04x", (int) c));
+					} else {
+						output.append(c);
+					}
+					break;
+			}
+		}
+		output.append('"');
+	}
+
+	private static final class Parser {
+		final CharSequence	text;
+		int					offset;
+
+		Parser(CharSequence text) {
+			this.text = text;
+		}
+
+		IllegalArgumentException error(String message) {
+			return new IllegalArgumentException(message + " at offset [ " + offset + " ]");
+		}
+
+		void skipWhitespace() {
+			while ((offset < text.length()) && Character.isWhitespace(text.charAt(offset))) {
+				offset++;
+			}
+		}
+
+		char peek() {
+			skipWhitespace();
+			if (offset >= text.length()) {
+				throw error("Unexpected end of text");
+			}
+			return text.charAt(offset);
+		}
+
+		void expect(char c) {
+			if (peek() != c) {
+				throw error("Expected '" + c + "'");
+			}
+			offset++;
+		}
+
+		Object value() {
+			char c = peek();
+			switch (c) {
+				case '{' :
+					return object();
+				case '[' :
+					return array();
+				case '"' :
+					return string();
+				case 't' :
+					return literal("true", Boolean.TRUE);
+				case 'f' :
+					return literal("false", Boolean.FALSE);
+				case 'n' :
+					return literal("null", null);
+				default :
+					if ((c == '-') || ((c >= '0') && (c <= '9'))) {
+						return number();
+					}
+					throw error("Unexpected character '" + c + "'");
+			}
+		}
+
+		Map<String, Object> object() {
+			expect('{');
+			Map<String, Object> object = new LinkedHashMap<>();
+			if (peek() == '}') {
+				offset++;
+				return object;
+			}
+			do {
+				if (peek() != '"') {
+					throw error("Expected a string key");
+				}
+				String key = string();
+				expect(':');
+				object.put(key, value());
+			} while (next('}'));
+			return object;
+		}
+
+		List<Object> array() {
+			expect('[');
+			List<Object> array = new ArrayList<>();
+			if (peek() == ']') {
+				offset++;
+				return array;
+			}
+			do {
+				array.add(value());
+			} while (next(']'));
+			return array;
+		}
+
+		boolean next(char close) {
+			char c = peek();
+			offset++;
+			if (c == ',') {
+				return true;
+			}
+			if (c == close) {
+				return false;
+			}
+			offset--;
+			throw error("Expected ',' or '" + close + "'");
+		}
+
+		String string() {
+			offset++; // Skip the opening quote
+			StringBuilder builder = new StringBuilder();
+			while (offset < text.length()) {
+				char c = text.charAt(offset++);
+				if (c == '"') {
+					return builder.toString();
+				}
+				if (c != '\\') {
+					builder.append(c);
+					continue;
+				}
+				if (offset >= text.length()) {
+					break;
+				}
+				char escaped = text.charAt(offset++);
+				switch (escaped) {
+					case 'b' :
+						builder.append('\b');
+						break;
+					case 'f' :
+						builder.append('\f');
+						break;
+					case 'n' :
+						builder.append('\n');
+						break;
+					case 'r' :
+						builder.append('\r');
+						break;
+					case 't' :
+						builder.append('\t');
+						break;
+					case 'u' :
+						if (offset + 4 > text.length()) {
+							throw error("Incomplete unicode escape");
+						}
+						try {
+							builder.append((char) Integer.parseInt(text.subSequence(offset, offset + 4)
+								.toString(), 16));
+						} catch (NumberFormatException e) {
+							throw error("Invalid unicode escape");
+						}
+						offset += 4;
+						break;
+					default :
+						builder.append(escaped);
+						break;
+				}
+			}
+			throw error("Unterminated string");
+		}
+
+		Object literal(String literal, Object value) {
+			int end = offset + literal.length();
+			if ((end > text.length()) || !literal.contentEquals(text.subSequence(offset, end))) {
+				throw error("Expected '" + literal + "'");
+			}
+			offset = end;
+			return value;
+		}
+
+		Number number() {
+			int start = offset;
+			boolean integral = true;
+			while (offset < text.length()) {
+				char c = text.charAt(offset);
+				if ((c == '.') || (c == 'e') || (c == 'E')) {
+					integral = false;
+				} else if (!(((c >= '0') && (c <= '9')) || (c == '-') || (c == '+'))) {
+					break;
+				}
+				offset++;
+			}
+			String number = text.subSequence(start, offset)
+				.toString();
+			try {
+				return integral ? (Number) Long.valueOf(number) : (Number) Double.valueOf(number);
+			} catch (NumberFormatException e) {
+				offset = start;
+				throw error("Invalid number '" + number + "'");
+			}
+		}
+	}
+}
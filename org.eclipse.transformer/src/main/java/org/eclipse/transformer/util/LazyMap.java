@@ -0,0 +1,120 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.util;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Read only map which obtains its mappings from a loader the first time the
+ * mappings are accessed.
+ * <p>
+ * The loader is invoked at most once, even when the map is accessed
+ * concurrently. If the loader fails, the failure is retained: The failure is
+ * thrown to the caller, and is thrown again by every later access, without
+ * invoking the loader again.
+ *
+ * @param <K> The type of the map keys.
+ * @param <V> The type of the map values.
+ */
+public class LazyMap<K, V> extends AbstractMap<K, V> {
+	private final Supplier<? extends Map<K, V>>	loader;
+	private volatile Map<K, V>					loaded;
+	private volatile RuntimeException			failure;
+
+	/**
+	 * Create a lazily loaded map.
+	 *
+	 * @param loader Supplier of the mappings. Invoked on first access.
+	 */
+	public LazyMap(Supplier<? extends Map<K, V>> loader) {
+		this.loader = requireNonNull(loader);
+	}
+
+	/**
+	 * Tell if the mappings have been loaded.
+	 *
+	 * @return True or false telling if the mappings have been loaded.
+	 */
+	public boolean isLoaded() {
+		return loaded != null;
+	}
+
+	/**
+	 * Answer the failure of the loader.
+	 *
+	 * @return The failure of the loader. Null if the loader has not been
+	 *         invoked, or if the loader succeeded.
+	 */
+	public RuntimeException getFailure() {
+		return failure;
+	}
+
+	/**
+	 * Answer the mappings, loading them if necessary.
+	 *
+	 * @return The loaded mappings.
+	 * @throws RuntimeException The failure of the loader, if the loader
+	 *             failed.
+	 */
+	public Map<K, V> load() {
+		Map<K, V> mappings = loaded;
+		if (mappings == null) {
+			synchronized (this) {
+				mappings = loaded;
+				if (mappings == null) {
+					RuntimeException priorFailure = failure;
+					if (priorFailure != null) {
+						throw priorFailure;
+					}
+					try {
+						loaded = mappings = Collections.unmodifiableMap(requireNonNull(loader.get()));
+					} catch (RuntimeException e) {
+						failure = e;
+						throw e;
+					}
+				}
+			}
+		}
+		return mappings;
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		return load().entrySet();
+	}
+
+	@Override
+	public V get(Object key) {
+		return load().get(key);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return load().containsKey(key);
+	}
+
+	@Override
+	public int size() {
+		return load().size();
+	}
+
+	@Override
+	public String toString() {
+		return isLoaded() ? loaded.toString() : "{...}";
+	}
+}
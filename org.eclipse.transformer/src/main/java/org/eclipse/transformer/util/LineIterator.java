@@ -0,0 +1,284 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Line iterator over a character buffer.
+ * <p>
+ * Each line is exposed as a {@link CharSequence} view over the underlying
+ * buffer. No characters are copied unless {@link CharSequence#toString()} is
+ * called on the line. The view is reused: it is only valid until the next call
+ * to {@link #next()}.
+ * <p>
+ * Line separators are handled as by {@link LineSeparatorBufferedReader}: A line
+ * is terminated by "\n", "\r", or "\r\n", and the separator of the current line
+ * is available from {@link #lineSeparator()}. A final line which has no
+ * separator has an empty separator. A separator at the end of the buffer does
+ * not start an additional empty line.
+ * <p>
+ * The characters are either a complete buffer, or are read from a reader into
+ * a buffer which is refilled as lines are consumed. A line which does not fit
+ * in the buffer grows the buffer.
+ */
+public class LineIterator {
+	/**
+	 * Create a line iterator over bytes. The bytes are decoded in a single pass
+	 * using the charset.
+	 *
+	 * @param buffer The bytes to iterate over. The position of the buffer is
+	 *            not changed.
+	 * @param charset The charset used to decode the bytes.
+	 * @return A line iterator over the decoded characters.
+	 */
+	public static LineIterator of(ByteBuffer buffer, Charset charset) {
+		return new LineIterator(charset.decode(buffer.duplicate()));
+	}
+
+	/**
+	 * Create a line iterator over characters read from a reader. Characters
+	 * are read as lines are consumed. The reader is not closed.
+	 *
+	 * @param reader The reader which supplies the characters.
+	 * @param size The initial size of the character buffer.
+	 * @return A line iterator over the characters of the reader.
+	 */
+	public static LineIterator of(Reader reader, int size) {
+		return new LineIterator(reader, size);
+	}
+
+	private final Reader	reader;
+	private boolean			eof;
+	private CharBuffer		buffer;
+	private final Line		line;
+	private int				next;
+	private int				separatorStart;
+	private int				separatorEnd;
+
+	/**
+	 * Create a line iterator over characters.
+	 *
+	 * @param buffer The characters to iterate over, from the position to the
+	 *            limit of the buffer. The position of the buffer is not
+	 *            changed.
+	 */
+	public LineIterator(CharBuffer buffer) {
+		this.reader = null;
+		this.eof = true;
+		this.buffer = buffer.slice();
+		this.line = new Line();
+		this.next = 0;
+	}
+
+	private LineIterator(Reader reader, int size) {
+		this.reader = reader;
+		this.eof = false;
+		this.buffer = CharBuffer.allocate(Math.max(size, 1));
+		this.buffer.limit(0);
+		this.line = new Line();
+		this.next = 0;
+	}
+
+	/**
+	 * Advance to the next line.
+	 *
+	 * @return True if there is a next line. False if the end of the characters
+	 *         was reached.
+	 * @throws IOException If reading from the reader fails.
+	 */
+	public boolean next() throws IOException {
+		int end = next;
+		for (;;) {
+			CharBuffer chars = buffer;
+			int limit = chars.limit();
+			for (; end < limit; end++) {
+				char c = chars.get(end);
+				if (c == '\n') {
+					return advance(end, end + 1);
+				}
+				if (c == '\r') {
+					int sepEnd = end + 1;
+					if (sepEnd < limit) {
+						return advance(end, (chars.get(sepEnd) == '\n') ? sepEnd + 1 : sepEnd);
+					}
+					if (eof) {
+						return advance(end, sepEnd);
+					}
+					break; // Read more to see if the separator is "\r\n".
+				}
+			}
+
+			if (eof) {
+				int start = next;
+				if (start >= limit) {
+					line.set(start, start);
+					separatorStart = separatorEnd = start;
+					return false;
+				}
+				return advance(limit, limit);
+			}
+
+			end -= fill();
+		}
+	}
+
+	private boolean advance(int end, int sepEnd) {
+		line.set(next, end);
+		separatorStart = end;
+		separatorEnd = sepEnd;
+		next = sepEnd;
+		return true;
+	}
+
+	/**
+	 * Move the unconsumed characters to the start of the buffer, growing the
+	 * buffer if they fill it, then read more characters after them.
+	 *
+	 * @return The distance the unconsumed characters were moved.
+	 * @throws IOException If reading from the reader fails.
+	 */
+	private int fill() throws IOException {
+		CharBuffer chars = buffer;
+		char[] array = chars.array();
+		int shift = next;
+		int length = chars.limit() - shift;
+		if (length == array.length) {
+			array = Arrays.copyOf(array, array.length * 2);
+			buffer = chars = CharBuffer.wrap(array);
+		} else if (shift > 0) {
+			System.arraycopy(array, shift, array, 0, length);
+		}
+		next = 0;
+
+		int read = reader.read(array, length, array.length - length);
+		if (read == -1) {
+			eof = true;
+			read = 0;
+		}
+		chars.limit(length + read);
+		return shift;
+	}
+
+	/**
+	 * Answer the current line, not including the line separator.
+	 *
+	 * @return A view of the current line. The view is valid until the next call
+	 *         to {@link #next()}.
+	 */
+	public CharSequence line() {
+		return line;
+	}
+
+	/**
+	 * Answer the line separator of the current line.
+	 *
+	 * @return "\n", "\r", "\r\n", or the empty string if the current line has
+	 *         no line separator.
+	 */
+	public String lineSeparator() {
+		switch (separatorEnd - separatorStart) {
+			case 0 :
+				return "";
+			case 2 :
+				return "\r\n";
+			default :
+				return (buffer.get(separatorStart) == '\n') ? "\n" : "\r";
+		}
+	}
+
+	/**
+	 * Write the current line, not including the line separator, without
+	 * creating an intermediate string.
+	 *
+	 * @param writer The writer which receives the line.
+	 * @throws IOException If the write fails.
+	 */
+	public void writeLine(Writer writer) throws IOException {
+		write(writer, line.start, line.end);
+	}
+
+	/**
+	 * Write the line separator of the current line.
+	 *
+	 * @param writer The writer which receives the line separator.
+	 * @throws IOException If the write fails.
+	 */
+	public void writeLineSeparator(Writer writer) throws IOException {
+		write(writer, separatorStart, separatorEnd);
+	}
+
+	private void write(Writer writer, int start, int end) throws IOException {
+		int length = end - start;
+		if (length == 0) {
+			return;
+		}
+		CharBuffer chars = buffer;
+		if (chars.hasArray()) {
+			writer.write(chars.array(), chars.arrayOffset() + start, length);
+		} else {
+			writer.append(chars, start, end);
+		}
+	}
+
+	/**
+	 * Reusable view of the current line.
+	 */
+	private final class Line implements CharSequence {
+		int	start;
+		int	end;
+
+		Line() {}
+
+		void set(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public int length() {
+			return end - start;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if ((index < 0) || (index >= (end - start))) {
+				throw new IndexOutOfBoundsException(index);
+			}
+			return buffer.get(start + index);
+		}
+
+		@Override
+		public CharSequence subSequence(int from, int to) {
+			if ((from < 0) || (to > (end - start)) || (from > to)) {
+				throw new IndexOutOfBoundsException("from " + from + ", to " + to + ", length " + (end - start));
+			}
+			return buffer.subSequence(start + from, start + to);
+		}
+
+		@Override
+		public String toString() {
+			CharBuffer chars = buffer;
+			if (chars.hasArray()) {
+				return new String(chars.array(), chars.arrayOffset() + start, end - start);
+			}
+			return chars.subSequence(start, end)
+				.toString();
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.util;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Output stream which writes to a buffer of the {@link BufferPool} of the
+ * current thread.
+ * <p>
+ * The buffer is acquired in the innermost scope which is open when the stream
+ * is created, and remains valid until that scope is closed. When the buffer is
+ * full, a larger buffer is acquired in the same scope and the smaller buffer
+ * is released.
+ */
+public class PooledOutputStream extends OutputStream {
+	private final BufferPool.Scope	scope;
+	private ByteBuffer				buffer;
+
+	/**
+	 * Create a stream.
+	 *
+	 * @param initialCapacity The initial capacity of the buffer of the stream.
+	 */
+	public PooledOutputStream(int initialCapacity) {
+		this.scope = BufferPool.local()
+			.current();
+		this.buffer = acquire(Math.max(initialCapacity, FileUtils.PAGE_SIZE));
+	}
+
+	private ByteBuffer acquire(int capacity) {
+		return (scope == null) ? ByteBuffer.allocate(capacity) : scope.acquire(capacity);
+	}
+
+	private void ensureRemaining(int count) {
+		if (buffer.remaining() >= count) {
+			return;
+		}
+		int size = buffer.position();
+		if (count > FileUtils.MAX_ARRAY_LENGTH - size) {
+			throw new OutOfMemoryError("Output of [ " + size + " ] bytes cannot grow by [ " + count + " ] bytes");
+		}
+		long doubled = 2L * buffer.capacity();
+		int capacity = (int) Math.min(Math.max(doubled, (long) size + count), FileUtils.MAX_ARRAY_LENGTH);
+		ByteBuffer grown = acquire(capacity);
+		grown.put(buffer.flip());
+		if (scope != null) {
+			scope.release(buffer);
+		}
+		buffer = grown;
+	}
+
+	@Override
+	public void write(int b) {
+		ensureRemaining(1);
+		buffer.put((byte) b);
+	}
+
+	@Override
+	public void write(byte[] bytes, int offset, int length) {
+		Objects.checkFromIndexSize(offset, length, bytes.length);
+		ensureRemaining(length);
+		buffer.put(bytes, offset, length);
+	}
+
+	/**
+	 * Write the remaining bytes of a buffer. The position of the buffer is
+	 * advanced to its limit.
+	 *
+	 * @param bytes The buffer which is to be written.
+	 */
+	public void write(ByteBuffer bytes) {
+		ensureRemaining(bytes.remaining());
+		buffer.put(bytes);
+	}
+
+	/** @return The count of bytes which have been written. */
+	public int size() {
+		return buffer.position();
+	}
+
+	/**
+	 * Answer the bytes which have been written. The answered buffer shares the
+	 * buffer of this stream, and is valid until the scope of the stream is
+	 * closed.
+	 *
+	 * @return A heap buffer which has the written bytes from position zero to
+	 *         its limit.
+	 */
+	public ByteBuffer toByteBuffer() {
+		return buffer.duplicate()
+			.flip();
+	}
+}
@@ -0,0 +1,522 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package org.eclipse.transformer.util;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.ZipException;
+
+/**
+ * Central directory of a zip file.
+ * <p>
+ * The directory is used to copy the entries of zip files without inflating
+ * and deflating the entries: The local header, the compressed data, and the
+ * data descriptor of an entry are copied as they are, and a new central
+ * directory is written for the copied entries. Zip64 archives are supported.
+ * Multi-disk archives are not supported.
+ * <p>
+ * The directory of a nested zip file which is stored, not compressed, in a zip
+ * file may be read in place, without extracting the nested zip file.
+ */
+public class ZipDirectory implements Closeable {
+	private static final int	LOCAL_SIGNATURE			= 0x04034b50;
+	private static final int	CENTRAL_SIGNATURE		= 0x02014b50;
+	private static final int	END_SIGNATURE			= 0x06054b50;
+	private static final int	ZIP64_END_SIGNATURE		= 0x06064b50;
+	private static final int	ZIP64_LOCATOR_SIGNATURE	= 0x07064b50;
+	private static final int	ZIP64_EXTRA_ID			= 0x0001;
+
+	private static final int	LOCAL_LENGTH			= 30;
+	private static final int	CENTRAL_LENGTH			= 46;
+	private static final int	END_LENGTH				= 22;
+	private static final int	ZIP64_END_LENGTH		= 56;
+	private static final int	ZIP64_LOCATOR_LENGTH	= 20;
+	private static final int	MAX_COMMENT_LENGTH		= 0xFFFF;
+
+	private static final long	MAGIC32					= 0xFFFFFFFFL;
+	private static final int	MAGIC16					= 0xFFFF;
+
+	/** The flag of entries which have UTF-8 names. */
+	private static final int	UTF8_FLAG				= 0x0800;
+
+	/** The method of entries which are stored, not compressed. */
+	private static final int	STORED					= 0;
+
+	/**
+	 * Entry of a central directory.
+	 */
+	public static final class Entry {
+		private final String	name;
+		private final int		versionMadeBy;
+		private final int		versionNeeded;
+		private final int		flags;
+		private final int		method;
+		private final int		dosTime;
+		private final long		crc;
+		private final long		compressedSize;
+		private final long		size;
+		private final int		internalAttributes;
+		private final int		externalAttributes;
+		private final long		localOffset;
+		private final byte[]	nameBytes;
+		/** Extra data, without the Zip64 field. */
+		private final byte[]	extra;
+		private final byte[]	comment;
+		private long			end;
+
+		Entry(String name, int versionMadeBy, int versionNeeded, int flags, int method, int dosTime, long crc,
+			long compressedSize, long size, int internalAttributes, int externalAttributes, long localOffset,
+			byte[] nameBytes, byte[] extra, byte[] comment) {
+			this.name = name;
+			this.versionMadeBy = versionMadeBy;
+			this.versionNeeded = versionNeeded;
+			this.flags = flags;
+			this.method = method;
+			this.dosTime = dosTime;
+			this.crc = crc;
+			this.compressedSize = compressedSize;
+			this.size = size;
+			this.internalAttributes = internalAttributes;
+			this.externalAttributes = externalAttributes;
+			this.localOffset = localOffset;
+			this.nameBytes = nameBytes;
+			this.extra = extra;
+			this.comment = comment;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getMethod() {
+			return method;
+		}
+
+		public long getCrc() {
+			return crc;
+		}
+
+		public long getCompressedSize() {
+			return compressedSize;
+		}
+
+		public long getSize() {
+			return size;
+		}
+
+		public boolean isDirectory() {
+			return name.endsWith("/");
+		}
+
+		/** @return True if the entry is stored, not compressed. */
+		public boolean isStored() {
+			return method == STORED;
+		}
+
+		/**
+		 * Tell if this entry has the same name, method, size, and CRC as
+		 * another entry.
+		 *
+		 * @param other The other entry.
+		 * @return True if the entries are expected to have the same content.
+		 */
+		public boolean isSame(Entry other) {
+			return name.equals(other.name) && (method == other.method) && (size == other.size)
+				&& (crc == other.crc);
+		}
+
+		@Override
+		public String toString() {
+			return "Entry [ " + name + " ] Method [ " + method + " ] Size [ " + size + " ] CRC [ "
+				+ Long.toHexString(crc) + " ]";
+		}
+	}
+
+	private final Path			file;
+	private final FileChannel	channel;
+	/** The offset of the zip file in the file. Zero unless nested. */
+	private final long			base;
+	/** The length of the zip file. */
+	private final long			length;
+	/** True if the channel is shared with the directory of a containing zip file. */
+	private final boolean		nested;
+	private final List<Entry>	entries;
+
+	/**
+	 * Read the central directory of a zip file.
+	 *
+	 * @param file The zip file.
+	 * @param charset The charset of the names of entries which do not have
+	 *            UTF-8 names.
+	 * @throws IOException Thrown if the file cannot be read, or is not a
+	 *             zip file.
+	 */
+	public ZipDirectory(Path file, Charset charset) throws IOException {
+		this.file = file;
+		this.channel = FileChannel.open(file, StandardOpenOption.READ);
+		this.base = 0L;
+		this.nested = false;
+		try {
+			this.length = channel.size();
+			this.entries = Collections.unmodifiableList(read(charset));
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	private ZipDirectory(Path file, FileChannel channel, long base, long length, Charset charset) throws IOException {
+		this.file = file;
+		this.channel = channel;
+		this.base = base;
+		this.length = length;
+		this.nested = true;
+		this.entries = Collections.unmodifiableList(read(charset));
+	}
+
+	/**
+	 * Read the central directory of a nested zip file which is stored, not
+	 * compressed, as an entry of this zip file. The nested directory reads the
+	 * file of this directory, and cannot be used once this directory is
+	 * closed.
+	 *
+	 * @param entry The entry of the nested zip file.
+	 * @param charset The charset of the names of entries of the nested zip
+	 *            file which do not have UTF-8 names.
+	 * @return The central directory of the nested zip file.
+	 * @throws IOException Thrown if the entry is compressed, or is not a zip
+	 *             file.
+	 */
+	public ZipDirectory nested(Entry entry, Charset charset) throws IOException {
+		if (!entry.isStored()) {
+			throw new ZipException("Entry [ " + entry.name + " ] of [ " + file + " ] is compressed");
+		}
+		ByteBuffer local = readFully(entry.localOffset, LOCAL_LENGTH);
+		long dataOffset = entry.localOffset + LOCAL_LENGTH + Short.toUnsignedInt(local.getShort(26))
+			+ Short.toUnsignedInt(local.getShort(28));
+		if (dataOffset + entry.compressedSize > entry.end) {
+			throw new ZipException("Invalid local header of [ " + entry.name + " ] in [ " + file + " ]");
+		}
+		return new ZipDirectory(file, channel, base + dataOffset, entry.compressedSize, charset);
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	/** @return The entries of the directory, in directory order. */
+	public List<Entry> getEntries() {
+		return entries;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!nested) {
+			channel.close();
+		}
+	}
+
+	private List<Entry> read(Charset charset) throws IOException {
+		long fileSize = length;
+		int tailLength = (int) Math.min(fileSize, END_LENGTH + MAX_COMMENT_LENGTH);
+		ByteBuffer tail = readFully(fileSize - tailLength, tailLength);
+		int endPos = -1;
+		for (int pos = tailLength - END_LENGTH; pos >= 0; pos--) {
+			if (tail.getInt(pos) == END_SIGNATURE) {
+				endPos = pos;
+				break;
+			}
+		}
+		if (endPos < 0) {
+			throw new ZipException("No end of central directory in [ " + file + " ]");
+		}
+		long entryCount = Short.toUnsignedInt(tail.getShort(endPos + 10));
+		long directorySize = Integer.toUnsignedLong(tail.getInt(endPos + 12));
+		long directoryOffset = Integer.toUnsignedLong(tail.getInt(endPos + 16));
+
+		if ((entryCount == MAGIC16) || (directorySize == MAGIC32) || (directoryOffset == MAGIC32)) {
+			long endOffset = fileSize - tailLength + endPos;
+			if (endOffset >= ZIP64_LOCATOR_LENGTH) {
+				ByteBuffer locator = readFully(endOffset - ZIP64_LOCATOR_LENGTH, ZIP64_LOCATOR_LENGTH);
+				if (locator.getInt(0) == ZIP64_LOCATOR_SIGNATURE) {
+					ByteBuffer zip64End = readFully(locator.getLong(8), ZIP64_END_LENGTH);
+					if (zip64End.getInt(0) != ZIP64_END_SIGNATURE) {
+						throw new ZipException("Invalid Zip64 end of central directory in [ " + file + " ]");
+					}
+					directorySize = zip64End.getLong(40);
+					directoryOffset = zip64End.getLong(48);
+				}
+			}
+		}
+		if ((directorySize > FileUtils.MAX_ARRAY_LENGTH) || (directoryOffset + directorySize > fileSize)) {
+			throw new ZipException("Invalid central directory in [ " + file + " ]");
+		}
+
+		ByteBuffer directory = readFully(directoryOffset, (int) directorySize);
+		List<Entry> result = new ArrayList<>();
+		int pos = 0;
+		while (pos + CENTRAL_LENGTH <= directorySize) {
+			if (directory.getInt(pos) != CENTRAL_SIGNATURE) {
+				throw new ZipException("Invalid central directory entry at [ " + pos + " ] in [ " + file + " ]");
+			}
+			int flags = Short.toUnsignedInt(directory.getShort(pos + 8));
+			int nameLength = Short.toUnsignedInt(directory.getShort(pos + 28));
+			int extraLength = Short.toUnsignedInt(directory.getShort(pos + 30));
+			int commentLength = Short.toUnsignedInt(directory.getShort(pos + 32));
+			long compressedSize = Integer.toUnsignedLong(directory.getInt(pos + 20));
+			long size = Integer.toUnsignedLong(directory.getInt(pos + 24));
+			long localOffset = Integer.toUnsignedLong(directory.getInt(pos + 42));
+
+			byte[] nameBytes = bytes(directory, pos + CENTRAL_LENGTH, nameLength);
+			byte[] extra = bytes(directory, pos + CENTRAL_LENGTH + nameLength, extraLength);
+			byte[] comment = bytes(directory, pos + CENTRAL_LENGTH + nameLength + extraLength, commentLength);
+
+			// Take the sizes and the offset from the Zip64 field, and remove
+			// the field: It is written again if it is needed.
+			ByteBuffer extraBuffer = ByteBuffer.wrap(extra)
+				.order(ByteOrder.LITTLE_ENDIAN);
+			ByteBuffer otherExtra = ByteBuffer.allocate(extra.length);
+			int extraPos = 0;
+			while (extraPos + 4 <= extra.length) {
+				int id = Short.toUnsignedInt(extraBuffer.getShort(extraPos));
+				int length = Short.toUnsignedInt(extraBuffer.getShort(extraPos + 2));
+				int dataEnd = Math.min(extraPos + 4 + length, extra.length);
+				if (id == ZIP64_EXTRA_ID) {
+					int fieldPos = extraPos + 4;
+					if ((size == MAGIC32) && (fieldPos + 8 <= dataEnd)) {
+						size = extraBuffer.getLong(fieldPos);
+						fieldPos += 8;
+					}
+					if ((compressedSize == MAGIC32) && (fieldPos + 8 <= dataEnd)) {
+						compressedSize = extraBuffer.getLong(fieldPos);
+						fieldPos += 8;
+					}
+					if ((localOffset == MAGIC32) && (fieldPos + 8 <= dataEnd)) {
+						localOffset = extraBuffer.getLong(fieldPos);
+					}
+				} else {
+					otherExtra.put(extra, extraPos, dataEnd - extraPos);
+				}
+				extraPos = dataEnd;
+			}
+
+			String name = new String(nameBytes, ((flags & UTF8_FLAG) != 0) ? StandardCharsets.UTF_8 : charset);
+			result.add(new Entry(name, Short.toUnsignedInt(directory.getShort(pos + 4)),
+				Short.toUnsignedInt(directory.getShort(pos + 6)), flags, Short.toUnsignedInt(directory.getShort(pos + 10)),
+				directory.getInt(pos + 12), Integer.toUnsignedLong(directory.getInt(pos + 16)), compressedSize, size,
+				Short.toUnsignedInt(directory.getShort(pos + 36)), directory.getInt(pos + 38), localOffset, nameBytes,
+				Arrays.copyOf(otherExtra.array(), otherExtra.position()), comment));
+			pos += CENTRAL_LENGTH + nameLength + extraLength + commentLength;
+		}
+
+		// An entry ends where the next entry begins. The last entry ends
+		// where the central directory begins.
+		List<Entry> byOffset = new ArrayList<>(result);
+		byOffset.sort(Comparator.comparingLong(entry -> entry.localOffset));
+		for (int entryNo = 0; entryNo < byOffset.size(); entryNo++) {
+			Entry entry = byOffset.get(entryNo);
+			entry.end = (entryNo + 1 < byOffset.size()) ? byOffset.get(entryNo + 1).localOffset : directoryOffset;
+			if ((entry.end < entry.localOffset + 30L + entry.compressedSize)
+				|| (readFully(entry.localOffset, 4).getInt(0) != LOCAL_SIGNATURE)) {
+				throw new ZipException("Invalid local header of [ " + entry.name + " ] in [ " + file + " ]");
+			}
+		}
+		return result;
+	}
+
+	private static byte[] bytes(ByteBuffer buffer, int pos, int length) {
+		byte[] bytes = new byte[length];
+		buffer.get(pos, bytes);
+		return bytes;
+	}
+
+	private ByteBuffer readFully(long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length)
+			.order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, base + position + buffer.position()) < 0) {
+				throw new EOFException("Unexpected end of [ " + file + " ]");
+			}
+		}
+		return buffer.flip();
+	}
+
+	/**
+	 * Writer of a zip file which is assembled from the entries of other zip
+	 * files.
+	 */
+	public static class Writer implements Closeable {
+		private final FileChannel	channel;
+		private final List<Entry>	entries	= new ArrayList<>();
+		private final List<Long>	offsets	= new ArrayList<>();
+		private boolean				closed;
+
+		/**
+		 * Create a writer.
+		 *
+		 * @param file The file which is written. An existing file is
+		 *            replaced.
+		 * @throws IOException Thrown if the file cannot be created.
+		 */
+		public Writer(Path file) throws IOException {
+			this.channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		}
+
+		/** @return The count of entries which have been copied. */
+		public int size() {
+			return entries.size();
+		}
+
+		/**
+		 * Copy an entry, without inflating the entry.
+		 *
+		 * @param source The directory of the zip file which has the entry.
+		 * @param entry The entry which is to be copied.
+		 * @throws IOException Thrown if the copy fails.
+		 */
+		public void copy(ZipDirectory source, Entry entry) throws IOException {
+			long offset = channel.position();
+			long position = source.base + entry.localOffset;
+			long count = entry.end - entry.localOffset;
+			while (count > 0L) {
+				long transferred = source.channel.transferTo(position, count, channel);
+				if (transferred <= 0L) {
+					throw new EOFException("Unexpected end of [ " + source.file + " ]");
+				}
+				position += transferred;
+				count -= transferred;
+			}
+			entries.add(entry);
+			offsets.add(offset);
+		}
+
+		/**
+		 * Write the central directory, and close the file.
+		 */
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try {
+				long directoryOffset = channel.position();
+				for (int entryNo = 0; entryNo < entries.size(); entryNo++) {
+					write(central(entries.get(entryNo), offsets.get(entryNo)));
+				}
+				long directorySize = channel.position() - directoryOffset;
+				long entryCount = entries.size();
+
+				boolean zip64 = (entryCount >= MAGIC16) || (directorySize >= MAGIC32) || (directoryOffset >= MAGIC32);
+				if (zip64) {
+					long zip64EndOffset = channel.position();
+					ByteBuffer zip64End = allocate(ZIP64_END_LENGTH + ZIP64_LOCATOR_LENGTH);
+					zip64End.putInt(ZIP64_END_SIGNATURE)
+						.putLong(ZIP64_END_LENGTH - 12)
+						.putShort((short) 45)
+						.putShort((short) 45)
+						.putInt(0)
+						.putInt(0)
+						.putLong(entryCount)
+						.putLong(entryCount)
+						.putLong(directorySize)
+						.putLong(directoryOffset);
+					zip64End.putInt(ZIP64_LOCATOR_SIGNATURE)
+						.putInt(0)
+						.putLong(zip64EndOffset)
+						.putInt(1);
+					write(zip64End.flip());
+				}
+				ByteBuffer end = allocate(END_LENGTH);
+				end.putInt(END_SIGNATURE)
+					.putShort((short) 0)
+					.putShort((short) 0)
+					.putShort((short) Math.min(entryCount, MAGIC16))
+					.putShort((short) Math.min(entryCount, MAGIC16))
+					.putInt((int) Math.min(directorySize, MAGIC32))
+					.putInt((int) Math.min(directoryOffset, MAGIC32))
+					.putShort((short) 0);
+				write(end.flip());
+			} finally {
+				channel.close();
+			}
+		}
+
+		private static ByteBuffer central(Entry entry, long offset) {
+			boolean zip64Size = entry.size >= MAGIC32;
+			boolean zip64CompressedSize = entry.compressedSize >= MAGIC32;
+			boolean zip64Offset = offset >= MAGIC32;
+			int zip64Length = (zip64Size ? 8 : 0) + (zip64CompressedSize ? 8 : 0) + (zip64Offset ? 8 : 0);
+			int extraLength = entry.extra.length + ((zip64Length > 0) ? 4 + zip64Length : 0);
+
+			ByteBuffer central = allocate(CENTRAL_LENGTH + entry.nameBytes.length + extraLength + entry.comment.length);
+			central.putInt(CENTRAL_SIGNATURE)
+				.putShort((short) entry.versionMadeBy)
+				.putShort((short) ((zip64Length > 0) ? Math.max(entry.versionNeeded, 45) : entry.versionNeeded))
+				.putShort((short) entry.flags)
+				.putShort((short) entry.method)
+				.putInt(entry.dosTime)
+				.putInt((int) entry.crc)
+				.putInt((int) Math.min(entry.compressedSize, MAGIC32))
+				.putInt((int) Math.min(entry.size, MAGIC32))
+				.putShort((short) entry.nameBytes.length)
+				.putShort((short) extraLength)
+				.putShort((short) entry.comment.length)
+				.putShort((short) 0)
+				.putShort((short) entry.internalAttributes)
+				.putInt(entry.externalAttributes)
+				.putInt((int) Math.min(offset, MAGIC32))
+				.put(entry.nameBytes);
+			if (zip64Length > 0) {
+				central.putShort((short) ZIP64_EXTRA_ID)
+					.putShort((short) zip64Length);
+				if (zip64Size) {
+					central.putLong(entry.size);
+				}
+				if (zip64CompressedSize) {
+					central.putLong(entry.compressedSize);
+				}
+				if (zip64Offset) {
+					central.putLong(offset);
+				}
+			}
+			central.put(entry.extra)
+				.put(entry.comment);
+			return central.flip();
+		}
+
+		private static ByteBuffer allocate(int length) {
+			return ByteBuffer.allocate(length)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		private void write(ByteBuffer buffer) throws IOException {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+}
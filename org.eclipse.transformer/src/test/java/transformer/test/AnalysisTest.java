@@ -0,0 +1,128 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package transformer.test;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import org.eclipse.transformer.Analysis;
+import org.eclipse.transformer.AppOption;
+import org.eclipse.transformer.TransformOptions;
+import org.eclipse.transformer.Transformer;
+import org.eclipse.transformer.action.ActionType;
+import org.eclipse.transformer.jakarta.JakartaTransform;
+import org.eclipse.transformer.util.ZipDirectory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class AnalysisTest extends CaptureTest {
+	/**
+	 * Verify that stored nested archives are read in place, and that the
+	 * analysis of an archive counts the entries which each action would
+	 * transform, answers the pass through, opaque, and largest entries, and
+	 * estimates the peak memory of a transform.
+	 *
+	 * @throws Exception Thrown in case of a IO failure or a transformation
+	 *             failure.
+	 */
+	@Test
+	public void testAnalysis() throws Exception {
+		byte[] classBytes = TestUtils.readSampleClass();
+		byte[] data = "data".getBytes(StandardCharsets.UTF_8);
+
+		byte[] warBytes = TestUtils.createArchiveBytes(zipOutputStream -> {
+			TestUtils.putEntry(zipOutputStream, "WEB-INF/classes/transformer/test/TestUtils.class", classBytes,
+				ZipEntry.DEFLATED);
+			TestUtils.putEntry(zipOutputStream, "WEB-INF/data.bin", data, ZipEntry.DEFLATED);
+		});
+		byte[] jarBytes = TestUtils.createArchiveBytes(zipOutputStream -> {
+			TestUtils.putEntry(zipOutputStream, "data.bin", data, ZipEntry.DEFLATED);
+			TestUtils.putEntry(zipOutputStream, "other.bin", data, ZipEntry.STORED);
+		});
+
+		File inputEarFile = TestUtils.createTempArchive("analysis", ".ear", zipOutputStream -> {
+			TestUtils.putEntry(zipOutputStream, "stored.war", warBytes, ZipEntry.STORED);
+			TestUtils.putEntry(zipOutputStream, "plain.jar", jarBytes, ZipEntry.STORED);
+			TestUtils.putEntry(zipOutputStream, "compressed.jar", jarBytes, ZipEntry.DEFLATED);
+			TestUtils.putEntry(zipOutputStream, "data.bin", data, ZipEntry.DEFLATED);
+		});
+
+		// Stored nested archives are read in place.
+		try (ZipDirectory directory = new ZipDirectory(inputEarFile.toPath(), StandardCharsets.UTF_8)) {
+			List<ZipDirectory.Entry> entries = directory.getEntries();
+			try (ZipDirectory nested = directory.nested(entries.get(1), StandardCharsets.UTF_8)) {
+				Assertions.assertEquals(List.of("data.bin", "other.bin"), nested.getEntries()
+					.stream()
+					.map(ZipDirectory.Entry::getName)
+					.toList());
+			}
+			Assertions.assertThrows(ZipException.class, () -> directory.nested(entries.get(2), StandardCharsets.UTF_8));
+		}
+
+		Map<String, String> optionDefaults = JakartaTransform.getOptionDefaults();
+		Transformer transformer = new Transformer(getCaptureLogger(), new TransformOptions() {
+			@Override
+			public String getDefaultValue(AppOption option) {
+				return optionDefaults.get(option.getLongTag());
+			}
+
+			@Override
+			public Function<String, URL> getRuleLoader() {
+				return JakartaTransform.getRuleLoader();
+			}
+
+			@Override
+			public String getInputFileName() {
+				return inputEarFile.getPath();
+			}
+		});
+		Assertions.assertTrue(transformer.setInput());
+		Assertions.assertTrue(transformer.loadRules());
+		Assertions.assertTrue(transformer.acceptAction());
+
+		Analysis analysis = new Analysis(getCaptureLogger(), new TransformOptions() {});
+		analysis.analyze(transformer);
+
+		Map<String, Long> outcomes = analysis.getOutcomes();
+		Assertions.assertEquals(1L, outcomes.get(ActionType.CLASS.getName()));
+		Assertions.assertEquals(1L, outcomes.get(ActionType.WAR.getName()));
+		Assertions.assertEquals(2L, outcomes.get(ActionType.JAR.getName()));
+		Assertions.assertEquals(4L, outcomes.get(ActionType.RENAME.getName()), outcomes::toString);
+
+		Assertions.assertEquals(List.of(inputEarFile.getPath() + "!/plain.jar"), analysis.getPassThrough()
+			.stream()
+			.map(Analysis.Archive::path)
+			.toList());
+		Assertions.assertEquals(List.of(inputEarFile.getPath() + "!/compressed.jar"), analysis.getOpaque()
+			.stream()
+			.map(Analysis.Archive::path)
+			.toList());
+		Assertions.assertEquals(inputEarFile.getPath() + "!/stored.war!/WEB-INF/classes/transformer/test/TestUtils.class",
+			analysis.getLargest()
+				.get(0)
+				.path());
+		// The stored war and the class are held with their outputs.
+		Assertions.assertEquals(2L * (warBytes.length + classBytes.length), analysis.getPeakBytes());
+
+		Map<String, Object> json = analysis.toMap();
+		Assertions.assertEquals(8L, json.get("entries"));
+		Assertions.assertEquals(3L, json.get("archives"));
+		Assertions.assertEquals(1L, json.get("transformedEntries"));
+		Assertions.assertEquals((long) classBytes.length, json.get("transformedBytes"));
+	}
+}
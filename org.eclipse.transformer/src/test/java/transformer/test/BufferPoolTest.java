@@ -0,0 +1,108 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+package transformer.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.eclipse.transformer.util.BufferPool;
+import org.eclipse.transformer.util.FileUtils;
+import org.eclipse.transformer.util.PooledOutputStream;
+import org.junit.jupiter.api.Test;
+
+class BufferPoolTest {
+	@Test
+	void reuse_in_size_classes() {
+		BufferPool pool = new BufferPool(BufferPool.DEFAULT_RETAINED_LIMIT);
+		ByteBuffer first;
+		try (BufferPool.Scope scope = pool.open()) {
+			first = scope.acquire(5000);
+			assertThat(first.capacity()).isEqualTo(8192);
+			assertThat(first.arrayOffset()).isZero();
+			assertThat(scope.acquire(1).capacity()).isEqualTo(FileUtils.PAGE_SIZE);
+			assertThat(pool.getInUseBytes()).isEqualTo(8192 + FileUtils.PAGE_SIZE);
+		}
+		assertThat(pool.getInUseBytes()).isZero();
+		assertThat(pool.getRetainedBytes()).isEqualTo(8192 + FileUtils.PAGE_SIZE);
+
+		try (BufferPool.Scope scope = pool.open()) {
+			ByteBuffer second = scope.acquire(8192);
+			assertThat(second).isSameAs(first);
+			assertThat(second.position()).isZero();
+			assertThat(second.limit()).isEqualTo(8192);
+		}
+		assertThat(pool.getAllocations()).isEqualTo(2);
+		assertThat(pool.getReuses()).isEqualTo(1);
+		assertThat(pool.getHighWaterMark()).isEqualTo(8192 + FileUtils.PAGE_SIZE);
+	}
+
+	@Test
+	void release_and_limits() {
+		BufferPool pool = new BufferPool(FileUtils.PAGE_SIZE);
+		try (BufferPool.Scope outer = pool.open()) {
+			ByteBuffer outerBuffer = outer.acquire(100);
+			try (BufferPool.Scope inner = pool.open()) {
+				assertThat(pool.current()).isSameAs(inner);
+				ByteBuffer innerBuffer = inner.acquire(100);
+				inner.release(outerBuffer); // Not acquired in the inner scope
+				inner.release(innerBuffer);
+				assertThat(pool.getInUseBytes()).isEqualTo(FileUtils.PAGE_SIZE);
+			}
+			assertThat(pool.current()).isSameAs(outer);
+			// Larger buffers are not pooled.
+			assertThat(outer.acquire(BufferPool.MAX_POOLED_CAPACITY + 1)
+				.capacity()).isEqualTo(BufferPool.MAX_POOLED_CAPACITY + 1);
+		}
+		assertThat(pool.current()).isNull();
+		// The second buffer exceeds the retained limit, and is discarded.
+		assertThat(pool.getRetainedBytes()).isEqualTo(FileUtils.PAGE_SIZE);
+		assertThat(pool.getInUseBytes()).isZero();
+	}
+
+	@Test
+	void pooled_output_stream() {
+		byte[] bytes = new byte[3 * FileUtils.PAGE_SIZE + 7];
+		new Random(36L).nextBytes(bytes);
+		BufferPool pool = BufferPool.local();
+		try (BufferPool.Scope scope = pool.open()) {
+			PooledOutputStream outputStream = new PooledOutputStream(10);
+			outputStream.write(bytes, 0, 5);
+			outputStream.write(ByteBuffer.wrap(bytes, 5, 10));
+			outputStream.write(bytes[15]);
+			outputStream.write(bytes, 16, bytes.length - 16);
+			assertThat(outputStream.size()).isEqualTo(bytes.length);
+
+			ByteBuffer output = outputStream.toByteBuffer();
+			assertThat(output.position()).isZero();
+			assertThat(output).isEqualTo(ByteBuffer.wrap(bytes));
+			// Replaced buffers were released.
+			assertThat(pool.getInUseBytes()).isEqualTo(output.capacity());
+		}
+	}
+
+	@Test
+	void read_in_scope() throws Exception {
+		byte[] bytes = new byte[FileUtils.BUFFER_ADJUSTMENT * 2 + 1];
+		new Random(36L).nextBytes(bytes);
+		BufferPool pool = BufferPool.local();
+		long inUse = pool.getInUseBytes();
+		try (BufferPool.Scope scope = pool.open()) {
+			ByteBuffer buffer = FileUtils.read("bytes", new ByteArrayInputStream(bytes),
+				scope.acquire(FileUtils.BUFFER_ADJUSTMENT));
+			assertThat(buffer).isEqualTo(ByteBuffer.wrap(bytes));
+			assertThat(pool.getInUseBytes() - inUse).isEqualTo(buffer.capacity());
+		}
+		assertThat(pool.getInUseBytes()).isEqualTo(inUse);
+	}
+}
@@ -0,0 +1,105 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package transformer.test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+
+import org.eclipse.transformer.action.ActionType;
+import org.eclipse.transformer.action.ContainerChanges;
+import org.eclipse.transformer.action.Throughput;
+import org.eclipse.transformer.action.impl.ChangesReport;
+import org.eclipse.transformer.action.impl.ZipActionImpl;
+import org.eclipse.transformer.util.Json;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ChangesReportTest extends CaptureTest {
+	/**
+	 * Verify that the changes of an archive record the time and bytes of the
+	 * archive, of its nested archives, and of their entries by action type,
+	 * and that the changes are reported as a tree.
+	 *
+	 * @throws Exception Thrown in case of a IO failure or a transformation
+	 *             failure.
+	 */
+	@Test
+	public void testTimingReport() throws Exception {
+		byte[] service = TestUtils.readSampleService();
+		byte[] nested = TestUtils.createArchiveBytes(zipOutputStream -> {
+			TestUtils.putEntry(zipOutputStream, TestUtils.SAMPLE_SERVICE_ENTRY, service, ZipEntry.DEFLATED);
+			TestUtils.putEntry(zipOutputStream, "readme.txt", new byte[100], ZipEntry.DEFLATED);
+		});
+		File inputJarFile = TestUtils.createTempArchive("timing", ".jar", zipOutputStream -> {
+			TestUtils.putEntry(zipOutputStream, "lib/a.jar", nested, ZipEntry.DEFLATED);
+			TestUtils.putEntry(zipOutputStream, "lib/b.jar", nested, ZipEntry.STORED);
+			TestUtils.putEntry(zipOutputStream, TestUtils.SAMPLE_SERVICE_ENTRY, service, ZipEntry.DEFLATED);
+		});
+
+		ZipActionImpl jarAction = TestUtils.createNestingJarAction(getCaptureLogger(), null);
+		TestUtils.transformEntries(jarAction, "timing.jar", inputJarFile);
+		ContainerChanges changes = jarAction.getLastActiveChanges();
+
+		long elapsedNanos = changes.getElapsedNanos();
+		Assertions.assertTrue(elapsedNanos > 0L);
+		// The timer is stopped: The elapsed time does not grow.
+		Thread.sleep(10L);
+		Assertions.assertEquals(elapsedNanos, changes.getElapsedNanos(), "Stopped");
+		Assertions.assertEquals(inputJarFile.length(), changes.getInputBytes());
+		Assertions.assertTrue(changes.getOutputBytes() > 0L);
+
+		Throughput jars = changes.getThroughputByType()
+			.get(ActionType.JAR);
+		Assertions.assertEquals(2, jars.getCount());
+		Throughput services = changes.getThroughputByType()
+			.get(ActionType.SERVICE_LOADER_CONFIG);
+		Assertions.assertEquals(1, services.getCount());
+		Assertions.assertEquals(service.length, services.getInputBytes());
+		Assertions.assertTrue(services.getOutputBytes() > 0L);
+		Assertions.assertEquals(3, changes.getSlowestEntries()
+			.size());
+
+		List<ContainerChanges> children = changes.getChildren();
+		Assertions.assertEquals(2, children.size());
+		for (ContainerChanges child : children) {
+			Assertions.assertEquals(nested.length, child.getInputBytes(), child.getInputResourceName());
+			Assertions.assertTrue(child.getOutputBytes() > 0L, child.getInputResourceName());
+			Assertions.assertEquals(1, child.getThroughputByType()
+				.get(ActionType.SERVICE_LOADER_CONFIG)
+				.getCount());
+			Assertions.assertEquals(2, child.getSlowestEntries()
+				.size());
+		}
+
+		List<ChangesReport.Timing> archives = ChangesReport.slowestArchives(changes, 10);
+		Assertions.assertEquals(3, archives.size());
+		Assertions.assertEquals("timing.jar", archives.get(0)
+			.path());
+		List<ChangesReport.Timing> entries = ChangesReport.slowestEntries(changes, 10);
+		Assertions.assertEquals(7, entries.size());
+		Assertions.assertTrue(entries.stream()
+			.anyMatch(entry -> entry.path()
+				.equals("timing.jar!/lib/b.jar!/readme.txt")));
+		Assertions.assertEquals(2, ChangesReport.slowestEntries(changes, 2)
+			.size());
+
+		Map<String, Object> report = Json.parseObject(Json.toJson(ChangesReport.toMap(changes)));
+		Assertions.assertEquals("timing.jar", report.get("name"));
+		Assertions.assertEquals(inputJarFile.length(), report.get("inputBytes"));
+		List<?> reportChildren = (List<?>) report.get("children");
+		Assertions.assertEquals(2, reportChildren.size());
+		Map<?, ?> byType = (Map<?, ?>) report.get("byType");
+		Assertions.assertEquals(2L, ((Map<?, ?>) byType.get("JAR")).get("count"));
+	}
+}
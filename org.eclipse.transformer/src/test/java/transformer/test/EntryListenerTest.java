@@ -0,0 +1,82 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package transformer.test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+
+import org.eclipse.transformer.action.ActionType;
+import org.eclipse.transformer.action.EntryListener;
+import org.eclipse.transformer.action.ProgressListener;
+import org.eclipse.transformer.action.impl.ZipActionImpl;
+import org.eclipse.transformer.metrics.Metrics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class EntryListenerTest extends CaptureTest {
+	/**
+	 * Verify that the entry listeners are notified of the outcome of each entry
+	 * of an archive, in order, and that combining a listener with no listener
+	 * answers the listener.
+	 *
+	 * @throws Exception Thrown in case of a IO failure or a transformation
+	 *             failure.
+	 */
+	@Test
+	public void testEntryListener() throws Exception {
+		File inputJarFile = TestUtils.createTempArchive("entries", ".jar", zipOutputStream -> {
+			TestUtils.putSampleService(zipOutputStream, ZipEntry.DEFLATED);
+			TestUtils.putEntry(zipOutputStream, "META-INF/services/unchanged.Reader", "unchanged.ReaderImpl"
+				.getBytes(StandardCharsets.UTF_8), ZipEntry.DEFLATED);
+			TestUtils.putEntry(zipOutputStream, "readme.txt", new byte[100], ZipEntry.DEFLATED);
+		});
+
+		List<String> events = Collections.synchronizedList(new ArrayList<>());
+		EntryListener first = new EntryListener() {
+			@Override
+			public void unaccepted(String containerName, String resourceName) {
+				events.add("unaccepted " + containerName + " " + resourceName);
+			}
+
+			@Override
+			public void unchanged(String containerName, ActionType actionType, String resourceName) {
+				events.add("unchanged " + containerName + " " + actionType + " " + resourceName);
+			}
+
+			@Override
+			public void contentChanged(String containerName, ActionType actionType, String resourceName) {
+				events.add("contentChanged " + containerName + " " + actionType + " " + resourceName);
+			}
+		};
+		EntryListener second = new EntryListener() {
+			@Override
+			public void unaccepted(String containerName, String resourceName) {
+				events.add("second " + resourceName);
+			}
+		};
+		Assertions.assertSame(first, first.andThen(EntryListener.NONE));
+		Assertions.assertSame(first, EntryListener.NONE.andThen(first));
+
+		ZipActionImpl jarAction = TestUtils.createJarAction(TestUtils.createSampleContext(getCaptureLogger(),
+			Metrics.DISABLED, ProgressListener.NONE, first.andThen(second)));
+		TestUtils.transform(jarAction, "entries.jar", inputJarFile);
+
+		Assertions.assertEquals(List.of(
+			"contentChanged entries.jar SERVICE_LOADER_CONFIG META-INF/services/jakarta.sample.Reader",
+			"unchanged entries.jar SERVICE_LOADER_CONFIG META-INF/services/unchanged.Reader",
+			"unaccepted entries.jar readme.txt", "second readme.txt"), events);
+	}
+}
@@ -14,12 +14,21 @@ package transformer.test;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Random;
 
+import aQute.lib.io.IO;
+import org.eclipse.transformer.action.ByteData;
 import org.eclipse.transformer.util.FileUtils;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.LoggerFactory;
 
 class FileUtilsTest {
 	static Random rd = new Random();
@@ -86,4 +95,25 @@ class FileUtilsTest {
 		result.get(array);
 		assertThat(array).containsExactly(source);
 	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {
+		0, 2048, FileUtils.MAP_THRESHOLD, FileUtils.MAP_THRESHOLD * 3
+	})
+	void read_file(int size, @TempDir File tempDir) throws Exception {
+		byte[] source = new byte[size];
+		rd.nextBytes(source);
+		File file = new File(tempDir, "random");
+		Files.write(file.toPath(), source);
+		ByteData data = FileUtils.read(LoggerFactory.getLogger(getClass()), "random", StandardCharsets.UTF_8, file);
+
+		assertThat(data.name()).isEqualTo("random");
+		assertThat(data.length()).isEqualTo(size);
+		ByteBuffer result = data.buffer();
+		assertThat(result.isDirect()).isEqualTo(size >= FileUtils.MAP_THRESHOLD);
+		byte[] array = new byte[result.remaining()];
+		result.get(array);
+		assertThat(array).containsExactly(source);
+		assertThat(IO.read(data.stream())).containsExactly(source);
+	}
 }
@@ -0,0 +1,70 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+package transformer.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.transformer.util.Json;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class JsonTest {
+	@Test
+	void round_trip() {
+		Map<String, Object> value = new LinkedHashMap<>();
+		value.put("string", "a \"quoted\" \\ line\n\ttab \u0001");
+		value.put("long", 42L);
+		value.put("double", 1.5);
+		value.put("true", true);
+		value.put("null", null);
+		value.put("list", Arrays.asList("x", 1L, false, null, List.of()));
+		value.put("object", Map.of("key", "value"));
+		value.put("empty", Map.of());
+
+		String json = Json.toJson(value);
+		assertThat(json).doesNotContain("\n");
+		assertThat(Json.parse(json)).isEqualTo(value);
+	}
+
+	@Test
+	void parse_whitespace_and_escapes() {
+		Map<String, Object> object = Json.parseObject(" { \"a\" : [ 1 , -2.5e1 ] ,\n \"b\" : \"\\u00e9\\/\" } ");
+		assertThat(object).containsEntry("a", List.of(1L, -25.0))
+			.containsEntry("b", "é/");
+	}
+
+	@Test
+	void write_other_values() {
+		assertThat(Json.toJson(new Object[] {
+			Thread.State.NEW, Double.NaN
+		})).isEqualTo("[\"NEW\",\"NaN\"]");
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"", "{", "{\"a\"}", "{\"a\":1,}", "[1 2]", "\"abc", "tru", "{} x", "{1:2}", "-"
+	})
+	void malformed(String text) {
+		assertThatIllegalArgumentException().isThrownBy(() -> Json.parse(text));
+	}
+
+	@Test
+	void not_an_object() {
+		assertThatIllegalArgumentException().isThrownBy(() -> Json.parseObject("[]"));
+	}
+}
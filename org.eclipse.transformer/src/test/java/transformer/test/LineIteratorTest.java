@@ -0,0 +1,150 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+package transformer.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.transformer.util.LineIterator;
+import org.eclipse.transformer.util.LineSeparatorBufferedReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class LineIteratorTest {
+	@Test
+	void empty() throws Exception {
+		LineIterator lines = new LineIterator(CharBuffer.wrap(""));
+		assertThat(lines.next()).isFalse();
+		assertThat(lines.lineSeparator()).isEqualTo("");
+	}
+
+	@Test
+	void no_eol() throws Exception {
+		LineIterator lines = new LineIterator(CharBuffer.wrap("foo=bar"));
+		assertThat(lines.next()).isTrue();
+		assertThat(lines.line()).hasToString("foo=bar");
+		assertThat(lines.lineSeparator()).isEqualTo("");
+		assertThat(lines.next()).isFalse();
+	}
+
+	@Test
+	void crlf_blank_lines() throws Exception {
+		LineIterator lines = new LineIterator(CharBuffer.wrap("\r\n\r\nfoo\r"));
+		assertThat(lines.next()).isTrue();
+		assertThat(lines.line()).isEmpty();
+		assertThat(lines.lineSeparator()).isEqualTo("\r\n");
+		assertThat(lines.next()).isTrue();
+		assertThat(lines.line()).isEmpty();
+		assertThat(lines.lineSeparator()).isEqualTo("\r\n");
+		assertThat(lines.next()).isTrue();
+		assertThat(lines.line()).hasToString("foo");
+		assertThat(lines.lineSeparator()).isEqualTo("\r");
+		assertThat(lines.next()).isFalse();
+	}
+
+	@Test
+	void line_view() throws Exception {
+		LineIterator lines = new LineIterator(CharBuffer.wrap("abc\ndefg"));
+		assertThat(lines.next()).isTrue();
+		CharSequence line = lines.line();
+		assertThat(line.length()).isEqualTo(3);
+		assertThat(line.charAt(2)).isEqualTo('c');
+		assertThat(line.subSequence(1, 3)).hasToString("bc");
+		assertThat(lines.next()).isTrue();
+		assertThat(line.length()).isEqualTo(4);
+		assertThat(line.subSequence(1, 3)).hasToString("ef");
+	}
+
+	@Test
+	void bytes() throws Exception {
+		ByteBuffer bytes = ByteBuffer.wrap("café\nnaïve".getBytes(StandardCharsets.UTF_8));
+		LineIterator lines = LineIterator.of(bytes, StandardCharsets.UTF_8);
+		assertThat(bytes.position()).isZero();
+		assertThat(lines.next()).isTrue();
+		assertThat(lines.line()).hasToString("café");
+		assertThat(lines.next()).isTrue();
+		assertThat(lines.line()).hasToString("naïve");
+		assertThat(lines.next()).isFalse();
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"", "a", "a\n", "a\r", "a\r\n", "\n", "\r", "\r\n", "\n\n", "\r\r", "\r\n\r\n", "\n\r", "a\nb\rc\r\nd",
+		"a\r\r\nb\n\r\nc", "foo=bar\r\nbaz\n\nqux\r"
+	})
+	void same_as_reader(String testString) throws Exception {
+		StringWriter expected = new StringWriter();
+		try (LineSeparatorBufferedReader reader = new LineSeparatorBufferedReader(new StringReader(testString))) {
+			for (String line; (line = reader.readLine()) != null;) {
+				expected.append('[')
+					.append(line)
+					.append(']')
+					.append(reader.lineSeparator());
+			}
+		}
+
+		StringWriter actual = new StringWriter();
+		StringWriter copy = new StringWriter();
+		LineIterator lines = new LineIterator(CharBuffer.wrap(testString));
+		while (lines.next()) {
+			actual.append('[')
+				.append(lines.line())
+				.append(']')
+				.append(lines.lineSeparator());
+			lines.writeLine(copy);
+			lines.writeLineSeparator(copy);
+		}
+
+		assertThat(actual).hasToString(expected.toString());
+		assertThat(copy).hasToString(testString);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"", "a", "a\n", "a\r", "a\r\n", "\n", "\r", "\r\n", "\n\n", "\r\r", "\r\n\r\n", "\n\r", "a\nb\rc\r\nd",
+		"a\r\r\nb\n\r\nc", "foo=bar\r\nbaz\n\nqux\r", "a longer line which grows the buffer\r\nshort\r"
+	})
+	void same_as_buffer(String testString) throws Exception {
+		StringWriter expected = new StringWriter();
+		LineIterator bufferLines = new LineIterator(CharBuffer.wrap(testString));
+		while (bufferLines.next()) {
+			expected.append('[')
+				.append(bufferLines.line())
+				.append(']')
+				.append(bufferLines.lineSeparator());
+		}
+
+		for (int size = 1; size <= 4; size++) {
+			StringWriter actual = new StringWriter();
+			StringWriter copy = new StringWriter();
+			LineIterator lines = LineIterator.of(new StringReader(testString), size);
+			while (lines.next()) {
+				actual.append('[')
+					.append(lines.line())
+					.append(']')
+					.append(lines.lineSeparator());
+				lines.writeLine(copy);
+				lines.writeLineSeparator(copy);
+			}
+
+			assertThat(actual).as("buffer size %s", size)
+				.hasToString(expected.toString());
+			assertThat(copy).as("buffer size %s", size)
+				.hasToString(testString);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package transformer.test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+
+import org.eclipse.transformer.action.EntryListener;
+import org.eclipse.transformer.action.ProgressListener;
+import org.eclipse.transformer.action.impl.ClassActionImpl;
+import org.eclipse.transformer.action.impl.ZipActionImpl;
+import org.eclipse.transformer.metrics.Metrics;
+import org.eclipse.transformer.metrics.MetricsRegistry;
+import org.eclipse.transformer.util.Json;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MetricsRegistryTest extends CaptureTest {
+	/**
+	 * Verify that the metrics registry counts the entries of an archive by
+	 * action type and outcome, records their bytes and durations, records
+	 * signature cache misses, and is written as Prometheus text and as JSON.
+	 *
+	 * @throws Exception Thrown in case of a IO failure or a transformation
+	 *             failure.
+	 */
+	@Test
+	public void testMetrics() throws Exception {
+		Assertions.assertFalse(Metrics.DISABLED.isEnabled());
+
+		byte[] service = TestUtils.readSampleService();
+		byte[] classBytes = TestUtils.readSampleClass();
+		File inputJarFile = TestUtils.createTempArchive("metrics", ".jar", zipOutputStream -> {
+			TestUtils.putEntry(zipOutputStream, TestUtils.SAMPLE_SERVICE_ENTRY, service, ZipEntry.DEFLATED);
+			TestUtils.putEntry(zipOutputStream, "transformer/test/TestUtils.class", classBytes, ZipEntry.DEFLATED);
+			TestUtils.putEntry(zipOutputStream, "readme.txt", new byte[100], ZipEntry.DEFLATED);
+		});
+
+		MetricsRegistry metrics = new MetricsRegistry();
+		ZipActionImpl jarAction = TestUtils.createJarAction(
+			TestUtils.createSampleContext(getCaptureLogger(), metrics, ProgressListener.NONE, EntryListener.NONE));
+		jarAction.addUsing(ClassActionImpl::new);
+		TestUtils.transform(jarAction, "metrics.jar", inputJarFile);
+
+		StringBuilder text = new StringBuilder();
+		metrics.writePrometheus(text);
+		List<String> lines = List.of(text.toString()
+			.split("\n"));
+		Assertions.assertTrue(lines.contains("# TYPE transformer_entries_total counter"), text::toString);
+		Assertions.assertTrue(
+			lines.contains("transformer_entries_total{type=\"SERVICE_LOADER_CONFIG\",outcome=\"changed\"} 1"),
+			text::toString);
+		Assertions.assertTrue(lines.contains("transformer_entries_total{type=\"NONE\",outcome=\"unaccepted\"} 1"),
+			text::toString);
+		Assertions.assertTrue(
+			lines.contains("transformer_entry_input_bytes_total{type=\"SERVICE_LOADER_CONFIG\"} " + service.length),
+			text::toString);
+		Assertions.assertTrue(lines.contains("# TYPE transformer_entry_duration_seconds histogram"), text::toString);
+		Assertions.assertTrue(lines.contains("transformer_entry_duration_seconds_bucket{type=\"CLASS\",le=\"+Inf\"} 1"),
+			text::toString);
+		Assertions.assertTrue(lines.contains("transformer_entry_duration_seconds_count{type=\"CLASS\"} 1"),
+			text::toString);
+		Assertions.assertTrue(lines.stream()
+			.anyMatch(line -> line
+				.matches("transformer_signature_cache_total\\{cache=\"binaryType\",result=\"miss\"\\} [1-9]\\d*")),
+			text::toString);
+
+		final File jsonFile = File.createTempFile("metrics", ".json");
+		jsonFile.deleteOnExit();
+		metrics.write(jsonFile, MetricsRegistry.Format.of(jsonFile));
+		Map<String, Object> json = Json.parseObject(Files.readString(jsonFile.toPath()));
+		List<?> families = (List<?>) json.get("metrics");
+		Map<?, ?> entries = families.stream()
+			.map(Map.class::cast)
+			.filter(family -> "transformer_entries_total".equals(family.get("name")))
+			.findFirst()
+			.orElseThrow();
+		Assertions.assertEquals("counter", entries.get("type"));
+		Assertions.assertTrue(((List<?>) entries.get("series")).stream()
+			.map(Map.class::cast)
+			.anyMatch(series -> Map.of("type", "SERVICE_LOADER_CONFIG", "outcome", "changed")
+				.equals(series.get("labels")) && Long.valueOf(1L)
+					.equals(series.get("value"))));
+
+		Assertions.assertThrows(IllegalArgumentException.class,
+			() -> metrics.histogram("transformer_entries_total", null, "type", "CLASS"));
+	}
+}
@@ -0,0 +1,408 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package transformer.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import aQute.bnd.classfile.Attribute;
+import aQute.bnd.classfile.ClassFile;
+import aQute.bnd.classfile.FieldInfo;
+import aQute.bnd.classfile.builder.ClassFileBuilder;
+import aQute.lib.io.ByteBufferDataOutput;
+import aQute.lib.io.IO;
+import org.eclipse.transformer.AppOption;
+import org.eclipse.transformer.Benchmark;
+import org.eclipse.transformer.TransformOptions;
+import org.eclipse.transformer.Transformer.ResultCode;
+import org.eclipse.transformer.jakarta.JakartaTransform;
+import org.eclipse.transformer.util.Json;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Performance regression tests: Fixed synthetic workloads are transformed
+ * repeatedly using the Jakarta rules, and the throughput and allocations of
+ * each workload are compared with the baseline of the workload.
+ * <p>
+ * These tests are run by the "performance" profile, and are excluded from all
+ * other builds. The workloads are generated in the build directory, and
+ * require no network access.
+ * <p>
+ * Baselines are read from the file named by the
+ * {@link #BASELINE_PROPERTY} system property. A workload fails when its median
+ * entries per second is lower than its baseline, or its median allocated bytes
+ * are higher than its baseline, by more than the fraction named by the
+ * {@link #TOLERANCE_PROPERTY} system property. A workload also fails when the
+ * baseline file has no baseline for the workload. The measurements of the last
+ * run are written to {@link #RESULTS_FILE}.
+ * <p>
+ * Baselines are specific to a machine. Each machine keeps its own baseline
+ * file, by default {@link #DEFAULT_BASELINE} in the user home directory, and
+ * baseline files are not committed. When the {@link #RECORD_PROPERTY} system
+ * property is true, the baselines of all workloads are recorded, and the
+ * workloads pass. Baselines are recorded before the first run on a machine,
+ * and again after an intended change of performance, or a change of the JDK or
+ * of the machine.
+ * <p>
+ * The workloads run in a fixed order in one JVM, so that each workload is
+ * measured with the same warmup of the JVM as its baseline.
+ */
+@Tag(PerformanceTest.PERFORMANCE_TAG)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class PerformanceTest {
+	public static final String			PERFORMANCE_TAG			= "performance";
+
+	public static final String			BASELINE_PROPERTY		= "transformer.performance.baseline";
+	public static final String			TOLERANCE_PROPERTY		= "transformer.performance.tolerance";
+	public static final String			RECORD_PROPERTY			= "transformer.performance.record";
+	public static final String			WARMUP_PROPERTY			= "transformer.performance.warmup";
+	public static final String			ITERATIONS_PROPERTY		= "transformer.performance.iterations";
+
+	public static final String			DEFAULT_BASELINE		= ".eclipse-transformer/performance-baseline.json";
+	public static final double			DEFAULT_TOLERANCE		= 0.25;
+	public static final int				DEFAULT_WARMUP			= 2;
+	public static final int				DEFAULT_ITERATIONS		= 5;
+
+	public static final String			PERFORMANCE_DIR			= "target/performance";
+	public static final String			WORKLOADS_DIR			= PERFORMANCE_DIR + "/workloads";
+	public static final String			OUTPUT_DIR				= PERFORMANCE_DIR + "/output";
+	public static final String			RESULTS_FILE			= PERFORMANCE_DIR + "/results.json";
+
+	/** Classes of the class jar workload. */
+	public static final int				JAR_CLASSES				= 20_000;
+	/** Classes of each package of a generated jar. */
+	public static final int				PACKAGE_CLASSES			= 500;
+
+	/** Web archives of the enterprise archive workload. */
+	public static final int				EAR_WARS				= 4;
+	/** Classes of each web archive of the enterprise archive workload. */
+	public static final int				WAR_CLASSES				= 250;
+	/** Library jars of each web archive of the enterprise archive workload. */
+	public static final int				WAR_LIBS				= 4;
+	/** Classes of each library jar of the enterprise archive workload. */
+	public static final int				LIB_CLASSES				= 250;
+
+	/** Files of the descriptor directory workload. */
+	public static final int				DESCRIPTORS				= 50_000;
+	/** Files of each sub-directory of the descriptor directory workload. */
+	public static final int				DIRECTORY_DESCRIPTORS	= 500;
+
+	/** Time of all generated entries, so that the workloads are identical. */
+	private static final long			ENTRY_TIME				= 1_577_836_800_000L;
+
+	private static final List<String>	MEASURES				= List.of("entries", "inputBytes",
+		"megabytesPerSecond", "entriesPerSecond", "allocatedBytesMedian");
+
+	private static final Logger			logger					= LoggerFactory.getLogger(PerformanceTest.class);
+
+	private static File					baselineFile;
+	private static double				tolerance;
+	private static boolean				record;
+	private static int					warmup;
+	private static int					iterations;
+
+	private static Map<String, Object>	baselines;
+	private static boolean				baselinesChanged;
+	private static Map<String, Object>	results;
+
+	@BeforeAll
+	static void setUpBaselines() throws IOException {
+		String baselineName = System.getProperty(BASELINE_PROPERTY);
+		baselineFile = (baselineName == null) ? new File(System.getProperty("user.home"), DEFAULT_BASELINE)
+			: IO.getFile(baselineName);
+		tolerance = Double.parseDouble(System.getProperty(TOLERANCE_PROPERTY, Double.toString(DEFAULT_TOLERANCE)));
+		record = Boolean.parseBoolean(System.getProperty(RECORD_PROPERTY));
+		warmup = Integer.getInteger(WARMUP_PROPERTY, DEFAULT_WARMUP);
+		iterations = Integer.getInteger(ITERATIONS_PROPERTY, DEFAULT_ITERATIONS);
+
+		Assertions.assertTrue(record || baselineFile.isFile(),
+			() -> "Performance baseline [ " + baselineFile
+				+ " ] does not exist: Record the baselines of this machine using [ -D" + RECORD_PROPERTY + "=true ]");
+
+		baselines = new LinkedHashMap<>();
+		if (baselineFile.isFile()) {
+			Object workloads = Json.parseObject(IO.collect(baselineFile))
+				.get("workloads");
+			if (workloads instanceof Map<?, ?> workloadMap) {
+				workloadMap.forEach((workload, baseline) -> baselines.put((String) workload, baseline));
+			}
+		}
+		baselinesChanged = false;
+		results = new LinkedHashMap<>();
+
+		logger.info("Performance baseline [ {} ] tolerance [ {} ] record [ {} ] warmup [ {} ] iterations [ {} ]",
+			baselineFile, tolerance, record, warmup, iterations);
+	}
+
+	@AfterAll
+	static void writeResults() throws IOException {
+		writeWorkloads(IO.getFile(RESULTS_FILE), results);
+		if (baselinesChanged) {
+			writeWorkloads(baselineFile, baselines);
+			logger.info("Performance baseline [ {} ] written", baselineFile);
+		}
+	}
+
+	private static void writeWorkloads(File file, Map<String, Object> workloads) throws IOException {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("javaVersion", System.getProperty("java.version"));
+		map.put("availableProcessors", Runtime.getRuntime()
+			.availableProcessors());
+		map.put("workloads", workloads);
+
+		IO.mkdirs(file.getAbsoluteFile()
+			.getParentFile());
+		try (Writer writer = IO.writer(file)) {
+			Json.write(writer, map);
+		}
+	}
+
+	//
+
+	@Test
+	@Order(1)
+	void testClassJar() throws Exception {
+		File input = IO.getFile(WORKLOADS_DIR + "/classes.jar");
+		IO.mkdirs(input.getParentFile());
+		try (OutputStream output = IO.outputStream(input)) {
+			writeClassJar(output, "perf/jar", JAR_CLASSES);
+		}
+		measure("classJar", input);
+	}
+
+	@Test
+	@Order(2)
+	void testNestedEar() throws Exception {
+		File input = IO.getFile(WORKLOADS_DIR + "/application.ear");
+		IO.mkdirs(input.getParentFile());
+		try (ZipOutputStream ear = new ZipOutputStream(IO.outputStream(input))) {
+			StringBuilder modules = new StringBuilder();
+			for (int warNo = 0; warNo < EAR_WARS; warNo++) {
+				modules.append("  <module><web><web-uri>web-")
+					.append(warNo)
+					.append(".war</web-uri></web></module>\n");
+			}
+			putEntry(ear, "META-INF/application.xml",
+				("<application xmlns=\"http://xmlns.jcp.org/xml/ns/javaee\" version=\"8\">\n" + modules
+					+ "</application>\n").getBytes(StandardCharsets.UTF_8));
+			for (int warNo = 0; warNo < EAR_WARS; warNo++) {
+				putEntry(ear, "web-" + warNo + ".war", warBytes(warNo));
+			}
+		}
+		measure("nestedEar", input);
+	}
+
+	@Test
+	@Order(3)
+	void testDescriptorDirectory() throws Exception {
+		File input = IO.getFile(WORKLOADS_DIR + "/descriptors");
+		IO.delete(input);
+		for (int descriptorNo = 0; descriptorNo < DESCRIPTORS; descriptorNo++) {
+			File directory = new File(input, String.format(Locale.ROOT, "d%03d", descriptorNo / DIRECTORY_DESCRIPTORS));
+			if ((descriptorNo % DIRECTORY_DESCRIPTORS) == 0) {
+				IO.mkdirs(directory);
+			}
+			if ((descriptorNo % 2) == 0) {
+				Files.writeString(new File(directory, "web-" + descriptorNo + ".xml").toPath(),
+					webXml("perf.descriptor.Servlet" + descriptorNo));
+			} else {
+				Files.writeString(new File(directory, "config-" + descriptorNo + ".properties").toPath(),
+					"javax.servlet.http.HttpServlet=perf.descriptor.Servlet" + descriptorNo + "\n"
+						+ "javax.persistence.EntityManager=perf.descriptor.Manager" + descriptorNo + "\n"
+						+ "description=Descriptor " + descriptorNo + "\n");
+			}
+		}
+		measure("descriptorDirectory", input);
+	}
+
+	//
+
+	/**
+	 * Measure a workload, and compare its measurements with the baseline of
+	 * the workload.
+	 *
+	 * @param workload The name of the workload.
+	 * @param input The input of the workload.
+	 */
+	private void measure(String workload, File input) throws IOException {
+		File outputDirectory = IO.getFile(OUTPUT_DIR + "/" + workload);
+		IO.delete(outputDirectory);
+		IO.mkdirs(outputDirectory);
+
+		Benchmark benchmark = new Benchmark(logger, jakartaOptions(input));
+		ResultCode rc = benchmark.run(warmup, iterations, outputDirectory);
+		Assertions.assertEquals(ResultCode.SUCCESS_RC, rc, "Workload [ " + workload + " ] failed");
+		benchmark.log();
+
+		Map<String, Object> summary = benchmark.toMap();
+		Map<String, Object> measured = new LinkedHashMap<>();
+		for (String measure : MEASURES) {
+			measured.put(measure, summary.get(measure));
+		}
+		results.put(workload, measured);
+
+		if (record) {
+			baselines.put(workload, measured);
+			baselinesChanged = true;
+			logger.info("Workload [ {} ] baseline recorded {}", workload, measured);
+			return;
+		}
+		Map<?, ?> baseline = Assertions.assertInstanceOf(Map.class, baselines.get(workload),
+			() -> "Workload [ " + workload + " ] has no baseline in [ " + baselineFile
+				+ " ]: Record the baselines of this machine using [ -D" + RECORD_PROPERTY + "=true ]");
+
+		Assertions.assertEquals(number(baseline, "entries").longValue(), number(measured, "entries").longValue(),
+			() -> "Workload [ " + workload + " ] does not match its baseline: Record the baseline again using [ -D"
+				+ RECORD_PROPERTY + "=true ]");
+
+		List<String> regressions = new ArrayList<>();
+		double baselineThroughput = number(baseline, "entriesPerSecond").doubleValue();
+		double throughput = number(measured, "entriesPerSecond").doubleValue();
+		if (throughput < (baselineThroughput * (1.0 - tolerance))) {
+			regressions.add(String.format(Locale.ROOT, "Throughput [ %.0f entries/s ] is below baseline [ %.0f entries/s ]",
+				throughput, baselineThroughput));
+		}
+		long baselineAllocated = number(baseline, "allocatedBytesMedian").longValue();
+		long allocated = number(measured, "allocatedBytesMedian").longValue();
+		if ((baselineAllocated >= 0L) && (allocated >= 0L) && (allocated > (baselineAllocated * (1.0 + tolerance)))) {
+			regressions.add(String.format(Locale.ROOT, "Allocated [ %d bytes ] is above baseline [ %d bytes ]",
+				allocated, baselineAllocated));
+		}
+		logger.info("Workload [ {} ] throughput [ {} / {} entries/s ] allocated [ {} / {} bytes ]", workload,
+			Math.round(throughput), Math.round(baselineThroughput), allocated, baselineAllocated);
+
+		Assertions.assertTrue(regressions.isEmpty(),
+			() -> "Workload [ " + workload + " ] regressed beyond tolerance [ " + tolerance + " ]: " + regressions);
+	}
+
+	private static Number number(Map<?, ?> map, String key) {
+		Object value = map.get(key);
+		Assertions.assertInstanceOf(Number.class, value, () -> "Measure [ " + key + " ] is not a number");
+		return (Number) value;
+	}
+
+	private static TransformOptions jakartaOptions(File input) {
+		Map<String, String> optionDefaults = JakartaTransform.getOptionDefaults();
+		return new TransformOptions() {
+			@Override
+			public String getDefaultValue(AppOption option) {
+				return optionDefaults.get(option.getLongTag());
+			}
+
+			@Override
+			public Function<String, URL> getRuleLoader() {
+				return JakartaTransform.getRuleLoader();
+			}
+
+			@Override
+			public String getInputFileName() {
+				return input.getAbsolutePath();
+			}
+		};
+	}
+
+	//
+
+	private static byte[] warBytes(int warNo) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream war = new ZipOutputStream(bytes)) {
+			putEntry(war, "WEB-INF/web.xml", webXml("perf.war" + warNo + ".Servlet").getBytes(StandardCharsets.UTF_8));
+			for (int classNo = 0; classNo < WAR_CLASSES; classNo++) {
+				String className = "perf/war" + warNo + "/C" + classNo;
+				putEntry(war, "WEB-INF/classes/" + className + ".class", classBytes(className));
+			}
+			for (int libNo = 0; libNo < WAR_LIBS; libNo++) {
+				ByteArrayOutputStream libBytes = new ByteArrayOutputStream();
+				writeClassJar(libBytes, "perf/war" + warNo + "/lib" + libNo, LIB_CLASSES);
+				putEntry(war, "WEB-INF/lib/lib-" + libNo + ".jar", libBytes.toByteArray());
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private static void writeClassJar(OutputStream output, String packagePrefix, int classCount) throws IOException {
+		try (ZipOutputStream jar = new ZipOutputStream(output)) {
+			putEntry(jar, "META-INF/MANIFEST.MF",
+				("Manifest-Version: 1.0\r\nImport-Package: javax.servlet,javax.servlet.http\r\n\r\n")
+					.getBytes(StandardCharsets.UTF_8));
+			putEntry(jar, "META-INF/services/javax.servlet.ServletContainerInitializer",
+				(packagePrefix.replace('/', '.') + ".p0.C0\n").getBytes(StandardCharsets.UTF_8));
+			for (int classNo = 0; classNo < classCount; classNo++) {
+				String className = packagePrefix + "/p" + (classNo / PACKAGE_CLASSES) + "/C" + classNo;
+				putEntry(jar, className + ".class", classBytes(className));
+			}
+		}
+	}
+
+	/**
+	 * Generate a class which references Java EE types from its super class, its
+	 * interfaces, and its field.
+	 *
+	 * @param className The binary name of the class.
+	 * @return The bytes of the class.
+	 */
+	private static byte[] classBytes(String className) throws IOException {
+		ClassFileBuilder builder = new ClassFileBuilder(Modifier.PUBLIC, ClassFile.MAJOR_VERSION, 0, className,
+			"javax/servlet/http/HttpServlet", "javax/servlet/Filter");
+		builder.fields(new FieldInfo(Modifier.PRIVATE, "request", "Ljavax/servlet/ServletRequest;", new Attribute[0]));
+		ByteBufferDataOutput output = new ByteBufferDataOutput();
+		builder.build()
+			.write(output);
+		return output.toByteArray();
+	}
+
+	private static String webXml(String servletClass) {
+		return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+			+ "<web-app xmlns=\"http://xmlns.jcp.org/xml/ns/javaee\" version=\"4.0\">\n" //
+			+ "  <servlet>\n" //
+			+ "    <servlet-name>servlet</servlet-name>\n" //
+			+ "    <servlet-class>" + servletClass + "</servlet-class>\n" //
+			+ "    <init-param>\n" //
+			+ "      <param-name>javax.servlet.http.filter</param-name>\n" //
+			+ "      <param-value>javax.servlet.Filter</param-value>\n" //
+			+ "    </init-param>\n" //
+			+ "  </servlet>\n" //
+			+ "</web-app>\n";
+	}
+
+	private static void putEntry(ZipOutputStream zip, String name, byte[] bytes) throws IOException {
+		ZipEntry entry = new ZipEntry(name);
+		entry.setTime(ENTRY_TIME);
+		zip.putNextEntry(entry);
+		zip.write(bytes);
+		zip.closeEntry();
+	}
+}
@@ -0,0 +1,89 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package transformer.test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+
+import org.eclipse.transformer.ProgressReporter;
+import org.eclipse.transformer.action.EntryListener;
+import org.eclipse.transformer.action.ProgressListener;
+import org.eclipse.transformer.action.impl.ZipActionImpl;
+import org.eclipse.transformer.metrics.Metrics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import transformer.test.util.CaptureLoggerImpl;
+
+public class ProgressReporterTest extends CaptureTest {
+	/**
+	 * Verify that the progress listener is notified when each entry of an
+	 * archive starts and finishes, and that the progress reporter reports the
+	 * entries, the bytes, and the estimated time to finish.
+	 *
+	 * @throws Exception Thrown in case of a IO failure or a transformation
+	 *             failure.
+	 */
+	@Test
+	public void testProgress() throws Exception {
+		byte[] service = TestUtils.readSampleService();
+		File inputJarFile = TestUtils.createTempArchive("progress", ".jar", zipOutputStream -> {
+			TestUtils.putEntry(zipOutputStream, TestUtils.SAMPLE_SERVICE_ENTRY, service, ZipEntry.DEFLATED);
+			TestUtils.putEntry(zipOutputStream, "readme.txt", new byte[100], ZipEntry.DEFLATED);
+		});
+
+		List<String> events = Collections.synchronizedList(new ArrayList<>());
+		ProgressListener listener = new ProgressListener() {
+			@Override
+			public void entryStarted(String containerName, String entryName, long inputBytes) {
+				events.add("started " + containerName + " " + entryName + " " + inputBytes);
+			}
+
+			@Override
+			public void entryFinished(String containerName, String entryName, long inputBytes, long outputBytes) {
+				events.add("finished " + containerName + " " + entryName + " " + inputBytes);
+			}
+		};
+
+		CaptureLoggerImpl useLogger = getCaptureLogger();
+		ZipActionImpl jarAction = TestUtils.createJarAction(
+			TestUtils.createSampleContext(useLogger, Metrics.DISABLED, listener, EntryListener.NONE));
+		TestUtils.transform(jarAction, "progress.jar", inputJarFile);
+
+		Assertions.assertEquals(4, events.size(), events::toString);
+		Assertions.assertTrue(events.contains("finished progress.jar META-INF/services/jakarta.sample.Reader "
+			+ service.length), events::toString);
+		Assertions.assertTrue(events.contains("finished progress.jar readme.txt 100"), events::toString);
+
+		List<String> reports = new ArrayList<>();
+		ProgressReporter reporter = new ProgressReporter(useLogger, 0L) {
+			@Override
+			protected void report(String progress, boolean finished) {
+				reports.add(finished + " " + progress);
+			}
+		};
+		reporter.transformStarted("input.jar", 2L, 200L);
+		reporter.entryFinished("input.jar", "a.txt", 100L, 100L);
+		reporter.entryFinished("nested.jar", "b.txt", 50L, 50L);
+		reporter.transformFinished("input.jar");
+
+		Assertions.assertEquals(3, reports.size(), reports::toString);
+		Assertions.assertTrue(reports.get(0)
+			.startsWith("false Progress [ 1 / 2 ] entries [ 0.0 / 0.0 MB ]"), reports::toString);
+		Assertions.assertTrue(reports.get(0)
+			.contains("[ 50.0% ] ETA ["), reports::toString);
+		Assertions.assertTrue(reports.get(2)
+			.startsWith("true Progress [ 1 / 2 ] entries"), reports::toString);
+	}
+}
@@ -0,0 +1,81 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package transformer.test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.transformer.action.impl.RuleProfiler;
+import org.eclipse.transformer.action.impl.RuleProfiler.MethodCost;
+import org.eclipse.transformer.action.impl.RuleProfiler.RuleType;
+import org.eclipse.transformer.action.impl.RuleProfiler.RuleUsage;
+import org.eclipse.transformer.action.impl.SignatureRuleImpl;
+import org.eclipse.transformer.util.Json;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import transformer.test.util.CaptureLoggerImpl;
+
+public class RuleProfilerTest extends CaptureTest {
+	/**
+	 * Verify that the rule profiler counts the matches of each rename and
+	 * direct string rule, answers the rules which never matched, records the
+	 * calls of the signature rule methods, and is written as JSON.
+	 *
+	 * @throws Exception Thrown in case of a IO failure or a transformation
+	 *             failure.
+	 */
+	@Test
+	public void testRuleProfile() throws Exception {
+		Map<String, String> renames = new HashMap<>();
+		renames.put("javax.sample", "jakarta.sample");
+		renames.put("javax.unused.*", "jakarta.unused");
+		Map<String, String> directStrings = new HashMap<>();
+		directStrings.put("javax.sample.Reader", "jakarta.sample.Reader");
+		directStrings.put("never.matched", "still.never.matched");
+
+		CaptureLoggerImpl useLogger = getCaptureLogger();
+		SignatureRuleImpl signatureRule = createSignatureRule(useLogger, renames, null, null, directStrings, null);
+		RuleProfiler profiler = new RuleProfiler();
+		signatureRule.setProfiler(profiler);
+
+		Assertions.assertEquals("jakarta.sample", signatureRule.replacePackage("javax.sample"));
+		Assertions.assertEquals("jakarta/sample/Reader", signatureRule.replaceBinaryPackages("javax/sample/Reader"));
+		Assertions.assertEquals("jakarta.sample.Reader",
+			signatureRule.replaceTextDirectGlobal("javax.sample.Reader", "Test.class"));
+		Assertions.assertNull(signatureRule.replacePackage("javax.other"));
+
+		List<RuleUsage> usage = profiler.getUsage();
+		Assertions.assertEquals(new RuleUsage(RuleType.RENAME, null, "javax.sample", 2L), usage.get(0));
+		Assertions.assertTrue(usage.contains(new RuleUsage(RuleType.DIRECT, null, "javax.sample.Reader", 1L)),
+			usage::toString);
+		Assertions.assertEquals(List.of(new RuleUsage(RuleType.RENAME, null, "javax.unused.*", 0L),
+			new RuleUsage(RuleType.DIRECT, null, "never.matched", 0L)), profiler.getUnused());
+
+		MethodCost replacePackage = profiler.getCosts()
+			.stream()
+			.filter(cost -> cost.method() == RuleProfiler.Method.REPLACE_PACKAGE)
+			.findFirst()
+			.orElseThrow();
+		Assertions.assertEquals(2L, replacePackage.calls());
+
+		final File profileFile = File.createTempFile("profile", ".json");
+		profileFile.deleteOnExit();
+		profiler.write(profileFile);
+		Map<String, Object> json = Json.parseObject(Files.readString(profileFile.toPath()));
+		Assertions.assertEquals(4, ((List<?>) json.get("rules")).size());
+		Assertions.assertEquals(2, ((List<?>) json.get("unused")).size());
+		Assertions.assertFalse(((List<?>) json.get("methods")).isEmpty());
+	}
+}
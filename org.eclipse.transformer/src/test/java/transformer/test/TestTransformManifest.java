@@ -16,14 +16,21 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
 
+import aQute.bnd.header.Attrs;
+import aQute.bnd.header.OSGiHeader;
+import aQute.bnd.header.Parameters;
 import org.eclipse.transformer.TransformException;
 import org.eclipse.transformer.TransformProperties;
 import org.eclipse.transformer.action.ActionContext;
@@ -938,4 +945,132 @@ public class TestTransformManifest extends CaptureTest {
 			UNUSED_IDENTITY_UPDATES,
 			getSpecificJakartaManifestAction());
 	}
+
+	public static final String BYTE_PRESERVING_INPUT =                                         //
+		"Manifest-Version: 1.0\r\n" +                                                          //
+		"Bundle-ManifestVersion: 2\r\n" +                                                      //
+		"Import-Package: javax.servlet;version=\"[2.6,3)\",javax.servlet.http;vers\r\n" +     //
+		" ion=\"[2.6,3)\",org.example.unchanged;version=\"[1.0,2)\"\r\n" +                   //
+		"X-Custom: javax.servlet is not renamed in an unselected header, even\r\n" +     //
+		"  when folded\r\n" +                                                                  //
+		"\r\n" +                                                                               //
+		"Name: javax/servlet/Servlet.class\r\n" +                                             //
+		"SHA-256-Digest: 47DEQpj8HBSa+/TImW+5JCeuQeRkm5NMpJWZG3hSuFU=\r\n" +                  //
+		"\r\n" +                                                                               //
+		"Name: javax/servlet/http/HttpServlet.class\r\n" +                                    //
+		"SHA-256-Digest: 47DEQpj8HBSa+/TImW+5JCeuQeRkm5NMpJWZG3hSuFU=\r\n" +                  //
+		"\r\n";
+
+	@Test
+	public void testTransformManifest_BytePreserving() throws TransformException, IOException {
+		ManifestActionImpl manifestAction = getJakartaManifestAction();
+
+		ByteData inputData = manifestAction.collect("META-INF/MANIFEST.MF",
+			new ByteArrayInputStream(BYTE_PRESERVING_INPUT.getBytes(StandardCharsets.UTF_8)));
+		ByteData outputData = manifestAction.apply(inputData);
+
+		String output = StandardCharsets.UTF_8.decode(outputData.buffer())
+			.toString();
+
+		// Only the selected header is rewritten; everything else is copied.
+		String outputHead = output.substring(0, output.indexOf("Import-Package: "));
+		String outputTail = output.substring(output.indexOf("X-Custom: "));
+		assertThat(outputHead).isEqualTo(BYTE_PRESERVING_INPUT.substring(0, BYTE_PRESERVING_INPUT.indexOf("Import-Package: ")));
+		assertThat(outputTail).isEqualTo(BYTE_PRESERVING_INPUT.substring(BYTE_PRESERVING_INPUT.indexOf("X-Custom: ")));
+
+		// The rewritten header is folded using the original line separator.
+		for (String line : output.split("\r\n")) {
+			assertThat(line.getBytes(StandardCharsets.UTF_8)).hasSizeLessThanOrEqualTo(72);
+		}
+		assertThat(output.replace("\r\n", "")).doesNotContain("\r", "\n");
+
+		Manifest manifest = new Manifest(outputData.stream());
+		assertThat(manifest.getMainAttributes()
+			.getValue("Import-Package")).isEqualTo(
+				"jakarta.servlet;version=\"[2.6,6.0)\",jakarta.servlet.http;version=\"[2.6,3)\",org.example.unchanged;version=\"[1.0,2)\"");
+		assertThat(manifest.getEntries()).containsOnlyKeys("javax/servlet/Servlet.class",
+			"javax/servlet/http/HttpServlet.class");
+	}
+
+	@Test
+	public void testTransformManifest_Unchanged() throws TransformException, IOException {
+		ManifestActionImpl manifestAction = getJakartaManifestAction();
+
+		String input = "Manifest-Version: 1.0\nImport-Package: org.example\n";
+		ByteData inputData = manifestAction.collect("META-INF/MANIFEST.MF",
+			new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+		assertThat(manifestAction.apply(inputData)).isSameAs(inputData);
+	}
+
+	/**
+	 * Verify that a feature manifest survives a transform: Every header and
+	 * every clause is retained, and only package names are changed.
+	 *
+	 * @throws TransformException Thrown if the transform fails.
+	 * @throws IOException Thrown if the feature manifest cannot be read.
+	 */
+	@Test
+	public void testTransformFeature_RoundTrip() throws TransformException, IOException {
+		ManifestActionImpl featureAction = getJakartaFeatureAction();
+
+		byte[] inputBytes;
+		try (InputStream input = TestUtils.getResourceStream(TEST_FEATURE_PATH)) {
+			inputBytes = input.readAllBytes();
+		}
+		ByteData outputData = featureAction
+			.apply(featureAction.collect(TEST_FEATURE_PATH, new ByteArrayInputStream(inputBytes)));
+
+		Attributes inputAttributes = new Manifest(new ByteArrayInputStream(inputBytes)).getMainAttributes();
+		Attributes outputAttributes = new Manifest(outputData.stream()).getMainAttributes();
+
+		assertThat(outputAttributes.keySet()).isEqualTo(inputAttributes.keySet());
+		for (Object name : inputAttributes.keySet()) {
+			String inputValue = (String) inputAttributes.get(name);
+			String expectedValue = "IBM-API-Package".equals(name.toString())
+				? inputValue.replace("javax.servlet", "jakarta.servlet")
+				: inputValue;
+			assertThat(outputAttributes.get(name)).as("Header [ %s ]", name)
+				.isEqualTo(expectedValue);
+		}
+	}
+
+	public static final String FEATURE_QUOTED_INPUT =                                                //
+		"Subsystem-ManifestVersion: 1\n" +                                                                 //
+		"Subsystem-Content: javax.servlet.http; version=\"[4.0,5.0)\"; location:=\"dev/api/spec/,lib/\", " + //
+		"com.example.other; type=jar\n" +                                                                  //
+		"Subsystem-Type: osgi.subsystem.feature\n";
+
+	public static final String FEATURE_QUOTED_OUTPUT =                                               //
+		"Subsystem-ManifestVersion: 1\n" +                                                                 //
+		"Subsystem-Content: jakarta.servlet.http; version=\"[4.0,5.0)\"; location:=\"dev/api/spec/,lib/\",\n" + //
+		" com.example.other; type=jar\n" +                                                                 //
+		"Subsystem-Type: osgi.subsystem.feature\n";
+
+	/**
+	 * Verify that an updated feature manifest header is folded between
+	 * clauses, but not at commas inside quoted values, and that the quoted
+	 * values are unchanged.
+	 *
+	 * @throws TransformException Thrown if the transform fails.
+	 * @throws IOException Thrown if the updated feature manifest cannot be
+	 *             read.
+	 */
+	@Test
+	public void testTransformFeature_Quoted() throws TransformException, IOException {
+		ManifestActionImpl featureAction = getJakartaFeatureAction();
+
+		ByteData inputData = featureAction.collect("OSGI-INF/feature.mf",
+			new ByteArrayInputStream(FEATURE_QUOTED_INPUT.getBytes(StandardCharsets.UTF_8)));
+		ByteData outputData = featureAction.apply(inputData);
+
+		assertThat(StandardCharsets.UTF_8.decode(outputData.buffer())
+			.toString()).isEqualTo(FEATURE_QUOTED_OUTPUT);
+
+		Parameters content = OSGiHeader.parseHeader(new Manifest(outputData.stream()).getMainAttributes()
+			.getValue("Subsystem-Content"));
+		assertThat(content.keySet()).containsExactly("jakarta.servlet.http", "com.example.other");
+		Attrs attrs = content.get("jakarta.servlet.http");
+		assertThat(attrs.get("version")).isEqualTo("[4.0,5.0)");
+		assertThat(attrs.get("location:")).isEqualTo("dev/api/spec/,lib/");
+	}
 }
@@ -11,11 +11,16 @@
 
 package transformer.test;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -23,7 +28,13 @@ import java.util.Map;
 
 import aQute.lib.io.IO;
 import org.eclipse.transformer.AppOption;
+import org.eclipse.transformer.RulesSnapshot;
+import org.eclipse.transformer.TransformOptions;
+import org.eclipse.transformer.Transformer;
+import org.eclipse.transformer.Transformer.ResultCode;
 import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+import org.slf4j.helpers.SubstituteLoggerFactory;
 
 // Initial:
 // The quick brown fox jumps over the lazy dog.
@@ -245,4 +256,211 @@ public class TestTransformerMultiText extends TestTransformerBase {
 			TestTransformerMultiText::getExtension,
 			OUTPUT_TEXT_MAP);
 	}
+
+	public static final String LAZY_MASTER_PROPERTIES = "lazy.master.properties";
+
+	@Test
+	void testLazyTextSubstitutions() throws Exception {
+		File dynamicContentDir = new File(getDynamicContentDir());
+		IO.deleteContent(dynamicContentDir);
+
+		File propertiesDir = new File(dynamicContentDir, "properties");
+		File inputDir = new File(dynamicContentDir, "input");
+		File outputDir = new File(dynamicContentDir, "output");
+
+		IO.mkdirs(propertiesDir);
+		writeRulesData(propertiesDir.getPath());
+		// No input matches the selector of the missing substitutions.
+		new TextRulesData(LAZY_MASTER_PROPERTIES, "*.ext0=ext0.properties", "*.missing=missing.properties")
+			.write(propertiesDir.getPath());
+
+		IO.mkdirs(inputDir);
+		IO.mkdirs(outputDir);
+		TestUtils.writeInputData(inputDir.getPath(), NUM_FILES, NUM_EXTS, TestTransformerMultiText::getInputName,
+			INPUT_TEXT);
+
+		Map<AppOption, List<String>> options = new HashMap<>();
+		options.put(AppOption.RULES_MASTER_TEXT,
+			Arrays.asList(new File(propertiesDir, LAZY_MASTER_PROPERTIES).getPath()));
+
+		// Substitutions are loaded when used: The missing substitutions are
+		// never needed.
+		runTransformer(inputDir.getPath(), outputDir.getPath(), options);
+
+		assertThat(TestUtils.readOutputFile(new File(outputDir, getInputName(0, 0)).getPath()))
+			.isEqualTo("The slow brown fox jumps over the happy dog.");
+
+		// Validation loads all substitutions, and fails on the missing
+		// substitutions.
+		options.put(AppOption.VALIDATE_RULES, Arrays.asList("true"));
+		Transformer transformer = new Transformer(new SubstituteLoggerFactory().getLogger(getName()),
+			new TransformOptions() {
+				@Override
+				public List<String> getOptionValues(AppOption option) {
+					return options.get(option);
+				}
+			});
+		assertThatThrownBy(() -> transformer.setRules(transformer.getImmediateData()))
+			.hasMessageContaining("missing.properties");
+	}
+
+	@Test
+	void testLazyTextSubstitutionsFailure() throws Exception {
+		File dynamicContentDir = new File(getDynamicContentDir());
+		IO.deleteContent(dynamicContentDir);
+
+		File propertiesDir = new File(dynamicContentDir, "properties");
+		File inputDir = new File(dynamicContentDir, "input");
+		File outputDir = new File(dynamicContentDir, "output");
+
+		IO.mkdirs(propertiesDir);
+		writeRulesData(propertiesDir.getPath());
+		// Every ".ext0" input matches the selector of the missing
+		// substitutions.
+		new TextRulesData(LAZY_MASTER_PROPERTIES, "*.ext0=missing.properties", "*.ext1=ext1.properties")
+			.write(propertiesDir.getPath());
+
+		IO.mkdirs(inputDir);
+		IO.mkdirs(outputDir);
+		TestUtils.writeInputData(inputDir.getPath(), NUM_FILES, NUM_EXTS, TestTransformerMultiText::getInputName,
+			INPUT_TEXT);
+
+		Map<AppOption, List<String>> options = new HashMap<>();
+		options.put(AppOption.RULES_MASTER_TEXT,
+			Arrays.asList(new File(propertiesDir, LAZY_MASTER_PROPERTIES).getPath()));
+
+		SubstituteLoggerFactory loggerFactory = new SubstituteLoggerFactory();
+		Transformer transformer = new Transformer(loggerFactory.getLogger(getName()), new TransformOptions() {
+			@Override
+			public String getInputFileName() {
+				return inputDir.getPath();
+			}
+
+			@Override
+			public String getOutputFileName() {
+				return outputDir.getPath();
+			}
+
+			@Override
+			public List<String> getOptionValues(AppOption option) {
+				return options.get(option);
+			}
+		});
+
+		// The run fails as a rules error, and the load failure is logged once,
+		// although it is met by every ".ext0" input.
+		assertThat(transformer.run()).isEqualTo(ResultCode.RULES_ERROR_RC);
+		assertThat(loggerFactory.getEventQueue())
+			.filteredOn(event -> (event.getLevel() == Level.ERROR) && event.getMessage()
+				.startsWith("Failed to load substitutions"))
+			.hasSize(1);
+
+		// Inputs which match other selectors are still transformed.
+		assertThat(TestUtils.readOutputFile(new File(outputDir, getInputName(0, 1)).getPath()))
+			.isNotEqualTo(INPUT_TEXT);
+	}
+
+	@Test
+	void testRulesSnapshot() throws Exception {
+		File dynamicContentDir = new File(getDynamicContentDir());
+		IO.deleteContent(dynamicContentDir);
+
+		File propertiesDir = new File(dynamicContentDir, "properties");
+		File inputDir = new File(dynamicContentDir, "input");
+		File outputDir = new File(dynamicContentDir, "output");
+		File snapshotFile = new File(dynamicContentDir, "rules.snapshot");
+
+		IO.mkdirs(propertiesDir);
+		writeRulesData(propertiesDir.getPath());
+
+		IO.mkdirs(inputDir);
+		IO.mkdirs(outputDir);
+		TestUtils.writeInputData(inputDir.getPath(), NUM_FILES, NUM_EXTS, TestTransformerMultiText::getInputName,
+			INPUT_TEXT);
+
+		Map<AppOption, List<String>> compileOptions = new HashMap<>();
+		compileOptions.put(AppOption.RULES_MASTER_TEXT,
+			Arrays.asList(new File(propertiesDir, TIER0_MASTER_PROPERTIES).getPath(),
+				new File(propertiesDir, TIER1_MASTER_PROPERTIES).getPath(),
+				new File(propertiesDir, TIER2_MASTER_PROPERTIES).getPath()));
+		compileOptions.put(AppOption.RULES_COMPILE, Arrays.asList(snapshotFile.getPath()));
+
+		Transformer compiler = new Transformer(new SubstituteLoggerFactory().getLogger(getName()),
+			new TransformOptions() {
+				@Override
+				public List<String> getOptionValues(AppOption option) {
+					return compileOptions.get(option);
+				}
+			});
+		assertThat(compiler.run()).isEqualTo(Transformer.ResultCode.SUCCESS_RC);
+		assertThat(snapshotFile).isFile();
+
+		RulesSnapshot snapshot = RulesSnapshot.read(snapshotFile);
+		Transformer loaded = new Transformer(new SubstituteLoggerFactory().getLogger(getName()),
+			new TransformOptions() {});
+		snapshot.applyTo(loaded);
+		assertThat(loaded.masterTextUpdates).isEqualTo(compiler.masterTextUpdates);
+		assertThat(loaded.masterSubstitutionRefs).isEqualTo(compiler.masterSubstitutionRefs);
+		assertThat(loaded.packageRenames).isNull();
+
+		// The same rules always produce the same snapshot.
+		ByteArrayOutputStream snapshotBytes = new ByteArrayOutputStream();
+		snapshot.write(snapshotBytes);
+		assertThat(snapshotBytes.toByteArray()).isEqualTo(IO.read(snapshotFile));
+
+		Map<AppOption, List<String>> options = new HashMap<>();
+		options.put(AppOption.RULES_SNAPSHOT, Arrays.asList(snapshotFile.getPath()));
+		runTransformer(inputDir.getPath(), outputDir.getPath(), options);
+
+		TestUtils.verifyOutput(
+			outputDir.getPath(), NUM_FILES, NUM_EXTS,
+			TestTransformerMultiText::getInputName,
+			TestTransformerMultiText::getExtension,
+			OUTPUT_TEXT_MAP);
+	}
+
+	@Test
+	void testRulesSnapshotCorrupt() throws Exception {
+		File dynamicContentDir = new File(getDynamicContentDir());
+		IO.deleteContent(dynamicContentDir);
+
+		File propertiesDir = new File(dynamicContentDir, "properties");
+		File snapshotFile = new File(dynamicContentDir, "rules.snapshot");
+
+		IO.mkdirs(propertiesDir);
+		writeRulesData(propertiesDir.getPath());
+
+		Map<AppOption, List<String>> compileOptions = new HashMap<>();
+		compileOptions.put(AppOption.RULES_MASTER_TEXT,
+			Arrays.asList(new File(propertiesDir, TIER0_MASTER_PROPERTIES).getPath()));
+		compileOptions.put(AppOption.RULES_COMPILE, Arrays.asList(snapshotFile.getPath()));
+
+		Transformer compiler = new Transformer(new SubstituteLoggerFactory().getLogger(getName()),
+			new TransformOptions() {
+				@Override
+				public List<String> getOptionValues(AppOption option) {
+					return compileOptions.get(option);
+				}
+			});
+		assertThat(compiler.run()).isEqualTo(Transformer.ResultCode.SUCCESS_RC);
+		byte[] snapshotBytes = IO.read(snapshotFile);
+		String corrupt = "Corrupt rules snapshot [ " + snapshotFile.getAbsolutePath() + " ]";
+
+		// The size of the includes table follows the marker and the format.
+		for (int size : new int[] {
+			Integer.MAX_VALUE, -2
+		}) {
+			byte[] bytes = snapshotBytes.clone();
+			ByteBuffer.wrap(bytes)
+				.putInt(8, size);
+			IO.write(bytes, snapshotFile);
+			assertThatThrownBy(() -> RulesSnapshot.read(snapshotFile)).isInstanceOf(IOException.class)
+				.hasMessageStartingWith(corrupt)
+				.hasMessageContaining("Invalid size [ " + size + " ] at offset [ 8 ]");
+		}
+
+		IO.write(Arrays.copyOf(snapshotBytes, snapshotBytes.length - 3), snapshotFile);
+		assertThatThrownBy(() -> RulesSnapshot.read(snapshotFile)).isInstanceOf(IOException.class)
+			.hasMessageStartingWith(corrupt);
+	}
 }
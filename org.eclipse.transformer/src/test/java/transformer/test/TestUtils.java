@@ -13,7 +13,10 @@ package transformer.test;
 
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -24,11 +27,14 @@ import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +44,7 @@ import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.jar.Manifest;
 import java.util.stream.Stream;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
@@ -45,8 +52,19 @@ import java.util.zip.ZipOutputStream;
 
 import aQute.bnd.exceptions.Exceptions;
 import aQute.lib.io.IO;
+import org.eclipse.transformer.action.ActionContext;
+import org.eclipse.transformer.action.ActionType;
+import org.eclipse.transformer.action.EntryListener;
+import org.eclipse.transformer.action.ProgressListener;
+import org.eclipse.transformer.action.impl.SelectionRuleImpl;
+import org.eclipse.transformer.action.impl.ServiceLoaderConfigActionImpl;
+import org.eclipse.transformer.action.impl.SignatureRuleImpl;
+import org.eclipse.transformer.action.impl.TransformMemo;
+import org.eclipse.transformer.action.impl.ZipActionImpl;
+import org.eclipse.transformer.metrics.Metrics;
 import org.junit.jupiter.api.Assertions;
 import org.opentest4j.AssertionFailedError;
+import org.slf4j.Logger;
 import org.slf4j.event.LoggingEvent;
 import org.slf4j.helpers.FormattingTuple;
 import org.slf4j.helpers.MessageFormatter;
@@ -476,6 +494,236 @@ public class TestUtils {
 
 	//
 
+	/**
+	 * Write an entry to a zip stream. Stored entries are written with their
+	 * size and CRC.
+	 */
+	public static void putEntry(ZipOutputStream zipOutputStream, String name, byte[] bytes, int method)
+		throws IOException {
+		ZipEntry entry = new ZipEntry(name);
+		entry.setMethod(method);
+		if (method == ZipEntry.STORED) {
+			CRC32 crc = new CRC32();
+			crc.update(bytes);
+			entry.setSize(bytes.length);
+			entry.setCrc(crc.getValue());
+		}
+		zipOutputStream.putNextEntry(entry);
+		zipOutputStream.write(bytes);
+		zipOutputStream.closeEntry();
+	}
+
+	/** Renames which transform the jakarta sample resources to javax. */
+	public static final Map<String, String> JAKARTA_TO_JAVAX_RENAMES = Collections
+		.singletonMap(TestTransformServiceConfig.JAKARTA_SAMPLE, TestTransformServiceConfig.JAVAX_SAMPLE);
+
+	/** The name of the jakarta sample service loader configuration entry. */
+	public static final String SAMPLE_SERVICE_ENTRY = "META-INF/services/jakarta.sample.Reader";
+
+	/** Writes the entries of an archive. */
+	@FunctionalInterface
+	public interface EntryWriter {
+		void write(ZipOutputStream zipOutputStream) throws IOException;
+	}
+
+	/**
+	 * Answer the bytes of the jakarta sample service loader configuration.
+	 */
+	public static byte[] readSampleService() throws IOException {
+		try (InputStream inputStream = getResourceStream(
+			TestTransformServiceConfig.JAKARTA_SAMPLE_READER_SERVICE_PATH)) {
+			return inputStream.readAllBytes();
+		}
+	}
+
+	/**
+	 * Answer the bytes of a class which refers to javax and jakarta packages.
+	 */
+	public static byte[] readSampleClass() throws IOException {
+		try (InputStream inputStream = TestUtils.class.getResourceAsStream("TestUtils.class")) {
+			return inputStream.readAllBytes();
+		}
+	}
+
+	/**
+	 * Write the jakarta sample service loader configuration to a zip stream.
+	 */
+	public static void putSampleService(ZipOutputStream zipOutputStream, int method) throws IOException {
+		putEntry(zipOutputStream, SAMPLE_SERVICE_ENTRY, readSampleService(), method);
+	}
+
+	/**
+	 * Answer the bytes of an archive, for use as a nested archive.
+	 */
+	public static byte[] createArchiveBytes(EntryWriter entryWriter) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+			entryWriter.write(zipOutputStream);
+		}
+		return outputStream.toByteArray();
+	}
+
+	/**
+	 * Write an archive to a temporary file, which is deleted on exit.
+	 */
+	public static File createTempArchive(String prefix, String suffix, EntryWriter entryWriter) throws IOException {
+		File archiveFile = File.createTempFile(prefix, suffix);
+		archiveFile.deleteOnExit();
+		try (ZipOutputStream zipOutputStream = new ZipOutputStream(
+			new BufferedOutputStream(new FileOutputStream(archiveFile)))) {
+			entryWriter.write(zipOutputStream);
+		}
+		return archiveFile;
+	}
+
+	/**
+	 * Create an action context which renames the jakarta sample package to
+	 * javax.
+	 */
+	public static ActionContext createSampleContext(Logger logger) {
+		return createSampleContext(logger, Metrics.DISABLED, ProgressListener.NONE, EntryListener.NONE);
+	}
+
+	/**
+	 * Create an action context which renames the jakarta sample package to
+	 * javax. The signature rule records its cache metrics to the metrics.
+	 */
+	public static ActionContext createSampleContext(Logger logger, Metrics metrics, ProgressListener progress,
+		EntryListener entries) {
+		SignatureRuleImpl signatureRule = new SignatureRuleImpl(logger, JAKARTA_TO_JAVAX_RENAMES, null, null, null,
+			null, null, Collections.emptyMap());
+		signatureRule.setMetrics(metrics);
+		return new ActionContext(logger, new SelectionRuleImpl(logger, Collections.emptyMap(), Collections.emptyMap()),
+			signatureRule, metrics, progress, entries);
+	}
+
+	/**
+	 * Create a jar action which transforms service loader configurations.
+	 */
+	public static ZipActionImpl createJarAction(ActionContext context) {
+		ZipActionImpl jarAction = new ZipActionImpl(context, ActionType.JAR, false);
+		jarAction.addUsing(ServiceLoaderConfigActionImpl::new);
+		return jarAction;
+	}
+
+	/**
+	 * Create a jar action which transforms the jakarta sample service loader
+	 * configuration to javax, including in nested jars.
+	 *
+	 * @param logger The logger of the action.
+	 * @param memo The memo which deduplicates nested archives. Null to
+	 *            transform every nested archive.
+	 * @return The jar action.
+	 */
+	public static ZipActionImpl createNestingJarAction(Logger logger, TransformMemo memo) {
+		ZipActionImpl jarAction = createJarAction(createSampleContext(logger));
+		jarAction.addAction(jarAction);
+		jarAction.setMemo(memo);
+		return jarAction;
+	}
+
+	/**
+	 * Transform an archive to a temporary file, which is deleted on exit.
+	 *
+	 * @param jarAction The action which transforms the archive.
+	 * @param inputName The name of the archive.
+	 * @param inputJarFile The archive.
+	 * @return The transformed archive.
+	 * @throws IOException Thrown if the temporary file cannot be created.
+	 */
+	public static File transform(ZipActionImpl jarAction, String inputName, File inputJarFile) throws IOException {
+		final File outputJarFile = File.createTempFile("transformed", ".jar");
+		outputJarFile.delete();
+		outputJarFile.deleteOnExit();
+		jarAction.apply(inputName, inputJarFile, "transformed_" + inputName, outputJarFile);
+		return outputJarFile;
+	}
+
+	/**
+	 * Transform an archive of nested archives, and answer the content of the
+	 * entries of the nested archives, by path.
+	 *
+	 * @param jarAction The action which transforms the archive.
+	 * @param inputName The name of the archive.
+	 * @param inputJarFile The archive.
+	 * @return The content of the output entries of the nested archives.
+	 * @throws IOException Thrown if the output cannot be read.
+	 */
+	public static Map<String, byte[]> transformEntries(ZipActionImpl jarAction, String inputName, File inputJarFile)
+		throws IOException {
+		File outputJarFile = transform(jarAction, inputName, inputJarFile);
+
+		Map<String, byte[]> entries = new HashMap<>();
+		try (ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(outputJarFile))) {
+			for (ZipEntry entry; (entry = zipInputStream.getNextEntry()) != null;) {
+				try (ZipInputStream nestedStream = new ZipInputStream(new ByteArrayInputStream(
+					zipInputStream.readAllBytes()))) {
+					for (ZipEntry nestedEntry; (nestedEntry = nestedStream.getNextEntry()) != null;) {
+						entries.put(entry.getName() + "!/" + nestedEntry.getName(), nestedStream.readAllBytes());
+					}
+				}
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * Transform an archive, and answer the names, methods, and digests of the
+	 * output entries and of the entries of nested archives, in order.
+	 *
+	 * @param jarAction The action which transforms the archive.
+	 * @param inputName The name of the archive.
+	 * @param inputJarFile The archive.
+	 * @return The output entries. See {@link #orderedEntries(File)}.
+	 * @throws Exception Thrown if the output cannot be read.
+	 */
+	public static List<String> transformOrderedEntries(ZipActionImpl jarAction, String inputName, File inputJarFile)
+		throws Exception {
+		return orderedEntries(transform(jarAction, inputName, inputJarFile));
+	}
+
+	/**
+	 * Answer the names, methods, and digests of the entries of an archive and
+	 * the entries of its nested archives, in order.
+	 *
+	 * @param outputJarFile The archive.
+	 * @return The entries of the archive.
+	 * @throws Exception Thrown if the archive cannot be read.
+	 */
+	public static List<String> orderedEntries(File outputJarFile) throws Exception {
+		List<String> entries = new ArrayList<>();
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		try (ZipFile zipFile = new ZipFile(outputJarFile)) {
+			for (ZipEntry entry : Collections.list(zipFile.entries())) {
+				byte[] bytes;
+				try (InputStream inputStream = zipFile.getInputStream(entry)) {
+					bytes = inputStream.readAllBytes();
+				}
+				if (entry.getName()
+					.endsWith(".jar")) {
+					// Modified entries of nested archives are written with the
+					// current time: Compare the nested entries instead of the
+					// bytes of the nested archive.
+					entries.add(entry.getName() + " " + entry.getMethod());
+					try (ZipInputStream nestedStream = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+						for (ZipEntry nestedEntry; (nestedEntry = nestedStream.getNextEntry()) != null;) {
+							entries.add(entry.getName() + "!/" + nestedEntry.getName() + " " + nestedEntry.getMethod()
+								+ " " + HexFormat.of()
+									.formatHex(digest.digest(nestedStream.readAllBytes())));
+						}
+					}
+				} else {
+					entries.add(entry.getName() + " " + entry.getMethod() + " "
+						+ HexFormat.of()
+							.formatHex(digest.digest(bytes)));
+				}
+			}
+		}
+		return entries;
+	}
+
+	//
+
 	public static class ErrorAccumulator {
 		public final String			name;
 
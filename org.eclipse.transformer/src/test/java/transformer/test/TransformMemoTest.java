@@ -0,0 +1,66 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package transformer.test;
+
+import java.io.File;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+
+import org.eclipse.transformer.action.ContainerChanges;
+import org.eclipse.transformer.action.impl.TransformMemo;
+import org.eclipse.transformer.action.impl.ZipActionImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TransformMemoTest extends CaptureTest {
+	/**
+	 * Verify that identical nested archives are transformed once, and that
+	 * the output and the change counts are the same as when every nested
+	 * archive is transformed.
+	 *
+	 * @throws Exception Thrown in case of a IO failure or a transformation
+	 *             failure.
+	 */
+	@Test
+	public void testDeduplicatedArchives() throws Exception {
+		byte[] nested = TestUtils
+			.createArchiveBytes(zipOutputStream -> TestUtils.putSampleService(zipOutputStream, ZipEntry.DEFLATED));
+		File inputJarFile = TestUtils.createTempArchive("dedup", ".jar", zipOutputStream -> {
+			TestUtils.putEntry(zipOutputStream, "lib/a.jar", nested, ZipEntry.DEFLATED);
+			TestUtils.putEntry(zipOutputStream, "lib/b.jar", nested, ZipEntry.STORED);
+			TestUtils.putEntry(zipOutputStream, "lib/c.jar", nested, ZipEntry.DEFLATED);
+		});
+
+		ZipActionImpl plainAction = TestUtils.createNestingJarAction(getCaptureLogger(), null);
+		Map<String, byte[]> plain = TestUtils.transformEntries(plainAction, "dedup.jar", inputJarFile);
+		ContainerChanges plainChanges = plainAction.getLastActiveChanges();
+		Assertions.assertEquals(0, plainChanges.getAllDeduplicated());
+		Assertions.assertTrue(plain.containsKey("lib/b.jar!/META-INF/services/javax.sample.Reader"));
+
+		// No memory: The memoized output is written to a temporary file.
+		try (TransformMemo memo = new TransformMemo(getCaptureLogger(), 0L, TransformMemo.DEFAULT_MAX_INPUT_SIZE)) {
+			ZipActionImpl memoAction = TestUtils.createNestingJarAction(getCaptureLogger(), memo);
+			Map<String, byte[]> deduplicated = TestUtils.transformEntries(memoAction, "dedup.jar", inputJarFile);
+			ContainerChanges memoChanges = memoAction.getLastActiveChanges();
+			Assertions.assertEquals(2, memoChanges.getAllDeduplicated());
+			Assertions.assertTrue(memo.getSpilledBytes() > 0L);
+
+			Assertions.assertEquals(plain.keySet(), deduplicated.keySet());
+			for (Map.Entry<String, byte[]> entry : plain.entrySet()) {
+				Assertions.assertArrayEquals(entry.getValue(), deduplicated.get(entry.getKey()), entry.getKey());
+			}
+			Assertions.assertEquals(plainChanges.getAllResources(), memoChanges.getAllResources());
+			Assertions.assertEquals(plainChanges.getAllChanged(), memoChanges.getAllChanged());
+			Assertions.assertEquals(plainChanges.getAllContentChanged(), memoChanges.getAllContentChanged());
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package transformer.test;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.eclipse.transformer.action.impl.ClassActionImpl;
+import org.eclipse.transformer.action.impl.ZipActionImpl;
+import org.eclipse.transformer.jfr.TransformerEvents;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TransformerEventsTest extends CaptureTest {
+	/**
+	 * Verify that transforming an archive emits flight recorder events for the
+	 * archive, for its entries, for its classes, and for signature cache
+	 * misses.
+	 *
+	 * @throws Exception Thrown in case of a IO failure or a transformation
+	 *             failure.
+	 */
+	@Test
+	public void testFlightRecorderEvents() throws Exception {
+		Assertions.assertTrue(TransformerEvents.isAvailable());
+
+		byte[] service = TestUtils.readSampleService();
+		byte[] classBytes = TestUtils.readSampleClass();
+		File inputJarFile = TestUtils.createTempArchive("events", ".jar", zipOutputStream -> {
+			TestUtils.putEntry(zipOutputStream, TestUtils.SAMPLE_SERVICE_ENTRY, service, ZipEntry.DEFLATED);
+			TestUtils.putEntry(zipOutputStream, "transformer/test/TestUtils.class", classBytes, ZipEntry.DEFLATED);
+		});
+
+		ZipActionImpl jarAction = TestUtils.createNestingJarAction(getCaptureLogger(), null);
+		jarAction.addUsing(ClassActionImpl::new);
+
+		final File recordingFile = File.createTempFile("events", ".jfr");
+		recordingFile.deleteOnExit();
+		try (Recording recording = new Recording()) {
+			for (String eventName : new String[] {
+				"org.eclipse.transformer.Action", "org.eclipse.transformer.Entry", "org.eclipse.transformer.Class",
+				"org.eclipse.transformer.SignatureCacheMiss"
+			}) {
+				recording.enable(eventName)
+					.withThreshold(Duration.ZERO);
+			}
+			recording.start();
+			TestUtils.transform(jarAction, "events.jar", inputJarFile);
+			recording.stop();
+			recording.dump(recordingFile.toPath());
+		}
+
+		Map<String, List<RecordedEvent>> events = new HashMap<>();
+		for (RecordedEvent event : RecordingFile.readAllEvents(recordingFile.toPath())) {
+			events.computeIfAbsent(event.getEventType()
+				.getName(), name -> new ArrayList<>())
+				.add(event);
+		}
+
+		RecordedEvent jarEvent = events.get("org.eclipse.transformer.Action")
+			.stream()
+			.filter(event -> "JAR".equals(event.getString("actionType")))
+			.findFirst()
+			.orElseThrow();
+		Assertions.assertEquals("events.jar", jarEvent.getString("resourceName"));
+		Assertions.assertEquals(inputJarFile.length(), jarEvent.getLong("inputBytes"));
+		Assertions.assertTrue(jarEvent.getLong("outputBytes") > 0L);
+
+		List<RecordedEvent> entryEvents = events.get("org.eclipse.transformer.Entry");
+		Assertions.assertEquals(2, entryEvents.size());
+		RecordedEvent serviceEvent = entryEvents.stream()
+			.filter(event -> TestUtils.SAMPLE_SERVICE_ENTRY.equals(event.getString("entryName")))
+			.findFirst()
+			.orElseThrow();
+		Assertions.assertEquals("events.jar", serviceEvent.getString("containerName"));
+		Assertions.assertEquals("SERVICE_LOADER_CONFIG", serviceEvent.getString("actionType"));
+		Assertions.assertEquals(service.length, serviceEvent.getLong("inputBytes"));
+		Assertions.assertNotNull(serviceEvent.getString("outcome"));
+
+		List<RecordedEvent> classEvents = events.get("org.eclipse.transformer.Class");
+		Assertions.assertEquals(1, classEvents.size());
+		RecordedEvent classEvent = classEvents.get(0);
+		Assertions.assertEquals("transformer/test/TestUtils.class", classEvent.getString("resourceName"));
+		Assertions.assertEquals("transformer/test/TestUtils", classEvent.getString("inputClassName"));
+		Assertions.assertEquals(classBytes.length, classEvent.getLong("inputBytes"));
+		Assertions.assertTrue(classEvent.getLong("outputBytes") > 0L);
+
+		Assertions.assertFalse(events.get("org.eclipse.transformer.SignatureCacheMiss")
+			.isEmpty());
+	}
+}
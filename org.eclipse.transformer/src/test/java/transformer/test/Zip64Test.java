@@ -0,0 +1,51 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package transformer.test;
+
+import java.io.File;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.eclipse.transformer.action.impl.ZipActionImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.helpers.NOPLogger;
+
+public class Zip64Test {
+	/**
+	 * Verify that an archive which has more entries than fit a zip central
+	 * directory, and which is therefore written in the Zip64 format, is
+	 * transformed.
+	 *
+	 * @throws Exception Thrown in case of a IO failure or a transformation
+	 *             failure.
+	 */
+	@Test
+	public void testZip64Entries() throws Exception {
+		final int entryCount = 0x10000 + 16;
+		File inputJarFile = TestUtils.createTempArchive("zip64", ".jar", zipOutputStream -> {
+			TestUtils.putSampleService(zipOutputStream, ZipEntry.DEFLATED);
+			for (int entryNo = 1; entryNo < entryCount; entryNo++) {
+				TestUtils.putEntry(zipOutputStream, "data/" + entryNo + ".bin", new byte[0], ZipEntry.STORED);
+			}
+		});
+
+		// Don't capture the logging of every entry.
+		ZipActionImpl jarAction = TestUtils.createJarAction(TestUtils.createSampleContext(NOPLogger.NOP_LOGGER));
+		File outputJarFile = TestUtils.transform(jarAction, "zip64.jar", inputJarFile);
+
+		try (ZipFile zipFile = new ZipFile(outputJarFile)) {
+			Assertions.assertEquals(entryCount, zipFile.size());
+			Assertions.assertNotNull(zipFile.getEntry("META-INF/services/javax.sample.Reader"));
+		}
+	}
+}
@@ -0,0 +1,102 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package transformer.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.eclipse.transformer.action.impl.ZipActionImpl;
+import org.eclipse.transformer.action.impl.ZipDelta;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ZipDeltaTest extends CaptureTest {
+	/**
+	 * Verify that a delta update of a previous output has the same entries,
+	 * in the same order, as a full transform of the new input, and that only
+	 * the changed entries are transformed.
+	 *
+	 * @throws Exception Thrown in case of a IO failure or a transformation
+	 *             failure.
+	 */
+	@Test
+	public void testDeltaUpdate() throws Exception {
+		byte[] nested = TestUtils
+			.createArchiveBytes(zipOutputStream -> TestUtils.putSampleService(zipOutputStream, ZipEntry.DEFLATED));
+		Random random = new Random(40L);
+		byte[][] data = new byte[4][];
+		for (int entryNo = 0; entryNo < data.length; entryNo++) {
+			data[entryNo] = new byte[1024];
+			random.nextBytes(data[entryNo]);
+		}
+
+		File previousInputFile = TestUtils.createTempArchive("delta_previous", ".jar", zipOutputStream -> {
+			TestUtils.putEntry(zipOutputStream, "data/0.bin", data[0], ZipEntry.DEFLATED);
+			TestUtils.putEntry(zipOutputStream, "data/1.bin", data[1], ZipEntry.STORED);
+			TestUtils.putEntry(zipOutputStream, "lib/a.jar", nested, ZipEntry.STORED);
+			TestUtils.putEntry(zipOutputStream, "data/2.bin", data[2], ZipEntry.DEFLATED);
+		});
+		// Change one entry, remove one entry, and add two entries.
+		File inputFile = TestUtils.createTempArchive("delta", ".jar", zipOutputStream -> {
+			TestUtils.putSampleService(zipOutputStream, ZipEntry.DEFLATED);
+			TestUtils.putEntry(zipOutputStream, "data/0.bin", data[0], ZipEntry.DEFLATED);
+			TestUtils.putEntry(zipOutputStream, "data/1.bin", data[3], ZipEntry.STORED);
+			TestUtils.putEntry(zipOutputStream, "lib/a.jar", nested, ZipEntry.STORED);
+			TestUtils.putEntry(zipOutputStream, "data/3.bin", data[3], ZipEntry.DEFLATED);
+		});
+
+		File previousOutputFile = TestUtils.transform(createJarAction(), "delta_previous.jar", previousInputFile);
+		List<String> full = TestUtils.transformOrderedEntries(createJarAction(), "delta.jar", inputFile);
+		Assertions.assertTrue(full.get(0)
+			.startsWith("META-INF/services/javax.sample.Reader 8 "));
+
+		final File outputFile = File.createTempFile("delta_output", ".jar");
+		outputFile.deleteOnExit();
+		ZipActionImpl deltaAction = createJarAction();
+		ZipDelta.Result result = new ZipDelta(deltaAction).apply("delta.jar", previousInputFile, previousOutputFile,
+			inputFile, "delta_output.jar", outputFile);
+		Assertions.assertEquals(new ZipDelta.Result(2, 3, 1, false), result);
+		// Only the changed entries were transformed.
+		Assertions.assertEquals(3, deltaAction.getLastActiveChanges()
+			.getAllResources());
+		Assertions.assertEquals(full, TestUtils.orderedEntries(outputFile));
+		try (ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(outputFile))) {
+			int count = 0;
+			while (zipInputStream.getNextEntry() != null) {
+				zipInputStream.readAllBytes();
+				count++;
+			}
+			Assertions.assertEquals(full.size() - 1, count); // Less the nested entry
+		}
+
+		// Update the previous output in place.
+		result = new ZipDelta(createJarAction()).apply("delta.jar", previousInputFile, previousOutputFile,
+			inputFile, "delta_previous_output.jar", previousOutputFile);
+		Assertions.assertFalse(result.full());
+		Assertions.assertEquals(full, TestUtils.orderedEntries(previousOutputFile));
+
+		// A previous output which does not match the previous input causes a
+		// full transform.
+		result = new ZipDelta(createJarAction()).apply("delta.jar", inputFile, previousInputFile,
+			inputFile, "delta_output.jar", outputFile);
+		Assertions.assertTrue(result.full());
+		Assertions.assertEquals(full, TestUtils.orderedEntries(outputFile));
+	}
+
+	private ZipActionImpl createJarAction() {
+		return TestUtils.createNestingJarAction(getCaptureLogger(), null);
+	}
+}
@@ -0,0 +1,75 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package transformer.test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+
+import org.eclipse.transformer.action.ContainerChanges;
+import org.eclipse.transformer.action.impl.ZipActionImpl;
+import org.eclipse.transformer.action.impl.ZipPipeline;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ZipPipelineTest extends CaptureTest {
+	/**
+	 * Verify that an archive which is transformed by a pipeline has the same
+	 * entries, in the same order, as when the archive is transformed without
+	 * a pipeline, including entries which are larger than the memory limit of
+	 * the pipeline.
+	 *
+	 * @throws Exception Thrown in case of a IO failure or a transformation
+	 *             failure.
+	 */
+	@Test
+	public void testPipelinedEntries() throws Exception {
+		byte[] nested = TestUtils
+			.createArchiveBytes(zipOutputStream -> TestUtils.putSampleService(zipOutputStream, ZipEntry.DEFLATED));
+		Random random = new Random(39L);
+		File inputJarFile = TestUtils.createTempArchive("pipelined", ".jar", zipOutputStream -> {
+			TestUtils.putSampleService(zipOutputStream, ZipEntry.DEFLATED);
+			TestUtils.putEntry(zipOutputStream, "data/", new byte[0], ZipEntry.STORED);
+			for (int entryNo = 0; entryNo < 50; entryNo++) {
+				byte[] data = new byte[1024 + random.nextInt(2048)];
+				random.nextBytes(data);
+				TestUtils.putEntry(zipOutputStream, "data/" + entryNo + ".bin", data,
+					((entryNo % 2) == 0) ? ZipEntry.STORED : ZipEntry.DEFLATED);
+			}
+			byte[] large = new byte[200 * 1024];
+			random.nextBytes(large);
+			TestUtils.putEntry(zipOutputStream, "data/large-deflated.bin", large, ZipEntry.DEFLATED);
+			TestUtils.putEntry(zipOutputStream, "data/large-stored.bin", large, ZipEntry.STORED);
+			TestUtils.putEntry(zipOutputStream, "lib/a.jar", nested, ZipEntry.DEFLATED);
+			TestUtils.putEntry(zipOutputStream, "lib/b.jar", nested, ZipEntry.STORED);
+		});
+
+		ZipActionImpl serialAction = TestUtils.createNestingJarAction(getCaptureLogger(), null);
+		List<String> serial = TestUtils.transformOrderedEntries(serialAction, "pipelined.jar", inputJarFile);
+		ContainerChanges serialChanges = serialAction.getLastActiveChanges();
+		Assertions.assertTrue(serial.stream()
+			.anyMatch(entry -> entry.startsWith("lib/b.jar!/META-INF/services/javax.sample.Reader 8 ")));
+
+		for (ZipPipeline pipeline : List.of(new ZipPipeline(), new ZipPipeline(1, 1, 64 * 1024))) {
+			ZipActionImpl pipelinedAction = TestUtils.createNestingJarAction(getCaptureLogger(), null);
+			pipelinedAction.setPipeline(pipeline);
+			List<String> pipelined = TestUtils.transformOrderedEntries(pipelinedAction, "pipelined.jar", inputJarFile);
+			ContainerChanges pipelinedChanges = pipelinedAction.getLastActiveChanges();
+
+			Assertions.assertEquals(serial, pipelined, pipeline.toString());
+			Assertions.assertEquals(serialChanges.getAllResources(), pipelinedChanges.getAllResources());
+			Assertions.assertEquals(serialChanges.getAllUnselected(), pipelinedChanges.getAllUnselected());
+			Assertions.assertEquals(serialChanges.getAllContentChanged(), pipelinedChanges.getAllContentChanged());
+		}
+	}
+}
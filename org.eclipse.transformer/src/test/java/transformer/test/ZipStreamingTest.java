@@ -0,0 +1,89 @@
+/********************************************************************************
+ * Copyright (c) Contributors to the Eclipse Foundation
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: (EPL-2.0 OR Apache-2.0)
+ ********************************************************************************/
+
+package transformer.test;
+
+import static transformer.test.TestTransformServiceConfig.COMPLEX_RESOURCE_PATH;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.eclipse.transformer.action.impl.PropertiesActionImpl;
+import org.eclipse.transformer.action.impl.ZipActionImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ZipStreamingTest extends CaptureTest {
+	/**
+	 * Verify that entries which are too large to be collected are streamed:
+	 * Streaming actions transform the entries as they are read, and other
+	 * actions copy the entries unchanged. Stored entries are written with the
+	 * size and CRC of the transformed data.
+	 *
+	 * @throws Exception Thrown in case of a IO failure or a transformation
+	 *             failure.
+	 */
+	@Test
+	public void testStreamedEntries() throws Exception {
+		byte[] properties;
+		try (InputStream inputStream = TestUtils.getResourceStream(COMPLEX_RESOURCE_PATH)) {
+			properties = inputStream.readAllBytes();
+		}
+		byte[] service = TestUtils.readSampleService();
+
+		for (int method : new int[] {
+			ZipEntry.STORED, ZipEntry.DEFLATED
+		}) {
+			File inputJarFile = TestUtils.createTempArchive("streamed", ".jar", zipOutputStream -> {
+				TestUtils.putEntry(zipOutputStream, COMPLEX_RESOURCE_PATH, properties, method);
+				TestUtils.putSampleService(zipOutputStream, method);
+			});
+
+			Map<String, byte[]> collected = transformEntries(inputJarFile, ZipActionImpl.DEFAULT_STREAMING_THRESHOLD,
+				method);
+			Map<String, byte[]> streamed = transformEntries(inputJarFile, 0L, method);
+
+			Assertions.assertArrayEquals(collected.get(COMPLEX_RESOURCE_PATH), streamed.get(COMPLEX_RESOURCE_PATH));
+			Assertions.assertTrue(new String(streamed.get(COMPLEX_RESOURCE_PATH), StandardCharsets.UTF_8)
+				.contains("test=javax.sample.ReaderImpl"));
+			Assertions.assertTrue(collected.containsKey("META-INF/services/javax.sample.Reader"));
+			// The service loader action is not a streaming action.
+			Assertions.assertArrayEquals(service, streamed.get(TestUtils.SAMPLE_SERVICE_ENTRY));
+		}
+	}
+
+	private Map<String, byte[]> transformEntries(File inputJarFile, long streamingThreshold, int method)
+		throws IOException {
+		ZipActionImpl jarAction = TestUtils.createJarAction(TestUtils.createSampleContext(getCaptureLogger()));
+		jarAction.addUsing(PropertiesActionImpl::new);
+		jarAction.setStreamingThreshold(streamingThreshold);
+		File outputJarFile = TestUtils.transform(jarAction, "streamed.jar", inputJarFile);
+		Assertions.assertEquals(0, jarAction.getLastActiveChanges()
+			.getAllFailed());
+
+		Map<String, byte[]> entries = new HashMap<>();
+		try (ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(outputJarFile))) {
+			for (ZipEntry entry; (entry = zipInputStream.getNextEntry()) != null;) {
+				Assertions.assertEquals(method, entry.getMethod());
+				// Stored entries are verified against their CRC as they are read.
+				entries.put(entry.getName(), zipInputStream.readAllBytes());
+			}
+		}
+		return entries;
+	}
+}